@@ -0,0 +1,130 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging.benchmark;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.helpers.NOPAppender;
+import com.adeptj.runtime.tools.logging.ExtAsyncAppender;
+import com.adeptj.runtime.tools.logging.LogbackManager;
+import com.adeptj.runtime.tools.logging.RingBufferAsyncAppender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and per event latency of the async appenders at one, four and as many producer threads as there are
+ * processors. The events are drained into a no-op appender so only the hand-over is measured, nothing is discarded.
+ * <p>
+ * Note: with a single processor the producers and the worker compete for it and the numbers say little.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AsyncAppenderBenchmark {
+
+    @Param({"stock", "ringBuffer"})
+    public String type;
+
+    @Param({"1024"})
+    public int queueSize;
+
+    private UnsynchronizedAppenderBase<ILoggingEvent> appender;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        NOPAppender<ILoggingEvent> sink = new NOPAppender<>();
+        sink.setName("NOP");
+        sink.start();
+        if ("ringBuffer".equals(this.type)) {
+            RingBufferAsyncAppender ringBufferAppender = new RingBufferAsyncAppender();
+            ringBufferAppender.setQueueSize(this.queueSize);
+            ringBufferAppender.setDiscardingThreshold(0);
+            ringBufferAppender.addAppender(sink);
+            this.appender = ringBufferAppender;
+        } else {
+            ExtAsyncAppender asyncAppender = new ExtAsyncAppender();
+            asyncAppender.setQueueSize(this.queueSize);
+            asyncAppender.setDiscardingThreshold(0);
+            asyncAppender.addAppender(sink);
+            this.appender = asyncAppender;
+        }
+        this.appender.setName("ASYNC");
+        this.appender.setContext(LogbackManager.getInstance().getLoggerContext());
+        this.appender.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.appender.stop();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void oneProducer(Producer producer) {
+        this.appender.doAppend(producer.event);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void fourProducers(Producer producer) {
+        this.appender.doAppend(producer.event);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void maxProducers(Producer producer) {
+        this.appender.doAppend(producer.event);
+    }
+
+    /**
+     * Each producer thread appends its own event, events are not meant to be shared between threads.
+     */
+    @State(Scope.Thread)
+    public static class Producer {
+
+        LoggingEvent event;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            this.event = Events.newEvent();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging.benchmark;
+
+import ch.qos.logback.classic.PatternLayout;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import com.adeptj.runtime.tools.logging.ExtHighlightingCompositeConverter;
+import com.adeptj.runtime.tools.logging.ExtThreadConverter;
+import com.adeptj.runtime.tools.logging.LogbackManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the %thread and %highlight converters on their own, {@link ExtThreadConverter} and
+ * {@link ExtHighlightingCompositeConverter} against Logback's stock ones.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConverterBenchmark {
+
+    @Param({"%thread", "%highlight(%-5level)"})
+    public String pattern;
+
+    private ILoggingEvent event;
+
+    private PatternLayout extLayout;
+
+    private PatternLayout stockLayout;
+
+    @Setup
+    public void setup() {
+        this.event = Events.newEvent();
+        // The layout of the encoder has the Ext converters registered.
+        this.extLayout = (PatternLayout) LogbackManager.getInstance().createLayoutEncoder(this.pattern).getLayout();
+        this.stockLayout = new PatternLayout();
+        this.stockLayout.setContext(LogbackManager.getInstance().getLoggerContext());
+        this.stockLayout.setPattern(this.pattern);
+        this.stockLayout.start();
+    }
+
+    @Benchmark
+    public String ext() {
+        return this.extLayout.doLayout(this.event);
+    }
+
+    @Benchmark
+    public String stock() {
+        return this.stockLayout.doLayout(this.event);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging.benchmark;
+
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import com.adeptj.runtime.tools.logging.LogbackManager;
+import com.adeptj.runtime.tools.logging.ReusableBufferPatternEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The full encode path of a typical pattern, with and without %highlight: the encoder created by
+ * {@link LogbackManager#createLayoutEncoder(String)}, both into its reusable buffer and into a new byte array, against
+ * Logback's stock {@link PatternLayoutEncoder}.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncoderBenchmark {
+
+    @Param({"false", "true"})
+    public boolean highlight;
+
+    private ILoggingEvent event;
+
+    private ReusableBufferPatternEncoder encoder;
+
+    private PatternLayoutEncoder stockEncoder;
+
+    @Setup
+    public void setup() {
+        String pattern = this.highlight ? Events.HIGHLIGHT_PATTERN : Events.PATTERN;
+        this.event = Events.newEvent();
+        this.encoder = (ReusableBufferPatternEncoder) LogbackManager.getInstance().createLayoutEncoder(pattern);
+        this.stockEncoder = new PatternLayoutEncoder();
+        this.stockEncoder.setContext(LogbackManager.getInstance().getLoggerContext());
+        this.stockEncoder.setPattern(pattern);
+        this.stockEncoder.start();
+    }
+
+    @Benchmark
+    public ByteBuffer encodeToBuffer() {
+        return this.encoder.encodeToBuffer(this.event);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return this.encoder.encode(this.event);
+    }
+
+    @Benchmark
+    public byte[] stockEncode() {
+        return this.stockEncoder.encode(this.event);
+    }
+}
@@ -0,0 +1,56 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import com.adeptj.runtime.tools.logging.LogbackManager;
+
+/**
+ * Builds the logging events the benchmarks work with.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+final class Events {
+
+    static final String PATTERN = "%d{yyyy-MM-dd HH:mm:ss.SSS} [%thread] %-5level %logger{36} - %msg%n";
+
+    static final String HIGHLIGHT_PATTERN = "%d{yyyy-MM-dd HH:mm:ss.SSS} [%thread] %highlight(%-5level) "
+            + "%logger{36} - %msg%n";
+
+    private static final String THREAD_NAME = "qtp1311544814-47";
+
+    private Events() {
+    }
+
+    /**
+     * A typical INFO event with two arguments, logged from a pooled Jetty thread.
+     */
+    static LoggingEvent newEvent() {
+        Logger logger = LogbackManager.getInstance().getLoggerContext()
+                .getLogger("com.adeptj.runtime.tools.logging.benchmark.Events");
+        LoggingEvent event = new LoggingEvent(Logger.class.getName(), logger, Level.INFO,
+                "Request [{}] served in [{}] ms", null, new Object[]{"/tools/dashboard", 12});
+        event.setThreadName(THREAD_NAME);
+        return event;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import com.adeptj.runtime.tools.logging.LogStormFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the {@link LogStormFilter} decision: for a logger without a rule, for one with a rule but an event below
+ * its level, and for a storm of duplicates from all threads which is being collapsed.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LogStormFilterBenchmark {
+
+    private static final String FORMAT = "Connection to [{}] refused";
+
+    private static final Object[] PARAMS = {"db1"};
+
+    private LogStormFilter filter;
+
+    private Logger unrestricted;
+
+    private Logger restricted;
+
+    @Setup
+    public void setup() {
+        LoggerContext loggerContext = new LoggerContext();
+        this.filter = new LogStormFilter();
+        this.filter.setContext(loggerContext);
+        this.filter.start();
+        this.filter.setRule("com.example.storm", new LogStormFilter.Rule(Level.WARN, 100, 10, 1000L));
+        this.unrestricted = loggerContext.getLogger("com.example.quiet.Service");
+        this.restricted = loggerContext.getLogger("com.example.storm.Service");
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.filter.stop();
+    }
+
+    @Benchmark
+    public FilterReply unrestricted() {
+        return this.filter.decide(null, this.unrestricted, Level.WARN, FORMAT, PARAMS, null);
+    }
+
+    @Benchmark
+    public FilterReply belowLevel() {
+        return this.filter.decide(null, this.restricted, Level.INFO, FORMAT, PARAMS, null);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public FilterReply collapsing() {
+        return this.filter.decide(null, this.restricted, Level.WARN, FORMAT, PARAMS, null);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging.benchmark;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.rolling.RollingFileAppender;
+import com.adeptj.runtime.tools.logging.LogbackConfig;
+import com.adeptj.runtime.tools.logging.LogbackManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Write throughput of the rolling file appender built by {@link LogbackManager#createRollingFileAppender}, with and
+ * without immediate flush and group commit. Files roll over at 64MB into a temporary directory which is deleted
+ * afterwards, rolling is therefore part of the score just as in production.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RollingFileAppenderBenchmark {
+
+    @Param({"true", "false"})
+    public boolean immediateFlush;
+
+    @Param({"false", "true"})
+    public boolean groupCommit;
+
+    private Path logDir;
+
+    private RollingFileAppender<ILoggingEvent> appender;
+
+    private ILoggingEvent event;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.logDir = Files.createTempDirectory("adeptj-benchmark");
+        this.appender = LogbackManager.getInstance().createRollingFileAppender(LogbackConfig.builder()
+                .appenderName("FILE")
+                .pattern(Events.PATTERN)
+                .logFile(new File(this.logDir.toFile(), "benchmark.log").getPath())
+                .rolloverFile(new File(this.logDir.toFile(), "benchmark-%d{yyyy-MM-dd}.%i.log").getPath())
+                .logMaxSize("64MB")
+                .logMaxHistory(1)
+                .logTotalSizeCap("256MB")
+                .immediateFlush(this.immediateFlush)
+                .logGroupCommit(this.groupCommit)
+                .build());
+        this.event = Events.newEvent();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        this.appender.stop();
+        try (Stream<Path> paths = Files.walk(this.logDir)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public void append() {
+        this.appender.doAppend(this.event);
+    }
+}
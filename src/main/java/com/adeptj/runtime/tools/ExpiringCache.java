@@ -0,0 +1,84 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A small bounded set of keys which expire a fixed time after they were added, least recently added keys are
+ * evicted first once full. Thread safe.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+final class ExpiringCache {
+
+    private final int maxSize;
+
+    private final long ttlNanos;
+
+    /**
+     * Key to expiry (System.nanoTime based), in insertion order so the eldest entries come first.
+     */
+    private final LinkedHashMap<String, Long> entries;
+
+    ExpiringCache(int maxSize, long ttlNanos) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlNanos;
+        this.entries = new LinkedHashMap<>();
+    }
+
+    synchronized void add(String key) {
+        long now = System.nanoTime();
+        this.purge(now);
+        this.entries.remove(key);
+        if (this.entries.size() >= this.maxSize) {
+            Iterator<String> eldest = this.entries.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+        }
+        this.entries.put(key, now + this.ttlNanos);
+    }
+
+    synchronized boolean contains(String key) {
+        Long expiry = this.entries.get(key);
+        if (expiry == null) {
+            return false;
+        }
+        if (expiry - System.nanoTime() <= 0) {
+            this.entries.remove(key);
+            return false;
+        }
+        return true;
+    }
+
+    synchronized void remove(String key) {
+        this.entries.remove(key);
+    }
+
+    private void purge(long now) {
+        Iterator<Map.Entry<String, Long>> iterator = this.entries.entrySet().iterator();
+        while (iterator.hasNext() && iterator.next().getValue() - now <= 0) {
+            iterator.remove();
+        }
+    }
+}
@@ -1,6 +1,6 @@
 /*
 ###############################################################################
-#                                                                             # 
+#                                                                             #
 #    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
 #                                                                             #
 #    Licensed under the Apache License, Version 2.0 (the "License");          #
@@ -20,11 +20,28 @@
 
 package com.adeptj.runtime.tools;
 
-import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 
+import javax.crypto.Mac;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
 /**
- * Stores the OSGi web console password as a variable.
+ * Stores the OSGi web console password as a salted PBKDF2 hash, the password itself is never retained.
+ * <p>
+ * As the hash is deliberately slow, verified passwords and the session tokens handed out by {@link #login(String)}
+ * are remembered for {@link #SESSION_TTL_MINUTES} in a bounded cache, so that the hash is computed about once per
+ * session rather than on every console request. Verified passwords are cached as an HMAC under a key which only
+ * lives in this JVM. The caches belong to the hash they were verified against, so changing the password atomically
+ * forgets all of them, including what is cached by a verification racing with the change.
  *
  * @author Rakesh.Kumar, AdeptJ
  */
@@ -32,21 +49,220 @@ public enum OSGiConsolePasswordVault {
 
     INSTANCE;
 
-    private volatile char[] password;
+    public static final long SESSION_TTL_MINUTES = 30L;
+
+    public static final int MAX_CACHED_SESSIONS = 256;
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+
+    private static final String ENCODED_PREFIX = "pbkdf2-sha256";
+
+    private static final char ENCODED_SEPARATOR = '$';
+
+    private static final int ITERATIONS = 120_000;
+
+    private static final int SALT_LENGTH = 16;
+
+    private static final int KEY_LENGTH = 256;
+
+    private static final int TOKEN_LENGTH = 32;
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final SecretKeySpec cacheKey = new SecretKeySpec(this.randomBytes(TOKEN_LENGTH), MAC_ALGORITHM);
+
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac);
+
+    private volatile Credentials credentials;
 
     public static OSGiConsolePasswordVault getInstance() {
         return INSTANCE;
     }
 
-    public char[] getPassword() {
-        return this.password;
+    /**
+     * Hashes the given password with a fresh salt, an empty one clears it.
+     */
+    public void setPassword(String pwd) {
+        this.credentials = StringUtils.isEmpty(pwd) ? null
+                : new Credentials(PasswordHash.create(pwd.toCharArray(), this.randomBytes(SALT_LENGTH), ITERATIONS));
     }
 
-    public void setPassword(String pwd) {
-        this.password = StringUtils.isEmpty(pwd) ? null : pwd.toCharArray();
+    /**
+     * Sets an already hashed password as produced by {@link #getPasswordHash()}, an empty one clears it.
+     *
+     * @throws IllegalArgumentException if the value is not a valid encoded hash.
+     */
+    public void setPasswordHash(String encoded) {
+        this.credentials = StringUtils.isEmpty(encoded) ? null : new Credentials(PasswordHash.decode(encoded));
+    }
+
+    /**
+     * The password hash encoded as pbkdf2-sha256$iterations$salt$hash (Base64), null when not set.
+     */
+    public String getPasswordHash() {
+        Credentials current = this.credentials;
+        return current == null ? null : current.hash.encode();
     }
 
     public boolean isPasswordSet() {
-        return ArrayUtils.isNotEmpty(this.password);
+        return this.credentials != null;
+    }
+
+    /**
+     * Checks the password against the stored hash in constant time, a password verified within the session timeout
+     * is accepted without hashing it again.
+     */
+    public boolean verify(String pwd) {
+        return this.verify(this.credentials, pwd);
+    }
+
+    private boolean verify(Credentials current, String pwd) {
+        if (current == null || StringUtils.isEmpty(pwd)) {
+            return false;
+        }
+        String cached = this.mac(pwd);
+        if (current.verified.contains(cached)) {
+            return true;
+        }
+        boolean matches = current.hash.matches(pwd.toCharArray());
+        if (matches) {
+            // Lands in the cache of the hash verified against, one replaced meanwhile takes it along.
+            current.verified.add(cached);
+        }
+        return matches;
+    }
+
+    /**
+     * Verifies the password and opens a session for it.
+     *
+     * @return the session token to pass to {@link #isSessionValid(String)}, null if the password did not match.
+     */
+    public String login(String pwd) {
+        Credentials current = this.credentials;
+        if (!this.verify(current, pwd)) {
+            return null;
+        }
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(this.randomBytes(TOKEN_LENGTH));
+        current.sessions.add(this.mac(token));
+        return token;
+    }
+
+    /**
+     * Whether the token was handed out by {@link #login(String)} within the session timeout and the password has
+     * not been changed since, cheap enough to call on every request.
+     */
+    public boolean isSessionValid(String token) {
+        Credentials current = this.credentials;
+        return current != null && StringUtils.isNotEmpty(token) && current.sessions.contains(this.mac(token));
+    }
+
+    public void logout(String token) {
+        Credentials current = this.credentials;
+        if (current != null && StringUtils.isNotEmpty(token)) {
+            current.sessions.remove(this.mac(token));
+        }
+    }
+
+    private String mac(String value) {
+        return Base64.getEncoder().encodeToString(this.macs.get().doFinal(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(this.cacheKey);
+            return mac;
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        this.random.nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * A password hash along with the passwords verified and the sessions opened against it.
+     */
+    private static final class Credentials {
+
+        private final PasswordHash hash;
+
+        private final ExpiringCache verified;
+
+        private final ExpiringCache sessions;
+
+        Credentials(PasswordHash hash) {
+            this.hash = hash;
+            this.verified = new ExpiringCache(MAX_CACHED_SESSIONS, TimeUnit.MINUTES.toNanos(SESSION_TTL_MINUTES));
+            this.sessions = new ExpiringCache(MAX_CACHED_SESSIONS, TimeUnit.MINUTES.toNanos(SESSION_TTL_MINUTES));
+        }
+    }
+
+    /**
+     * Salt, iteration count and the derived key.
+     */
+    private static final class PasswordHash {
+
+        private final byte[] salt;
+
+        private final int iterations;
+
+        private final byte[] key;
+
+        private PasswordHash(byte[] salt, int iterations, byte[] key) {
+            this.salt = salt;
+            this.iterations = iterations;
+            this.key = key;
+        }
+
+        static PasswordHash create(char[] password, byte[] salt, int iterations) {
+            return new PasswordHash(salt, iterations, derive(password, salt, iterations, KEY_LENGTH));
+        }
+
+        static PasswordHash decode(String encoded) {
+            String[] parts = StringUtils.split(encoded, ENCODED_SEPARATOR);
+            if (parts.length != 4 || !ENCODED_PREFIX.equals(parts[0])) {
+                throw new IllegalArgumentException("Not a " + ENCODED_PREFIX + " password hash!");
+            }
+            PasswordHash hash;
+            try {
+                hash = new PasswordHash(Base64.getDecoder().decode(parts[2]), Integer.parseInt(parts[1]),
+                        Base64.getDecoder().decode(parts[3]));
+            } catch (IllegalArgumentException ex) { // NOSONAR
+                throw new IllegalArgumentException("Malformed " + ENCODED_PREFIX + " password hash!");
+            }
+            if (hash.iterations <= 0 || hash.salt.length == 0 || hash.key.length == 0) {
+                throw new IllegalArgumentException("Malformed " + ENCODED_PREFIX + " password hash!");
+            }
+            return hash;
+        }
+
+        String encode() {
+            return ENCODED_PREFIX + ENCODED_SEPARATOR + this.iterations
+                    + ENCODED_SEPARATOR + Base64.getEncoder().encodeToString(this.salt)
+                    + ENCODED_SEPARATOR + Base64.getEncoder().encodeToString(this.key);
+        }
+
+        boolean matches(char[] password) {
+            return MessageDigest.isEqual(this.key, derive(password, this.salt, this.iterations,
+                    this.key.length * Byte.SIZE));
+        }
+
+        private static byte[] derive(char[] password, byte[] salt, int iterations, int keyLength) {
+            PBEKeySpec spec = new PBEKeySpec(password, salt, iterations, keyLength);
+            try {
+                return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+            } catch (GeneralSecurityException ex) {
+                throw new IllegalStateException(ex);
+            } finally {
+                spec.clearPassword();
+                Arrays.fill(password, '\0');
+            }
+        }
     }
 }
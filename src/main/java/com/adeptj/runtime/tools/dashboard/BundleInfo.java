@@ -0,0 +1,90 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.dashboard;
+
+import org.osgi.framework.Bundle;
+
+/**
+ * Immutable view of an installed {@link Bundle} as shown on the dashboard, taken when the {@link DashboardModel} is
+ * built so that the bundle itself is not held on to.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public final class BundleInfo {
+
+    private final long id;
+
+    private final String symbolicName;
+
+    private final String version;
+
+    private final String state;
+
+    BundleInfo(Bundle bundle) {
+        this.id = bundle.getBundleId();
+        this.symbolicName = bundle.getSymbolicName();
+        this.version = String.valueOf(bundle.getVersion());
+        this.state = toState(bundle.getState());
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getSymbolicName() {
+        return symbolicName;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    /**
+     * Same as {@link Bundle#toString()}, i.e. symbolic name followed by the bundle id.
+     */
+    @Override
+    public String toString() {
+        return this.symbolicName + " [" + this.id + "]";
+    }
+
+    private static String toState(int state) {
+        switch (state) {
+            case Bundle.UNINSTALLED:
+                return "UNINSTALLED";
+            case Bundle.INSTALLED:
+                return "INSTALLED";
+            case Bundle.RESOLVED:
+                return "RESOLVED";
+            case Bundle.STARTING:
+                return "STARTING";
+            case Bundle.STOPPING:
+                return "STOPPING";
+            case Bundle.ACTIVE:
+                return "ACTIVE";
+            default:
+                return String.valueOf(state);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.dashboard;
+
+import com.adeptj.runtime.tools.web.ToolsServlet;
+import org.apache.commons.lang3.time.DateFormatUtils;
+import org.apache.commons.lang3.time.DurationFormatUtils;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleListener;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.RuntimeMXBean;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The dashboard's data model, built once and then served from cache.
+ * <p>
+ * The bundle list is invalidated by bundle lifecycle events once {@link #bind(BundleContext)} has been called, the
+ * system properties when their content hash changes, which is checked every few seconds at most. Only uptime and
+ * memory usage are read on every call to {@link #getModel()}, the bundle and system property lists themselves are
+ * not part of it and are fetched page wise by the dashboard when their sections are expanded, see
+ * {@link #getBundles()} and {@link #getSystemProperties()}.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public enum DashboardModel {
+
+    INSTANCE;
+
+    private static final String START_TIME_FORMAT = "yyyy-MM-dd HH:mm:ss";
+
+    private static final long MB = 1024L * 1024L;
+
+    /**
+     * Hashing the system properties locks and walks all of them, so they are not checked on every request.
+     */
+    private static final long PROPERTIES_CHECK_NANOS = TimeUnit.SECONDS.toNanos(5L);
+
+    /**
+     * Bumped on every invalidation, a snapshot built under an older generation is not used.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    private final BundleListener listener = event -> this.invalidate();
+
+    private volatile Snapshot snapshot;
+
+    private volatile long propertiesCheckedAt;
+
+    private BundleContext context;
+
+    public static DashboardModel getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Lists the bundles of the given context and keeps the list current by listening to bundle events, nothing to do
+     * if already bound to it.
+     * <p>
+     * The DashboardServlet binds the context the runtime publishes as servlet context attribute under the
+     * {@link BundleContext} class name (the attribute the Felix HTTP bridge reads), a runtime which does not publish it
+     * calls this once the framework is started and {@link #unbind()} before stopping it.
+     */
+    public synchronized void bind(BundleContext context) {
+        if (this.context == context) {
+            return;
+        }
+        this.unbind();
+        context.addBundleListener(this.listener);
+        this.context = context;
+        this.invalidate();
+    }
+
+    public synchronized void unbind() {
+        if (this.context != null) {
+            try {
+                this.context.removeBundleListener(this.listener);
+            } catch (IllegalStateException ex) { // NOSONAR
+                // The context is no longer valid, the listener is gone along with it.
+            }
+            this.context = null;
+        }
+        this.invalidate();
+    }
+
+    /**
+     * Drops the cached model, it is built again on next use.
+     */
+    public void invalidate() {
+        this.generation.incrementAndGet();
+    }
+
+    /**
+     * The model for rendering the dashboard template, a new map on each call so that callers can add request
+     * specific entries (such as the username) to it. It carries the paths of the dashboard's servlets too, see
+     * {@link ToolsServlet#urls()}.
+     */
+    public Map<String, Object> getModel() {
+        Snapshot current = this.current();
+        Runtime runtime = Runtime.getRuntime();
+        Map<String, Object> model = new HashMap<>(current.model);
+        model.put("upTime", DurationFormatUtils.formatDurationWords(ManagementFactory.getRuntimeMXBean().getUptime(),
+                true, true));
+        model.put("maxMemory", runtime.maxMemory() / MB + " MB");
+        model.put("usedMemory", (runtime.totalMemory() - runtime.freeMemory()) / MB + " MB");
+        return model;
+    }
+
+    /**
+     * Installed bundles ordered by bundle id, empty unless bound to a {@link BundleContext}.
+     */
+    public List<BundleInfo> getBundles() {
+        return this.current().bundles;
+    }
+
+    /**
+     * System properties ordered by name.
+     */
+    public List<Map.Entry<String, String>> getSystemProperties() {
+        return this.current().systemProperties;
+    }
+
+    private Snapshot current() {
+        Snapshot current = this.snapshot;
+        long generation = this.generation.get();
+        long now = System.nanoTime();
+        if (current != null && current.generation == generation
+                && now - this.propertiesCheckedAt < PROPERTIES_CHECK_NANOS) {
+            return current;
+        }
+        int propertiesHash = System.getProperties().hashCode();
+        this.propertiesCheckedAt = now;
+        if (current != null && current.generation == generation && current.propertiesHash == propertiesHash) {
+            return current;
+        }
+        synchronized (this) {
+            current = this.snapshot;
+            if (current == null || current.generation != generation || current.propertiesHash != propertiesHash) {
+                current = new Snapshot(generation, propertiesHash, this.listBundles());
+                this.snapshot = current;
+            }
+            return current;
+        }
+    }
+
+    private List<BundleInfo> listBundles() {
+        if (this.context == null) {
+            return Collections.emptyList();
+        }
+        List<BundleInfo> bundles = new ArrayList<>();
+        try {
+            for (Bundle bundle : this.context.getBundles()) {
+                bundles.add(new BundleInfo(bundle));
+            }
+        } catch (IllegalStateException ex) { // NOSONAR
+            // Framework is shutting down, go with what was listed so far.
+        }
+        bundles.sort(Comparator.comparingLong(BundleInfo::getId));
+        return Collections.unmodifiableList(bundles);
+    }
+
+    /**
+     * Everything about the dashboard which does not change on every request.
+     */
+    private static final class Snapshot {
+
+        private final long generation;
+
+        private final int propertiesHash;
+
+        private final List<BundleInfo> bundles;
+
+        private final List<Map.Entry<String, String>> systemProperties;
+
+        private final Map<String, Object> model;
+
+        Snapshot(long generation, int propertiesHash, List<BundleInfo> bundles) {
+            this.generation = generation;
+            this.propertiesHash = propertiesHash;
+            this.bundles = bundles;
+            Properties properties = System.getProperties();
+            List<Map.Entry<String, String>> entries = new ArrayList<>();
+            for (String name : properties.stringPropertyNames()) {
+                entries.add(new SimpleImmutableEntry<>(name, properties.getProperty(name)));
+            }
+            entries.sort(Map.Entry.comparingByKey());
+            this.systemProperties = Collections.unmodifiableList(entries);
+            RuntimeMXBean runtimeMXBean = ManagementFactory.getRuntimeMXBean();
+            Map<String, Object> values = new HashMap<>();
+            values.put("startTime", DateFormatUtils.format(runtimeMXBean.getStartTime(), START_TIME_FORMAT));
+            values.put("runtime", System.getProperty("java.runtime.name") + " (build "
+                    + System.getProperty("java.runtime.version") + ")");
+            values.put("jvm", runtimeMXBean.getVmName() + " (build " + runtimeMXBean.getVmVersion() + ", "
+                    + System.getProperty("java.vm.info") + ")");
+            values.put("processors", Runtime.getRuntime().availableProcessors());
+            values.put("totalBundles", bundles.size());
+            values.put("totalSysProps", entries.size());
+            values.putAll(ToolsServlet.urls());
+            this.model = Collections.unmodifiableMap(values);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Implements {@link ReplaceableAppender} for the appenders of this package, which route their doAppend through
+ * {@link #doAppend(ILoggingEvent)}.
+ * <p>
+ * An append increments the in flight count before reading the successor, the handover sets the successor before
+ * reading the count, so either the append sees the successor or the handover sees the append in flight. The count is
+ * striped so that concurrent appends do not contend on one cache line, and reading it stripe by stripe is still safe:
+ * an increment the handover misses comes after its volatile write of the successor, so that append forwards to the
+ * successor and never touches this appender. Each append decrements the stripe it incremented, unlike a LongAdder
+ * whose cell can change in between, so a missed increment never pairs with a seen decrement to hide an append that
+ * is still in flight.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+final class AppenderHandover {
+
+    private static final long IDLE_CHECK_NANOS = TimeUnit.MICROSECONDS.toNanos(100L);
+
+    // Longs per stripe, keeps each stripe on a cache line of its own, adjacent line prefetch included.
+    private static final int STRIPE_PADDING = 16;
+
+    private static final int STRIPE_MASK = stripeMask();
+
+    private final Consumer<ILoggingEvent> local;
+
+    private final AtomicLongArray inFlight;
+
+    private volatile Appender<ILoggingEvent> successor;
+
+    /**
+     * @param local appends an event to the appender itself, used until it is handed over.
+     */
+    AppenderHandover(Consumer<ILoggingEvent> local) {
+        this.local = local;
+        this.inFlight = new AtomicLongArray((STRIPE_MASK + 1) * STRIPE_PADDING);
+    }
+
+    /**
+     * Appends the event locally, or forwards it to the successor once handed over.
+     */
+    void doAppend(ILoggingEvent event) {
+        int stripe = stripe();
+        this.inFlight.incrementAndGet(stripe);
+        try {
+            Appender<ILoggingEvent> appender = this.successor;
+            if (appender == null) {
+                this.local.accept(event);
+            } else {
+                appender.doAppend(event);
+            }
+        } finally {
+            this.inFlight.decrementAndGet(stripe);
+        }
+    }
+
+    void handOver(Appender<ILoggingEvent> successor) {
+        this.successor = successor;
+    }
+
+    boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (this.inFlightCount() != 0L) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (System.nanoTime() - deadline >= 0L) {
+                return false;
+            }
+            LockSupport.parkNanos(IDLE_CHECK_NANOS);
+        }
+        return true;
+    }
+
+    private long inFlightCount() {
+        long count = 0L;
+        for (int index = 0; index < this.inFlight.length(); index += STRIPE_PADDING) {
+            count += this.inFlight.get(index);
+        }
+        return count;
+    }
+
+    private static int stripe() {
+        long id = Thread.currentThread().getId();
+        int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return ((hash ^ (hash >>> 16)) & STRIPE_MASK) * STRIPE_PADDING;
+    }
+
+    private static int stripeMask() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        return Integer.highestOneBit(Math.max(1, Math.min(processors, 64)) * 2 - 1) - 1;
+    }
+}
@@ -0,0 +1,183 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Counters and latency histograms of a single appender, recorded by the appender itself and published through
+ * {@link PipelineMetrics}.
+ * <p>
+ * Console and file appenders record the encoded size, the encode latency and the write latency, which includes
+ * waiting for the appender's lock. Async appenders record the time it took to hand the event over to the queue as
+ * write latency, so blocking on a full queue shows up there, along with the queue fill level and the events they
+ * discarded or dropped.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public final class AppenderMetrics implements AppenderMetricsMBean {
+
+    private static final double MEDIAN = 50.0;
+
+    private static final double P99 = 99.0;
+
+    private final String name;
+
+    private final LongAdder events;
+
+    private final LongAdder bytes;
+
+    private final LongAdder errors;
+
+    private final LongAdder discarded;
+
+    private final LongAdder dropped;
+
+    private final LatencyHistogram encodeLatency;
+
+    private final LatencyHistogram writeLatency;
+
+    private volatile IntSupplier queueDepth;
+
+    private volatile int queueCapacity;
+
+    AppenderMetrics(String name) {
+        this.name = name;
+        this.events = new LongAdder();
+        this.bytes = new LongAdder();
+        this.errors = new LongAdder();
+        this.discarded = new LongAdder();
+        this.dropped = new LongAdder();
+        this.encodeLatency = new LatencyHistogram();
+        this.writeLatency = new LatencyHistogram();
+    }
+
+    void written(int length, long encodeNanos, long writeNanos) {
+        this.events.increment();
+        this.bytes.add(length);
+        this.encodeLatency.record(encodeNanos);
+        this.writeLatency.record(writeNanos);
+    }
+
+    void enqueued(long nanos) {
+        this.events.increment();
+        this.writeLatency.record(nanos);
+    }
+
+    void error() {
+        this.errors.increment();
+    }
+
+    void discarded() {
+        this.discarded.increment();
+    }
+
+    void dropped() {
+        this.dropped.increment();
+    }
+
+    /**
+     * Set by async appenders once started.
+     */
+    void queue(IntSupplier depth, int capacity) {
+        this.queueCapacity = capacity;
+        this.queueDepth = depth;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getEventCount() {
+        return this.events.sum();
+    }
+
+    @Override
+    public long getByteCount() {
+        return this.bytes.sum();
+    }
+
+    @Override
+    public long getErrorCount() {
+        return this.errors.sum();
+    }
+
+    @Override
+    public long getDiscardedCount() {
+        return this.discarded.sum();
+    }
+
+    @Override
+    public long getDroppedCount() {
+        return this.dropped.sum();
+    }
+
+    @Override
+    public int getQueueDepth() {
+        IntSupplier depth = this.queueDepth;
+        return depth == null ? 0 : depth.getAsInt();
+    }
+
+    @Override
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public LatencyHistogram.Snapshot getEncodeLatency() {
+        return this.encodeLatency.snapshot();
+    }
+
+    public LatencyHistogram.Snapshot getWriteLatency() {
+        return this.writeLatency.snapshot();
+    }
+
+    @Override
+    public long getEncodeLatencyP50() {
+        return this.encodeLatency.snapshot().getPercentile(MEDIAN);
+    }
+
+    @Override
+    public long getEncodeLatencyP99() {
+        return this.encodeLatency.snapshot().getPercentile(P99);
+    }
+
+    @Override
+    public long getEncodeLatencyMax() {
+        return this.encodeLatency.snapshot().getMax();
+    }
+
+    @Override
+    public long getWriteLatencyP50() {
+        return this.writeLatency.snapshot().getPercentile(MEDIAN);
+    }
+
+    @Override
+    public long getWriteLatencyP99() {
+        return this.writeLatency.snapshot().getPercentile(P99);
+    }
+
+    @Override
+    public long getWriteLatencyMax() {
+        return this.writeLatency.snapshot().getMax();
+    }
+}
@@ -0,0 +1,62 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging;
+
+/**
+ * JMX view of the {@link AppenderMetrics} of a single appender, latencies are in nanoseconds.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public interface AppenderMetricsMBean {
+
+    long getEventCount();
+
+    long getByteCount();
+
+    long getErrorCount();
+
+    /**
+     * Number of TRACE, DEBUG and INFO events an async appender discarded because its queue was above the discarding
+     * threshold.
+     */
+    long getDiscardedCount();
+
+    /**
+     * Number of events dropped because the queue was full and the appender is configured to never block.
+     */
+    long getDroppedCount();
+
+    int getQueueDepth();
+
+    int getQueueCapacity();
+
+    long getEncodeLatencyP50();
+
+    long getEncodeLatencyP99();
+
+    long getEncodeLatencyMax();
+
+    long getWriteLatencyP50();
+
+    long getWriteLatencyP99();
+
+    long getWriteLatencyMax();
+}
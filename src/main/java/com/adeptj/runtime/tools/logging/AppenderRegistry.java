@@ -0,0 +1,93 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Registry of the appenders known to {@link LogbackManager}, indexed by appender name.
+ * <p>
+ * Every change publishes a new immutable snapshot with a single CAS, so readers never lock and never see a half
+ * applied change, writers (typically the CM Event Dispatcher) simply retry on contention. Appender names are unique,
+ * registering an appender under an existing name replaces the previous entry.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+final class AppenderRegistry {
+
+    private final AtomicReference<Snapshot> snapshot;
+
+    AppenderRegistry() {
+        this.snapshot = new AtomicReference<>(Snapshot.EMPTY);
+    }
+
+    /**
+     * Registers the appender and returns the one previously registered under the same name, if any.
+     */
+    Appender<ILoggingEvent> put(Appender<ILoggingEvent> appender) {
+        return this.update(appender.getName(), appender);
+    }
+
+    Appender<ILoggingEvent> get(String name) {
+        return this.snapshot.get().byName.get(name);
+    }
+
+    /**
+     * Immutable, registration ordered view of the appenders at the time of the call.
+     */
+    List<Appender<ILoggingEvent>> list() {
+        return this.snapshot.get().appenders;
+    }
+
+    private Appender<ILoggingEvent> update(String name, Appender<ILoggingEvent> appender) {
+        Snapshot current;
+        Snapshot next;
+        do {
+            current = this.snapshot.get();
+            Map<String, Appender<ILoggingEvent>> appenders = new LinkedHashMap<>(current.byName);
+            appenders.put(name, appender);
+            next = new Snapshot(appenders);
+        } while (!this.snapshot.compareAndSet(current, next));
+        return current.byName.get(name);
+    }
+
+    private static final class Snapshot {
+
+        private static final Snapshot EMPTY = new Snapshot(Collections.emptyMap());
+
+        private final Map<String, Appender<ILoggingEvent>> byName;
+
+        private final List<Appender<ILoggingEvent>> appenders;
+
+        private Snapshot(Map<String, Appender<ILoggingEvent>> byName) {
+            this.byName = Collections.unmodifiableMap(byName);
+            this.appenders = Collections.unmodifiableList(new ArrayList<>(byName.values()));
+        }
+    }
+}
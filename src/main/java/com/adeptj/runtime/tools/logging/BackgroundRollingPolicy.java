@@ -0,0 +1,110 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging;
+
+import ch.qos.logback.core.rolling.RolloverFailure;
+import ch.qos.logback.core.rolling.SizeAndTimeBasedRollingPolicy;
+import ch.qos.logback.core.rolling.helper.CompressionMode;
+import ch.qos.logback.core.rolling.helper.RenameUtil;
+import ch.qos.logback.core.util.FileSize;
+
+/**
+ * {@link SizeAndTimeBasedRollingPolicy} which only renames the active file on the logging thread and leaves gzip
+ * compression (fileNamePattern ending with .gz) and the maxHistory/totalSizeCap clean up to a
+ * {@link RolloverExecutor}.
+ * <p>
+ * Zip compression and a missing file property are not supported and fall back to the stock behavior.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public class BackgroundRollingPolicy<E> extends SizeAndTimeBasedRollingPolicy<E> {
+
+    public static final long DEFAULT_COMPRESSION_CHUNK_SIZE = 4 * FileSize.MB_COEFFICIENT;
+
+    private final RenameUtil renameUtil;
+
+    private FileSize compressionChunkSize;
+
+    private int compressionThreads;
+
+    private RolloverExecutor rolloverExecutor;
+
+    public BackgroundRollingPolicy() {
+        this.renameUtil = new RenameUtil();
+        this.compressionChunkSize = new FileSize(DEFAULT_COMPRESSION_CHUNK_SIZE);
+        this.compressionThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    }
+
+    @Override
+    public void start() {
+        super.start();
+        if (!this.isStarted() || !this.isBackgroundRollover()) {
+            return;
+        }
+        this.renameUtil.setContext(this.context);
+        this.rolloverExecutor = new RolloverExecutor(this.context, this.getFileNamePattern(),
+                this.compressionMode == CompressionMode.GZ, this.getMaxHistory(), this.totalSizeCap.getSize(),
+                (int) this.compressionChunkSize.getSize(), this.compressionThreads);
+        // Files rolled but not compressed before the last shutdown.
+        this.rolloverExecutor.scan();
+    }
+
+    @Override
+    public void stop() {
+        if (this.rolloverExecutor != null) {
+            this.rolloverExecutor.shutdown();
+            this.rolloverExecutor = null;
+        }
+        super.stop();
+    }
+
+    @Override
+    public void rollover() throws RolloverFailure {
+        RolloverExecutor executor = this.rolloverExecutor;
+        if (executor == null) {
+            super.rollover();
+            return;
+        }
+        String elapsedPeriodsFileName = this.getTimeBasedFileNamingAndTriggeringPolicy().getElapsedPeriodsFileName();
+        this.renameUtil.rename(this.getParentsRawFileProperty(), elapsedPeriodsFileName);
+        executor.rolled();
+    }
+
+    private boolean isBackgroundRollover() {
+        return this.compressionMode != CompressionMode.ZIP && this.getParentsRawFileProperty() != null;
+    }
+
+    public FileSize getCompressionChunkSize() {
+        return compressionChunkSize;
+    }
+
+    public void setCompressionChunkSize(FileSize compressionChunkSize) {
+        this.compressionChunkSize = compressionChunkSize;
+    }
+
+    public int getCompressionThreads() {
+        return compressionThreads;
+    }
+
+    public void setCompressionThreads(int compressionThreads) {
+        this.compressionThreads = compressionThreads;
+    }
+}
@@ -0,0 +1,588 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.LoggerContextVO;
+import ch.qos.logback.core.encoder.Encoder;
+import org.slf4j.IMarkerFactory;
+import org.slf4j.Marker;
+import org.slf4j.helpers.BasicMarkerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+
+import static com.adeptj.runtime.tools.logging.BinaryLogFormat.DEFINE;
+import static com.adeptj.runtime.tools.logging.BinaryLogFormat.DICTIONARY_CLASSES;
+import static com.adeptj.runtime.tools.logging.BinaryLogFormat.DICTIONARY_COUNT;
+import static com.adeptj.runtime.tools.logging.BinaryLogFormat.DICTIONARY_FRAMES;
+import static com.adeptj.runtime.tools.logging.BinaryLogFormat.DICTIONARY_LOGGERS;
+import static com.adeptj.runtime.tools.logging.BinaryLogFormat.DICTIONARY_MDC_KEYS;
+import static com.adeptj.runtime.tools.logging.BinaryLogFormat.DICTIONARY_MESSAGES;
+import static com.adeptj.runtime.tools.logging.BinaryLogFormat.DICTIONARY_THREADS;
+import static com.adeptj.runtime.tools.logging.BinaryLogFormat.FIRST_REFERENCE;
+import static com.adeptj.runtime.tools.logging.BinaryLogFormat.FLAG_ARGUMENTS;
+import static com.adeptj.runtime.tools.logging.BinaryLogFormat.FLAG_CALLER_DATA;
+import static com.adeptj.runtime.tools.logging.BinaryLogFormat.FLAG_MARKER;
+import static com.adeptj.runtime.tools.logging.BinaryLogFormat.FLAG_MDC;
+import static com.adeptj.runtime.tools.logging.BinaryLogFormat.FLAG_THROWABLE;
+import static com.adeptj.runtime.tools.logging.BinaryLogFormat.LEVEL_MASK;
+import static com.adeptj.runtime.tools.logging.BinaryLogFormat.LITERAL;
+import static com.adeptj.runtime.tools.logging.BinaryLogFormat.MAX_RECORD_BYTES;
+
+/**
+ * Streams the events back out of a file written by {@link BinaryLogEncoder}, one at a time.
+ * <p>
+ * A record which fails its check or does not decode to exactly its length, e.g. one cut short by a crash, is skipped
+ * along with everything up to the next segment header, so the events appended after a restart are still read.
+ * <p>
+ * Run as a tool it renders binary log files (rolled ones may be gzipped) with a pattern to stdout:
+ * <pre>
+ * java -cp ... com.adeptj.runtime.tools.logging.BinaryLogDecoder [-pattern "%d %-5level %logger - %msg%n"] file...
+ * </pre>
+ * The pattern supports everything a {@link LogbackConfig} pattern does, including %highlight and the trimmed
+ * %thread.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public final class BinaryLogDecoder implements Closeable {
+
+    public static final String DEFAULT_PATTERN = "%d{yyyy-MM-dd HH:mm:ss.SSS} [%thread] %-5level %logger{36} - %msg%n";
+
+    private static final String PATTERN_OPTION = "-pattern";
+
+    private final ResyncInputStream in;
+
+    /**
+     * What the record and header fields are read from, the current record or the stream itself.
+     */
+    private InputStream source;
+
+    private byte[] record;
+
+    private final CRC32 checksum;
+
+    /**
+     * End of the last record, which may have swallowed the start of a segment header appended after a crash.
+     */
+    private final byte[] tail;
+
+    private int tailLength;
+
+    private final List<List<Object>> dictionaries;
+
+    private final IMarkerFactory markerFactory;
+
+    private LoggerContextVO loggerContextVO;
+
+    private long previousTimestamp;
+
+    public BinaryLogDecoder(InputStream in) {
+        this.in = new ResyncInputStream(in instanceof BufferedInputStream ? in : new BufferedInputStream(in));
+        this.source = this.in;
+        this.record = new byte[256];
+        this.checksum = new CRC32();
+        this.tail = new byte[BinaryLogFormat.MAGIC.length];
+        this.dictionaries = new ArrayList<>(DICTIONARY_COUNT);
+        for (int i = 0; i < DICTIONARY_COUNT; i++) {
+            this.dictionaries.add(new ArrayList<>());
+        }
+        this.markerFactory = new BasicMarkerFactory();
+    }
+
+    /**
+     * Reads the next event.
+     *
+     * @return the event or null at the end of the stream, a record cut short at the end also ends it.
+     * @throws IOException if the stream is not in the binary log format or could not be read.
+     */
+    public ILoggingEvent next() throws IOException {
+        try {
+            while (true) {
+                int tag = this.in.read();
+                if (tag < 0) {
+                    return null;
+                }
+                if (tag == BinaryLogFormat.SEGMENT) {
+                    this.readSegmentHeader();
+                    continue;
+                }
+                if (this.loggerContextVO == null) {
+                    throw new IOException("Not a binary log, no segment header found!");
+                }
+                ILoggingEvent event = this.readRecord(tag);
+                if (event != null) {
+                    return event;
+                }
+            }
+        } catch (EOFException ex) { // NOSONAR
+            return null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.in.close();
+    }
+
+    /**
+     * Renders all events of the stream with the encoder.
+     *
+     * @return number of events rendered.
+     */
+    public long decode(Encoder<ILoggingEvent> encoder, OutputStream out) throws IOException {
+        long events = 0L;
+        ILoggingEvent event;
+        while ((event = this.next()) != null) {
+            out.write(encoder.encode(event));
+            events++;
+        }
+        return events;
+    }
+
+    /**
+     * Reads the record following the tag.
+     *
+     * @return the event or null if the record was corrupt and skipped.
+     */
+    private ILoggingEvent readRecord(int tag) throws IOException {
+        this.source = this.in;
+        // Length varint and check bytes.
+        byte[] prefix = new byte[12];
+        int prefixLength = 0;
+        long length = 0L;
+        for (int shift = 0; ; shift += 7) {
+            int b = this.in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            prefix[prefixLength++] = (byte) b;
+            length |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+            if (prefixLength == prefix.length - 2) {
+                this.resync(tag, prefix, prefixLength, null, 0);
+                return null;
+            }
+        }
+        int check = 0;
+        for (int shift = 0; shift < 16; shift += 8) {
+            int b = this.in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            prefix[prefixLength++] = (byte) b;
+            check |= b << shift;
+        }
+        if (BinaryLogFormat.level(tag & LEVEL_MASK) == null || length > MAX_RECORD_BYTES) {
+            this.resync(tag, prefix, prefixLength, null, 0);
+            return null;
+        }
+        if (this.record.length < length) {
+            this.record = new byte[(int) Math.max(length, this.record.length * 2L)];
+        }
+        int read = 0;
+        while (read < length) {
+            int count = this.in.read(this.record, read, (int) length - read);
+            if (count < 0) {
+                this.resync(tag, prefix, prefixLength, this.record, read);
+                return null;
+            }
+            read += count;
+        }
+        this.checksum.reset();
+        this.checksum.update(tag);
+        this.checksum.update(this.record, 0, read);
+        if ((this.checksum.getValue() & 0xFFFF) != check) {
+            this.resync(tag, prefix, prefixLength, this.record, read);
+            return null;
+        }
+        ByteArrayInputStream body = new ByteArrayInputStream(this.record, 0, read);
+        this.source = body;
+        long previous = this.previousTimestamp;
+        int[] dictionarySizes = new int[DICTIONARY_COUNT];
+        for (int i = 0; i < DICTIONARY_COUNT; i++) {
+            dictionarySizes[i] = this.dictionaries.get(i).size();
+        }
+        try {
+            ILoggingEvent event = this.readEvent(tag);
+            if (body.available() == 0) {
+                this.tailLength = Math.min(read, this.tail.length);
+                System.arraycopy(this.record, read - this.tailLength, this.tail, 0, this.tailLength);
+                return event;
+            }
+        } catch (IOException ex) { // NOSONAR
+            // Corrupt, handled below.
+        } finally {
+            this.source = this.in;
+        }
+        // Undo what the corrupt record defined before skipping it.
+        this.previousTimestamp = previous;
+        for (int i = 0; i < DICTIONARY_COUNT; i++) {
+            List<Object> dictionary = this.dictionaries.get(i);
+            dictionary.subList(dictionarySizes[i], dictionary.size()).clear();
+        }
+        this.resync(tag, prefix, prefixLength, this.record, read);
+        return null;
+    }
+
+    /**
+     * Skips a corrupt record up to the next segment header, which may start anywhere in the record or even at the end
+     * of the previous record, if that was cut short by just the bytes the header starts with. The bytes already read
+     * are searched first. A match followed by an unknown version is taken for event data which happens to look like a
+     * header, the search goes on right after it.
+     */
+    private void resync(int tag, byte[] prefix, int prefixLength, byte[] body, int bodyLength) throws IOException {
+        byte[] skipped = new byte[this.tailLength + 1 + prefixLength + bodyLength];
+        System.arraycopy(this.tail, 0, skipped, 0, this.tailLength);
+        skipped[this.tailLength] = (byte) tag;
+        System.arraycopy(prefix, 0, skipped, this.tailLength + 1, prefixLength);
+        if (body != null) {
+            System.arraycopy(body, 0, skipped, this.tailLength + 1 + prefixLength, bodyLength);
+        }
+        this.tailLength = 0;
+        this.in.unread(skipped);
+        this.source = this.in;
+        int matched = 0;
+        int b;
+        while ((b = this.in.read()) >= 0) {
+            if (matched > 0 && b == (BinaryLogFormat.MAGIC[matched - 1] & 0xFF)) {
+                matched++;
+            } else {
+                matched = b == BinaryLogFormat.SEGMENT ? 1 : 0;
+            }
+            if (matched == BinaryLogFormat.MAGIC.length + 1) {
+                int version = this.readByte();
+                if (version == BinaryLogFormat.VERSION) {
+                    this.startSegment();
+                    return;
+                }
+                // The version byte may itself start the real header.
+                matched = version == BinaryLogFormat.SEGMENT ? 1 : 0;
+            }
+        }
+    }
+
+    private void readSegmentHeader() throws IOException {
+        this.source = this.in;
+        byte[] magic = new byte[BinaryLogFormat.MAGIC.length];
+        for (int i = 0; i < magic.length; i++) {
+            magic[i] = (byte) this.readByte();
+            if (magic[i] != BinaryLogFormat.MAGIC[i]) {
+                if (this.loggerContextVO == null) {
+                    throw new IOException("Not a binary log, bad magic!");
+                }
+                this.resync(BinaryLogFormat.SEGMENT, magic, i + 1, null, 0);
+                return;
+            }
+        }
+        this.readSegmentVersion();
+    }
+
+    /**
+     * Reads the rest of the segment header following the magic bytes.
+     */
+    private void readSegmentVersion() throws IOException {
+        int version = this.readByte();
+        if (version != BinaryLogFormat.VERSION) {
+            throw new IOException("Unsupported binary log version " + version);
+        }
+        this.startSegment();
+    }
+
+    /**
+     * Reads the rest of the segment header following the version and starts over with empty dictionaries.
+     */
+    private void startSegment() throws IOException {
+        this.tailLength = 0;
+        this.loggerContextVO = new LoggerContextVO(this.readString(), Collections.emptyMap(), 0L);
+        for (List<Object> dictionary : this.dictionaries) {
+            dictionary.clear();
+        }
+        this.previousTimestamp = 0L;
+    }
+
+    private ILoggingEvent readEvent(int tag) throws IOException {
+        Level level = BinaryLogFormat.level(tag & LEVEL_MASK);
+        if (level == null) {
+            throw new IOException("Corrupt binary log, bad record tag " + tag);
+        }
+        long timestamp = this.previousTimestamp + this.readZigZag();
+        this.previousTimestamp = timestamp;
+        String loggerName = this.readEntry(DICTIONARY_LOGGERS);
+        String threadName = this.readEntry(DICTIONARY_THREADS);
+        String message = this.readEntry(DICTIONARY_MESSAGES);
+        Object[] arguments = null;
+        if ((tag & FLAG_ARGUMENTS) != 0) {
+            arguments = new Object[this.readLength()];
+            for (int i = 0; i < arguments.length; i++) {
+                arguments[i] = this.readString();
+            }
+        }
+        Map<String, String> mdc = null;
+        if ((tag & FLAG_MDC) != 0) {
+            int size = this.readLength();
+            mdc = new LinkedHashMap<>(size * 2);
+            for (int i = 0; i < size; i++) {
+                mdc.put(this.readEntry(DICTIONARY_MDC_KEYS), this.readString());
+            }
+        }
+        Marker marker = (tag & FLAG_MARKER) != 0 ? this.readMarker() : null;
+        IThrowableProxy throwable = (tag & FLAG_THROWABLE) != 0 ? this.readThrowable() : null;
+        StackTraceElement[] callerData = null;
+        if ((tag & FLAG_CALLER_DATA) != 0) {
+            DecodedThrowableProxy.Frame[] frames = this.readFrames();
+            callerData = new StackTraceElement[frames.length];
+            for (int i = 0; i < frames.length; i++) {
+                callerData[i] = frames[i].getStackTraceElement();
+            }
+        }
+        return new DecodedLoggingEvent(this.loggerContextVO, timestamp, level, loggerName, threadName, message,
+                arguments, mdc, marker, throwable, callerData);
+    }
+
+    private Marker readMarker() throws IOException {
+        Marker marker = this.markerFactory.getDetachedMarker(this.readString());
+        int references = this.readLength();
+        for (int i = 0; i < references; i++) {
+            marker.add(this.readMarker());
+        }
+        return marker;
+    }
+
+    private IThrowableProxy readThrowable() throws IOException {
+        String className = this.readEntry(DICTIONARY_CLASSES);
+        String message = this.readString();
+        int commonFrames = this.readLength();
+        DecodedThrowableProxy.Frame[] frames = this.readFrames();
+        IThrowableProxy[] suppressed = new IThrowableProxy[this.readLength()];
+        for (int i = 0; i < suppressed.length; i++) {
+            suppressed[i] = this.readThrowable();
+        }
+        IThrowableProxy cause = this.readByte() == 0 ? null : this.readThrowable();
+        return new DecodedThrowableProxy(className, message, commonFrames, frames, suppressed, cause);
+    }
+
+    private DecodedThrowableProxy.Frame[] readFrames() throws IOException {
+        DecodedThrowableProxy.Frame[] frames = new DecodedThrowableProxy.Frame[this.readLength()];
+        for (int i = 0; i < frames.length; i++) {
+            int reference = this.readLength();
+            if (reference >= FIRST_REFERENCE) {
+                frames[i] = (DecodedThrowableProxy.Frame) this.lookup(DICTIONARY_FRAMES, reference);
+                continue;
+            }
+            StackTraceElement element = new StackTraceElement(this.readString(), this.readString(),
+                    this.readString(), (int) this.readZigZag());
+            frames[i] = new DecodedThrowableProxy.Frame(element, this.readString());
+            if (reference == DEFINE) {
+                this.dictionaries.get(DICTIONARY_FRAMES).add(frames[i]);
+            }
+        }
+        return frames;
+    }
+
+    private String readEntry(int dictionary) throws IOException {
+        int reference = this.readLength();
+        if (reference >= FIRST_REFERENCE) {
+            return (String) this.lookup(dictionary, reference);
+        }
+        String value = this.readString();
+        if (reference == DEFINE) {
+            this.dictionaries.get(dictionary).add(value);
+        }
+        return value;
+    }
+
+    private Object lookup(int dictionary, int reference) throws IOException {
+        List<Object> entries = this.dictionaries.get(dictionary);
+        int id = reference - FIRST_REFERENCE;
+        if (id >= entries.size()) {
+            throw new IOException("Corrupt binary log, undefined dictionary entry " + id);
+        }
+        return entries.get(id);
+    }
+
+    private String readString() throws IOException {
+        int length = this.readLength();
+        if (length == LITERAL) {
+            return null;
+        }
+        byte[] utf8 = new byte[length - 1];
+        int read = 0;
+        while (read < utf8.length) {
+            int count = this.source.read(utf8, read, utf8.length - read);
+            if (count < 0) {
+                throw new EOFException();
+            }
+            read += count;
+        }
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private int readLength() throws IOException {
+        long value = this.readVarint();
+        // Nothing in a record can be longer than the record.
+        if (value < 0 || value > MAX_RECORD_BYTES) {
+            throw new IOException("Corrupt binary log, bad length " + value);
+        }
+        return (int) value;
+    }
+
+    private long readZigZag() throws IOException {
+        long value = this.readVarint();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private long readVarint() throws IOException {
+        long value = 0L;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            int b = this.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt binary log, varint too long!");
+    }
+
+    private int readByte() throws IOException {
+        int b = this.source.read();
+        if (b < 0) {
+            throw new EOFException();
+        }
+        return b;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String pattern = DEFAULT_PATTERN;
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (PATTERN_OPTION.equals(args[i]) && i + 1 < args.length) {
+                pattern = args[++i];
+            } else {
+                files.add(args[i]);
+            }
+        }
+        if (files.isEmpty()) {
+            System.err.println("Usage: BinaryLogDecoder [" + PATTERN_OPTION + " <pattern>] <file>..."); // NOSONAR
+            System.exit(1);
+        }
+        ReusableBufferPatternEncoder encoder = new ReusableBufferPatternEncoder();
+        encoder.setContext(new LoggerContext());
+        encoder.setCharset(StandardCharsets.UTF_8);
+        encoder.setPattern(pattern);
+        encoder.start();
+        OutputStream out = new BufferedOutputStream(System.out, 64 * 1024);
+        for (String file : files) {
+            InputStream in = new FileInputStream(file);
+            try (BinaryLogDecoder decoder = new BinaryLogDecoder(file.endsWith(".gz") ? new GZIPInputStream(in) : in)) {
+                decoder.decode(encoder, out);
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Reads the bytes given back by a resync before the rest of the stream. Bytes given back while some are still
+     * pending go in front of them, so however many corrupt records are skipped the stream stays a single level deep.
+     */
+    private static final class ResyncInputStream extends InputStream {
+
+        private static final byte[] NONE = new byte[0];
+
+        private final InputStream in;
+
+        private byte[] pending;
+
+        private int position;
+
+        ResyncInputStream(InputStream in) {
+            this.in = in;
+            this.pending = NONE;
+        }
+
+        void unread(byte[] bytes) {
+            int remaining = this.pending.length - this.position;
+            byte[] combined = new byte[bytes.length + remaining];
+            System.arraycopy(bytes, 0, combined, 0, bytes.length);
+            System.arraycopy(this.pending, this.position, combined, bytes.length, remaining);
+            this.pending = combined;
+            this.position = 0;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (this.position == this.pending.length) {
+                return this.in.read();
+            }
+            int b = this.pending[this.position++] & 0xFF;
+            this.releaseIfRead();
+            return b;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int remaining = this.pending.length - this.position;
+            if (remaining == 0) {
+                return this.in.read(bytes, offset, length);
+            }
+            int count = Math.min(remaining, length);
+            System.arraycopy(this.pending, this.position, bytes, offset, count);
+            this.position += count;
+            this.releaseIfRead();
+            return count;
+        }
+
+        /**
+         * Drops the given back bytes once read, they may be as long as a record.
+         */
+        private void releaseIfRead() {
+            if (this.position == this.pending.length) {
+                this.pending = NONE;
+                this.position = 0;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.in.close();
+        }
+    }
+}
@@ -0,0 +1,342 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.StackTraceElementProxy;
+import ch.qos.logback.core.encoder.EncoderBase;
+import org.slf4j.Marker;
+import org.slf4j.helpers.MessageFormatter;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import static com.adeptj.runtime.tools.logging.BinaryLogFormat.DEFINE;
+import static com.adeptj.runtime.tools.logging.BinaryLogFormat.DICTIONARY_CLASSES;
+import static com.adeptj.runtime.tools.logging.BinaryLogFormat.DICTIONARY_COUNT;
+import static com.adeptj.runtime.tools.logging.BinaryLogFormat.DICTIONARY_FRAMES;
+import static com.adeptj.runtime.tools.logging.BinaryLogFormat.DICTIONARY_LOGGERS;
+import static com.adeptj.runtime.tools.logging.BinaryLogFormat.DICTIONARY_MDC_KEYS;
+import static com.adeptj.runtime.tools.logging.BinaryLogFormat.DICTIONARY_MESSAGES;
+import static com.adeptj.runtime.tools.logging.BinaryLogFormat.DICTIONARY_THREADS;
+import static com.adeptj.runtime.tools.logging.BinaryLogFormat.FIRST_REFERENCE;
+import static com.adeptj.runtime.tools.logging.BinaryLogFormat.FLAG_ARGUMENTS;
+import static com.adeptj.runtime.tools.logging.BinaryLogFormat.FLAG_CALLER_DATA;
+import static com.adeptj.runtime.tools.logging.BinaryLogFormat.FLAG_MARKER;
+import static com.adeptj.runtime.tools.logging.BinaryLogFormat.FLAG_MDC;
+import static com.adeptj.runtime.tools.logging.BinaryLogFormat.FLAG_THROWABLE;
+import static com.adeptj.runtime.tools.logging.BinaryLogFormat.LITERAL;
+import static com.adeptj.runtime.tools.logging.BinaryLogFormat.MAX_DICTIONARY_SIZE;
+import static com.adeptj.runtime.tools.logging.BinaryLogFormat.MAX_RECORD_PREFIX_BYTES;
+
+/**
+ * Encodes events into the compact {@link BinaryLogFormat} instead of text, render them back with
+ * {@link BinaryLogDecoder} using any pattern.
+ * <p>
+ * Messages are kept as template and arguments so that the template goes through the dictionary, arguments are
+ * written the way the message formatter renders them. Packaging data of stack frames is not kept.
+ * <p>
+ * Note: as the dictionaries depend on what was written before, events must be encoded in the order they are written
+ * to the file. {@link ExtRollingFileAppender} does so under its lock, see {@link #requiresWriteOrder()}, any other
+ * appender has to be fed by a single thread, e.g. an async appender.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public class BinaryLogEncoder extends EncoderBase<ILoggingEvent> implements ReusableBufferEncoder<ILoggingEvent> {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    private static final String FAILED_TO_STRING = "[FAILED toString()]";
+
+    private final List<Map<Object, Integer>> dictionaries;
+
+    private final CRC32 checksum;
+
+    private byte[] bytes;
+
+    private int position;
+
+    private long previousTimestamp;
+
+    public BinaryLogEncoder() {
+        this.dictionaries = new ArrayList<>(DICTIONARY_COUNT);
+        for (int i = 0; i < DICTIONARY_COUNT; i++) {
+            this.dictionaries.add(new HashMap<>());
+        }
+        this.bytes = new byte[INITIAL_CAPACITY];
+        this.checksum = new CRC32();
+    }
+
+    /**
+     * Starts a new segment, called by the appender whenever it opens the file.
+     */
+    @Override
+    public synchronized byte[] headerBytes() {
+        for (Map<Object, Integer> dictionary : this.dictionaries) {
+            dictionary.clear();
+        }
+        this.previousTimestamp = 0L;
+        this.reset();
+        this.writeByte(BinaryLogFormat.SEGMENT);
+        for (byte magic : BinaryLogFormat.MAGIC) {
+            this.writeByte(magic);
+        }
+        this.writeByte(BinaryLogFormat.VERSION);
+        this.writeString(this.context == null ? null : this.context.getName());
+        return Arrays.copyOf(this.bytes, this.position);
+    }
+
+    @Override
+    public byte[] footerBytes() {
+        return null;
+    }
+
+    @Override
+    public synchronized byte[] encode(ILoggingEvent event) {
+        ByteBuffer buffer = this.encodeToBuffer(event);
+        return Arrays.copyOfRange(buffer.array(), buffer.position(), buffer.limit());
+    }
+
+    /**
+     * Encodes the event into a buffer owned by this encoder, only valid until the next call.
+     */
+    @Override
+    public synchronized ByteBuffer encodeToBuffer(ILoggingEvent event) {
+        this.reset();
+        Object[] arguments = event.getArgumentArray();
+        Map<String, String> mdc = event.getMDCPropertyMap();
+        int tag = BinaryLogFormat.levelCode(event.getLevel());
+        tag |= arguments != null && arguments.length > 0 ? FLAG_ARGUMENTS : 0;
+        tag |= event.getThrowableProxy() != null ? FLAG_THROWABLE : 0;
+        tag |= mdc != null && !mdc.isEmpty() ? FLAG_MDC : 0;
+        tag |= event.getMarker() != null ? FLAG_MARKER : 0;
+        tag |= event.hasCallerData() ? FLAG_CALLER_DATA : 0;
+        this.position = MAX_RECORD_PREFIX_BYTES;
+        long timestamp = event.getTimeStamp();
+        this.writeZigZag(timestamp - this.previousTimestamp);
+        this.previousTimestamp = timestamp;
+        this.writeEntry(DICTIONARY_LOGGERS, event.getLoggerName());
+        this.writeEntry(DICTIONARY_THREADS, event.getThreadName());
+        this.writeEntry(DICTIONARY_MESSAGES, event.getMessage());
+        if ((tag & FLAG_ARGUMENTS) != 0) {
+            this.writeVarint(arguments.length);
+            for (Object argument : arguments) {
+                this.writeString(render(argument));
+            }
+        }
+        if ((tag & FLAG_MDC) != 0) {
+            this.writeVarint(mdc.size());
+            for (Map.Entry<String, String> entry : mdc.entrySet()) {
+                this.writeEntry(DICTIONARY_MDC_KEYS, entry.getKey());
+                this.writeString(entry.getValue());
+            }
+        }
+        if ((tag & FLAG_MARKER) != 0) {
+            this.writeMarker(event.getMarker());
+        }
+        if ((tag & FLAG_THROWABLE) != 0) {
+            this.writeThrowable(event.getThrowableProxy());
+        }
+        if ((tag & FLAG_CALLER_DATA) != 0) {
+            StackTraceElement[] callerData = event.getCallerData();
+            this.writeVarint(callerData.length);
+            for (StackTraceElement frame : callerData) {
+                this.writeFrame(frame);
+            }
+        }
+        // Tag, length and check bytes go right in front of the rest of the record.
+        int end = this.position;
+        int length = end - MAX_RECORD_PREFIX_BYTES;
+        this.checksum.reset();
+        this.checksum.update(tag);
+        this.checksum.update(this.bytes, MAX_RECORD_PREFIX_BYTES, length);
+        int check = (int) this.checksum.getValue();
+        int start = MAX_RECORD_PREFIX_BYTES - 3 - varintSize(length);
+        this.position = start;
+        this.writeByte(tag);
+        this.writeVarint(length);
+        this.writeByte(check);
+        this.writeByte(check >>> 8);
+        this.position = end;
+        return ByteBuffer.wrap(this.bytes, start, end - start);
+    }
+
+    /**
+     * Dictionaries are only consistent when events are written in the order they were encoded.
+     */
+    @Override
+    public boolean requiresWriteOrder() {
+        return true;
+    }
+
+    private void writeMarker(Marker marker) {
+        this.writeString(marker.getName());
+        int references = 0;
+        for (Iterator<Marker> iterator = marker.iterator(); iterator.hasNext(); iterator.next()) {
+            references++;
+        }
+        this.writeVarint(references);
+        for (Iterator<Marker> iterator = marker.iterator(); iterator.hasNext(); ) {
+            this.writeMarker(iterator.next());
+        }
+    }
+
+    private void writeThrowable(IThrowableProxy throwable) {
+        this.writeEntry(DICTIONARY_CLASSES, throwable.getClassName());
+        this.writeString(throwable.getMessage());
+        this.writeVarint(throwable.getCommonFrames());
+        StackTraceElementProxy[] frames = throwable.getStackTraceElementProxyArray();
+        this.writeVarint(frames.length);
+        for (StackTraceElementProxy frame : frames) {
+            this.writeFrame(frame.getStackTraceElement());
+        }
+        IThrowableProxy[] suppressed = throwable.getSuppressed();
+        int suppressedCount = suppressed == null ? 0 : suppressed.length;
+        this.writeVarint(suppressedCount);
+        for (int i = 0; i < suppressedCount; i++) {
+            this.writeThrowable(suppressed[i]);
+        }
+        IThrowableProxy cause = throwable.getCause();
+        this.writeByte(cause == null ? 0 : 1);
+        if (cause != null) {
+            this.writeThrowable(cause);
+        }
+    }
+
+    private void writeFrame(StackTraceElement frame) {
+        if (this.writeReference(DICTIONARY_FRAMES, frame)) {
+            this.writeString(frame.getClassName());
+            this.writeString(frame.getMethodName());
+            this.writeString(frame.getFileName());
+            this.writeZigZag(frame.getLineNumber());
+            // Newer JVMs render the class loader and module as well, which the above can not carry.
+            String rendered = frame.toString();
+            this.writeString(rendered.equals(new StackTraceElement(frame.getClassName(), frame.getMethodName(),
+                    frame.getFileName(), frame.getLineNumber()).toString()) ? null : rendered);
+        }
+    }
+
+    private void writeEntry(int dictionary, String value) {
+        if (value == null) {
+            this.writeVarint(LITERAL);
+            this.writeString(null);
+        } else if (this.writeReference(dictionary, value)) {
+            this.writeString(value);
+        }
+    }
+
+    /**
+     * Writes the reference to the value, or the marker of a new entry or a literal.
+     *
+     * @return whether the caller has to write the value itself.
+     */
+    private boolean writeReference(int dictionary, Object value) {
+        Map<Object, Integer> entries = this.dictionaries.get(dictionary);
+        Integer id = entries.get(value);
+        if (id != null) {
+            this.writeVarint(id + FIRST_REFERENCE);
+            return false;
+        }
+        if (entries.size() < MAX_DICTIONARY_SIZE) {
+            entries.put(value, entries.size());
+            this.writeVarint(DEFINE);
+        } else {
+            this.writeVarint(LITERAL);
+        }
+        return true;
+    }
+
+    private void writeString(String value) {
+        if (value == null) {
+            this.writeVarint(0);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        this.writeVarint(utf8.length + 1L);
+        this.ensureCapacity(utf8.length);
+        System.arraycopy(utf8, 0, this.bytes, this.position, utf8.length);
+        this.position += utf8.length;
+    }
+
+    private void writeZigZag(long value) {
+        this.writeVarint((value << 1) ^ (value >> 63));
+    }
+
+    private void writeVarint(long value) {
+        this.ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            this.bytes[this.position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        this.bytes[this.position++] = (byte) value;
+    }
+
+    private static int varintSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            size++;
+            value >>>= 7;
+        }
+        return size;
+    }
+
+    private void writeByte(int value) {
+        this.ensureCapacity(1);
+        this.bytes[this.position++] = (byte) value;
+    }
+
+    private void ensureCapacity(int length) {
+        if (this.position + length > this.bytes.length) {
+            this.bytes = Arrays.copyOf(this.bytes, Math.max(this.position + length, this.bytes.length * 2));
+        }
+    }
+
+    private void reset() {
+        if (this.bytes.length > MAX_RETAINED_CAPACITY) {
+            this.bytes = new byte[INITIAL_CAPACITY];
+        }
+        this.position = 0;
+    }
+
+    /**
+     * The argument as the message formatter renders it, arrays deeply, null as "null".
+     */
+    private static String render(Object argument) {
+        if (argument != null && argument.getClass().isArray()) {
+            return MessageFormatter.arrayFormat("{}", new Object[]{argument}).getMessage();
+        }
+        try {
+            return String.valueOf(argument);
+        } catch (Throwable ex) { // NOSONAR
+            return FAILED_TO_STRING;
+        }
+    }
+}
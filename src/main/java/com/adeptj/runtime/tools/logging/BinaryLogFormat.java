@@ -0,0 +1,130 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging;
+
+import ch.qos.logback.classic.Level;
+
+/**
+ * Layout of the files written by {@link BinaryLogEncoder} and read by {@link BinaryLogDecoder}.
+ * <p>
+ * A file is a sequence of segments, each starting with a header: the {@link #SEGMENT} tag, the {@link #MAGIC} bytes,
+ * the {@link #VERSION} and the logger context name. A new segment starts whenever the appender opens the file, so
+ * appending to an existing file simply adds one. The segment tag followed by the magic bytes doubles as sync marker:
+ * a record cut short, e.g. by a crash before the file was appended to again, is skipped up to the next segment.
+ * <p>
+ * Every record starts with a tag byte holding the level in its low three bits and flags for the optional parts, then
+ * the varint length of the rest of the record and two check bytes, the low 16 bits of the CRC-32 of the tag and the
+ * rest, little endian.
+ * The rest is the zigzag varint difference to the previous record's timestamp, logger, thread and message. Strings
+ * which repeat (logger and thread names, message templates, MDC keys, exception class names and stack frames) are
+ * written through per segment dictionaries: {@link #LITERAL} is followed by the string itself which is not
+ * remembered, {@link #DEFINE} by the string which gets the next id of the dictionary, any other value v refers to the
+ * entry with id v - {@link #FIRST_REFERENCE}. Strings are the varint UTF-8 length + 1 followed by the bytes, 0
+ * standing for null.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+final class BinaryLogFormat {
+
+    static final byte[] MAGIC = {'A', 'J', 'L', 'B'};
+
+    static final int VERSION = 2;
+
+    static final int LEVEL_MASK = 0x07;
+
+    /**
+     * Tag of a segment header, a level value no event can have.
+     */
+    static final int SEGMENT = 0x07;
+
+    static final int FLAG_ARGUMENTS = 0x08;
+
+    static final int FLAG_THROWABLE = 0x10;
+
+    static final int FLAG_MDC = 0x20;
+
+    static final int FLAG_MARKER = 0x40;
+
+    static final int FLAG_CALLER_DATA = 0x80;
+
+    static final int LITERAL = 0;
+
+    static final int DEFINE = 1;
+
+    static final int FIRST_REFERENCE = 2;
+
+    static final int DICTIONARY_LOGGERS = 0;
+
+    static final int DICTIONARY_THREADS = 1;
+
+    static final int DICTIONARY_MESSAGES = 2;
+
+    static final int DICTIONARY_MDC_KEYS = 3;
+
+    static final int DICTIONARY_CLASSES = 4;
+
+    static final int DICTIONARY_FRAMES = 5;
+
+    static final int DICTIONARY_COUNT = 6;
+
+    /**
+     * Entries per dictionary and segment, strings beyond that are written as literals so that one off messages can
+     * not grow the dictionaries without bounds.
+     */
+    static final int MAX_DICTIONARY_SIZE = 8192;
+
+    /**
+     * Longest record read back, a longer length is taken for corruption.
+     */
+    static final int MAX_RECORD_BYTES = 64 * 1024 * 1024;
+
+    /**
+     * Room left in front of a record for its tag, length and check bytes while the rest is encoded.
+     */
+    static final int MAX_RECORD_PREFIX_BYTES = 8;
+
+    private static final Level[] LEVELS = {Level.TRACE, Level.DEBUG, Level.INFO, Level.WARN, Level.ERROR};
+
+    private BinaryLogFormat() {
+    }
+
+    static int levelCode(Level level) {
+        switch (level.toInt()) {
+            case Level.TRACE_INT:
+                return 0;
+            case Level.DEBUG_INT:
+                return 1;
+            case Level.INFO_INT:
+                return 2;
+            case Level.WARN_INT:
+                return 3;
+            default:
+                return 4;
+        }
+    }
+
+    /**
+     * The level of the code, null if there is none.
+     */
+    static Level level(int code) {
+        return code < LEVELS.length ? LEVELS[code] : null;
+    }
+}
@@ -0,0 +1,165 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.LoggerContextVO;
+import org.slf4j.Marker;
+import org.slf4j.helpers.MessageFormatter;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * An {@link ILoggingEvent} read back by the {@link BinaryLogDecoder}, the message is formatted on first use.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+final class DecodedLoggingEvent implements ILoggingEvent {
+
+    private static final StackTraceElement[] NO_CALLER_DATA = new StackTraceElement[0];
+
+    private final LoggerContextVO loggerContextVO;
+
+    private final long timeStamp;
+
+    private final Level level;
+
+    private final String loggerName;
+
+    private final String threadName;
+
+    private final String message;
+
+    private final Object[] argumentArray;
+
+    private final Map<String, String> mdcPropertyMap;
+
+    private final Marker marker;
+
+    private final IThrowableProxy throwableProxy;
+
+    private final StackTraceElement[] callerData;
+
+    private String formattedMessage;
+
+    DecodedLoggingEvent(LoggerContextVO loggerContextVO, long timeStamp, Level level, String loggerName,
+                        String threadName, String message, Object[] argumentArray, Map<String, String> mdcPropertyMap,
+                        Marker marker, IThrowableProxy throwableProxy, StackTraceElement[] callerData) {
+        this.loggerContextVO = loggerContextVO;
+        this.timeStamp = timeStamp;
+        this.level = level;
+        this.loggerName = loggerName;
+        this.threadName = threadName;
+        this.message = message;
+        this.argumentArray = argumentArray;
+        this.mdcPropertyMap = mdcPropertyMap == null ? Collections.emptyMap() : mdcPropertyMap;
+        this.marker = marker;
+        this.throwableProxy = throwableProxy;
+        this.callerData = callerData;
+    }
+
+    @Override
+    public String getThreadName() {
+        return threadName;
+    }
+
+    @Override
+    public Level getLevel() {
+        return level;
+    }
+
+    @Override
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public Object[] getArgumentArray() {
+        return argumentArray;
+    }
+
+    @Override
+    public String getFormattedMessage() {
+        if (this.formattedMessage == null) {
+            this.formattedMessage = this.argumentArray == null
+                    ? this.message
+                    : MessageFormatter.arrayFormat(this.message, this.argumentArray).getMessage();
+        }
+        return this.formattedMessage;
+    }
+
+    @Override
+    public String getLoggerName() {
+        return loggerName;
+    }
+
+    @Override
+    public LoggerContextVO getLoggerContextVO() {
+        return loggerContextVO;
+    }
+
+    @Override
+    public IThrowableProxy getThrowableProxy() {
+        return throwableProxy;
+    }
+
+    @Override
+    public StackTraceElement[] getCallerData() {
+        return this.callerData == null ? NO_CALLER_DATA : this.callerData;
+    }
+
+    @Override
+    public boolean hasCallerData() {
+        return this.callerData != null;
+    }
+
+    @Override
+    public Marker getMarker() {
+        return marker;
+    }
+
+    @Override
+    public Map<String, String> getMDCPropertyMap() {
+        return mdcPropertyMap;
+    }
+
+    /**
+     * @deprecated replaced by {@link #getMDCPropertyMap()}
+     */
+    @Deprecated
+    @Override
+    public Map<String, String> getMdc() {
+        return mdcPropertyMap;
+    }
+
+    @Override
+    public long getTimeStamp() {
+        return timeStamp;
+    }
+
+    @Override
+    public void prepareForDeferredProcessing() {
+        // Already fully materialized.
+    }
+}
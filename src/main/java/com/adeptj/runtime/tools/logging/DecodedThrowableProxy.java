@@ -0,0 +1,109 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging;
+
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.StackTraceElementProxy;
+
+/**
+ * An {@link IThrowableProxy} read back by the {@link BinaryLogDecoder}.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+final class DecodedThrowableProxy implements IThrowableProxy {
+
+    private static final IThrowableProxy[] NO_SUPPRESSED = new IThrowableProxy[0];
+
+    private final String className;
+
+    private final String message;
+
+    private final int commonFrames;
+
+    private final StackTraceElementProxy[] stackTraceElementProxyArray;
+
+    private final IThrowableProxy[] suppressed;
+
+    private final IThrowableProxy cause;
+
+    DecodedThrowableProxy(String className, String message, int commonFrames, StackTraceElementProxy[] frames,
+                          IThrowableProxy[] suppressed, IThrowableProxy cause) {
+        this.className = className;
+        this.message = message;
+        this.commonFrames = commonFrames;
+        this.stackTraceElementProxyArray = frames;
+        this.suppressed = suppressed.length == 0 ? NO_SUPPRESSED : suppressed;
+        this.cause = cause;
+    }
+
+    @Override
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String getClassName() {
+        return className;
+    }
+
+    @Override
+    public StackTraceElementProxy[] getStackTraceElementProxyArray() {
+        return stackTraceElementProxyArray;
+    }
+
+    @Override
+    public int getCommonFrames() {
+        return commonFrames;
+    }
+
+    @Override
+    public IThrowableProxy getCause() {
+        return cause;
+    }
+
+    @Override
+    public IThrowableProxy[] getSuppressed() {
+        return suppressed;
+    }
+
+    /**
+     * A frame which renders as it did in the JVM which logged it, see {@link BinaryLogEncoder}.
+     */
+    static final class Frame extends StackTraceElementProxy {
+
+        private final String steAsString;
+
+        Frame(StackTraceElement element, String rendered) {
+            super(element);
+            this.steAsString = "at " + (rendered == null ? element.toString() : rendered);
+        }
+
+        @Override
+        public String getSTEAsString() {
+            return steAsString;
+        }
+
+        @Override
+        public String toString() {
+            return steAsString;
+        }
+    }
+}
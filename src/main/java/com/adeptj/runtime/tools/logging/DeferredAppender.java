@@ -0,0 +1,373 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.FilterReply;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Stands in for an appender which is created and started in the background, so that opening consoles, files and
+ * directories stays off the startup thread.
+ * <p>
+ * Starting this appender only starts a daemon thread calling the factory, it can be attached to loggers right away.
+ * Until the real appender is ready events are kept, in order, in a bounded in memory buffer, then replayed to it on
+ * the background thread. Events logged meanwhile keep being buffered behind the replayed ones, the appender is only
+ * handed the live events once the buffer is empty, so order is kept throughout. From then on every event is passed
+ * straight through.
+ * <p>
+ * A thread logging into a full buffer waits for the real appender rather than losing the event, so startup only ever
+ * waits on log I/O when more than {@link #setBufferSize(int) bufferSize} events are logged before the appender is
+ * ready. Should the factory fail the buffered and later events are dropped and counted, see
+ * {@link #getDroppedCount()}.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public class DeferredAppender extends UnsynchronizedAppenderBase<ILoggingEvent> implements ReplaceableAppender {
+
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private static final int DEFAULT_MAX_FLUSH_TIME = 10_000;
+
+    private final ReentrantLock lock;
+
+    private final Condition notFull;
+
+    private final Condition done;
+
+    private final ArrayDeque<ILoggingEvent> buffer;
+
+    private final LongAdder droppedCount;
+
+    private final AppenderHandover handover;
+
+    private Supplier<Appender<ILoggingEvent>> factory;
+
+    private int bufferSize;
+
+    private int maxFlushTime;
+
+    private boolean includeCallerData;
+
+    private volatile Appender<ILoggingEvent> delegate;
+
+    private boolean failed;
+
+    /**
+     * Set once {@link #stop()} gave up waiting, a real appender created later is stopped right away.
+     */
+    private boolean closed;
+
+    public DeferredAppender() {
+        this.lock = new ReentrantLock();
+        this.notFull = this.lock.newCondition();
+        this.done = this.lock.newCondition();
+        this.buffer = new ArrayDeque<>();
+        this.droppedCount = new LongAdder();
+        this.handover = new AppenderHandover(this::appendLocally);
+        this.bufferSize = DEFAULT_BUFFER_SIZE;
+        this.maxFlushTime = DEFAULT_MAX_FLUSH_TIME;
+    }
+
+    @Override
+    public void start() {
+        if (this.isStarted()) {
+            return;
+        }
+        if (this.factory == null) {
+            this.addError("No appender factory set for the appender named [" + this.name + "].");
+            return;
+        }
+        if (this.bufferSize < 1) {
+            this.addError("Invalid buffer size [" + this.bufferSize + "]");
+            return;
+        }
+        Thread creator = new Thread(this::create, "DeferredAppender-" + this.getName());
+        creator.setDaemon(true);
+        super.start();
+        creator.start();
+    }
+
+    /**
+     * Waits up to maxFlushTime for the real appender so that the events still buffered are not lost, then stops it.
+     * The appender keeps taking events while waiting, only the ones logged after that are dropped and counted.
+     */
+    @Override
+    public void stop() {
+        if (!this.isStarted()) {
+            return;
+        }
+        boolean ready = false;
+        boolean interrupted = false;
+        try {
+            ready = this.awaitReady(this.maxFlushTime, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            interrupted = true;
+        }
+        super.stop();
+        Appender<ILoggingEvent> appender;
+        int discarded;
+        boolean failedToCreate;
+        this.lock.lock();
+        try {
+            this.closed = true;
+            appender = this.delegate;
+            failedToCreate = this.failed;
+            discarded = this.buffer.size();
+            this.droppedCount.add(discarded);
+            this.buffer.clear();
+            this.notFull.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+        if (interrupted) {
+            this.addError("Interrupted while waiting for appender [" + this.name + "], " + discarded
+                    + " buffered events were discarded.");
+        } else if (!ready && !failedToCreate) {
+            this.addWarn("Appender [" + this.name + "] not ready within " + this.maxFlushTime + " ms, " + discarded
+                    + " buffered events were discarded.");
+        }
+        if (appender != null) {
+            appender.stop();
+        }
+    }
+
+    /**
+     * Skips the buffering machinery once the real appender is ready, forwards to the successor once handed over and
+     * drops events once stopped.
+     */
+    @Override
+    public void doAppend(ILoggingEvent event) {
+        this.handover.doAppend(event);
+    }
+
+    @Override
+    public void handOver(Appender<ILoggingEvent> successor) {
+        this.handover.handOver(successor);
+    }
+
+    @Override
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        return this.handover.awaitIdle(timeout, unit);
+    }
+
+    private void appendLocally(ILoggingEvent event) {
+        Appender<ILoggingEvent> appender = this.delegate;
+        if (appender == null && !this.isStarted()) {
+            // Stopped before the real appender was ready.
+            this.droppedCount.increment();
+        } else if (appender == null) {
+            super.doAppend(event);
+        } else if (this.isStarted() && this.getFilterChainDecision(event) != FilterReply.DENY) {
+            appender.doAppend(event);
+        }
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        event.prepareForDeferredProcessing();
+        if (this.includeCallerData) {
+            event.getCallerData();
+        }
+        this.lock.lock();
+        try {
+            while (this.delegate == null && !this.failed && !this.closed && this.buffer.size() >= this.bufferSize) {
+                this.notFull.await();
+            }
+            if (this.delegate == null) {
+                if (this.failed || this.closed) {
+                    this.droppedCount.increment();
+                } else {
+                    this.buffer.add(event);
+                }
+                return;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            this.droppedCount.increment();
+            return;
+        } finally {
+            this.lock.unlock();
+        }
+        // Became ready meanwhile, the buffer is empty by now.
+        this.delegate.doAppend(event);
+    }
+
+    /**
+     * Runs on the background thread, creates the real appender and replays the buffer to it.
+     */
+    private void create() {
+        Appender<ILoggingEvent> appender = null;
+        try {
+            appender = this.factory.get();
+            if (appender != null && !appender.isStarted()) {
+                appender.start();
+            }
+        } catch (RuntimeException ex) {
+            this.addError("Appender [" + this.name + "] could not be created!", ex);
+            appender = null;
+        }
+        if (appender == null || !appender.isStarted()) {
+            this.fail();
+            return;
+        }
+        while (true) {
+            List<ILoggingEvent> batch;
+            this.lock.lock();
+            try {
+                if (this.closed) {
+                    this.droppedCount.add(this.buffer.size());
+                    this.buffer.clear();
+                    break;
+                }
+                if (this.buffer.isEmpty()) {
+                    this.delegate = appender;
+                    this.notFull.signalAll();
+                    this.done.signalAll();
+                    return;
+                }
+                batch = new ArrayList<>(this.buffer);
+                this.buffer.clear();
+                this.notFull.signalAll();
+            } finally {
+                this.lock.unlock();
+            }
+            batch.forEach(appender::doAppend);
+        }
+        // Stopped before the appender was ready, it is never published so nothing else stops it.
+        appender.stop();
+    }
+
+    private void fail() {
+        this.lock.lock();
+        try {
+            this.failed = true;
+            this.droppedCount.add(this.buffer.size());
+            this.buffer.clear();
+            this.notFull.signalAll();
+            this.done.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+        this.addError("Appender [" + this.name + "] could not be started, " + this.droppedCount.sum()
+                + " buffered events were discarded.");
+    }
+
+    /**
+     * Waits for the real appender to be ready and the buffer replayed to it.
+     *
+     * @return true if it is ready, false if it failed or is still not ready after the timeout.
+     */
+    public boolean awaitReady(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        this.lock.lock();
+        try {
+            while (this.delegate == null && !this.failed) {
+                if (nanos <= 0L) {
+                    return false;
+                }
+                nanos = this.done.awaitNanos(nanos);
+            }
+            return this.delegate != null;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * The real appender, null until it is ready.
+     */
+    public Appender<ILoggingEvent> getDelegate() {
+        return this.delegate;
+    }
+
+    public int getBufferedCount() {
+        this.lock.lock();
+        try {
+            return this.buffer.size();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Number of events lost because the real appender could not be created or was not ready when stopped, including
+     * the ones logged after that.
+     */
+    public long getDroppedCount() {
+        return this.droppedCount.sum();
+    }
+
+    public Supplier<Appender<ILoggingEvent>> getFactory() {
+        return factory;
+    }
+
+    /**
+     * Creates the real appender, called once on a background thread, the appender is started if it is not already.
+     */
+    public void setFactory(Supplier<Appender<ILoggingEvent>> factory) {
+        this.factory = factory;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Maximum number of events kept until the real appender is ready, {@link #DEFAULT_BUFFER_SIZE} by default.
+     */
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public int getMaxFlushTime() {
+        return maxFlushTime;
+    }
+
+    /**
+     * Maximum time in milliseconds {@link #stop()} waits for the real appender.
+     */
+    public void setMaxFlushTime(int maxFlushTime) {
+        this.maxFlushTime = maxFlushTime;
+    }
+
+    public boolean isIncludeCallerData() {
+        return includeCallerData;
+    }
+
+    /**
+     * Whether the caller data of buffered events is captured, needed when the real appender's pattern uses it.
+     */
+    public void setIncludeCallerData(boolean includeCallerData) {
+        this.includeCallerData = includeCallerData;
+    }
+}
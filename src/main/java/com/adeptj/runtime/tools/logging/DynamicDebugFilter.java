@@ -0,0 +1,219 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link TurboFilter} which enables finer levels, e.g. DEBUG, only for the events logged while the MDC matches an
+ * active rule, such as a single request id, user or tenant, instead of lowering the level for all traffic.
+ * <p>
+ * Every rule expires after its TTL. The rules are an immutable array replaced on every change, with none active the
+ * filter returns after a single volatile read. Matching events are accepted regardless of the logger's level, which
+ * makes the isDebugEnabled checks of the matching requests return true as well. Events the logger's level enables
+ * anyway are left alone.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public class DynamicDebugFilter extends TurboFilter {
+
+    public static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(15);
+
+    public static final long MAX_TTL_MILLIS = TimeUnit.HOURS.toMillis(24);
+
+    public static final int MAX_RULES = 64;
+
+    private static final Rule[] NO_RULES = new Rule[0];
+
+    private final AtomicLong ids = new AtomicLong();
+
+    private volatile Rule[] rules = NO_RULES;
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params,
+                              Throwable t) {
+        Rule[] active = this.rules;
+        if (active.length == 0) {
+            return FilterReply.NEUTRAL;
+        }
+        // Events enabled anyway are left to the other turbo filters, the first decisive reply ends the chain.
+        if (level.levelInt >= logger.getEffectiveLevel().levelInt) {
+            return FilterReply.NEUTRAL;
+        }
+        long now = System.currentTimeMillis();
+        for (Rule rule : active) {
+            if (now >= rule.expiresAt) {
+                this.purge();
+            } else if (level.levelInt >= rule.level.levelInt && rule.matches(logger.getName())
+                    && rule.mdcValue.equals(MDC.get(rule.mdcKey))) {
+                return FilterReply.ACCEPT;
+            }
+        }
+        return FilterReply.NEUTRAL;
+    }
+
+    /**
+     * Adds a rule.
+     *
+     * @param mdcKey       MDC key to match, e.g. requestId.
+     * @param mdcValue     value the MDC key must have.
+     * @param level        finest level enabled for the matching events, DEBUG if null.
+     * @param loggerPrefix only loggers with this name or below, all if blank.
+     * @param ttlMillis    time to live, {@link #DEFAULT_TTL_MILLIS} if 0 or less, at most {@link #MAX_TTL_MILLIS}.
+     * @return the rule added.
+     * @throws IllegalArgumentException if key or value are blank.
+     * @throws IllegalStateException    if {@link #MAX_RULES} are active already.
+     */
+    public synchronized Rule addRule(String mdcKey, String mdcValue, Level level, String loggerPrefix,
+                                     long ttlMillis) {
+        if (StringUtils.isAnyBlank(mdcKey, mdcValue)) {
+            throw new IllegalArgumentException("MDC key and value are required!");
+        }
+        List<Rule> active = this.active();
+        if (active.size() >= MAX_RULES) {
+            throw new IllegalStateException("No more than " + MAX_RULES + " rules can be active!");
+        }
+        long ttl = ttlMillis <= 0 ? DEFAULT_TTL_MILLIS : Math.min(ttlMillis, MAX_TTL_MILLIS);
+        Rule rule = new Rule(this.ids.incrementAndGet(), mdcKey.trim(), mdcValue.trim(),
+                level == null ? Level.DEBUG : level, StringUtils.trimToEmpty(loggerPrefix),
+                System.currentTimeMillis() + ttl);
+        active.add(rule);
+        this.rules = active.toArray(NO_RULES);
+        return rule;
+    }
+
+    /**
+     * @return whether the rule was active.
+     */
+    public synchronized boolean removeRule(long id) {
+        List<Rule> active = this.active();
+        boolean removed = active.removeIf(rule -> rule.id == id);
+        this.rules = active.toArray(NO_RULES);
+        return removed;
+    }
+
+    public synchronized void clearRules() {
+        this.rules = NO_RULES;
+    }
+
+    /**
+     * The rules not yet expired.
+     */
+    public List<Rule> getRules() {
+        List<Rule> active = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (Rule rule : this.rules) {
+            if (now < rule.expiresAt) {
+                active.add(rule);
+            }
+        }
+        return Collections.unmodifiableList(active);
+    }
+
+    private synchronized void purge() {
+        List<Rule> active = this.active();
+        if (active.size() != this.rules.length) {
+            this.rules = active.toArray(NO_RULES);
+        }
+    }
+
+    private List<Rule> active() {
+        List<Rule> active = new ArrayList<>(Arrays.asList(this.rules));
+        long now = System.currentTimeMillis();
+        active.removeIf(rule -> now >= rule.expiresAt);
+        return active;
+    }
+
+    /**
+     * An MDC key and value along with the level enabled for it.
+     */
+    public static final class Rule {
+
+        private final long id;
+
+        private final String mdcKey;
+
+        private final String mdcValue;
+
+        private final Level level;
+
+        private final String loggerPrefix;
+
+        private final long expiresAt;
+
+        Rule(long id, String mdcKey, String mdcValue, Level level, String loggerPrefix, long expiresAt) {
+            this.id = id;
+            this.mdcKey = mdcKey;
+            this.mdcValue = mdcValue;
+            this.level = level;
+            this.loggerPrefix = loggerPrefix;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean matches(String loggerName) {
+            if (this.loggerPrefix.isEmpty() || loggerName.equals(this.loggerPrefix)) {
+                return true;
+            }
+            if (!loggerName.startsWith(this.loggerPrefix)) {
+                return false;
+            }
+            char separator = loggerName.charAt(this.loggerPrefix.length());
+            return separator == '.' || separator == '$';
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getMdcKey() {
+            return mdcKey;
+        }
+
+        public String getMdcValue() {
+            return mdcValue;
+        }
+
+        public Level getLevel() {
+            return level;
+        }
+
+        public String getLoggerPrefix() {
+            return loggerPrefix;
+        }
+
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+    }
+}
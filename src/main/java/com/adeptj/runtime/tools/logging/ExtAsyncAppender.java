@@ -0,0 +1,212 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Extended version of {@link AsyncAppender} which records into {@link AppenderMetrics} when set: the time it takes
+ * to hand an event over to the queue, the queue fill level and the events discarded below the discarding threshold.
+ * <p>
+ * Note: events dropped by neverBlock on a full queue are not visible to subclasses, only the
+ * {@link RingBufferAsyncAppender} counts those.
+ * <p>
+ * The attached appender is held through a guard so that it can be left running when this one stops, the stock worker
+ * stops whatever is attached on exit, see {@link #retainAppender(Appender)}.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public class ExtAsyncAppender extends AsyncAppender implements ReplaceableAppender {
+
+    private final AppenderHandover handover = new AppenderHandover(super::doAppend);
+
+    private AppenderMetrics metrics;
+
+    /**
+     * Forwards the event to the successor once handed over, see {@link ReplaceableAppender}.
+     */
+    @Override
+    public void doAppend(ILoggingEvent event) {
+        this.handover.doAppend(event);
+    }
+
+    @Override
+    public void handOver(Appender<ILoggingEvent> successor) {
+        this.handover.handOver(successor);
+    }
+
+    @Override
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        return this.handover.awaitIdle(timeout, unit);
+    }
+
+    /**
+     * Leaves the attached appender running when this one stops, for when the appender which replaces this one writes
+     * to it too.
+     */
+    void retainAppender(Appender<ILoggingEvent> appender) {
+        RetainableAppender attached = this.find(appender);
+        if (attached != null) {
+            attached.retained = true;
+        }
+    }
+
+    @Override
+    public void addAppender(Appender<ILoggingEvent> newAppender) {
+        super.addAppender(new RetainableAppender(newAppender));
+    }
+
+    @Override
+    public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+        List<Appender<ILoggingEvent>> appenders = new ArrayList<>();
+        super.iteratorForAppenders().forEachRemaining(attached -> appenders.add(unwrap(attached)));
+        return appenders.iterator();
+    }
+
+    @Override
+    public Appender<ILoggingEvent> getAppender(String name) {
+        return unwrap(super.getAppender(name));
+    }
+
+    @Override
+    public boolean isAttached(Appender<ILoggingEvent> appender) {
+        return this.find(appender) != null;
+    }
+
+    @Override
+    public boolean detachAppender(Appender<ILoggingEvent> appender) {
+        RetainableAppender attached = this.find(appender);
+        return attached != null && super.detachAppender(attached);
+    }
+
+    private RetainableAppender find(Appender<ILoggingEvent> appender) {
+        Iterator<Appender<ILoggingEvent>> iterator = super.iteratorForAppenders();
+        while (iterator.hasNext()) {
+            Appender<ILoggingEvent> attached = iterator.next();
+            if (attached instanceof RetainableAppender && ((RetainableAppender) attached).delegate == appender) {
+                return (RetainableAppender) attached;
+            }
+        }
+        return null;
+    }
+
+    private static Appender<ILoggingEvent> unwrap(Appender<ILoggingEvent> appender) {
+        return appender instanceof RetainableAppender ? ((RetainableAppender) appender).delegate : appender;
+    }
+
+    @Override
+    public void start() {
+        super.start();
+        if (this.isStarted() && this.metrics != null) {
+            this.metrics.queue(this::getNumberOfElementsInQueue, this.getQueueSize());
+        }
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        AppenderMetrics appenderMetrics = this.metrics;
+        if (appenderMetrics == null) {
+            super.append(event);
+            return;
+        }
+        long start = System.nanoTime();
+        super.append(event);
+        appenderMetrics.enqueued(System.nanoTime() - start);
+    }
+
+    /**
+     * Only consulted once the queue's remaining capacity is below the discarding threshold, a discardable event is
+     * therefore a discarded one.
+     */
+    @Override
+    protected boolean isDiscardable(ILoggingEvent event) {
+        boolean discardable = super.isDiscardable(event);
+        if (discardable && this.metrics != null) {
+            this.metrics.discarded();
+        }
+        return discardable;
+    }
+
+    public AppenderMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Metrics to record into, must be set before {@link #start()}.
+     */
+    public void setMetrics(AppenderMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Forwards to the attached appender, whose lifecycle it shares unless retained.
+     */
+    private static final class RetainableAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
+
+        private final Appender<ILoggingEvent> delegate;
+
+        private volatile boolean retained;
+
+        RetainableAppender(Appender<ILoggingEvent> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void doAppend(ILoggingEvent event) {
+            this.delegate.doAppend(event);
+        }
+
+        @Override
+        protected void append(ILoggingEvent event) {
+            this.delegate.doAppend(event);
+        }
+
+        @Override
+        public String getName() {
+            return this.delegate.getName();
+        }
+
+        @Override
+        public boolean isStarted() {
+            return this.delegate.isStarted();
+        }
+
+        @Override
+        public void start() {
+            this.delegate.start();
+        }
+
+        @Override
+        public void stop() {
+            if (!this.retained) {
+                this.delegate.stop();
+            }
+        }
+    }
+}
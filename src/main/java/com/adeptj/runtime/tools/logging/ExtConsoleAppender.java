@@ -0,0 +1,103 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.ConsoleAppender;
+import ch.qos.logback.core.status.ErrorStatus;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Extended version of {@link ConsoleAppender} which writes the thread local buffer of a {@link ReusableBufferEncoder}
+ * straight to the console stream instead of asking the encoder for a new byte array per event.
+ * <p>
+ * With {@link AppenderMetrics} set it records the size and the encode and write latency of every event.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public class ExtConsoleAppender extends ConsoleAppender<ILoggingEvent> implements ReplaceableAppender {
+
+    private final AppenderHandover handover = new AppenderHandover(super::doAppend);
+
+    private AppenderMetrics metrics;
+
+    /**
+     * Forwards the event to the successor once handed over, see {@link ReplaceableAppender}.
+     */
+    @Override
+    public void doAppend(ILoggingEvent event) {
+        this.handover.doAppend(event);
+    }
+
+    @Override
+    public void handOver(Appender<ILoggingEvent> successor) {
+        this.handover.handOver(successor);
+    }
+
+    @Override
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        return this.handover.awaitIdle(timeout, unit);
+    }
+
+    @Override
+    protected void subAppend(ILoggingEvent event) {
+        if (!(this.encoder instanceof ReusableBufferEncoder)) {
+            super.subAppend(event);
+            return;
+        }
+        if (!this.isStarted()) {
+            return;
+        }
+        AppenderMetrics appenderMetrics = this.metrics;
+        try {
+            event.prepareForDeferredProcessing();
+            long start = appenderMetrics == null ? 0L : System.nanoTime();
+            ByteBuffer buffer = ((ReusableBufferEncoder<ILoggingEvent>) this.encoder).encodeToBuffer(event);
+            long encoded = appenderMetrics == null ? 0L : System.nanoTime();
+            int length = buffer.remaining();
+            ReusableBufferEncoder.write(buffer, this.lock, this);
+            if (appenderMetrics != null) {
+                appenderMetrics.written(length, encoded - start, System.nanoTime() - encoded);
+            }
+        } catch (IOException ex) {
+            if (appenderMetrics != null) {
+                appenderMetrics.error();
+            }
+            this.started = false;
+            this.addStatus(new ErrorStatus("IO failure in appender", this, ex));
+        }
+    }
+
+    public AppenderMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Metrics to record into, must be set before {@link #start()}.
+     */
+    public void setMetrics(AppenderMetrics metrics) {
+        this.metrics = metrics;
+    }
+}
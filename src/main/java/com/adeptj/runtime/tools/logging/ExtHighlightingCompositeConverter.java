@@ -20,37 +20,101 @@
 
 package com.adeptj.runtime.tools.logging;
 
-import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.pattern.color.HighlightingCompositeConverter;
 import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.pattern.Converter;
+import org.apache.commons.lang3.StringUtils;
 
-import static ch.qos.logback.core.pattern.color.ANSIConstants.BLUE_FG;
-import static ch.qos.logback.core.pattern.color.ANSIConstants.BOLD;
-import static ch.qos.logback.core.pattern.color.ANSIConstants.DEFAULT_FG;
-import static ch.qos.logback.core.pattern.color.ANSIConstants.RED_FG;
-import static ch.qos.logback.core.pattern.color.ANSIConstants.YELLOW_FG;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Extended version of {@link HighlightingCompositeConverter} which prints debug log level in yellow.
+ * <p>
+ * Colours come from a {@link HighlightPalette} holding the complete escape sequences per level, which can be given
+ * as options, e.g. %highlight(%-5level){ERROR=1;31, INFO=32}, or set by the encoder. A disabled palette writes the
+ * child output without any escape sequences.
  *
  * @author Rakesh.Kumar, AdeptJ
  */
 public class ExtHighlightingCompositeConverter extends HighlightingCompositeConverter {
 
+    private volatile HighlightPalette palette = HighlightPalette.defaults();
+
+    private boolean optionColors;
+
+    @Override
+    public void start() {
+        List<String> options = this.getOptionList();
+        if (options != null && !options.isEmpty()) {
+            Map<String, String> colors = new HashMap<>();
+            for (String option : options) {
+                String level = StringUtils.trim(StringUtils.substringBefore(option, "="));
+                colors.put(StringUtils.upperCase(level), StringUtils.substringAfter(option, "="));
+            }
+            this.palette = HighlightPalette.of(colors);
+            this.optionColors = true;
+        }
+        super.start();
+    }
+
+    public void setPalette(HighlightPalette palette) {
+        this.palette = palette == null ? HighlightPalette.defaults() : palette;
+    }
+
+    /**
+     * Applies the palette of the enclosing encoder, colours given as options take precedence unless the palette
+     * switches highlighting off.
+     */
+    void applyPalette(HighlightPalette encoderPalette) {
+        if (!encoderPalette.isEnabled() || !this.optionColors) {
+            this.palette = encoderPalette;
+        }
+    }
+
+    public HighlightPalette getPalette() {
+        return this.palette;
+    }
+
     @Override
     protected String getForegroundColorCode(ILoggingEvent event) {
-        Level level = event.getLevel();
-        switch (level.toInt()) {
-            case Level.ERROR_INT:
-                return BOLD + RED_FG;
-            case Level.WARN_INT:
-                return RED_FG;
-            case Level.INFO_INT:
-                return BLUE_FG;
-            case Level.DEBUG_INT:
-                return YELLOW_FG;
-            default:
-                return DEFAULT_FG;
+        return this.palette.code(event.getLevel());
+    }
+
+    @Override
+    protected String transform(ILoggingEvent event, String in) {
+        HighlightPalette current = this.palette;
+        if (!current.isEnabled()) {
+            return in;
         }
+        String prefix = current.prefix(event.getLevel());
+        return new StringBuilder(prefix.length() + in.length() + current.suffix().length())
+                .append(prefix)
+                .append(in)
+                .append(current.suffix())
+                .toString();
+    }
+
+    /**
+     * Appends the highlighted child output straight to the given buffer, without the intermediate strings built by
+     * {@link #convert(Object)}. Only equivalent to write(StringBuilder, ILoggingEvent) when there is no formatting
+     * info, see {@link #isDirectAppendable()}.
+     */
+    public void appendTo(StringBuilder out, ILoggingEvent event) {
+        HighlightPalette current = this.palette;
+        if (current.isEnabled()) {
+            out.append(current.prefix(event.getLevel()));
+        }
+        for (Converter<ILoggingEvent> child = this.getChildConverter(); child != null; child = child.getNext()) {
+            child.write(out, event);
+        }
+        if (current.isEnabled()) {
+            out.append(current.suffix());
+        }
+    }
+
+    public boolean isDirectAppendable() {
+        return this.getFormattingInfo() == null;
     }
 }
@@ -0,0 +1,239 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.rolling.RollingFileAppender;
+import ch.qos.logback.core.rolling.TimeBasedRollingPolicy;
+import ch.qos.logback.core.rolling.TriggeringPolicy;
+import ch.qos.logback.core.status.ErrorStatus;
+import ch.qos.logback.core.util.FileSize;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Extended version of {@link RollingFileAppender} which writes the thread local buffer of a
+ * {@link ReusableBufferEncoder} straight to the file stream instead of asking the encoder for a new byte array per
+ * event.
+ * <p>
+ * Encoders which {@link ReusableBufferEncoder#requiresWriteOrder() require write order}, such as the
+ * {@link BinaryLogEncoder}, encode and write under the appender's lock.
+ * <p>
+ * With an index block size set it also maintains the sparse {@link LogIndex} sidecar of the active file, which
+ * follows the file to its archive name on rollover, see {@link LogSearch}. With {@link AppenderMetrics} set it records
+ * the size and the encode and write latency of every event.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public class ExtRollingFileAppender extends RollingFileAppender<ILoggingEvent> implements ReplaceableAppender {
+
+    private final AppenderHandover handover = new AppenderHandover(super::doAppend);
+
+    private volatile File activeFile;
+
+    private FileSize indexBlockSize;
+
+    private LogIndex.Writer indexWriter;
+
+    private AppenderMetrics metrics;
+
+    /**
+     * Forwards the event to the successor once handed over, see {@link ReplaceableAppender}.
+     */
+    @Override
+    public void doAppend(ILoggingEvent event) {
+        this.handover.doAppend(event);
+    }
+
+    @Override
+    public void handOver(Appender<ILoggingEvent> successor) {
+        this.handover.handOver(successor);
+    }
+
+    @Override
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        return this.handover.awaitIdle(timeout, unit);
+    }
+
+    @Override
+    public void start() {
+        // Offsets are only known when this class does the writing, see subAppend. Binary logs are not searchable.
+        if (this.indexBlockSize != null && this.indexBlockSize.getSize() > 0 && !this.isPrudent()
+                && this.encoder instanceof ReusableBufferEncoder
+                && !((ReusableBufferEncoder<ILoggingEvent>) this.encoder).requiresWriteOrder()) {
+            this.indexWriter = new LogIndex.Writer(this.indexBlockSize.getSize());
+        }
+        super.start();
+        if (this.isStarted()) {
+            this.activeFile = new File(this.getFile());
+        }
+    }
+
+    @Override
+    public void stop() {
+        this.lock.lock();
+        try {
+            super.stop();
+            if (this.indexWriter != null) {
+                this.indexWriter.close();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public void setOutputStream(OutputStream outputStream) {
+        this.lock.lock();
+        try {
+            super.setOutputStream(outputStream);
+            if (this.indexWriter != null && this.getFile() != null) {
+                this.indexWriter.reset(new File(this.getFile()));
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public void rollover() {
+        if (this.indexWriter == null) {
+            super.rollover();
+            this.activeFile = new File(this.getRollingPolicy().getActiveFileName());
+            return;
+        }
+        this.lock.lock();
+        try {
+            String archive = this.getArchiveFileName();
+            long offset = this.indexWriter.getOffset();
+            this.indexWriter.close();
+            super.rollover();
+            this.activeFile = new File(this.getRollingPolicy().getActiveFileName());
+            // The log file only moved if the new one is shorter, its index has to follow before the next event.
+            if (archive != null && this.indexWriter.getOffset() < offset) {
+                File indexFile = LogIndex.indexFile(this.activeFile);
+                if (!indexFile.renameTo(LogIndex.indexFile(new File(archive)))) {
+                    this.addWarn("Could not move [" + indexFile + "] along with the rolled log file.");
+                }
+                LogIndex.purgeOrphans(this.activeFile.getAbsoluteFile().getParentFile());
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private String getArchiveFileName() {
+        if (this.getRollingPolicy() instanceof TimeBasedRollingPolicy) {
+            return ((TimeBasedRollingPolicy<?>) this.getRollingPolicy()).getTimeBasedFileNamingAndTriggeringPolicy()
+                    .getElapsedPeriodsFileName();
+        }
+        return null;
+    }
+
+    @Override
+    protected void subAppend(ILoggingEvent event) {
+        if (!(this.encoder instanceof ReusableBufferEncoder) || this.isPrudent()) {
+            super.subAppend(event);
+            return;
+        }
+        // Same roll-over check as RollingFileAppender, it must precede the actual writing.
+        TriggeringPolicy<ILoggingEvent> triggeringPolicy = this.getTriggeringPolicy();
+        synchronized (triggeringPolicy) {
+            if (triggeringPolicy.isTriggeringEvent(this.activeFile, event)) {
+                this.rollover();
+            }
+        }
+        if (!this.isStarted()) {
+            return;
+        }
+        ReusableBufferEncoder<ILoggingEvent> bufferEncoder = (ReusableBufferEncoder<ILoggingEvent>) this.encoder;
+        if (bufferEncoder.requiresWriteOrder()) {
+            this.lock.lock();
+            try {
+                this.encodeAndWrite(event, bufferEncoder);
+            } finally {
+                this.lock.unlock();
+            }
+        } else {
+            this.encodeAndWrite(event, bufferEncoder);
+        }
+    }
+
+    private void encodeAndWrite(ILoggingEvent event, ReusableBufferEncoder<ILoggingEvent> bufferEncoder) {
+        AppenderMetrics appenderMetrics = this.metrics;
+        try {
+            event.prepareForDeferredProcessing();
+            long start = appenderMetrics == null ? 0L : System.nanoTime();
+            ByteBuffer buffer = bufferEncoder.encodeToBuffer(event);
+            long encoded = appenderMetrics == null ? 0L : System.nanoTime();
+            int length = buffer.remaining();
+            if (this.indexWriter == null) {
+                ReusableBufferEncoder.write(buffer, this.lock, this);
+            } else {
+                this.lock.lock();
+                try {
+                    // The index only advances by what actually reached the file, or its offsets drift.
+                    if (ReusableBufferEncoder.write(buffer, this.lock, this)) {
+                        this.indexWriter.written(event.getTimeStamp(), event.getLevel().toInt(), length);
+                    }
+                } finally {
+                    this.lock.unlock();
+                }
+            }
+            if (appenderMetrics != null) {
+                appenderMetrics.written(length, encoded - start, System.nanoTime() - encoded);
+            }
+        } catch (IOException ex) {
+            if (appenderMetrics != null) {
+                appenderMetrics.error();
+            }
+            this.started = false;
+            this.addStatus(new ErrorStatus("IO failure in appender", this, ex));
+        }
+    }
+
+    public AppenderMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Metrics to record into, must be set before {@link #start()}.
+     */
+    public void setMetrics(AppenderMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public FileSize getIndexBlockSize() {
+        return indexBlockSize;
+    }
+
+    /**
+     * Approximate number of log bytes per {@link LogIndex} entry, no index is kept when not set.
+     */
+    public void setIndexBlockSize(FileSize indexBlockSize) {
+        this.indexBlockSize = indexBlockSize;
+    }
+}
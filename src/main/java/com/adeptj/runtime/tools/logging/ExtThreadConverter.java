@@ -22,23 +22,40 @@ package com.adeptj.runtime.tools.logging;
 
 import ch.qos.logback.classic.pattern.ThreadConverter;
 import ch.qos.logback.classic.spi.ILoggingEvent;
-import org.apache.commons.lang3.StringUtils;
 
 /**
- * Extended version of {@link ThreadConverter} which trims the OSGi ConfigAdmin update thread name.
+ * Extended version of {@link ThreadConverter} which trims thread names, such as the OSGi ConfigAdmin update thread,
+ * as per the installed {@link ThreadNameRules}.
+ * <p>
+ * Conversions are looked up by the event's thread name in the bounded cache of the rules, which works the same
+ * whether events are converted on the logging thread or by an async appender's worker converting for all threads.
  *
  * @author Rakesh.Kumar, AdeptJ
  */
 public class ExtThreadConverter extends ThreadConverter {
 
+    private static volatile ThreadNameRules rules = ThreadNameRules.defaults();
+
     @Override
     public String convert(ILoggingEvent event) {
-        String threadName = super.convert(event);
-        if (StringUtils.startsWith(threadName, "CM Event Dispatcher")) {
-            return "CM Event Dispatcher";
-        } else if (StringUtils.startsWith(threadName, "Background Update")) {
-            return "Background Update";
-        }
-        return threadName;
+        return normalize(super.convert(event));
+    }
+
+    /**
+     * Applies the installed {@link ThreadNameRules} to the given thread name.
+     */
+    public static String normalize(String threadName) {
+        return rules.apply(threadName);
+    }
+
+    /**
+     * Replaces the rules used by every {@link ExtThreadConverter}, this invalidates all cached names.
+     */
+    public static void setRules(ThreadNameRules threadNameRules) {
+        rules = threadNameRules == null ? ThreadNameRules.defaults() : threadNameRules;
+    }
+
+    public static ThreadNameRules getRules() {
+        return rules;
     }
 }
@@ -0,0 +1,55 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging;
+
+import org.apache.commons.lang3.EnumUtils;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * When a {@link GroupCommitRollingFileAppender} forces written bytes to the storage device.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public enum ForcePolicy {
+
+    /**
+     * Leave it to the OS, bytes are only forced when the file is closed, i.e. on rollover and stop.
+     */
+    NEVER,
+
+    /**
+     * Force after every group commit, safest and slowest.
+     */
+    ON_COMMIT,
+
+    /**
+     * Force on the first group commit after the flush delay elapsed since the last force.
+     */
+    INTERVAL;
+
+    /**
+     * Resolves the policy by its (case insensitive) name, falls back to {@link #NEVER} when unknown.
+     */
+    public static ForcePolicy of(String name) {
+        ForcePolicy policy = EnumUtils.getEnum(ForcePolicy.class, StringUtils.upperCase(StringUtils.trim(name)));
+        return policy == null ? NEVER : policy;
+    }
+}
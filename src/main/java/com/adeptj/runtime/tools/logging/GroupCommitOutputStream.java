@@ -0,0 +1,238 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link OutputStream} which collects writes in a direct buffer and commits them to a {@link FileChannel} as a group,
+ * once at least maxBytes are pending or the oldest pending byte is maxDelay ms old, whichever comes first.
+ * <p>
+ * Writers are already serialized by the appender's lock, the lock here only guards against the appender's flusher
+ * thread which takes care of the time bound. The flusher runs when the oldest pending byte is due rather than
+ * periodically, at most one run per stream is scheduled at a time.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+final class GroupCommitOutputStream extends OutputStream {
+
+    private final FileChannel channel;
+
+    private final ByteBuffer buffer;
+
+    private final int maxBytes;
+
+    private final long maxDelayNanos;
+
+    private final ForcePolicy forcePolicy;
+
+    private final ReentrantLock lock;
+
+    private final ScheduledExecutorService flusher;
+
+    /**
+     * The scheduled flusher run, null if none.
+     */
+    private ScheduledFuture<?> flushTask;
+
+    private long firstPendingNanos;
+
+    private long lastForceNanos;
+
+    private IOException failure;
+
+    GroupCommitOutputStream(File file, boolean append, int bufferSize, int maxBytes, long maxDelayMillis,
+                            ForcePolicy forcePolicy, ScheduledExecutorService flusher) throws IOException {
+        this.channel = append
+                ? FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)
+                : FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        this.maxBytes = Math.min(maxBytes, bufferSize);
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.forcePolicy = forcePolicy;
+        this.lock = new ReentrantLock();
+        this.flusher = flusher;
+        this.lastForceNanos = System.nanoTime();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        this.lock.lock();
+        try {
+            this.ensureCapacity(1);
+            this.buffer.put((byte) b);
+            this.afterWrite();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        this.lock.lock();
+        try {
+            if (length > this.buffer.capacity()) {
+                // Larger than the whole buffer, keep the order and hand it to the channel as it is.
+                this.commit();
+                this.writeFully(ByteBuffer.wrap(bytes, offset, length));
+                this.afterCommit();
+                return;
+            }
+            this.ensureCapacity(length);
+            this.buffer.put(bytes, offset, length);
+            this.afterWrite();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Commits whatever is pending, called by the appender on every event when immediateFlush is set.
+     */
+    @Override
+    public void flush() throws IOException {
+        this.lock.lock();
+        try {
+            this.commit();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.lock.lock();
+        try {
+            if (this.flushTask != null) {
+                this.flushTask.cancel(false);
+                this.flushTask = null;
+            }
+            if (!this.channel.isOpen()) {
+                return;
+            }
+            try {
+                this.commit();
+                this.channel.force(false);
+            } finally {
+                this.channel.close();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private void ensureCapacity(int length) throws IOException {
+        this.rethrowFailure();
+        if (this.buffer.remaining() < length) {
+            this.commit();
+        }
+    }
+
+    private void afterWrite() throws IOException {
+        if (this.firstPendingNanos == 0L) {
+            this.firstPendingNanos = System.nanoTime();
+            if (this.flushTask == null) {
+                this.scheduleFlush(this.maxDelayNanos);
+            }
+        }
+        if (this.buffer.position() >= this.maxBytes) {
+            this.commit();
+        }
+    }
+
+    private void scheduleFlush(long delayNanos) {
+        this.flushTask = this.flusher.schedule(this::flushIfDue, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Commits if the oldest pending byte is due, otherwise runs again when it will be. Waits for a writer holding
+     * the lock rather than skipping the run, so nothing stays pending much longer than maxDelay.
+     */
+    private void flushIfDue() {
+        this.lock.lock();
+        try {
+            this.flushTask = null;
+            if (this.firstPendingNanos == 0L || !this.channel.isOpen()) {
+                return;
+            }
+            long age = System.nanoTime() - this.firstPendingNanos;
+            if (age >= this.maxDelayNanos) {
+                this.commit();
+            } else {
+                // Committed by size since this run was scheduled, the bytes pending now are younger.
+                this.scheduleFlush(this.maxDelayNanos - age);
+            }
+        } catch (IOException ex) {
+            // Surfaced to the appender on the next write.
+            this.failure = ex;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private void commit() throws IOException {
+        if (this.buffer.position() == 0) {
+            return;
+        }
+        this.buffer.flip();
+        try {
+            this.writeFully(this.buffer);
+        } finally {
+            this.buffer.clear();
+            this.firstPendingNanos = 0L;
+        }
+        this.afterCommit();
+    }
+
+    private void writeFully(ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            this.channel.write(source);
+        }
+    }
+
+    private void afterCommit() throws IOException {
+        long now = System.nanoTime();
+        if (this.forcePolicy == ForcePolicy.ON_COMMIT
+                || (this.forcePolicy == ForcePolicy.INTERVAL && now - this.lastForceNanos >= this.maxDelayNanos)) {
+            this.channel.force(false);
+            this.lastForceNanos = now;
+        }
+    }
+
+    private void rethrowFailure() throws IOException {
+        IOException ex = this.failure;
+        if (ex != null) {
+            this.failure = null;
+            throw ex;
+        }
+    }
+}
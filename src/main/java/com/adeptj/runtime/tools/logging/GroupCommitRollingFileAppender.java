@@ -0,0 +1,154 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging;
+
+import ch.qos.logback.core.util.FileSize;
+import ch.qos.logback.core.util.FileUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+/**
+ * Rolling file appender which writes through a {@link java.nio.channels.FileChannel} with a large direct buffer and
+ * group commit, see {@link GroupCommitOutputStream}.
+ * <p>
+ * Pending bytes are committed after at most flushMaxBytes or flushMaxDelay ms, whichever comes first, so unlike a
+ * buffered appender without immediateFlush the amount of log lost on a crash is bounded, while still avoiding a write
+ * system call per event. The {@link ForcePolicy} decides when committed bytes are forced to disk. Rolling works
+ * exactly as in {@link ExtRollingFileAppender}, the stream is simply reopened on the new file.
+ * <p>
+ * The time bound is kept by a flusher thread of its own which lives from start to stop, shared by the streams opened
+ * on every rolled file.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public class GroupCommitRollingFileAppender extends ExtRollingFileAppender {
+
+    public static final long DEFAULT_BUFFER_SIZE = 256 * FileSize.KB_COEFFICIENT;
+
+    public static final long DEFAULT_FLUSH_MAX_BYTES = 64 * FileSize.KB_COEFFICIENT;
+
+    public static final long DEFAULT_FLUSH_MAX_DELAY = 1000L;
+
+    private FileSize groupCommitBufferSize;
+
+    private FileSize flushMaxBytes;
+
+    private long flushMaxDelay;
+
+    private ForcePolicy forcePolicy;
+
+    private ScheduledThreadPoolExecutor flusher;
+
+    public GroupCommitRollingFileAppender() {
+        this.groupCommitBufferSize = new FileSize(DEFAULT_BUFFER_SIZE);
+        this.flushMaxBytes = new FileSize(DEFAULT_FLUSH_MAX_BYTES);
+        this.flushMaxDelay = DEFAULT_FLUSH_MAX_DELAY;
+        this.forcePolicy = ForcePolicy.NEVER;
+    }
+
+    @Override
+    public void start() {
+        if (this.isPrudent()) {
+            this.addError("Prudent mode is not supported by GroupCommitRollingFileAppender named ["
+                    + this.getName() + "]");
+            return;
+        }
+        this.flusher = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "GroupCommit-Flusher-" + this.getName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Runs cancelled by a stream closing on rollover would otherwise pile up until due.
+        this.flusher.setRemoveOnCancelPolicy(true);
+        super.start();
+        if (!this.isStarted()) {
+            this.shutdownFlusher();
+        }
+    }
+
+    /**
+     * Shuts the flusher down once the stream is closed, the last pending bytes are committed by closing it.
+     */
+    @Override
+    public void stop() {
+        super.stop();
+        this.shutdownFlusher();
+    }
+
+    private void shutdownFlusher() {
+        ScheduledExecutorService executor = this.flusher;
+        if (executor != null) {
+            this.flusher = null;
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public void openFile(String fileName) throws IOException {
+        this.lock.lock();
+        try {
+            File file = new File(fileName);
+            if (!FileUtil.createMissingParentDirectories(file)) {
+                this.addError("Failed to create parent directories for [" + file.getAbsolutePath() + "]");
+            }
+            this.setOutputStream(new GroupCommitOutputStream(file, this.append,
+                    (int) this.groupCommitBufferSize.getSize(), (int) this.flushMaxBytes.getSize(), this.flushMaxDelay,
+                    this.forcePolicy, this.flusher));
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public FileSize getGroupCommitBufferSize() {
+        return groupCommitBufferSize;
+    }
+
+    public void setGroupCommitBufferSize(FileSize groupCommitBufferSize) {
+        this.groupCommitBufferSize = groupCommitBufferSize;
+    }
+
+    public FileSize getFlushMaxBytes() {
+        return flushMaxBytes;
+    }
+
+    public void setFlushMaxBytes(FileSize flushMaxBytes) {
+        this.flushMaxBytes = flushMaxBytes;
+    }
+
+    public long getFlushMaxDelay() {
+        return flushMaxDelay;
+    }
+
+    public void setFlushMaxDelay(long flushMaxDelay) {
+        this.flushMaxDelay = flushMaxDelay;
+    }
+
+    public ForcePolicy getForcePolicy() {
+        return forcePolicy;
+    }
+
+    public void setForcePolicy(ForcePolicy forcePolicy) {
+        this.forcePolicy = forcePolicy == null ? ForcePolicy.NEVER : forcePolicy;
+    }
+}
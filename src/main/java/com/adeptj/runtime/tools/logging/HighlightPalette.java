@@ -0,0 +1,152 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging;
+
+import ch.qos.logback.classic.Level;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Map;
+
+import static ch.qos.logback.core.pattern.color.ANSIConstants.BLUE_FG;
+import static ch.qos.logback.core.pattern.color.ANSIConstants.BOLD;
+import static ch.qos.logback.core.pattern.color.ANSIConstants.DEFAULT_FG;
+import static ch.qos.logback.core.pattern.color.ANSIConstants.ESC_END;
+import static ch.qos.logback.core.pattern.color.ANSIConstants.ESC_START;
+import static ch.qos.logback.core.pattern.color.ANSIConstants.RED_FG;
+import static ch.qos.logback.core.pattern.color.ANSIConstants.YELLOW_FG;
+
+/**
+ * Immutable per level ANSI colour codes used by {@link ExtHighlightingCompositeConverter}.
+ * <p>
+ * The complete escape sequences are built once here, so highlighting an event only appends constants.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public final class HighlightPalette {
+
+    /**
+     * Forces highlighting even if the console is not a TTY, e.g. IDE consoles.
+     */
+    private static final String SYS_PROP_LOG_HIGHLIGHT_FORCE = "log.highlight.force";
+
+    private static final String SUFFIX = ESC_START + "0;" + DEFAULT_FG + ESC_END;
+
+    private static final HighlightPalette DEFAULTS = new HighlightPalette(BOLD + RED_FG, RED_FG, BLUE_FG, YELLOW_FG,
+            DEFAULT_FG, DEFAULT_FG, true);
+
+    private static final HighlightPalette DISABLED = new HighlightPalette(DEFAULT_FG, DEFAULT_FG, DEFAULT_FG,
+            DEFAULT_FG, DEFAULT_FG, DEFAULT_FG, false);
+
+    private final String[] codes;
+
+    private final String[] prefixes;
+
+    private final boolean enabled;
+
+    private HighlightPalette(String error, String warn, String info, String debug, String trace, String other,
+                             boolean enabled) {
+        this.codes = new String[]{error, warn, info, debug, trace, other};
+        this.prefixes = new String[this.codes.length];
+        for (int i = 0; i < this.codes.length; i++) {
+            this.prefixes[i] = ESC_START + this.codes[i] + ESC_END;
+        }
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * The bare colour code, e.g. 1;31, as returned by HighlightingCompositeConverter#getForegroundColorCode.
+     */
+    public String code(Level level) {
+        return this.codes[index(level)];
+    }
+
+    /**
+     * The complete escape sequence switching to the level's colour.
+     */
+    public String prefix(Level level) {
+        return this.prefixes[index(level)];
+    }
+
+    /**
+     * The complete escape sequence switching back to the default colour.
+     */
+    public String suffix() {
+        return SUFFIX;
+    }
+
+    /**
+     * Same palette, switched off when the console is not a TTY unless the log.highlight.force system property is set.
+     */
+    public HighlightPalette forConsole() {
+        return isConsoleTty() ? this : DISABLED;
+    }
+
+    private static int index(Level level) {
+        switch (level.toInt()) {
+            case Level.ERROR_INT:
+                return 0;
+            case Level.WARN_INT:
+                return 1;
+            case Level.INFO_INT:
+                return 2;
+            case Level.DEBUG_INT:
+                return 3;
+            case Level.TRACE_INT:
+                return 4;
+            default:
+                return 5;
+        }
+    }
+
+    private static boolean isConsoleTty() {
+        return Boolean.getBoolean(SYS_PROP_LOG_HIGHLIGHT_FORCE) || System.console() != null;
+    }
+
+    public static HighlightPalette defaults() {
+        return DEFAULTS;
+    }
+
+    public static HighlightPalette disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * Creates a palette from level name to ANSI colour code (e.g. ERROR=1;31) pairs, levels not given keep their
+     * default colour.
+     */
+    public static HighlightPalette of(Map<String, String> colors) {
+        if (colors == null || colors.isEmpty()) {
+            return DEFAULTS;
+        }
+        return new HighlightPalette(color(colors, Level.ERROR, 0), color(colors, Level.WARN, 1),
+                color(colors, Level.INFO, 2), color(colors, Level.DEBUG, 3), color(colors, Level.TRACE, 4),
+                DEFAULT_FG, true);
+    }
+
+    private static String color(Map<String, String> colors, Level level, int index) {
+        String code = colors.get(level.levelStr);
+        return StringUtils.isBlank(code) ? DEFAULTS.codes[index] : StringUtils.trim(code);
+    }
+}
@@ -0,0 +1,362 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.StackTraceElementProxy;
+import ch.qos.logback.core.encoder.EncoderBase;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Encodes events as JSON lines for log shipping, one object per line:
+ * <pre>
+ * {"timestamp":"2018-06-01T10:15:30.123Z","level":"INFO","logger":"..","thread":"..","message":"..",
+ * "mdc":{..},"exception":{"class":"..","message":"..","frames":[{"class":"..","method":"..","file":"..","line":42}],
+ * "commonFrames":0,"suppressed":[..],"cause":{..}}}
+ * </pre>
+ * mdc and exception are only present when the event has them, the thread name is normalized the same way
+ * {@link ExtThreadConverter} does.
+ * <p>
+ * Fields are written straight into a thread local byte buffer, see {@link ReusableBufferEncoder}. Field names and
+ * levels are encoded upfront, strings are escaped and UTF-8 encoded in a single pass and the timestamp's date and
+ * time part is reused for all events within the same second.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public class JsonLinesEncoder extends EncoderBase<ILoggingEvent> implements ReusableBufferEncoder<ILoggingEvent> {
+
+    private static final int INITIAL_CAPACITY = 512;
+
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    private static final DateTimeFormatter SECONDS = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.")
+            .withZone(ZoneOffset.UTC);
+
+    private static final byte[] TIMESTAMP = ascii("{\"timestamp\":\"");
+
+    private static final byte[] LEVEL = ascii("Z\",\"level\":");
+
+    private static final byte[] LOGGER = ascii(",\"logger\":");
+
+    private static final byte[] THREAD = ascii(",\"thread\":");
+
+    private static final byte[] MESSAGE = ascii(",\"message\":");
+
+    private static final byte[] MDC = ascii(",\"mdc\":{");
+
+    private static final byte[] EXCEPTION = ascii(",\"exception\":");
+
+    private static final byte[] CLASS = ascii("{\"class\":");
+
+    private static final byte[] FRAMES = ascii(",\"frames\":[");
+
+    private static final byte[] METHOD = ascii(",\"method\":");
+
+    private static final byte[] FILE = ascii(",\"file\":");
+
+    private static final byte[] LINE = ascii(",\"line\":");
+
+    private static final byte[] COMMON_FRAMES = ascii("],\"commonFrames\":");
+
+    private static final byte[] SUPPRESSED = ascii(",\"suppressed\":[");
+
+    private static final byte[] CAUSE = ascii(",\"cause\":");
+
+    private static final byte[] NULL = ascii("null");
+
+    private static final byte[] TRACE = ascii("\"TRACE\"");
+
+    private static final byte[] DEBUG = ascii("\"DEBUG\"");
+
+    private static final byte[] INFO = ascii("\"INFO\"");
+
+    private static final byte[] WARN = ascii("\"WARN\"");
+
+    private static final byte[] ERROR = ascii("\"ERROR\"");
+
+    private static final byte[] HEX = ascii("0123456789abcdef");
+
+    private final ThreadLocal<JsonBuffer> buffers = ThreadLocal.withInitial(JsonBuffer::new);
+
+    @Override
+    public byte[] headerBytes() {
+        return null;
+    }
+
+    @Override
+    public byte[] footerBytes() {
+        return null;
+    }
+
+    @Override
+    public byte[] encode(ILoggingEvent event) {
+        ByteBuffer buffer = this.encodeToBuffer(event);
+        return Arrays.copyOfRange(buffer.array(), buffer.position(), buffer.limit());
+    }
+
+    @Override
+    public ByteBuffer encodeToBuffer(ILoggingEvent event) {
+        JsonBuffer json = this.buffers.get().reset();
+        json.write(TIMESTAMP).timestamp(event.getTimeStamp());
+        json.write(LEVEL).write(level(event.getLevel()));
+        json.write(LOGGER).string(event.getLoggerName());
+        json.write(THREAD).string(ExtThreadConverter.normalize(event.getThreadName()));
+        json.write(MESSAGE).string(event.getFormattedMessage());
+        Map<String, String> mdc = event.getMDCPropertyMap();
+        if (mdc != null && !mdc.isEmpty()) {
+            json.write(MDC);
+            boolean first = true;
+            for (Map.Entry<String, String> entry : mdc.entrySet()) {
+                if (!first) {
+                    json.write(',');
+                }
+                json.string(entry.getKey()).write(':').string(entry.getValue());
+                first = false;
+            }
+            json.write('}');
+        }
+        if (event.getThrowableProxy() != null) {
+            json.write(EXCEPTION);
+            this.throwable(json, event.getThrowableProxy());
+        }
+        return json.write('}').write('\n').toByteBuffer();
+    }
+
+    private void throwable(JsonBuffer json, IThrowableProxy throwable) {
+        json.write(CLASS).string(throwable.getClassName());
+        json.write(MESSAGE).string(throwable.getMessage());
+        json.write(FRAMES);
+        StackTraceElementProxy[] frames = throwable.getStackTraceElementProxyArray();
+        for (int i = 0; i < frames.length; i++) {
+            StackTraceElement frame = frames[i].getStackTraceElement();
+            if (i > 0) {
+                json.write(',');
+            }
+            json.write(CLASS).string(frame.getClassName());
+            json.write(METHOD).string(frame.getMethodName());
+            if (frame.getFileName() != null) {
+                json.write(FILE).string(frame.getFileName());
+            }
+            json.write(LINE).number(frame.getLineNumber()).write('}');
+        }
+        json.write(COMMON_FRAMES).number(throwable.getCommonFrames());
+        IThrowableProxy[] suppressed = throwable.getSuppressed();
+        if (suppressed != null && suppressed.length > 0) {
+            json.write(SUPPRESSED);
+            for (int i = 0; i < suppressed.length; i++) {
+                if (i > 0) {
+                    json.write(',');
+                }
+                this.throwable(json, suppressed[i]);
+            }
+            json.write(']');
+        }
+        if (throwable.getCause() != null) {
+            json.write(CAUSE);
+            this.throwable(json, throwable.getCause());
+        }
+        json.write('}');
+    }
+
+    private static byte[] level(Level level) {
+        switch (level.toInt()) {
+            case Level.TRACE_INT:
+                return TRACE;
+            case Level.DEBUG_INT:
+                return DEBUG;
+            case Level.INFO_INT:
+                return INFO;
+            case Level.WARN_INT:
+                return WARN;
+            default:
+                return ERROR;
+        }
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * The per thread output buffer along with the date and time part of the last second encoded.
+     */
+    private static final class JsonBuffer {
+
+        private byte[] bytes = new byte[INITIAL_CAPACITY];
+
+        private ByteBuffer view = ByteBuffer.wrap(this.bytes);
+
+        private int position;
+
+        private long second = Long.MIN_VALUE;
+
+        private byte[] secondBytes;
+
+        JsonBuffer reset() {
+            if (this.bytes.length > MAX_RETAINED_CAPACITY) {
+                this.bytes = new byte[INITIAL_CAPACITY];
+                this.view = ByteBuffer.wrap(this.bytes);
+            }
+            this.position = 0;
+            return this;
+        }
+
+        JsonBuffer write(byte[] value) {
+            this.ensureCapacity(value.length);
+            System.arraycopy(value, 0, this.bytes, this.position, value.length);
+            this.position += value.length;
+            return this;
+        }
+
+        JsonBuffer write(char ascii) {
+            this.ensureCapacity(1);
+            this.bytes[this.position++] = (byte) ascii;
+            return this;
+        }
+
+        /**
+         * ISO-8601 in UTC with milliseconds, without the closing Z.
+         */
+        JsonBuffer timestamp(long millis) {
+            long currentSecond = Math.floorDiv(millis, 1000L);
+            if (currentSecond != this.second) {
+                this.second = currentSecond;
+                this.secondBytes = ascii(SECONDS.format(Instant.ofEpochSecond(currentSecond)));
+            }
+            int fraction = (int) Math.floorMod(millis, 1000L);
+            this.write(this.secondBytes).ensureCapacity(3);
+            this.bytes[this.position++] = (byte) ('0' + fraction / 100);
+            this.bytes[this.position++] = (byte) ('0' + fraction / 10 % 10);
+            this.bytes[this.position++] = (byte) ('0' + fraction % 10);
+            return this;
+        }
+
+        JsonBuffer number(long value) {
+            if (value == Long.MIN_VALUE) {
+                return this.write(ascii(Long.toString(value)));
+            }
+            this.ensureCapacity(20);
+            if (value < 0) {
+                this.bytes[this.position++] = '-';
+                value = -value;
+            }
+            int start = this.position;
+            do {
+                this.bytes[this.position++] = (byte) ('0' + value % 10);
+                value /= 10;
+            } while (value != 0);
+            // Digits were written least significant first.
+            for (int i = start, j = this.position - 1; i < j; i++, j--) {
+                byte digit = this.bytes[i];
+                this.bytes[i] = this.bytes[j];
+                this.bytes[j] = digit;
+            }
+            return this;
+        }
+
+        /**
+         * Writes the value as a quoted JSON string, escaping and UTF-8 encoding it in one pass. Unpaired surrogates
+         * are written as '?' just like String.getBytes does.
+         */
+        JsonBuffer string(String value) {
+            if (value == null) {
+                return this.write(NULL);
+            }
+            int length = value.length();
+            // Worst case is a \\uXXXX escape for every char.
+            this.ensureCapacity(length * 6 + 2);
+            byte[] out = this.bytes;
+            int pos = this.position;
+            out[pos++] = '"';
+            for (int i = 0; i < length; i++) {
+                char ch = value.charAt(i);
+                if (ch >= 0x20 && ch < 0x80) {
+                    if (ch == '"' || ch == '\\') {
+                        out[pos++] = '\\';
+                    }
+                    out[pos++] = (byte) ch;
+                } else if (ch < 0x20 || ch == 0x2028 || ch == 0x2029) {
+                    out[pos++] = '\\';
+                    switch (ch) {
+                        case '\n':
+                            out[pos++] = 'n';
+                            break;
+                        case '\r':
+                            out[pos++] = 'r';
+                            break;
+                        case '\t':
+                            out[pos++] = 't';
+                            break;
+                        default:
+                            // Line and paragraph separators are valid JSON but not valid JavaScript.
+                            out[pos++] = 'u';
+                            out[pos++] = HEX[(ch >> 12) & 0xF];
+                            out[pos++] = HEX[(ch >> 8) & 0xF];
+                            out[pos++] = HEX[(ch >> 4) & 0xF];
+                            out[pos++] = HEX[ch & 0xF];
+                    }
+                } else if (ch < 0x800) {
+                    out[pos++] = (byte) (0xC0 | (ch >> 6));
+                    out[pos++] = (byte) (0x80 | (ch & 0x3F));
+                } else if (Character.isHighSurrogate(ch) && i + 1 < length
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(ch, value.charAt(++i));
+                    out[pos++] = (byte) (0xF0 | (codePoint >> 18));
+                    out[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    out[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    out[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else if (Character.isSurrogate(ch)) {
+                    out[pos++] = '?';
+                } else {
+                    out[pos++] = (byte) (0xE0 | (ch >> 12));
+                    out[pos++] = (byte) (0x80 | ((ch >> 6) & 0x3F));
+                    out[pos++] = (byte) (0x80 | (ch & 0x3F));
+                }
+            }
+            out[pos++] = '"';
+            this.position = pos;
+            return this;
+        }
+
+        ByteBuffer toByteBuffer() {
+            this.view.clear();
+            this.view.limit(this.position);
+            return this.view;
+        }
+
+        private JsonBuffer ensureCapacity(int length) {
+            if (this.position + length > this.bytes.length) {
+                this.bytes = Arrays.copyOf(this.bytes, Math.max(this.position + length, this.bytes.length * 2));
+                this.view = ByteBuffer.wrap(this.bytes);
+            }
+            return this;
+        }
+    }
+}
@@ -0,0 +1,410 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.encoder.Encoder;
+import ch.qos.logback.core.encoder.LayoutWrappingEncoder;
+import ch.qos.logback.core.util.FileSize;
+import org.apache.commons.lang3.StringUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Keeps the last encoded events in memory so that they can be tailed, e.g. from the tools dashboard.
+ * <p>
+ * Events are stored in a fixed size byte ring, on or off heap, along with a fixed number of slots holding the
+ * metadata of each event. Every event gets a monotonically increasing sequence number, readers pass the sequence they
+ * want to continue from and get everything still retained after it. The oldest events are evicted whenever either the
+ * slots or the bytes run out, so memory is bounded by {@link #setMaxEvents(int)} and {@link #setBufferSize(FileSize)}.
+ * <p>
+ * Writers hold a {@link StampedLock} only while copying the encoded bytes, readers never take it unless they lose
+ * the race against writers a few times in a row for the same event, and then only for copying that single event out.
+ * Slow viewers therefore never hold up logging. Viewers waiting for new events register a listener which is run after
+ * each stored event, see {@link #addListener(Runnable)}.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public class LiveTailAppender extends UnsynchronizedAppenderBase<ILoggingEvent> implements ReplaceableAppender {
+
+    public static final int DEFAULT_MAX_EVENTS = 4096;
+
+    public static final FileSize DEFAULT_BUFFER_SIZE = FileSize.valueOf("2MB");
+
+    private static final int OPTIMISTIC_READ_TRIES = 3;
+
+    private final StampedLock lock;
+
+    private final AppenderHandover handover = new AppenderHandover(super::doAppend);
+
+    private final Set<Runnable> listeners = new CopyOnWriteArraySet<>();
+
+    private Encoder<ILoggingEvent> encoder;
+
+    private int maxEvents;
+
+    private FileSize bufferSize;
+
+    private boolean offHeap;
+
+    private Charset charset;
+
+    private ByteBuffer data;
+
+    private int mask;
+
+    private int maxEventBytes;
+
+    private long[] timestamps;
+
+    private int[] levels;
+
+    private String[] loggerNames;
+
+    private int[] offsets;
+
+    private int[] lengths;
+
+    private int writePosition;
+
+    private int usedBytes;
+
+    private volatile long head;
+
+    private volatile long tail;
+
+    public LiveTailAppender() {
+        this.lock = new StampedLock();
+        this.maxEvents = DEFAULT_MAX_EVENTS;
+        this.bufferSize = DEFAULT_BUFFER_SIZE;
+    }
+
+    /**
+     * Forwards the event to the successor once handed over, see {@link ReplaceableAppender}.
+     */
+    @Override
+    public void doAppend(ILoggingEvent event) {
+        this.handover.doAppend(event);
+    }
+
+    @Override
+    public void handOver(Appender<ILoggingEvent> successor) {
+        this.handover.handOver(successor);
+    }
+
+    @Override
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        return this.handover.awaitIdle(timeout, unit);
+    }
+
+    @Override
+    public void start() {
+        if (this.encoder == null) {
+            this.addError("No encoder set for the appender named [" + this.name + "].");
+            return;
+        }
+        long capacity = this.bufferSize.getSize();
+        if (this.maxEvents < 1 || capacity < 1 || capacity > Integer.MAX_VALUE) {
+            this.addError("Invalid maxEvents [" + this.maxEvents + "] or bufferSize [" + this.bufferSize + "]");
+            return;
+        }
+        int slots = Integer.highestOneBit(this.maxEvents - 1) << 1;
+        this.mask = Math.max(slots, 1) - 1;
+        this.data = this.offHeap ? ByteBuffer.allocateDirect((int) capacity) : ByteBuffer.allocate((int) capacity);
+        // A single huge event, typically a long stack trace, must not wipe out everything else.
+        this.maxEventBytes = Math.max(1, (int) capacity / 4);
+        this.timestamps = new long[this.mask + 1];
+        this.levels = new int[this.mask + 1];
+        this.loggerNames = new String[this.mask + 1];
+        this.offsets = new int[this.mask + 1];
+        this.lengths = new int[this.mask + 1];
+        this.charset = this.encoder instanceof LayoutWrappingEncoder
+                && ((LayoutWrappingEncoder<ILoggingEvent>) this.encoder).getCharset() != null
+                ? ((LayoutWrappingEncoder<ILoggingEvent>) this.encoder).getCharset()
+                : Charset.defaultCharset();
+        super.start();
+    }
+
+    @Override
+    public void stop() {
+        super.stop();
+        long stamp = this.lock.writeLock();
+        try {
+            this.data = null;
+            this.loggerNames = null;
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        ByteBuffer encoded;
+        if (this.encoder instanceof ReusableBufferEncoder) {
+            encoded = ((ReusableBufferEncoder<ILoggingEvent>) this.encoder).encodeToBuffer(event);
+        } else {
+            encoded = ByteBuffer.wrap(this.encoder.encode(event));
+        }
+        long stamp = this.lock.writeLock();
+        try {
+            if (this.data != null) {
+                this.store(event, encoded);
+            }
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+        for (Runnable listener : this.listeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Copies the event into the ring evicting the oldest events as needed, must be called holding the write lock.
+     */
+    private void store(ILoggingEvent event, ByteBuffer encoded) {
+        int length = Math.min(encoded.remaining(), this.maxEventBytes);
+        long sequence = this.head;
+        if (sequence - this.tail > this.mask) {
+            this.evictOldest();
+        }
+        int capacity = this.data.capacity();
+        while (this.usedBytes + length > capacity) {
+            this.evictOldest();
+        }
+        int offset = this.writePosition;
+        int firstPart = Math.min(length, capacity - offset);
+        ByteBuffer source = encoded.duplicate();
+        source.limit(source.position() + firstPart);
+        ByteBuffer target = this.data.duplicate();
+        target.position(offset);
+        target.put(source);
+        if (firstPart < length) {
+            source.limit(source.position() + length - firstPart);
+            target.position(0);
+            target.put(source);
+        }
+        this.writePosition = (offset + length) % capacity;
+        this.usedBytes += length;
+        int index = (int) (sequence & this.mask);
+        this.timestamps[index] = event.getTimeStamp();
+        this.levels[index] = event.getLevel().toInt();
+        this.loggerNames[index] = event.getLoggerName();
+        this.offsets[index] = offset;
+        this.lengths[index] = length;
+        this.head = sequence + 1;
+    }
+
+    private void evictOldest() {
+        long oldest = this.tail;
+        this.usedBytes -= this.lengths[(int) (oldest & this.mask)];
+        this.tail = oldest + 1;
+    }
+
+    /**
+     * Hands the retained events after the cursor, which pass the given filters, to the consumer.
+     *
+     * @param cursor       sequence of the first event wanted, usually what the previous call returned. Events which
+     *                     were already evicted are skipped, see {@link #getOldestSequence()}.
+     * @param maxEvents    maximum number of events to hand over.
+     * @param minLevel     only events of this level or above, null for all.
+     * @param loggerPrefix only events of loggers whose name starts with this, null or empty for all.
+     * @param consumer     receives the events in sequence order.
+     * @return the cursor to continue from.
+     */
+    public long read(long cursor, int maxEvents, Level minLevel, String loggerPrefix, TailEventConsumer consumer) {
+        ByteBuffer source = this.data;
+        if (source == null) {
+            return cursor;
+        }
+        ByteBuffer view = source.duplicate();
+        int minLevelInt = minLevel == null ? Level.ALL_INT : minLevel.toInt();
+        Slot slot = new Slot();
+        long sequence = Math.max(cursor, this.tail);
+        int delivered = 0;
+        while (delivered < maxEvents && sequence < this.head) {
+            if (!this.copyOptimistically(sequence, view, slot) && !this.copyLocked(sequence, view, slot)) {
+                // Evicted while we were at it, carry on from whatever is the oldest now.
+                sequence = Math.max(sequence + 1, this.tail);
+                continue;
+            }
+            if (slot.level >= minLevelInt && (StringUtils.isEmpty(loggerPrefix)
+                    || StringUtils.startsWith(slot.loggerName, loggerPrefix))) {
+                consumer.accept(sequence, slot.timestamp, Level.toLevel(slot.level),
+                        slot.loggerName, new String(slot.bytes, 0, slot.length, this.charset));
+                delivered++;
+            }
+            sequence++;
+        }
+        return sequence;
+    }
+
+    private boolean copyOptimistically(long sequence, ByteBuffer view, Slot slot) {
+        for (int i = 0; i < OPTIMISTIC_READ_TRIES; i++) {
+            long stamp = this.lock.tryOptimisticRead();
+            if (stamp == 0L) {
+                continue;
+            }
+            boolean copied = this.copy(sequence, view, slot);
+            if (this.lock.validate(stamp)) {
+                return copied;
+            }
+        }
+        return false;
+    }
+
+    private boolean copyLocked(long sequence, ByteBuffer view, Slot slot) {
+        long stamp = this.lock.readLock();
+        try {
+            return this.data != null && this.copy(sequence, view, slot);
+        } finally {
+            this.lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Copies a single event, values read without the lock may be torn so they are only trusted once validated.
+     */
+    private boolean copy(long sequence, ByteBuffer view, Slot slot) {
+        String[] names = this.loggerNames;
+        if (names == null || sequence < this.tail || sequence >= this.head) {
+            return false;
+        }
+        int index = (int) (sequence & this.mask);
+        int offset = this.offsets[index];
+        int length = this.lengths[index];
+        int capacity = view.capacity();
+        if (offset < 0 || offset >= capacity || length < 0 || length > this.maxEventBytes) {
+            return false;
+        }
+        slot.timestamp = this.timestamps[index];
+        slot.level = this.levels[index];
+        slot.loggerName = names[index];
+        slot.ensureCapacity(length);
+        int firstPart = Math.min(length, capacity - offset);
+        view.clear().position(offset);
+        view.get(slot.bytes, 0, firstPart);
+        if (firstPart < length) {
+            view.position(0);
+            view.get(slot.bytes, firstPart, length - firstPart);
+        }
+        slot.length = length;
+        return true;
+    }
+
+    /**
+     * Registers a listener run on the logging thread after each stored event, it must return quickly and must not log.
+     */
+    public void addListener(Runnable listener) {
+        this.listeners.add(listener);
+    }
+
+    public void removeListener(Runnable listener) {
+        this.listeners.remove(listener);
+    }
+
+    /**
+     * Sequence the next event will get.
+     */
+    public long getNextSequence() {
+        return this.head;
+    }
+
+    /**
+     * Sequence of the oldest event still retained.
+     */
+    public long getOldestSequence() {
+        return this.tail;
+    }
+
+    public Encoder<ILoggingEvent> getEncoder() {
+        return encoder;
+    }
+
+    public void setEncoder(Encoder<ILoggingEvent> encoder) {
+        this.encoder = encoder;
+    }
+
+    public int getMaxEvents() {
+        return maxEvents;
+    }
+
+    public void setMaxEvents(int maxEvents) {
+        this.maxEvents = maxEvents;
+    }
+
+    public FileSize getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(FileSize bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    /**
+     * Whether the events are kept in a direct buffer, outside the Java heap.
+     */
+    public void setOffHeap(boolean offHeap) {
+        this.offHeap = offHeap;
+    }
+
+    /**
+     * Receives the events read by {@link #read(long, int, Level, String, TailEventConsumer)}.
+     */
+    @FunctionalInterface
+    public interface TailEventConsumer {
+
+        void accept(long sequence, long timestamp, Level level, String loggerName, String text);
+    }
+
+    /**
+     * Reader side copy of one event, reused across the events of a single read.
+     */
+    private static final class Slot {
+
+        private long timestamp;
+
+        private int level;
+
+        private String loggerName;
+
+        private byte[] bytes = new byte[256];
+
+        private int length;
+
+        private void ensureCapacity(int length) {
+            if (this.bytes.length < length) {
+                this.bytes = new byte[Math.max(length, this.bytes.length * 2)];
+            }
+        }
+    }
+}
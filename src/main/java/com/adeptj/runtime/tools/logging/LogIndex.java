@@ -0,0 +1,305 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging;
+
+import ch.qos.logback.classic.Level;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Sparse index kept in a sidecar file next to each log file segment, see {@link ExtRollingFileAppender}.
+ * <p>
+ * The log is cut into blocks of roughly a configured number of bytes, always at event boundaries, and each block is
+ * recorded with its byte range, the lowest and highest event timestamp and a bit mask of the levels it contains. That
+ * is enough to seek straight to a time window and to skip blocks without any event of interest, at a cost of 36 bytes
+ * per block. Entries are appended as blocks complete, the events after the last entry are simply not indexed yet.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+final class LogIndex {
+
+    static final String SUFFIX = ".idx";
+
+    private static final int ENTRY_BYTES = 36;
+
+    private static final int ALL_LEVELS = 0x1F;
+
+    private static final String[] ARCHIVE_SUFFIXES = {"", ".gz", ".zip"};
+
+    private LogIndex() {
+    }
+
+    static File indexFile(File logFile) {
+        return new File(logFile.getPath() + SUFFIX);
+    }
+
+    /**
+     * Bit of the given level in the block level mask.
+     */
+    static int levelBit(int levelInt) {
+        switch (levelInt) {
+            case Level.ERROR_INT:
+                return 1 << 4;
+            case Level.WARN_INT:
+                return 1 << 3;
+            case Level.INFO_INT:
+                return 1 << 2;
+            case Level.DEBUG_INT:
+                return 1 << 1;
+            default:
+                return 1;
+        }
+    }
+
+    /**
+     * Mask matching every level from the given one upwards.
+     */
+    static int levelMaskFrom(Level minLevel) {
+        int bit = minLevel == null ? 1 : levelBit(minLevel.toInt());
+        return ~(bit - 1) & ALL_LEVELS;
+    }
+
+    /**
+     * Reads all complete entries of the index, a missing index yields no blocks.
+     */
+    static List<Block> read(File indexFile) throws IOException {
+        if (!indexFile.isFile()) {
+            return Collections.emptyList();
+        }
+        List<Block> blocks = new ArrayList<>((int) (indexFile.length() / ENTRY_BYTES));
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            for (long i = indexFile.length() / ENTRY_BYTES; i > 0; i--) {
+                blocks.add(new Block(in.readLong(), in.readLong(), in.readLong(), in.readLong(), in.readInt()));
+            }
+        } catch (EOFException ex) {
+            // The index shrunk under us, keep what was read.
+        }
+        return blocks;
+    }
+
+    /**
+     * Deletes the index files whose log file is gone, whatever deleted the archive knows nothing about the sidecar.
+     */
+    static void purgeOrphans(File dir) {
+        File[] indexFiles = dir == null ? null : dir.listFiles((d, name) -> name.endsWith(SUFFIX));
+        if (indexFiles == null) {
+            return;
+        }
+        for (File indexFile : indexFiles) {
+            String logFile = StringUtils.removeEnd(indexFile.getPath(), SUFFIX);
+            boolean orphan = true;
+            for (String suffix : ARCHIVE_SUFFIXES) {
+                orphan &= !new File(logFile + suffix).exists();
+            }
+            if (orphan) {
+                //noinspection ResultOfMethodCallIgnored
+                indexFile.delete();
+            }
+        }
+    }
+
+    /**
+     * A completed block, all offsets are in bytes of the uncompressed log file.
+     */
+    static final class Block {
+
+        final long startOffset;
+
+        final long endOffset;
+
+        final long minTimestamp;
+
+        final long maxTimestamp;
+
+        final int levelMask;
+
+        Block(long startOffset, long endOffset, long minTimestamp, long maxTimestamp, int levelMask) {
+            this.startOffset = startOffset;
+            this.endOffset = endOffset;
+            this.minTimestamp = minTimestamp;
+            this.maxTimestamp = maxTimestamp;
+            this.levelMask = levelMask;
+        }
+
+        boolean overlaps(long from, long to) {
+            return this.maxTimestamp >= from && this.minTimestamp <= to;
+        }
+    }
+
+    /**
+     * Builds the index of the active log file, all methods must be called holding the appender's lock.
+     * <p>
+     * The sidecar is only opened on the first event after {@link #reset(File)}, so that a rollover can move the
+     * previous one out of the way before the new segment starts.
+     */
+    static final class Writer {
+
+        private final long blockSize;
+
+        private File logFile;
+
+        private DataOutputStream out;
+
+        private long offset;
+
+        private long blockStart;
+
+        private long minTimestamp;
+
+        private long maxTimestamp;
+
+        private int levelMask;
+
+        private boolean appendToExisting;
+
+        private Block gap;
+
+        Writer(long blockSize) {
+            this.blockSize = blockSize;
+        }
+
+        /**
+         * Starts indexing the given log file, which is appended to from its current length on.
+         * <p>
+         * An existing sidecar is kept and continued, a torn last entry (crash while writing it) is cut off and the part
+         * of the log written after the last entry is recorded as a block of its own spanning all levels, up to the last
+         * modification of the log. A sidecar describing more bytes than the log has is stale and started afresh.
+         */
+        void reset(File logFile) {
+            this.close();
+            this.logFile = logFile;
+            this.offset = logFile.length();
+            this.blockStart = this.offset;
+            this.levelMask = 0;
+            this.appendToExisting = false;
+            this.gap = null;
+            long lastEnd = 0L;
+            long lastTimestamp = 0L;
+            File indexFile = indexFile(logFile);
+            long completeLength = indexFile.length() - indexFile.length() % ENTRY_BYTES;
+            if (completeLength > 0) {
+                try (RandomAccessFile raf = new RandomAccessFile(indexFile, "rw")) {
+                    raf.setLength(completeLength);
+                    raf.seek(completeLength - ENTRY_BYTES + Long.BYTES);
+                    lastEnd = raf.readLong();
+                    raf.skipBytes(Long.BYTES);
+                    lastTimestamp = raf.readLong();
+                    this.appendToExisting = lastEnd <= this.offset;
+                } catch (IOException ex) {
+                    this.appendToExisting = false;
+                }
+            }
+            if (!this.appendToExisting) {
+                lastEnd = 0L;
+                lastTimestamp = 0L;
+            }
+            if (lastEnd < this.offset) {
+                this.gap = new Block(lastEnd, this.offset, lastTimestamp, logFile.lastModified(), ALL_LEVELS);
+            }
+        }
+
+        void written(long timestamp, int levelInt, int length) throws IOException {
+            if (this.logFile == null) {
+                return;
+            }
+            if (this.levelMask == 0) {
+                this.minTimestamp = timestamp;
+                this.maxTimestamp = timestamp;
+            } else {
+                this.minTimestamp = Math.min(this.minTimestamp, timestamp);
+                this.maxTimestamp = Math.max(this.maxTimestamp, timestamp);
+            }
+            this.levelMask |= levelBit(levelInt);
+            this.offset += length;
+            if (this.offset - this.blockStart >= this.blockSize) {
+                this.completeBlock();
+                this.out.flush();
+            }
+        }
+
+        long getOffset() {
+            return this.offset;
+        }
+
+        File getLogFile() {
+            return this.logFile;
+        }
+
+        /**
+         * Records the pending block, if any, and closes the sidecar.
+         */
+        void close() {
+            try {
+                this.completeBlock();
+            } catch (IOException ex) {
+                // Best effort, the pending block just stays unindexed.
+            }
+            if (this.out != null) {
+                try {
+                    this.out.close();
+                } catch (IOException ex) {
+                    // Nothing more can be done.
+                }
+                this.out = null;
+            }
+        }
+
+        private void completeBlock() throws IOException {
+            if (this.levelMask == 0 || this.logFile == null) {
+                return;
+            }
+            if (this.out == null) {
+                this.out = new DataOutputStream(new BufferedOutputStream(
+                        new FileOutputStream(indexFile(this.logFile), this.appendToExisting), ENTRY_BYTES * 64));
+                if (this.gap != null) {
+                    this.write(this.gap.startOffset, this.gap.endOffset, this.gap.minTimestamp,
+                            this.gap.maxTimestamp, this.gap.levelMask);
+                    this.gap = null;
+                }
+            }
+            this.write(this.blockStart, this.offset, this.minTimestamp, this.maxTimestamp, this.levelMask);
+            this.blockStart = this.offset;
+            this.levelMask = 0;
+        }
+
+        private void write(long start, long end, long minTimestamp, long maxTimestamp, int levelMask)
+                throws IOException {
+            this.out.writeLong(start);
+            this.out.writeLong(end);
+            this.out.writeLong(minTimestamp);
+            this.out.writeLong(maxTimestamp);
+            this.out.writeInt(levelMask);
+        }
+    }
+}
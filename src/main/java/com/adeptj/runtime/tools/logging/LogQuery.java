@@ -0,0 +1,170 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging;
+
+import ch.qos.logback.classic.Level;
+
+/**
+ * What to look for with {@link LogSearch}, all criteria are optional.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public class LogQuery {
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+
+    private long from;
+
+    private long to;
+
+    private Level minLevel;
+
+    private String logger;
+
+    private String text;
+
+    private int pageSize;
+
+    private String cursor;
+
+    private LogQuery() {
+    }
+
+    public long getFrom() {
+        return from;
+    }
+
+    public long getTo() {
+        return to;
+    }
+
+    public Level getMinLevel() {
+        return minLevel;
+    }
+
+    public String getLogger() {
+        return logger;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Convenient builder to create {@link LogQuery} instances.
+     */
+    public static class Builder {
+
+        private long from;
+
+        private long to;
+
+        private Level minLevel;
+
+        private String logger;
+
+        private String text;
+
+        private int pageSize;
+
+        private String cursor;
+
+        private Builder() {
+            this.to = Long.MAX_VALUE;
+            this.pageSize = DEFAULT_PAGE_SIZE;
+        }
+
+        /**
+         * Start of the time window, epoch millis inclusive.
+         */
+        public Builder from(long from) {
+            this.from = from;
+            return this;
+        }
+
+        /**
+         * End of the time window, epoch millis inclusive.
+         */
+        public Builder to(long to) {
+            this.to = to;
+            return this;
+        }
+
+        public Builder minLevel(Level minLevel) {
+            this.minLevel = minLevel;
+            return this;
+        }
+
+        /**
+         * The logger, as rendered in the log line, or one of its ancestors, e.g. com.example matches com.example.Orders
+         * but not com.examples.Orders. The trailing segments of a logger match as well, e.g. Orders.
+         */
+        public Builder logger(String logger) {
+            this.logger = logger;
+            return this;
+        }
+
+        /**
+         * Text the event, including stack traces, contains.
+         */
+        public Builder text(String text) {
+            this.text = text;
+            return this;
+        }
+
+        public Builder pageSize(int pageSize) {
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        /**
+         * Where the previous page ended, see {@link LogSearchPage#getNextCursor()}.
+         */
+        public Builder cursor(String cursor) {
+            this.cursor = cursor;
+            return this;
+        }
+
+        public LogQuery build() {
+            LogQuery query = new LogQuery();
+            query.from = this.from;
+            query.to = this.to;
+            query.minLevel = this.minLevel;
+            query.logger = this.logger;
+            query.text = this.text;
+            query.pageSize = this.pageSize > 0 ? this.pageSize : DEFAULT_PAGE_SIZE;
+            query.cursor = this.cursor;
+            return query;
+        }
+    }
+}
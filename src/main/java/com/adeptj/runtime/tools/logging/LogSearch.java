@@ -0,0 +1,449 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.core.ContextBase;
+import ch.qos.logback.core.rolling.helper.FileNamePattern;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Searches the active log file and its archives using the {@link LogIndex} sidecars written by
+ * {@link ExtRollingFileAppender}.
+ * <p>
+ * Only the blocks whose time range overlaps the query window and which contain a level of interest are read at all,
+ * through a small reusable buffer for plain files and streamed for gzip archives, lines longer than a megabyte are
+ * truncated. Within those, events are recognised by the level rendered near the start of their first line, lines
+ * without one (stack traces etc.) belong to the previous event, so this assumes a pattern with %level in it. The logger
+ * filter likewise expects %logger to be the field right after the level, as in the default pattern. The time window
+ * is applied at block granularity, i.e. events of a block which straddles the window boundary are returned even if
+ * just outside it.
+ * <p>
+ * Results are paged, each page returns the cursor to continue from. A cursor follows its file when that is rolled or
+ * compressed meanwhile, one whose file was pruned is rejected as stale.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public class LogSearch {
+
+    private static final Pattern LEVEL = Pattern.compile("(?<![A-Za-z])(TRACE|DEBUG|INFO|WARN|ERROR)(?![A-Za-z])");
+
+    private static final int LEVEL_SEARCH_CHARS = 160;
+
+    private static final String LOGGER_DECORATION = "[]():";
+
+    private static final int READ_BUFFER_BYTES = 64 * 1024;
+
+    private static final int MAX_LINE_BYTES = 1024 * 1024;
+
+    private static final char CURSOR_SEPARATOR = '|';
+
+    private static final String GZ = ".gz";
+
+    private static final String ZIP = ".zip";
+
+    private final File logFile;
+
+    private final Pattern archiveName;
+
+    private final Charset charset;
+
+    /**
+     * @param logFile      the active log file
+     * @param rolloverFile the rollover file name pattern, only the active file is searched when null
+     * @param charset      the charset of the log, the platform default when null
+     */
+    public LogSearch(String logFile, String rolloverFile, Charset charset) {
+        this.logFile = new File(logFile).getAbsoluteFile();
+        this.archiveName = StringUtils.isEmpty(rolloverFile) ? null : archiveName(rolloverFile);
+        this.charset = charset == null ? Charset.defaultCharset() : charset;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the query's cursor is stale, i.e. its log file is gone.
+     */
+    public LogSearchPage search(LogQuery query) throws IOException {
+        List<Segment> segments = this.segments(query);
+        int first = 0;
+        long cursorOffset = 0L;
+        if (StringUtils.isNotEmpty(query.getCursor())) {
+            String cursor = query.getCursor();
+            int offsetSeparator = cursor.lastIndexOf(CURSOR_SEPARATOR);
+            int keySeparator = cursor.lastIndexOf(CURSOR_SEPARATOR, offsetSeparator - 1);
+            if (keySeparator < 0) {
+                throw new IllegalArgumentException("Malformed cursor: " + cursor);
+            }
+            first = indexOf(segments, cursor.substring(0, keySeparator),
+                    cursor.substring(keySeparator + 1, offsetSeparator));
+            if (first < 0) {
+                throw new IllegalArgumentException("Stale cursor, its log file was pruned meanwhile: " + cursor);
+            }
+            cursorOffset = NumberUtils.toLong(cursor.substring(offsetSeparator + 1));
+        }
+        Collector collector = new Collector(query);
+        for (int i = first; i < segments.size(); i++) {
+            Segment segment = segments.get(i);
+            collector.segment = segment.name;
+            if (!segment.search(query, i == first ? cursorOffset : 0L, collector)) {
+                return new LogSearchPage(collector.hits, segment.name + CURSOR_SEPARATOR + segment.key
+                        + CURSOR_SEPARATOR + collector.stopOffset);
+            }
+        }
+        return new LogSearchPage(collector.hits, null);
+    }
+
+    /**
+     * The segment a cursor points to: the file it was created on, which keeps its key when rolled over, or the
+     * compressed archive of that file.
+     *
+     * @return the index of the segment or -1 if there is none anymore.
+     */
+    private static int indexOf(List<Segment> segments, String name, String key) {
+        for (int i = 0; i < segments.size(); i++) {
+            if (segments.get(i).name.equals(name) && (key.isEmpty() || segments.get(i).key.equals(key))) {
+                return i;
+            }
+        }
+        for (int i = 0; i < segments.size(); i++) {
+            if (!key.isEmpty() && segments.get(i).key.equals(key)) {
+                return i;
+            }
+        }
+        for (int i = 0; i < segments.size(); i++) {
+            if (segments.get(i).name.equals(name + GZ)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The archives having an index, oldest first, followed by the active file.
+     */
+    private List<Segment> segments(LogQuery query) {
+        List<Segment> segments = new ArrayList<>();
+        File dir = this.logFile.getParentFile();
+        File activeIndex = LogIndex.indexFile(this.logFile);
+        File[] indexFiles = this.archiveName == null ? null : dir.listFiles((d, name) -> name.endsWith(LogIndex.SUFFIX)
+                && this.archiveName.matcher(StringUtils.removeEnd(name, LogIndex.SUFFIX)).matches());
+        if (indexFiles != null) {
+            for (File indexFile : indexFiles) {
+                // The index is last written after the last event of its segment, older ones can't match.
+                if (indexFile.equals(activeIndex) || indexFile.lastModified() < query.getFrom()) {
+                    continue;
+                }
+                File plain = new File(StringUtils.removeEnd(indexFile.getPath(), LogIndex.SUFFIX));
+                File gzip = new File(plain.getPath() + GZ);
+                if (plain.isFile()) {
+                    segments.add(new Segment(plain, indexFile, false));
+                } else if (gzip.isFile()) {
+                    segments.add(new Segment(gzip, indexFile, true));
+                }
+            }
+        }
+        segments.sort(Comparator.comparingLong(segment -> segment.indexFile.lastModified()));
+        if (this.logFile.isFile()) {
+            segments.add(new Segment(this.logFile, activeIndex, false));
+        }
+        return segments;
+    }
+
+    /**
+     * Matches the names of the uncompressed archives, which their index files are named after.
+     */
+    private static Pattern archiveName(String rolloverFile) {
+        String pattern = new File(rolloverFile).getName();
+        pattern = StringUtils.removeEnd(StringUtils.removeEnd(pattern, GZ), ZIP);
+        // Logback's regex only allows for two digit indexes.
+        return Pattern.compile(new FileNamePattern(pattern, new ContextBase()).toRegex().replace("\\d{1,2}", "\\d+"));
+    }
+
+    /**
+     * Identifies a file across renames, empty if the file system has no such key.
+     */
+    static String fileKey(File file) {
+        try {
+            Object key = Files.readAttributes(file.toPath(), BasicFileAttributes.class).fileKey();
+            return key == null ? "" : Integer.toHexString(key.hashCode());
+        } catch (IOException ex) {
+            return "";
+        }
+    }
+
+    /**
+     * Byte ranges worth reading, adjacent blocks merged, plus whatever follows the last indexed block.
+     */
+    private static List<long[]> ranges(List<LogIndex.Block> blocks, LogQuery query, long startOffset) {
+        int levelMask = LogIndex.levelMaskFrom(query.getMinLevel());
+        List<long[]> ranges = new ArrayList<>();
+        for (LogIndex.Block block : blocks) {
+            if (block.endOffset <= startOffset || !block.overlaps(query.getFrom(), query.getTo())
+                    || (block.levelMask & levelMask) == 0) {
+                continue;
+            }
+            long start = Math.max(block.startOffset, startOffset);
+            long[] last = ranges.isEmpty() ? null : ranges.get(ranges.size() - 1);
+            if (last != null && last[1] == start) {
+                last[1] = block.endOffset;
+            } else {
+                ranges.add(new long[]{start, block.endOffset});
+            }
+        }
+        LogIndex.Block lastBlock = blocks.isEmpty() ? null : blocks.get(blocks.size() - 1);
+        if (lastBlock == null || query.getTo() >= lastBlock.maxTimestamp) {
+            ranges.add(new long[]{Math.max(lastBlock == null ? 0L : lastBlock.endOffset, startOffset), Long.MAX_VALUE});
+        }
+        return ranges;
+    }
+
+    /**
+     * A log file along with its index.
+     */
+    private final class Segment {
+
+        private final File file;
+
+        private final File indexFile;
+
+        private final boolean compressed;
+
+        private final String name;
+
+        private final String key;
+
+        private Segment(File file, File indexFile, boolean compressed) {
+            this.file = file;
+            this.indexFile = indexFile;
+            this.compressed = compressed;
+            this.name = file.getName();
+            this.key = fileKey(file);
+        }
+
+        /**
+         * Feeds the lines of the relevant ranges to the collector.
+         *
+         * @return false if the collector is full, true if the segment was searched through.
+         */
+        private boolean search(LogQuery query, long startOffset, Collector collector) throws IOException {
+            List<long[]> ranges = ranges(LogIndex.read(this.indexFile), query, startOffset);
+            if (ranges.isEmpty()) {
+                return true;
+            }
+            if (this.compressed) {
+                try (InputStream in = new GZIPInputStream(new BufferedInputStream(new FileInputStream(this.file)))) {
+                    return this.scan(in, ranges, collector);
+                }
+            }
+            try (FileChannel channel = FileChannel.open(this.file.toPath(), StandardOpenOption.READ)) {
+                long size = channel.size();
+                ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_BYTES);
+                for (long[] range : ranges) {
+                    if (!this.scan(channel, range[0], Math.min(range[1], size), buffer, collector)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        private boolean scan(FileChannel channel, long start, long end, ByteBuffer buffer, Collector collector)
+                throws IOException {
+            byte[] line = new byte[512];
+            int length = 0;
+            long lineStart = start;
+            long position = start;
+            while (position < end) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), end - position));
+                int read = channel.read(buffer, position);
+                if (read <= 0) {
+                    break;
+                }
+                byte[] bytes = buffer.array();
+                for (int i = 0; i < read; i++) {
+                    if (bytes[i] != '\n') {
+                        if (length == line.length && length < MAX_LINE_BYTES) {
+                            line = Arrays.copyOf(line, length * 2);
+                        }
+                        if (length < line.length) {
+                            line[length++] = bytes[i];
+                        }
+                        continue;
+                    }
+                    if (!collector.accept(lineStart, this.decode(line, length))) {
+                        return false;
+                    }
+                    length = 0;
+                    lineStart = position + i + 1;
+                }
+                position += read;
+            }
+            // An unterminated last line is still being written, a later search picks it up.
+            return collector.complete(lineStart);
+        }
+
+        private boolean scan(InputStream in, List<long[]> ranges, Collector collector) throws IOException {
+            byte[] line = new byte[512];
+            long position = 0L;
+            for (long[] range : ranges) {
+                position += in.skip(range[0] - position);
+                int length = 0;
+                long lineStart = position;
+                int b;
+                while (position < range[1] && (b = in.read()) != -1) {
+                    position++;
+                    if (b != '\n') {
+                        if (length == line.length && length < MAX_LINE_BYTES) {
+                            line = Arrays.copyOf(line, length * 2);
+                        }
+                        if (length < line.length) {
+                            line[length++] = (byte) b;
+                        }
+                        continue;
+                    }
+                    if (!collector.accept(lineStart, this.decode(line, length))) {
+                        return false;
+                    }
+                    length = 0;
+                    lineStart = position;
+                }
+                if (!collector.complete(lineStart)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private String decode(byte[] line, int length) {
+            int end = length > 0 && line[length - 1] == '\r' ? length - 1 : length;
+            return new String(line, 0, end, LogSearch.this.charset);
+        }
+    }
+
+    /**
+     * Assembles events from lines, applies the filters and stops once a page is full.
+     */
+    private static final class Collector {
+
+        private final LogQuery query;
+
+        private final List<LogSearchPage.Hit> hits;
+
+        private String segment;
+
+        private long stopOffset;
+
+        private long eventOffset;
+
+        private String eventLevel;
+
+        private StringBuilder eventText;
+
+        private Collector(LogQuery query) {
+            this.query = query;
+            this.hits = new ArrayList<>(query.getPageSize());
+        }
+
+        /**
+         * @return false if the line starts an event which does not fit on the page anymore.
+         */
+        private boolean accept(long offset, String line) {
+            Matcher matcher = LEVEL.matcher(line);
+            matcher.region(0, Math.min(line.length(), LEVEL_SEARCH_CHARS));
+            boolean eventStart = !line.isEmpty() && !Character.isWhitespace(line.charAt(0)) && matcher.find();
+            if (!eventStart) {
+                if (this.eventText != null) {
+                    this.eventText.append('\n').append(line);
+                }
+                return true;
+            }
+            if (!this.complete(offset)) {
+                return false;
+            }
+            String level = matcher.group(1);
+            Level minLevel = this.query.getMinLevel();
+            if ((minLevel == null || Level.toLevel(level).isGreaterOrEqual(minLevel))
+                    && (StringUtils.isEmpty(this.query.getLogger()) || this.loggerMatches(line, matcher.end()))) {
+                this.eventOffset = offset;
+                this.eventLevel = level;
+                this.eventText = new StringBuilder(line);
+            }
+            return true;
+        }
+
+        /**
+         * Whether the logger field, the token following the level, is the queried logger, one of its descendants or,
+         * for abbreviated logger names, a logger whose last name segments are the queried ones.
+         */
+        private boolean loggerMatches(String line, int levelEnd) {
+            int start = levelEnd;
+            while (start < line.length() && Character.isWhitespace(line.charAt(start))) {
+                start++;
+            }
+            int end = start;
+            while (end < line.length() && !Character.isWhitespace(line.charAt(end))) {
+                end++;
+            }
+            String field = StringUtils.strip(line.substring(start, end), LOGGER_DECORATION);
+            String logger = this.query.getLogger();
+            return field.equals(logger) || (field.startsWith(logger) && field.charAt(logger.length()) == '.')
+                    || (field.endsWith(logger) && field.charAt(field.length() - logger.length() - 1) == '.');
+        }
+
+        /**
+         * Completes the pending event, if any.
+         *
+         * @param nextOffset where the next page starts in case this one is full now.
+         * @return false if the page is full.
+         */
+        private boolean complete(long nextOffset) {
+            if (this.eventText != null) {
+                if (StringUtils.isEmpty(this.query.getText()) || this.eventText.indexOf(this.query.getText()) >= 0) {
+                    this.hits.add(new LogSearchPage.Hit(this.segment, this.eventOffset, this.eventLevel,
+                            this.eventText.toString()));
+                }
+                this.eventText = null;
+            }
+            this.stopOffset = nextOffset;
+            return this.hits.size() < this.query.getPageSize();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of {@link LogSearch} results.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public class LogSearchPage {
+
+    private final List<Hit> hits;
+
+    private final String nextCursor;
+
+    LogSearchPage(List<Hit> hits, String nextCursor) {
+        this.hits = Collections.unmodifiableList(hits);
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Hit> getHits() {
+        return hits;
+    }
+
+    /**
+     * Cursor of the next page, null when there is nothing more to search.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * A single matching event, with any continuation lines such as a stack trace.
+     */
+    public static class Hit {
+
+        private final String segment;
+
+        private final long offset;
+
+        private final String level;
+
+        private final String text;
+
+        Hit(String segment, long offset, String level, String text) {
+            this.segment = segment;
+            this.offset = offset;
+            this.level = level;
+            this.text = text;
+        }
+
+        /**
+         * Name of the log file the event was found in.
+         */
+        public String getSegment() {
+            return segment;
+        }
+
+        /**
+         * Byte offset of the event in the (uncompressed) log file.
+         */
+        public long getOffset() {
+            return offset;
+        }
+
+        public String getLevel() {
+            return level;
+        }
+
+        public String getText() {
+            return text;
+        }
+    }
+}
@@ -0,0 +1,498 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.EventArgUtil;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+import org.slf4j.helpers.MessageFormatter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link TurboFilter} which keeps log storms, the same WARN or ERROR logged thousands of times a second by a
+ * failing call site, from flooding the appenders.
+ * <p>
+ * Rules are set per logger and apply to its descendants as well, see {@link #setRules(Map)}. Within a rule
+ * every message template of a logger gets its own state:
+ * <ul>
+ * <li>Duplicate collapsing: an event with the same template and arguments as the current run's first event within
+ * the collapse window is dropped and counted. Once the window is over the run is emitted as one event, the original
+ * message followed by the repeat count, which is also put in the MDC under {@link #REPEAT_COUNT}, along with the
+ * first event's throwable if any.</li>
+ * <li>Rate limiting: a lock-free token bucket (GCRA, a single CAS on the theoretical arrival time) of the given rate
+ * and burst, events beyond it are dropped and reported the same way.</li>
+ * </ul>
+ * Summaries are emitted by the next event of the same template or a background flusher, straight to the logger's
+ * appenders. Events of loggers without a rule, below the rule's level and level checks (no message) cost a level
+ * comparison and at most one map lookup.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public class LogStormFilter extends TurboFilter {
+
+    /**
+     * MDC key of the number of events a summary stands for.
+     */
+    public static final String REPEAT_COUNT = "repeatCount";
+
+    private static final String FQCN = LogStormFilter.class.getName();
+
+    private static final String THREAD_NAME = "LogStorm-Flusher";
+
+    private static final String ROOT = Logger.ROOT_LOGGER_NAME;
+
+    private static final int MAX_TEMPLATES_PER_LOGGER = 1024;
+
+    private static final long DEFAULT_FLUSH_MILLIS = 1000L;
+
+    private static final long MIN_FLUSH_MILLIS = 100L;
+
+    private static final LoggerTable UNRESTRICTED = new LoggerTable(null, null);
+
+    private final Map<String, Rule> rules;
+
+    /**
+     * Replaced as a whole whenever the rules change, so that no event is counted against a table being flushed.
+     */
+    private volatile ConcurrentHashMap<String, LoggerTable> tables;
+
+    private final LongAdder collapsed;
+
+    private final LongAdder rateLimited;
+
+    /**
+     * Lowest level any rule applies to, events below it are let through without a lookup.
+     */
+    private volatile int minLevel;
+
+    private ScheduledExecutorService flusher;
+
+    private long flushMillis;
+
+    public LogStormFilter() {
+        this.rules = new ConcurrentHashMap<>();
+        this.tables = new ConcurrentHashMap<>();
+        this.collapsed = new LongAdder();
+        this.rateLimited = new LongAdder();
+        this.minLevel = Integer.MAX_VALUE;
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params,
+                              Throwable t) {
+        if (format == null || level.levelInt < this.minLevel || !this.isStarted()) {
+            return FilterReply.NEUTRAL;
+        }
+        ConcurrentHashMap<String, LoggerTable> current = this.tables;
+        LoggerTable table = current.get(logger.getName());
+        if (table == null) {
+            table = current.computeIfAbsent(logger.getName(), name -> this.resolve(logger));
+        }
+        Rule rule = table.rule;
+        if (rule == null || level.levelInt < rule.minLevel.levelInt) {
+            return FilterReply.NEUTRAL;
+        }
+        return table.state(format).decide(table, format, level, params, t, System.nanoTime(), this);
+    }
+
+    @Override
+    public synchronized void start() {
+        if (this.isStarted()) {
+            return;
+        }
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = this.flushInterval();
+        this.flushMillis = interval;
+        this.flusher.scheduleWithFixedDelay(() -> {
+            try {
+                this.flush(this.tables, false);
+            } catch (RuntimeException ex) {
+                // Try again next time, an exception escaping here would cancel all the following runs.
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+        super.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        super.stop();
+        if (this.flusher != null) {
+            this.flusher.shutdownNow();
+            this.flusher = null;
+        }
+        this.flush(this.tables, true);
+    }
+
+    /**
+     * Sets the rule of the logger and its descendants without a rule of their own, null removes it, see
+     * {@link #setRules(Map)}.
+     */
+    public void setRule(String loggerName, Rule rule) {
+        this.setRules(Collections.singletonMap(loggerName, rule));
+    }
+
+    /**
+     * Sets the rules of all the given loggers, and of their descendants without a rule of their own, at once, a null
+     * rule removes the logger's rule. Counts pending under the previous rules are emitted once the new ones apply.
+     */
+    public synchronized void setRules(Map<String, Rule> rulesByLogger) {
+        if (rulesByLogger.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<String, Rule> entry : rulesByLogger.entrySet()) {
+            if (entry.getValue() == null) {
+                this.rules.remove(entry.getKey());
+            } else {
+                this.rules.put(entry.getKey(), entry.getValue());
+            }
+        }
+        int lowest = Integer.MAX_VALUE;
+        for (Rule current : this.rules.values()) {
+            lowest = Math.min(lowest, current.minLevel.levelInt);
+        }
+        this.minLevel = lowest;
+        // Events see either the old tables or the new ones, the old ones are flushed once no longer handed out.
+        ConcurrentHashMap<String, LoggerTable> previous = this.tables;
+        this.tables = new ConcurrentHashMap<>();
+        this.flush(previous, true);
+        // The flush interval follows the shortest collapse window.
+        if (this.isStarted() && this.flushInterval() != this.flushMillis) {
+            this.stop();
+            this.start();
+        }
+    }
+
+    public Map<String, Rule> getRules() {
+        return Collections.unmodifiableMap(this.rules);
+    }
+
+    /**
+     * Number of events dropped as duplicates so far.
+     */
+    public long getCollapsedCount() {
+        return this.collapsed.sum();
+    }
+
+    /**
+     * Number of events dropped by the rate limits so far.
+     */
+    public long getRateLimitedCount() {
+        return this.rateLimited.sum();
+    }
+
+    private LoggerTable resolve(Logger logger) {
+        String name = logger.getName();
+        while (true) {
+            Rule rule = this.rules.get(name);
+            if (rule != null) {
+                return new LoggerTable(logger, rule);
+            }
+            if (ROOT.equals(name)) {
+                return UNRESTRICTED;
+            }
+            int separator = Math.max(name.lastIndexOf('.'), name.lastIndexOf('$'));
+            name = separator > 0 ? name.substring(0, separator) : ROOT;
+        }
+    }
+
+    private long flushInterval() {
+        long interval = DEFAULT_FLUSH_MILLIS;
+        for (Rule rule : this.rules.values()) {
+            if (rule.collapseWindowNanos > 0) {
+                interval = Math.min(interval, TimeUnit.NANOSECONDS.toMillis(rule.collapseWindowNanos));
+            }
+        }
+        return Math.max(interval, MIN_FLUSH_MILLIS);
+    }
+
+    /**
+     * Emits the summaries of finished runs and rate limited events, of all runs if forced.
+     */
+    private void flush(Map<String, LoggerTable> tables, boolean force) {
+        long now = System.nanoTime();
+        for (LoggerTable table : tables.values()) {
+            for (TemplateState state : table.states.values()) {
+                state.flush(table.logger, now, force);
+            }
+            table.overflow.flush(table.logger, now, force);
+        }
+    }
+
+    /**
+     * Writes the summary event straight to the logger's appenders, bypassing the turbo filters.
+     */
+    private static void emit(Logger logger, Level level, String message, Throwable throwable, long count,
+                             String threadName) {
+        LoggingEvent event = new LoggingEvent(FQCN, logger, level, message, throwable, null);
+        event.setThreadName(threadName);
+        event.setMDCPropertyMap(Collections.singletonMap(REPEAT_COUNT, String.valueOf(count)));
+        logger.callAppenders(event);
+    }
+
+    /**
+     * What is limited for a logger and its descendants.
+     */
+    public static final class Rule {
+
+        private final Level minLevel;
+
+        private final int ratePerSecond;
+
+        private final int burst;
+
+        private final long intervalNanos;
+
+        private final long collapseWindowNanos;
+
+        /**
+         * @param minLevel             lowest level the rule applies to, WARN if null.
+         * @param ratePerSecond        events per second and template, no limit if 0 or less.
+         * @param burst                events allowed at once before the rate applies, at least 1.
+         * @param collapseWindowMillis time within which duplicates are collapsed, none if 0 or less.
+         */
+        public Rule(Level minLevel, int ratePerSecond, int burst, long collapseWindowMillis) {
+            this.minLevel = minLevel == null ? Level.WARN : minLevel;
+            this.ratePerSecond = Math.max(ratePerSecond, 0);
+            this.burst = Math.max(burst, 1);
+            this.intervalNanos = this.ratePerSecond == 0 ? 0L : TimeUnit.SECONDS.toNanos(1) / this.ratePerSecond;
+            this.collapseWindowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(collapseWindowMillis, 0L));
+        }
+
+        public Level getMinLevel() {
+            return minLevel;
+        }
+
+        public int getRatePerSecond() {
+            return ratePerSecond;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        public long getCollapseWindowMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(this.collapseWindowNanos);
+        }
+    }
+
+    /**
+     * The rule of one logger along with the state of its message templates.
+     */
+    private static final class LoggerTable {
+
+        private final Logger logger;
+
+        private final Rule rule;
+
+        private final ConcurrentHashMap<String, TemplateState> states;
+
+        /**
+         * Shared by all templates beyond {@link #MAX_TEMPLATES_PER_LOGGER}, e.g. when messages are concatenated
+         * rather than parameterized.
+         */
+        private final TemplateState overflow;
+
+        LoggerTable(Logger logger, Rule rule) {
+            this.logger = logger;
+            this.rule = rule;
+            this.states = new ConcurrentHashMap<>();
+            this.overflow = new TemplateState();
+        }
+
+        TemplateState state(String format) {
+            TemplateState state = this.states.get(format);
+            if (state != null) {
+                return state;
+            }
+            if (this.states.size() >= MAX_TEMPLATES_PER_LOGGER) {
+                return this.overflow;
+            }
+            return this.states.computeIfAbsent(format, key -> new TemplateState());
+        }
+    }
+
+    /**
+     * Token bucket and current run of a single message template.
+     */
+    private static final class TemplateState {
+
+        /**
+         * Theoretical arrival time of the next event (nanoTime based), the whole token bucket.
+         */
+        private final AtomicLong arrival = new AtomicLong(Long.MIN_VALUE);
+
+        private final AtomicReference<Run> run = new AtomicReference<>();
+
+        private final AtomicLong limited = new AtomicLong();
+
+        /**
+         * The last event dropped by the rate limit, published as a whole so the summary never mixes up two events.
+         */
+        private final AtomicReference<Dropped> lastLimited = new AtomicReference<>();
+
+        FilterReply decide(LoggerTable table, String format, Level level, Object[] params, Throwable t, long now,
+                           LogStormFilter filter) {
+            Rule rule = table.rule;
+            if (rule.collapseWindowNanos > 0) {
+                Run current = this.run.get();
+                if (current != null && now - current.end < 0 && current.format.equals(format)
+                        && Arrays.equals(current.params, params)) {
+                    current.repeats.incrementAndGet();
+                    filter.collapsed.increment();
+                    return FilterReply.DENY;
+                }
+                Run next = new Run(level, format, params, throwable(params, t), now + rule.collapseWindowNanos,
+                        Thread.currentThread().getName());
+                // Losing the race means another thread just started a run, this event simply is not part of it.
+                if (this.run.compareAndSet(current, next) && current != null) {
+                    current.flush(table.logger);
+                }
+            }
+            if (rule.intervalNanos > 0 && !this.acquire(now, rule)) {
+                this.lastLimited.set(new Dropped(level, format, params, throwable(params, t),
+                        Thread.currentThread().getName()));
+                this.limited.incrementAndGet();
+                filter.rateLimited.increment();
+                return FilterReply.DENY;
+            }
+            return FilterReply.NEUTRAL;
+        }
+
+        void flush(Logger logger, long now, boolean force) {
+            Run current = this.run.get();
+            if (current != null && (force || now - current.end >= 0)) {
+                current.flush(logger);
+            }
+            long count = this.limited.getAndSet(0L);
+            Dropped last = this.lastLimited.get();
+            if (count > 0 && last != null) {
+                emit(logger, last.level, "[" + count + " more dropped by rate limit, last was] "
+                        + MessageFormatter.arrayFormat(last.format, last.params).getMessage(), last.throwable, count,
+                        last.threadName);
+            }
+        }
+
+        /**
+         * The throwable passed on its own or, as Logback does, as the last argument.
+         */
+        private static Throwable throwable(Object[] params, Throwable t) {
+            return t == null ? EventArgUtil.extractThrowable(params) : t;
+        }
+
+        /**
+         * GCRA: the event conforms if the theoretical arrival time, pushed out by one interval per event, is no
+         * more than the burst ahead of now.
+         */
+        private boolean acquire(long now, Rule rule) {
+            long tolerance = rule.intervalNanos * rule.burst;
+            while (true) {
+                long current = this.arrival.get();
+                long next = (current == Long.MIN_VALUE || current - now < 0 ? now : current) + rule.intervalNanos;
+                if (next - now > tolerance) {
+                    return false;
+                }
+                if (this.arrival.compareAndSet(current, next)) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    /**
+     * An event dropped by the rate limit.
+     */
+    private static final class Dropped {
+
+        private final Level level;
+
+        private final String format;
+
+        private final Object[] params;
+
+        private final Throwable throwable;
+
+        private final String threadName;
+
+        Dropped(Level level, String format, Object[] params, Throwable throwable, String threadName) {
+            this.level = level;
+            this.format = format;
+            this.params = params;
+            this.throwable = throwable;
+            this.threadName = threadName;
+        }
+    }
+
+    /**
+     * Duplicates of the first event of a run within the collapse window.
+     */
+    private static final class Run {
+
+        private final Level level;
+
+        private final String format;
+
+        private final Object[] params;
+
+        private final Throwable throwable;
+
+        private final long end;
+
+        private final String threadName;
+
+        private final AtomicLong repeats;
+
+        Run(Level level, String format, Object[] params, Throwable throwable, long end, String threadName) {
+            this.level = level;
+            this.format = format;
+            this.params = params;
+            this.throwable = throwable;
+            this.end = end;
+            this.threadName = threadName;
+            this.repeats = new AtomicLong();
+        }
+
+        void flush(Logger logger) {
+            long count = this.repeats.getAndSet(0L);
+            if (count > 0) {
+                emit(logger, this.level, MessageFormatter.arrayFormat(this.format, this.params).getMessage()
+                        + " [repeated " + count + " more times]", this.throwable, count, this.threadName);
+            }
+        }
+    }
+}
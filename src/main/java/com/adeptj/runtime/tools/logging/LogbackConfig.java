@@ -22,10 +22,13 @@ package com.adeptj.runtime.tools.logging;
 
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.Appender;
+import org.apache.commons.lang3.StringUtils;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * LogbackConfig
@@ -62,6 +65,68 @@ public class LogbackConfig {
 
     private int asyncLogDiscardingThreshold;
 
+    private boolean asyncLogNeverBlock;
+
+    private boolean asyncLogRingBuffer;
+
+    private String asyncLogWaitStrategy;
+
+    private int asyncLogBatchSize;
+
+    private Map<String, String> highlightColors;
+
+    private String[] threadNameRules;
+
+    private boolean logGroupCommit;
+
+    private String logBufferSize;
+
+    private String logFlushMaxBytes;
+
+    private long logFlushMaxDelay;
+
+    private String logForcePolicy;
+
+    private String logTotalSizeCap;
+
+    private boolean logBackgroundRollover;
+
+    private int logCompressionThreads;
+
+    private int logTailMaxEvents;
+
+    private String logTailBufferSize;
+
+    private boolean logTailOffHeap;
+
+    private String logIndexBlockSize;
+
+    private boolean logMetrics;
+
+    private String asyncLogOverflowPolicy;
+
+    private long asyncLogMaxQueueDelay;
+
+    private long asyncLogMaxBlockTime;
+
+    private boolean logBinaryFormat;
+
+    private boolean logJsonFormat;
+
+    private int logRateLimit;
+
+    private int logRateBurst;
+
+    private long logCollapseWindow;
+
+    private String logStormLevel;
+
+    private int logShards;
+
+    private String logShardKey;
+
+    private int logBootstrapBufferSize;
+
     private Appender<ILoggingEvent> asyncAppender;
 
     private List<Appender<ILoggingEvent>> appenders;
@@ -129,6 +194,130 @@ public class LogbackConfig {
         return asyncLogDiscardingThreshold;
     }
 
+    public boolean isAsyncLogNeverBlock() {
+        return asyncLogNeverBlock;
+    }
+
+    public boolean isAsyncLogRingBuffer() {
+        return asyncLogRingBuffer;
+    }
+
+    public String getAsyncLogWaitStrategy() {
+        return asyncLogWaitStrategy;
+    }
+
+    public int getAsyncLogBatchSize() {
+        return asyncLogBatchSize;
+    }
+
+    public Map<String, String> getHighlightColors() {
+        return highlightColors;
+    }
+
+    public String[] getThreadNameRules() {
+        return threadNameRules;
+    }
+
+    public boolean isLogGroupCommit() {
+        return logGroupCommit;
+    }
+
+    public String getLogBufferSize() {
+        return logBufferSize;
+    }
+
+    public String getLogFlushMaxBytes() {
+        return logFlushMaxBytes;
+    }
+
+    public long getLogFlushMaxDelay() {
+        return logFlushMaxDelay;
+    }
+
+    public String getLogForcePolicy() {
+        return logForcePolicy;
+    }
+
+    public String getLogTotalSizeCap() {
+        return logTotalSizeCap;
+    }
+
+    public boolean isLogBackgroundRollover() {
+        return logBackgroundRollover;
+    }
+
+    public int getLogCompressionThreads() {
+        return logCompressionThreads;
+    }
+
+    public int getLogTailMaxEvents() {
+        return logTailMaxEvents;
+    }
+
+    public String getLogTailBufferSize() {
+        return logTailBufferSize;
+    }
+
+    public boolean isLogTailOffHeap() {
+        return logTailOffHeap;
+    }
+
+    public String getLogIndexBlockSize() {
+        return logIndexBlockSize;
+    }
+
+    public boolean isLogMetrics() {
+        return logMetrics;
+    }
+
+    public String getAsyncLogOverflowPolicy() {
+        return asyncLogOverflowPolicy;
+    }
+
+    public long getAsyncLogMaxQueueDelay() {
+        return asyncLogMaxQueueDelay;
+    }
+
+    public long getAsyncLogMaxBlockTime() {
+        return asyncLogMaxBlockTime;
+    }
+
+    public boolean isLogBinaryFormat() {
+        return logBinaryFormat;
+    }
+
+    public boolean isLogJsonFormat() {
+        return logJsonFormat;
+    }
+
+    public int getLogRateLimit() {
+        return logRateLimit;
+    }
+
+    public int getLogRateBurst() {
+        return logRateBurst;
+    }
+
+    public long getLogCollapseWindow() {
+        return logCollapseWindow;
+    }
+
+    public String getLogStormLevel() {
+        return logStormLevel;
+    }
+
+    public int getLogShards() {
+        return logShards;
+    }
+
+    public String getLogShardKey() {
+        return logShardKey;
+    }
+
+    public int getLogBootstrapBufferSize() {
+        return logBootstrapBufferSize;
+    }
+
     public Appender<ILoggingEvent> getAsyncAppender() {
         return asyncAppender;
     }
@@ -181,6 +370,68 @@ public class LogbackConfig {
 
         private int asyncLogDiscardingThreshold;
 
+        private boolean asyncLogNeverBlock;
+
+        private boolean asyncLogRingBuffer;
+
+        private String asyncLogWaitStrategy;
+
+        private int asyncLogBatchSize;
+
+        private Map<String, String> highlightColors;
+
+        private String[] threadNameRules;
+
+        private boolean logGroupCommit;
+
+        private String logBufferSize;
+
+        private String logFlushMaxBytes;
+
+        private long logFlushMaxDelay;
+
+        private String logForcePolicy;
+
+        private String logTotalSizeCap;
+
+        private boolean logBackgroundRollover;
+
+        private int logCompressionThreads;
+
+        private int logTailMaxEvents;
+
+        private String logTailBufferSize;
+
+        private boolean logTailOffHeap;
+
+        private String logIndexBlockSize;
+
+        private boolean logMetrics;
+
+        private String asyncLogOverflowPolicy;
+
+        private long asyncLogMaxQueueDelay;
+
+        private long asyncLogMaxBlockTime;
+
+        private boolean logBinaryFormat;
+
+        private boolean logJsonFormat;
+
+        private int logRateLimit;
+
+        private int logRateBurst;
+
+        private long logCollapseWindow;
+
+        private String logStormLevel;
+
+        private int logShards;
+
+        private String logShardKey;
+
+        private int logBootstrapBufferSize;
+
         private Appender<ILoggingEvent> asyncAppender;
 
         private List<Appender<ILoggingEvent>> appenders;
@@ -269,6 +520,247 @@ public class LogbackConfig {
             return this;
         }
 
+        public Builder asyncLogNeverBlock(boolean asyncLogNeverBlock) {
+            this.asyncLogNeverBlock = asyncLogNeverBlock;
+            return this;
+        }
+
+        /**
+         * Use {@link RingBufferAsyncAppender} instead of Logback's AsyncAppender.
+         */
+        public Builder asyncLogRingBuffer(boolean asyncLogRingBuffer) {
+            this.asyncLogRingBuffer = asyncLogRingBuffer;
+            return this;
+        }
+
+        /**
+         * One of {@link WaitStrategy} names, only used by {@link RingBufferAsyncAppender}.
+         */
+        public Builder asyncLogWaitStrategy(String asyncLogWaitStrategy) {
+            this.asyncLogWaitStrategy = asyncLogWaitStrategy;
+            return this;
+        }
+
+        public Builder asyncLogBatchSize(int asyncLogBatchSize) {
+            this.asyncLogBatchSize = asyncLogBatchSize;
+            return this;
+        }
+
+        /**
+         * ANSI colour code, e.g. 1;31, used by %highlight for the given level on the console.
+         */
+        public Builder highlightColor(String level, String ansiColorCode) {
+            if (this.highlightColors == null) {
+                this.highlightColors = new HashMap<>();
+            }
+            this.highlightColors.put(StringUtils.upperCase(level), ansiColorCode);
+            return this;
+        }
+
+        /**
+         * Rules trimming the thread names logged by %thread, in the spec format of {@link ThreadNameRules#parse}.
+         */
+        public Builder threadNameRules(String... threadNameRules) {
+            this.threadNameRules = threadNameRules;
+            return this;
+        }
+
+        /**
+         * Use {@link GroupCommitRollingFileAppender} for the rolling file appender.
+         */
+        public Builder logGroupCommit(boolean logGroupCommit) {
+            this.logGroupCommit = logGroupCommit;
+            return this;
+        }
+
+        public Builder logBufferSize(String logBufferSize) {
+            this.logBufferSize = logBufferSize;
+            return this;
+        }
+
+        public Builder logFlushMaxBytes(String logFlushMaxBytes) {
+            this.logFlushMaxBytes = logFlushMaxBytes;
+            return this;
+        }
+
+        public Builder logFlushMaxDelay(long logFlushMaxDelay) {
+            this.logFlushMaxDelay = logFlushMaxDelay;
+            return this;
+        }
+
+        /**
+         * One of {@link ForcePolicy} names, only used with group commit.
+         */
+        public Builder logForcePolicy(String logForcePolicy) {
+            this.logForcePolicy = logForcePolicy;
+            return this;
+        }
+
+        /**
+         * Total size of all archives, the oldest are deleted beyond it, e.g. 5GB.
+         */
+        public Builder logTotalSizeCap(String logTotalSizeCap) {
+            this.logTotalSizeCap = logTotalSizeCap;
+            return this;
+        }
+
+        /**
+         * Use {@link BackgroundRollingPolicy} to compress and prune archives off the logging thread.
+         */
+        public Builder logBackgroundRollover(boolean logBackgroundRollover) {
+            this.logBackgroundRollover = logBackgroundRollover;
+            return this;
+        }
+
+        public Builder logCompressionThreads(int logCompressionThreads) {
+            this.logCompressionThreads = logCompressionThreads;
+            return this;
+        }
+
+        /**
+         * Number of events kept in memory by the {@link LiveTailAppender}.
+         */
+        public Builder logTailMaxEvents(int logTailMaxEvents) {
+            this.logTailMaxEvents = logTailMaxEvents;
+            return this;
+        }
+
+        /**
+         * Bytes available to the {@link LiveTailAppender} for the encoded events, e.g. 2MB.
+         */
+        public Builder logTailBufferSize(String logTailBufferSize) {
+            this.logTailBufferSize = logTailBufferSize;
+            return this;
+        }
+
+        /**
+         * Keep the {@link LiveTailAppender} events in a direct buffer, outside the Java heap.
+         */
+        public Builder logTailOffHeap(boolean logTailOffHeap) {
+            this.logTailOffHeap = logTailOffHeap;
+            return this;
+        }
+
+        /**
+         * Log bytes per entry of the sidecar index used by {@link LogSearch}, e.g. 64KB, no index when not set.
+         */
+        public Builder logIndexBlockSize(String logIndexBlockSize) {
+            this.logIndexBlockSize = logIndexBlockSize;
+            return this;
+        }
+
+        /**
+         * Records events, bytes, discards, queue fill and encode/write latency of the appenders created from this
+         * config, see {@link PipelineMetrics}.
+         */
+        public Builder logMetrics(boolean logMetrics) {
+            this.logMetrics = logMetrics;
+            return this;
+        }
+
+        /**
+         * Per level overflow policies of the ring buffer async appender, e.g. "DEBUG=DROP, INFO=DROP_AND_COUNT",
+         * switches it to adaptive shedding, see {@link OverflowPolicy}.
+         */
+        public Builder asyncLogOverflowPolicy(String asyncLogOverflowPolicy) {
+            this.asyncLogOverflowPolicy = asyncLogOverflowPolicy;
+            return this;
+        }
+
+        /**
+         * Longest time in ms an event should wait in the async queue, in overflow policy mode.
+         */
+        public Builder asyncLogMaxQueueDelay(long asyncLogMaxQueueDelay) {
+            this.asyncLogMaxQueueDelay = asyncLogMaxQueueDelay;
+            return this;
+        }
+
+        /**
+         * Longest time in ms a producer below WARN blocks on a full async queue, in overflow policy mode.
+         */
+        public Builder asyncLogMaxBlockTime(long asyncLogMaxBlockTime) {
+            this.asyncLogMaxBlockTime = asyncLogMaxBlockTime;
+            return this;
+        }
+
+        /**
+         * Writes the log file in the compact binary format of the {@link BinaryLogEncoder} instead of the pattern,
+         * read it back with the {@link BinaryLogDecoder}.
+         */
+        public Builder logBinaryFormat(boolean logBinaryFormat) {
+            this.logBinaryFormat = logBinaryFormat;
+            return this;
+        }
+
+        /**
+         * Writes JSON lines through the {@link JsonLinesEncoder} instead of the pattern, to the console as well as
+         * the file, for log shipping. For the file the binary format takes precedence when both are set.
+         */
+        public Builder logJsonFormat(boolean logJsonFormat) {
+            this.logJsonFormat = logJsonFormat;
+            return this;
+        }
+
+        /**
+         * Events per second and message template the loggers may log at or above the storm level, see
+         * {@link LogStormFilter}. Not limited when 0.
+         */
+        public Builder logRateLimit(int logRateLimit) {
+            this.logRateLimit = logRateLimit;
+            return this;
+        }
+
+        /**
+         * Events per message template allowed at once before the rate limit applies, 1 if not set.
+         */
+        public Builder logRateBurst(int logRateBurst) {
+            this.logRateBurst = logRateBurst;
+            return this;
+        }
+
+        /**
+         * Milliseconds within which duplicate events of the loggers are collapsed into one with a repeat count, see
+         * {@link LogStormFilter}. Not collapsed when 0.
+         */
+        public Builder logCollapseWindow(long logCollapseWindow) {
+            this.logCollapseWindow = logCollapseWindow;
+            return this;
+        }
+
+        /**
+         * Lowest level the rate limit and duplicate collapsing apply to, WARN if not set.
+         */
+        public Builder logStormLevel(String logStormLevel) {
+            this.logStormLevel = logStormLevel;
+            return this;
+        }
+
+        /**
+         * Number of files the file appender is sharded into, see {@link ShardedFileAppender}, values below 2 keep a
+         * single file.
+         */
+        public Builder logShards(int logShards) {
+            this.logShards = logShards;
+            return this;
+        }
+
+        /**
+         * MDC key whose value picks the shard of an event, the thread name does when not set or when the event has no
+         * value for it.
+         */
+        public Builder logShardKey(String logShardKey) {
+            this.logShardKey = logShardKey;
+            return this;
+        }
+
+        /**
+         * Number of events a {@link DeferredAppender} buffers until its appender is ready, 8192 if not set.
+         */
+        public Builder logBootstrapBufferSize(int logBootstrapBufferSize) {
+            this.logBootstrapBufferSize = logBootstrapBufferSize;
+            return this;
+        }
+
         public Builder asyncAppender(Appender<ILoggingEvent> asyncAppender) {
             this.asyncAppender = asyncAppender;
             return this;
@@ -306,6 +798,37 @@ public class LogbackConfig {
             config.asyncAppenderName = this.asyncAppenderName;
             config.asyncLogQueueSize = this.asyncLogQueueSize;
             config.asyncLogDiscardingThreshold = this.asyncLogDiscardingThreshold;
+            config.asyncLogNeverBlock = this.asyncLogNeverBlock;
+            config.asyncLogRingBuffer = this.asyncLogRingBuffer;
+            config.asyncLogWaitStrategy = this.asyncLogWaitStrategy;
+            config.asyncLogBatchSize = this.asyncLogBatchSize;
+            config.highlightColors = this.highlightColors;
+            config.threadNameRules = this.threadNameRules;
+            config.logGroupCommit = this.logGroupCommit;
+            config.logBufferSize = this.logBufferSize;
+            config.logFlushMaxBytes = this.logFlushMaxBytes;
+            config.logFlushMaxDelay = this.logFlushMaxDelay;
+            config.logForcePolicy = this.logForcePolicy;
+            config.logTotalSizeCap = this.logTotalSizeCap;
+            config.logBackgroundRollover = this.logBackgroundRollover;
+            config.logCompressionThreads = this.logCompressionThreads;
+            config.logTailMaxEvents = this.logTailMaxEvents;
+            config.logTailBufferSize = this.logTailBufferSize;
+            config.logTailOffHeap = this.logTailOffHeap;
+            config.logIndexBlockSize = this.logIndexBlockSize;
+            config.logMetrics = this.logMetrics;
+            config.asyncLogOverflowPolicy = this.asyncLogOverflowPolicy;
+            config.asyncLogMaxQueueDelay = this.asyncLogMaxQueueDelay;
+            config.asyncLogMaxBlockTime = this.asyncLogMaxBlockTime;
+            config.logBinaryFormat = this.logBinaryFormat;
+            config.logJsonFormat = this.logJsonFormat;
+            config.logRateLimit = this.logRateLimit;
+            config.logRateBurst = this.logRateBurst;
+            config.logCollapseWindow = this.logCollapseWindow;
+            config.logStormLevel = this.logStormLevel;
+            config.logShards = this.logShards;
+            config.logShardKey = this.logShardKey;
+            config.logBootstrapBufferSize = this.logBootstrapBufferSize;
             config.asyncAppender = this.asyncAppender;
             config.appenders = this.appenders;
             return config;
@@ -20,23 +20,31 @@
 
 package com.adeptj.runtime.tools.logging;
 
-import ch.qos.logback.classic.AsyncAppender;
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.LoggerContext;
-import ch.qos.logback.classic.PatternLayout;
 import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.Appender;
 import ch.qos.logback.core.ConsoleAppender;
+import ch.qos.logback.core.encoder.Encoder;
 import ch.qos.logback.core.rolling.RollingFileAppender;
 import ch.qos.logback.core.rolling.SizeAndTimeBasedRollingPolicy;
+import ch.qos.logback.core.spi.AppenderAttachable;
 import ch.qos.logback.core.util.FileSize;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * LogbackManager
@@ -53,12 +61,20 @@ public enum LogbackManager {
 
     public static final String APPENDER_FILE = "FILE";
 
-    private final List<Appender<ILoggingEvent>> appenderList;
+    public static final String APPENDER_TAIL = "TAIL";
+
+    private static final long MAX_HANDOVER_MILLIS = 10_000L;
+
+    private final AppenderRegistry appenderRegistry;
 
     private volatile LoggerContext loggerContext;
 
+    private LogStormFilter logStormFilter;
+
+    private DynamicDebugFilter dynamicDebugFilter;
+
     LogbackManager() {
-        this.appenderList = new ArrayList<>();
+        this.appenderRegistry = new AppenderRegistry();
         this.loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
     }
 
@@ -67,29 +83,219 @@ public enum LogbackManager {
     }
 
     public LogbackManager addAppender(Appender<ILoggingEvent> appender) {
-        this.appenderList.add(appender);
+        this.appenderRegistry.put(appender);
         return this;
     }
 
+    /**
+     * Returns an immutable snapshot of the registered appenders.
+     */
     public List<Appender<ILoggingEvent>> getAppenders() {
-        return this.appenderList;
+        return this.appenderRegistry.list();
     }
 
+    /**
+     * Returns the appender registered under the name, for a {@link DeferredAppender} the appender it stands in for
+     * once that is ready.
+     */
     public Appender<ILoggingEvent> getAppender(String name) {
-        return this.appenderList.stream()
-                .filter(appender -> StringUtils.equals(appender.getName(), name))
-                .findFirst()
-                .orElse(null);
+        Appender<ILoggingEvent> appender = this.appenderRegistry.get(name);
+        if (appender instanceof DeferredAppender && ((DeferredAppender) appender).getDelegate() != null) {
+            return ((DeferredAppender) appender).getDelegate();
+        }
+        return appender;
+    }
+
+    /**
+     * Hot swaps the appender registered under the same name as the given one.
+     * <p>
+     * The new appender is started first, then attached to every logger the old one is attached to before the old one
+     * is detached, so events keep flowing throughout; one logged during the swap may reach both appenders but never
+     * neither. A {@link ReplaceableAppender} is then handed over to the new one, so that events still reaching it,
+     * through a wrapping (e.g. async) appender or a logger which read its appenders before the swap, are forwarded,
+     * and is only stopped once the appends in progress are done, async appenders flush their queue while stopping.
+     * Appenders the old one delegates to and the new one still writes to, e.g. the FILE appender behind an async one
+     * replaced by another async one, are detached from the old one rather than stopped along with it.
+     *
+     * @param appender the replacement, started here if not started already.
+     * @return the replaced appender or null if none was registered under that name.
+     * @throws IllegalStateException if the new appender could not be started, or if the old one is referenced by
+     *                               another appender and can't be handed over, or if it is a wrapper which shares
+     *                               appenders with the new one but can't leave them running when stopped.
+     */
+    public Appender<ILoggingEvent> replaceAppender(Appender<ILoggingEvent> appender) {
+        Appender<ILoggingEvent> current = this.appenderRegistry.get(appender.getName());
+        if (current != null && current != appender && !(current instanceof ReplaceableAppender)
+                && this.isWrapped(current)) {
+            throw new IllegalStateException("Appender [" + appender.getName()
+                    + "] is referenced by another appender and can't be replaced!");
+        }
+        if (current != null && current != appender && !(current instanceof RingBufferAsyncAppender)
+                && !(current instanceof ExtAsyncAppender) && !sharedDelegates(current, appender).isEmpty()) {
+            throw new IllegalStateException("Appender [" + appender.getName()
+                    + "] shares appenders with its replacement and can't be stopped without stopping them!");
+        }
+        if (!appender.isStarted()) {
+            appender.start();
+        }
+        if (!appender.isStarted()) {
+            throw new IllegalStateException("Appender [" + appender.getName() + "] could not be started!");
+        }
+        Appender<ILoggingEvent> previous = this.appenderRegistry.put(appender);
+        if (previous == null || previous == appender) {
+            return previous;
+        }
+        for (Logger logger : this.loggerContext.getLoggerList()) {
+            if (logger.isAttached(previous)) {
+                logger.addAppender(appender);
+                logger.detachAppender(previous);
+            }
+        }
+        if (previous instanceof ReplaceableAppender) {
+            ReplaceableAppender replaceable = (ReplaceableAppender) previous;
+            replaceable.handOver(appender);
+            try {
+                replaceable.awaitIdle(MAX_HANDOVER_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (Appender<ILoggingEvent> shared : sharedDelegates(previous, appender)) {
+            if (previous instanceof RingBufferAsyncAppender) {
+                ((RingBufferAsyncAppender) previous).retainAppender(shared);
+            } else if (previous instanceof ExtAsyncAppender) {
+                ((ExtAsyncAppender) previous).retainAppender(shared);
+            }
+        }
+        previous.stop();
+        return previous;
+    }
+
+    /**
+     * The delegates of the retired appender which its successor writes to as well, stopping the retired appender
+     * must leave those running.
+     */
+    private static List<Appender<ILoggingEvent>> sharedDelegates(Appender<ILoggingEvent> retired,
+                                                                 Appender<ILoggingEvent> successor) {
+        List<Appender<ILoggingEvent>> shared = new ArrayList<>();
+        for (Appender<ILoggingEvent> delegate : delegates(retired)) {
+            if (delegate == successor || references(successor, delegate)) {
+                shared.add(delegate);
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Whether any registered appender, or one attached to a logger, delegates to the given one.
+     */
+    private boolean isWrapped(Appender<ILoggingEvent> appender) {
+        List<Appender<ILoggingEvent>> roots = new ArrayList<>(this.appenderRegistry.list());
+        for (Logger logger : this.loggerContext.getLoggerList()) {
+            logger.iteratorForAppenders().forEachRemaining(roots::add);
+        }
+        return roots.stream().anyMatch(root -> references(root, appender));
+    }
+
+    private static boolean references(Appender<ILoggingEvent> wrapper, Appender<ILoggingEvent> appender) {
+        for (Appender<ILoggingEvent> delegate : delegates(wrapper)) {
+            if (delegate == appender || references(delegate, appender)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Appender<ILoggingEvent>> delegates(Appender<ILoggingEvent> appender) {
+        List<Appender<ILoggingEvent>> delegates = new ArrayList<>();
+        if (appender instanceof AppenderAttachable) {
+            ((AppenderAttachable<ILoggingEvent>) appender).iteratorForAppenders().forEachRemaining(delegates::add);
+        } else if (appender instanceof ShardedFileAppender) {
+            delegates.addAll(((ShardedFileAppender) appender).getShards());
+        } else if (appender instanceof DeferredAppender && ((DeferredAppender) appender).getDelegate() != null) {
+            delegates.add(((DeferredAppender) appender).getDelegate());
+        }
+        return delegates;
     }
 
     public void addLogger(LogbackConfig logbackConfig) {
-        logbackConfig.getLoggerNames()
-                .forEach(loggerName -> {
-                    Logger logger = this.loggerContext.getLogger(loggerName);
-                    logger.setLevel(Level.toLevel(logbackConfig.getLevel()));
-                    logger.setAdditive(logbackConfig.isAdditivity());
-                    logbackConfig.getAppenders().forEach(logger::addAppender);
-                });
+        this.addLoggers(Collections.singletonList(logbackConfig));
+    }
+
+    /**
+     * Applies the level, additivity and appenders of all the given configs in one pass.
+     * <p>
+     * The final state of every logger is resolved upfront, a logger named by more than one config takes the level
+     * and additivity of the last one and the appenders of all of them. Loggers are then updated deepest first and only
+     * where something actually differs, every level change makes Logback push the effective level down to the
+     * children which inherit it, by the time a parent is updated its configured descendants already have an explicit
+     * level which stops that walk early, so the hierarchy is effectively recomputed just once.
+     *
+     * @param logbackConfigs the configs to apply, in order of precedence (last wins).
+     * @return the changes made, one entry per logger that actually changed.
+     */
+    public List<LoggerChange> addLoggers(Collection<LogbackConfig> logbackConfigs) {
+        Map<String, LoggerState> states = new HashMap<>();
+        Map<String, LogStormFilter.Rule> stormRules = new LinkedHashMap<>();
+        for (LogbackConfig logbackConfig : logbackConfigs) {
+            Level level = Level.toLevel(logbackConfig.getLevel());
+            for (String loggerName : logbackConfig.getLoggerNames()) {
+                states.computeIfAbsent(loggerName, LoggerState::new)
+                        .update(level, logbackConfig.isAdditivity(), logbackConfig.getAppenders());
+            }
+            if (logbackConfig.getLogRateLimit() > 0 || logbackConfig.getLogCollapseWindow() > 0) {
+                LogStormFilter.Rule rule = new LogStormFilter.Rule(Level.toLevel(logbackConfig.getLogStormLevel(),
+                        Level.WARN), logbackConfig.getLogRateLimit(), logbackConfig.getLogRateBurst(),
+                        logbackConfig.getLogCollapseWindow());
+                for (String loggerName : logbackConfig.getLoggerNames()) {
+                    stormRules.put(loggerName, rule);
+                }
+            }
+        }
+        if (!stormRules.isEmpty()) {
+            this.getLogStormFilter().setRules(stormRules);
+        }
+        List<LoggerState> ordered = new ArrayList<>(states.values());
+        ordered.sort(Comparator.comparingInt(LoggerState::depth).reversed());
+        List<LoggerChange> changes = new ArrayList<>();
+        for (LoggerState state : ordered) {
+            LoggerChange change = state.apply(this.loggerContext.getLogger(state.loggerName));
+            if (change != null) {
+                changes.add(change);
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * The {@link LogStormFilter} of the logger context, registered on first use.
+     */
+    public synchronized LogStormFilter getLogStormFilter() {
+        if (this.logStormFilter == null) {
+            LogStormFilter filter = new LogStormFilter();
+            filter.setName(LogStormFilter.class.getSimpleName());
+            filter.setContext(this.loggerContext);
+            filter.start();
+            this.loggerContext.addTurboFilter(filter);
+            this.logStormFilter = filter;
+        }
+        return this.logStormFilter;
+    }
+
+    /**
+     * The {@link DynamicDebugFilter} of the logger context, registered on first use.
+     */
+    public synchronized DynamicDebugFilter getDynamicDebugFilter() {
+        if (this.dynamicDebugFilter == null) {
+            DynamicDebugFilter filter = new DynamicDebugFilter();
+            filter.setName(DynamicDebugFilter.class.getSimpleName());
+            filter.setContext(this.loggerContext);
+            filter.start();
+            this.loggerContext.addTurboFilter(filter);
+            this.dynamicDebugFilter = filter;
+        }
+        return this.dynamicDebugFilter;
     }
 
     public boolean detachAppender(String loggerName, String appenderName) {
@@ -97,42 +303,144 @@ public enum LogbackManager {
     }
 
     public PatternLayoutEncoder createLayoutEncoder(String logPattern) {
-        PatternLayoutEncoder layoutEncoder = new PatternLayoutEncoder();
+        return this.createLayoutEncoder(logPattern, null);
+    }
+
+    public PatternLayoutEncoder createLayoutEncoder(String logPattern, HighlightPalette highlightPalette) {
+        ReusableBufferPatternEncoder layoutEncoder = new ReusableBufferPatternEncoder();
+        layoutEncoder.setHighlightPalette(highlightPalette);
         layoutEncoder.setContext(this.loggerContext);
         layoutEncoder.setPattern(logPattern);
         layoutEncoder.start();
-        PatternLayout layout = (PatternLayout) layoutEncoder.getLayout();
-        layout.getDefaultConverterMap().put("highlight", ExtHighlightingCompositeConverter.class.getName());
-        layout.getDefaultConverterMap().put("thread", ExtThreadConverter.class.getName());
         return layoutEncoder;
     }
 
+    public BinaryLogEncoder createBinaryEncoder() {
+        BinaryLogEncoder binaryEncoder = new BinaryLogEncoder();
+        binaryEncoder.setContext(this.loggerContext);
+        binaryEncoder.start();
+        return binaryEncoder;
+    }
+
+    public JsonLinesEncoder createJsonEncoder() {
+        JsonLinesEncoder jsonEncoder = new JsonLinesEncoder();
+        jsonEncoder.setContext(this.loggerContext);
+        jsonEncoder.start();
+        return jsonEncoder;
+    }
+
     public ConsoleAppender<ILoggingEvent> createConsoleAppender(String name, String logPattern) {
-        ConsoleAppender<ILoggingEvent> consoleAppender = new ConsoleAppender<>();
+        return this.createConsoleAppender(name, this.createLayoutEncoder(logPattern,
+                HighlightPalette.defaults().forConsole()), false);
+    }
+
+    public ConsoleAppender<ILoggingEvent> createConsoleAppender(LogbackConfig logbackConfig) {
+        this.applyThreadNameRules(logbackConfig);
+        Encoder<ILoggingEvent> encoder = logbackConfig.isLogJsonFormat()
+                ? this.createJsonEncoder()
+                : this.createLayoutEncoder(logbackConfig.getPattern(),
+                HighlightPalette.of(logbackConfig.getHighlightColors()).forConsole());
+        return this.createConsoleAppender(logbackConfig.getAppenderName(), encoder, logbackConfig.isLogMetrics());
+    }
+
+    private ConsoleAppender<ILoggingEvent> createConsoleAppender(String name, Encoder<ILoggingEvent> encoder,
+                                                                 boolean metrics) {
+        ExtConsoleAppender consoleAppender = new ExtConsoleAppender();
         consoleAppender.setName(name);
+        if (metrics) {
+            consoleAppender.setMetrics(PipelineMetrics.getInstance().forAppender(name));
+        }
         consoleAppender.setContext(this.loggerContext);
-        consoleAppender.setEncoder(this.createLayoutEncoder(logPattern));
+        consoleAppender.setEncoder(encoder);
         consoleAppender.setWithJansi(true);
         consoleAppender.start();
         return consoleAppender;
     }
 
+    /**
+     * Installs the config's thread name rules, if it has any, for all the %thread conversions and JSON lines.
+     *
+     * @throws IllegalArgumentException if a rule is malformed.
+     */
+    private void applyThreadNameRules(LogbackConfig logbackConfig) {
+        if (logbackConfig.getThreadNameRules() != null) {
+            ExtThreadConverter.setRules(ThreadNameRules.parse(logbackConfig.getThreadNameRules()));
+        }
+    }
+
+    /**
+     * Creates the file appender the config asks for, a {@link ShardedFileAppender} when it has more than one shard
+     * and a rolling one otherwise.
+     */
+    public Appender<ILoggingEvent> createFileAppender(LogbackConfig logbackConfig) {
+        this.applyThreadNameRules(logbackConfig);
+        return logbackConfig.getLogShards() > 1
+                ? this.createShardedFileAppender(logbackConfig)
+                : this.createRollingFileAppender(logbackConfig);
+    }
+
+    /**
+     * Creates a {@link ShardedFileAppender} whose shards are rolling file appenders configured like the one
+     * {@link #createRollingFileAppender(LogbackConfig)} would create, each named and writing files suffixed with its
+     * number and getting an equal part of the total size cap.
+     */
+    public ShardedFileAppender createShardedFileAppender(LogbackConfig logbackConfig) {
+        ShardedFileAppender shardedAppender = new ShardedFileAppender();
+        shardedAppender.setName(logbackConfig.getAppenderName());
+        shardedAppender.setContext(this.loggerContext);
+        shardedAppender.setShardKey(logbackConfig.getLogShardKey());
+        int shards = Math.max(logbackConfig.getLogShards(), 1);
+        for (int shard = 0; shard < shards; shard++) {
+            shardedAppender.addShard(this.createRollingFileAppender(logbackConfig,
+                    logbackConfig.getAppenderName() + '-' + shard,
+                    ShardedFileAppender.shardFile(logbackConfig.getLogFile(), shard),
+                    ShardedFileAppender.shardFile(logbackConfig.getRolloverFile(), shard), shards));
+        }
+        shardedAppender.start();
+        return shardedAppender;
+    }
+
     public RollingFileAppender<ILoggingEvent> createRollingFileAppender(LogbackConfig logbackConfig) {
-        RollingFileAppender<ILoggingEvent> fileAppender = new RollingFileAppender<>();
-        fileAppender.setName(logbackConfig.getAppenderName());
-        fileAppender.setFile(logbackConfig.getLogFile());
+        return this.createRollingFileAppender(logbackConfig, logbackConfig.getAppenderName(),
+                logbackConfig.getLogFile(), logbackConfig.getRolloverFile(), 1);
+    }
+
+    private RollingFileAppender<ILoggingEvent> createRollingFileAppender(LogbackConfig logbackConfig, String name,
+                                                                         String logFile, String rolloverFile,
+                                                                         int shards) {
+        ExtRollingFileAppender fileAppender = logbackConfig.isLogGroupCommit()
+                ? this.createGroupCommitFileAppender(logbackConfig)
+                : new ExtRollingFileAppender();
+        fileAppender.setName(name);
+        if (logbackConfig.isLogMetrics()) {
+            fileAppender.setMetrics(PipelineMetrics.getInstance().forAppender(name));
+        }
+        if (StringUtils.isNotEmpty(logbackConfig.getLogIndexBlockSize())) {
+            fileAppender.setIndexBlockSize(FileSize.valueOf(logbackConfig.getLogIndexBlockSize()));
+        }
+        fileAppender.setFile(logFile);
         fileAppender.setAppend(true);
         fileAppender.setImmediateFlush(Boolean.getBoolean(SYS_PROP_LOG_IMMEDIATE_FLUSH));
         if (!fileAppender.isImmediateFlush()) {
             fileAppender.setImmediateFlush(logbackConfig.isImmediateFlush());
         }
-        fileAppender.setEncoder(this.createLayoutEncoder(logbackConfig.getPattern()));
+        if (logbackConfig.isLogBinaryFormat()) {
+            fileAppender.setEncoder(this.createBinaryEncoder());
+        } else if (logbackConfig.isLogJsonFormat()) {
+            fileAppender.setEncoder(this.createJsonEncoder());
+        } else {
+            fileAppender.setEncoder(this.createLayoutEncoder(logbackConfig.getPattern()));
+        }
         fileAppender.setContext(this.loggerContext);
-        SizeAndTimeBasedRollingPolicy<ILoggingEvent> rollingPolicy = new SizeAndTimeBasedRollingPolicy<>();
+        SizeAndTimeBasedRollingPolicy<ILoggingEvent> rollingPolicy = this.createRollingPolicy(logbackConfig);
         rollingPolicy.setMaxFileSize(FileSize.valueOf(logbackConfig.getLogMaxSize()));
         rollingPolicy.setContext(this.loggerContext);
-        rollingPolicy.setFileNamePattern(logbackConfig.getRolloverFile());
+        rollingPolicy.setFileNamePattern(rolloverFile);
         rollingPolicy.setMaxHistory(logbackConfig.getLogMaxHistory());
+        if (StringUtils.isNotEmpty(logbackConfig.getLogTotalSizeCap())) {
+            rollingPolicy.setTotalSizeCap(new FileSize(FileSize.valueOf(logbackConfig.getLogTotalSizeCap()).getSize()
+                    / shards));
+        }
         rollingPolicy.setParent(fileAppender);
         rollingPolicy.start();
         fileAppender.setRollingPolicy(rollingPolicy);
@@ -141,11 +449,108 @@ public enum LogbackManager {
         return fileAppender;
     }
 
+    private SizeAndTimeBasedRollingPolicy<ILoggingEvent> createRollingPolicy(LogbackConfig logbackConfig) {
+        if (!logbackConfig.isLogBackgroundRollover()) {
+            return new SizeAndTimeBasedRollingPolicy<>();
+        }
+        BackgroundRollingPolicy<ILoggingEvent> rollingPolicy = new BackgroundRollingPolicy<>();
+        if (logbackConfig.getLogCompressionThreads() > 0) {
+            rollingPolicy.setCompressionThreads(logbackConfig.getLogCompressionThreads());
+        }
+        return rollingPolicy;
+    }
+
+    private GroupCommitRollingFileAppender createGroupCommitFileAppender(LogbackConfig logbackConfig) {
+        GroupCommitRollingFileAppender fileAppender = new GroupCommitRollingFileAppender();
+        if (StringUtils.isNotEmpty(logbackConfig.getLogBufferSize())) {
+            fileAppender.setGroupCommitBufferSize(FileSize.valueOf(logbackConfig.getLogBufferSize()));
+        }
+        if (StringUtils.isNotEmpty(logbackConfig.getLogFlushMaxBytes())) {
+            fileAppender.setFlushMaxBytes(FileSize.valueOf(logbackConfig.getLogFlushMaxBytes()));
+        }
+        if (logbackConfig.getLogFlushMaxDelay() > 0) {
+            fileAppender.setFlushMaxDelay(logbackConfig.getLogFlushMaxDelay());
+        }
+        fileAppender.setForcePolicy(ForcePolicy.of(logbackConfig.getLogForcePolicy()));
+        return fileAppender;
+    }
+
+    /**
+     * Creates a {@link DeferredAppender}, named after the config's appender, which has the factory create and start
+     * the actual appender on a background thread while buffering the events logged meanwhile, e.g. with
+     * {@code () -> this.createFileAppender(logbackConfig)} as factory. Can be attached to loggers right away.
+     */
+    public DeferredAppender createDeferredAppender(LogbackConfig logbackConfig,
+                                                   Supplier<Appender<ILoggingEvent>> factory) {
+        DeferredAppender deferredAppender = new DeferredAppender();
+        deferredAppender.setName(logbackConfig.getAppenderName());
+        deferredAppender.setContext(this.loggerContext);
+        deferredAppender.setFactory(factory);
+        if (logbackConfig.getLogBootstrapBufferSize() > 0) {
+            deferredAppender.setBufferSize(logbackConfig.getLogBootstrapBufferSize());
+        }
+        deferredAppender.start();
+        return deferredAppender;
+    }
+
+    /**
+     * Creates the in memory {@link LiveTailAppender} backing the dashboard's live log, the highlight colours are
+     * always disabled as the text ends up in a browser.
+     */
+    public LiveTailAppender createLiveTailAppender(LogbackConfig logbackConfig) {
+        LiveTailAppender tailAppender = new LiveTailAppender();
+        tailAppender.setName(StringUtils.defaultIfEmpty(logbackConfig.getAppenderName(), APPENDER_TAIL));
+        tailAppender.setContext(this.loggerContext);
+        tailAppender.setEncoder(this.createLayoutEncoder(logbackConfig.getPattern(), HighlightPalette.disabled()));
+        if (logbackConfig.getLogTailMaxEvents() > 0) {
+            tailAppender.setMaxEvents(logbackConfig.getLogTailMaxEvents());
+        }
+        if (StringUtils.isNotEmpty(logbackConfig.getLogTailBufferSize())) {
+            tailAppender.setBufferSize(FileSize.valueOf(logbackConfig.getLogTailBufferSize()));
+        }
+        tailAppender.setOffHeap(logbackConfig.isLogTailOffHeap());
+        tailAppender.start();
+        return tailAppender;
+    }
+
     public void createAsyncAppender(LogbackConfig logbackConfig) {
-        AsyncAppender asyncAppender = new AsyncAppender();
+        if (logbackConfig.isAsyncLogRingBuffer() || StringUtils.isNotBlank(logbackConfig.getAsyncLogOverflowPolicy())) {
+            this.createRingBufferAsyncAppender(logbackConfig);
+            return;
+        }
+        ExtAsyncAppender asyncAppender = new ExtAsyncAppender();
         asyncAppender.setName(logbackConfig.getAsyncAppenderName());
+        if (logbackConfig.isLogMetrics()) {
+            asyncAppender.setMetrics(PipelineMetrics.getInstance().forAppender(logbackConfig.getAsyncAppenderName()));
+        }
+        asyncAppender.setQueueSize(logbackConfig.getAsyncLogQueueSize());
+        asyncAppender.setDiscardingThreshold(logbackConfig.getAsyncLogDiscardingThreshold());
+        asyncAppender.setNeverBlock(logbackConfig.isAsyncLogNeverBlock());
+        asyncAppender.setContext(this.loggerContext);
+        asyncAppender.addAppender(logbackConfig.getAsyncAppender());
+        asyncAppender.start();
+    }
+
+    private void createRingBufferAsyncAppender(LogbackConfig logbackConfig) {
+        RingBufferAsyncAppender asyncAppender = new RingBufferAsyncAppender();
+        asyncAppender.setName(logbackConfig.getAsyncAppenderName());
+        if (logbackConfig.isLogMetrics()) {
+            asyncAppender.setMetrics(PipelineMetrics.getInstance().forAppender(logbackConfig.getAsyncAppenderName()));
+        }
         asyncAppender.setQueueSize(logbackConfig.getAsyncLogQueueSize());
         asyncAppender.setDiscardingThreshold(logbackConfig.getAsyncLogDiscardingThreshold());
+        asyncAppender.setNeverBlock(logbackConfig.isAsyncLogNeverBlock());
+        asyncAppender.setWaitStrategy(WaitStrategy.of(logbackConfig.getAsyncLogWaitStrategy()));
+        if (logbackConfig.getAsyncLogBatchSize() > 0) {
+            asyncAppender.setBatchSize(logbackConfig.getAsyncLogBatchSize());
+        }
+        asyncAppender.setOverflowPolicy(logbackConfig.getAsyncLogOverflowPolicy());
+        if (logbackConfig.getAsyncLogMaxQueueDelay() > 0) {
+            asyncAppender.setMaxQueueDelay(logbackConfig.getAsyncLogMaxQueueDelay());
+        }
+        if (logbackConfig.getAsyncLogMaxBlockTime() > 0) {
+            asyncAppender.setMaxBlockTime(logbackConfig.getAsyncLogMaxBlockTime());
+        }
         asyncAppender.setContext(this.loggerContext);
         asyncAppender.addAppender(logbackConfig.getAsyncAppender());
         asyncAppender.start();
@@ -154,4 +559,55 @@ public enum LogbackManager {
     public static LogbackManager getInstance() {
         return INSTANCE;
     }
+
+    /**
+     * The resolved target state of a single logger.
+     */
+    private static final class LoggerState {
+
+        private final String loggerName;
+
+        private final Map<String, Appender<ILoggingEvent>> appenders;
+
+        private Level level;
+
+        private boolean additivity;
+
+        LoggerState(String loggerName) {
+            this.loggerName = loggerName;
+            this.appenders = new LinkedHashMap<>();
+        }
+
+        void update(Level level, boolean additivity, List<Appender<ILoggingEvent>> appenders) {
+            this.level = level;
+            this.additivity = additivity;
+            appenders.forEach(appender -> this.appenders.put(appender.getName(), appender));
+        }
+
+        int depth() {
+            return StringUtils.countMatches(this.loggerName, '.') + StringUtils.countMatches(this.loggerName, '$');
+        }
+
+        LoggerChange apply(Logger logger) {
+            Level oldLevel = logger.getLevel();
+            boolean additivityChanged = logger.isAdditive() != this.additivity;
+            List<String> addedAppenders = new ArrayList<>();
+            for (Appender<ILoggingEvent> appender : this.appenders.values()) {
+                if (!logger.isAttached(appender)) {
+                    logger.addAppender(appender);
+                    addedAppenders.add(appender.getName());
+                }
+            }
+            if (additivityChanged) {
+                logger.setAdditive(this.additivity);
+            }
+            if (oldLevel != this.level) {
+                logger.setLevel(this.level);
+            }
+            if (oldLevel == this.level && !additivityChanged && addedAppenders.isEmpty()) {
+                return null;
+            }
+            return new LoggerChange(this.loggerName, oldLevel, this.level, additivityChanged, addedAppenders);
+        }
+    }
 }
@@ -0,0 +1,94 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging;
+
+import ch.qos.logback.classic.Level;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What {@link LogbackManager#addLoggers(java.util.Collection)} changed on a single logger.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public final class LoggerChange {
+
+    private final String loggerName;
+
+    private final Level oldLevel;
+
+    private final Level newLevel;
+
+    private final boolean additivityChanged;
+
+    private final List<String> addedAppenders;
+
+    LoggerChange(String loggerName, Level oldLevel, Level newLevel, boolean additivityChanged,
+                 List<String> addedAppenders) {
+        this.loggerName = loggerName;
+        this.oldLevel = oldLevel;
+        this.newLevel = newLevel;
+        this.additivityChanged = additivityChanged;
+        this.addedAppenders = Collections.unmodifiableList(addedAppenders);
+    }
+
+    public String getLoggerName() {
+        return loggerName;
+    }
+
+    /**
+     * The explicitly set level before the change, null if the logger inherited its level.
+     */
+    public Level getOldLevel() {
+        return oldLevel;
+    }
+
+    public Level getNewLevel() {
+        return newLevel;
+    }
+
+    public boolean isLevelChanged() {
+        return this.oldLevel != this.newLevel;
+    }
+
+    public boolean isAdditivityChanged() {
+        return additivityChanged;
+    }
+
+    /**
+     * Names of the appenders which were not attached to the logger before.
+     */
+    public List<String> getAddedAppenders() {
+        return addedAppenders;
+    }
+
+    @Override
+    public String toString() {
+        return "LoggerChange{" +
+                "loggerName='" + this.loggerName + '\'' +
+                ", oldLevel=" + this.oldLevel +
+                ", newLevel=" + this.newLevel +
+                ", additivityChanged=" + this.additivityChanged +
+                ", addedAppenders=" + this.addedAppenders +
+                '}';
+    }
+}
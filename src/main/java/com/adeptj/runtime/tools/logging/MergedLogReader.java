@@ -0,0 +1,827 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.ContextBase;
+import ch.qos.logback.core.encoder.Encoder;
+import ch.qos.logback.core.pattern.PatternLayoutEncoderBase;
+import ch.qos.logback.core.rolling.RollingFileAppender;
+import ch.qos.logback.core.rolling.RollingPolicyBase;
+import ch.qos.logback.core.rolling.helper.FileNamePattern;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.TimeZone;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads the files of several log shards, see {@link ShardedFileAppender}, as a single log in timestamp order.
+ * <p>
+ * Every shard is a list of files, archives first, each one in time order (as far as the threads sharing it got the
+ * appender's lock in the order they created their events), so a k-way merge needs only the next event of each shard
+ * in memory: the shards are kept in a priority queue on the timestamp of their next event, ties going to the lower
+ * shard. Only one file per shard is open at a time and rolled files may be gzipped.
+ * <p>
+ * The format of every file is detected on its own. Binary logs are decoded and rendered with the pattern, JSON lines
+ * are read as they are. Text logs need a pattern leading with a %d (optionally after some literal text), the date of
+ * each line is parsed with the date format of that conversion, lines without one (e.g. stack traces) belong to the
+ * event above them. Text logs of other patterns can't be interleaved and are read a shard after the other.
+ * <p>
+ * Reading can be resumed from a {@link #cursor()}, which holds the file of every shard along with the position of its
+ * next event: the byte offset in text files (of the uncompressed content, so it stays valid when the file is gzipped
+ * on rollover) and the number of events before it in binary ones, whose segments can't be entered in the middle.
+ * Compressed files have to be read up to that position again, plain text ones are seeked into. Lines are split at
+ * \n bytes, which holds for the ASCII compatible charsets logs are written in.
+ * <p>
+ * Run as a tool it prints the merged log to stdout, either of the given files (one per shard) or of the shards of a
+ * log file and its rollover pattern:
+ * <pre>
+ * java -cp ... com.adeptj.runtime.tools.logging.MergedLogReader [-pattern "..."] file...
+ * java -cp ... com.adeptj.runtime.tools.logging.MergedLogReader [-pattern "..."] -shards 4 logs/error.log \
+ *     "logs/error-%d{yyyy-MM-dd}.%i.log.gz"
+ * </pre>
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public final class MergedLogReader implements Closeable {
+
+    private static final String PATTERN_OPTION = "-pattern";
+
+    private static final String SHARDS_OPTION = "-shards";
+
+    private static final String GZ = ".gz";
+
+    private static final String ISO8601 = "ISO8601";
+
+    private static final String ISO8601_FORMAT = "yyyy-MM-dd HH:mm:ss,SSS";
+
+    /**
+     * Literal text and the %d conversion a pattern starts with, group 2 holds the conversion's options if any.
+     */
+    private static final Pattern LEADING_DATE = Pattern.compile("^([^%]*)%(?:d|date)(?:\\{([^}]*)})?");
+
+    private static final String JSON_TIMESTAMP = "{\"timestamp\":\"";
+
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final char SHARD_SEPARATOR = '/';
+
+    private static final char POSITION_SEPARATOR = '|';
+
+    private final List<List<File>> shards;
+
+    private final String pattern;
+
+    private final Charset charset;
+
+    private final PriorityQueue<Shard> queue;
+
+    private final List<Shard> open;
+
+    private final int[] firstFiles;
+
+    private final long[] firstPositions;
+
+    private Encoder<ILoggingEvent> binaryEncoder;
+
+    private boolean opened;
+
+    /**
+     * @param shards  the files of each shard, every list in time order.
+     * @param pattern the pattern the text files were written with, also used for rendering binary ones.
+     * @param charset the charset of the text files, the platform's if null.
+     */
+    public MergedLogReader(List<List<File>> shards, String pattern, Charset charset) {
+        this(shards, pattern, charset, null);
+    }
+
+    /**
+     * @param shards  the files of each shard, every list in time order.
+     * @param pattern the pattern the text files were written with, also used for rendering binary ones.
+     * @param charset the charset of the text files, the platform's if null.
+     * @param cursor  where to resume reading, see {@link #cursor()}, from the start if null or empty.
+     * @throws IllegalArgumentException if the cursor is malformed or stale, i.e. a file of it is gone.
+     */
+    public MergedLogReader(List<List<File>> shards, String pattern, Charset charset, String cursor) {
+        this.shards = shards;
+        this.open = new ArrayList<>(shards.size());
+        this.firstFiles = new int[shards.size()];
+        this.firstPositions = new long[shards.size()];
+        if (StringUtils.isNotEmpty(cursor)) {
+            this.resolve(cursor);
+        }
+        this.pattern = StringUtils.defaultIfEmpty(pattern, BinaryLogDecoder.DEFAULT_PATTERN);
+        this.charset = charset == null ? Charset.defaultCharset() : charset;
+        this.queue = new PriorityQueue<>(Math.max(shards.size(), 1), Comparator
+                .comparingLong((Shard shard) -> shard.head.timestamp)
+                .thenComparingInt(shard -> shard.head.shard));
+    }
+
+    /**
+     * Reads the next event of the merged log.
+     *
+     * @return the event or null once all the shards are exhausted.
+     */
+    public Entry next() throws IOException {
+        this.openShards();
+        Shard shard = this.queue.poll();
+        if (shard == null) {
+            return null;
+        }
+        Entry entry = shard.head;
+        if (shard.advance()) {
+            this.queue.add(shard);
+        }
+        return entry;
+    }
+
+    /**
+     * Where the merged log continues after the events read so far, for resuming it with
+     * {@link #MergedLogReader(List, String, Charset, String)}.
+     */
+    public String cursor() throws IOException {
+        this.openShards();
+        StringBuilder cursor = new StringBuilder(64 * this.open.size());
+        for (Shard shard : this.open) {
+            if (shard.index > 0) {
+                cursor.append(SHARD_SEPARATOR);
+            }
+            shard.appendPosition(cursor);
+        }
+        return cursor.toString();
+    }
+
+    private void openShards() throws IOException {
+        if (!this.opened) {
+            this.opened = true;
+            for (int index = 0; index < this.shards.size(); index++) {
+                List<File> files = this.shards.get(index);
+                Shard shard = new Shard(index, files.subList(this.firstFiles[index], files.size()).iterator(),
+                        this.firstPositions[index]);
+                this.open.add(shard);
+                if (shard.advance()) {
+                    this.queue.add(shard);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the file every shard of the cursor continues in, which keeps its key when rolled over, or the compressed
+     * archive of that file.
+     */
+    private void resolve(String cursor) {
+        String[] positions = StringUtils.splitPreserveAllTokens(cursor, SHARD_SEPARATOR);
+        if (positions.length != this.shards.size()) {
+            throw new IllegalArgumentException("Malformed cursor: " + cursor);
+        }
+        for (int index = 0; index < positions.length; index++) {
+            String position = positions[index];
+            if (position.isEmpty()) {
+                // The shard had no files yet.
+                continue;
+            }
+            int offsetSeparator = position.lastIndexOf(POSITION_SEPARATOR);
+            int keySeparator = position.lastIndexOf(POSITION_SEPARATOR, offsetSeparator - 1);
+            if (keySeparator < 0) {
+                throw new IllegalArgumentException("Malformed cursor: " + cursor);
+            }
+            int file = indexOf(this.shards.get(index), position.substring(0, keySeparator),
+                    position.substring(keySeparator + 1, offsetSeparator));
+            if (file < 0) {
+                throw new IllegalArgumentException("Stale cursor, its log file was pruned meanwhile: " + cursor);
+            }
+            this.firstFiles[index] = file;
+            this.firstPositions[index] = NumberUtils.toLong(position.substring(offsetSeparator + 1));
+        }
+    }
+
+    private static int indexOf(List<File> files, String name, String key) {
+        for (int i = 0; i < files.size(); i++) {
+            if (files.get(i).getName().equals(name) && (key.isEmpty() || LogSearch.fileKey(files.get(i)).equals(key))) {
+                return i;
+            }
+        }
+        for (int i = 0; i < files.size(); i++) {
+            if (!key.isEmpty() && LogSearch.fileKey(files.get(i)).equals(key)) {
+                return i;
+            }
+        }
+        for (int i = 0; i < files.size(); i++) {
+            if (files.get(i).getName().equals(name + GZ)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Shard shard : this.queue) {
+            shard.closeFile();
+        }
+        this.queue.clear();
+        if (this.binaryEncoder != null) {
+            this.binaryEncoder.stop();
+        }
+    }
+
+    /**
+     * A reader of the files the appender writes, a {@link ShardedFileAppender} or a single
+     * {@link RollingFileAppender}, or null if it is neither.
+     *
+     * @param notBefore rolled files last written before this time are left out.
+     */
+    public static MergedLogReader of(Appender<ILoggingEvent> appender, long notBefore) {
+        return of(appender, notBefore, null);
+    }
+
+    /**
+     * A reader of the files the appender writes resuming at the cursor, see
+     * {@link #MergedLogReader(List, String, Charset, String)}, or null if the appender is none of the supported ones.
+     *
+     * @param notBefore rolled files last written before this time are left out.
+     * @throws IllegalArgumentException if the cursor is malformed or stale.
+     */
+    public static MergedLogReader of(Appender<ILoggingEvent> appender, long notBefore, String cursor) {
+        List<RollingFileAppender<ILoggingEvent>> appenders;
+        if (appender instanceof ShardedFileAppender) {
+            appenders = ((ShardedFileAppender) appender).getShards();
+        } else if (appender instanceof RollingFileAppender) {
+            appenders = Collections.singletonList((RollingFileAppender<ILoggingEvent>) appender);
+        } else {
+            return null;
+        }
+        List<List<File>> shards = new ArrayList<>(appenders.size());
+        for (RollingFileAppender<ILoggingEvent> fileAppender : appenders) {
+            String rolloverFile = fileAppender.getRollingPolicy() instanceof RollingPolicyBase
+                    ? ((RollingPolicyBase) fileAppender.getRollingPolicy()).getFileNamePattern()
+                    : null;
+            shards.add(files(fileAppender.getFile(), rolloverFile, notBefore));
+        }
+        Encoder<ILoggingEvent> encoder = appenders.get(0).getEncoder();
+        if (encoder instanceof PatternLayoutEncoderBase) {
+            PatternLayoutEncoderBase<ILoggingEvent> layoutEncoder = (PatternLayoutEncoderBase<ILoggingEvent>) encoder;
+            return new MergedLogReader(shards, layoutEncoder.getPattern(), layoutEncoder.getCharset(), cursor);
+        }
+        return new MergedLogReader(shards, null, StandardCharsets.UTF_8, cursor);
+    }
+
+    /**
+     * The rolled files matching the rollover pattern, oldest first, followed by the active log file.
+     * <p>
+     * Only rolled files in the directory of the rollover pattern are found, not the ones in date named directories.
+     *
+     * @param notBefore rolled files last written before this time are left out.
+     */
+    public static List<File> files(String logFile, String rolloverFile, long notBefore) {
+        List<File> files = new ArrayList<>();
+        if (StringUtils.isNotEmpty(rolloverFile)) {
+            File rolloverPattern = new File(rolloverFile).getAbsoluteFile();
+            // Logback's regex only allows for two digit indexes.
+            Pattern name = Pattern.compile(new FileNamePattern(rolloverPattern.getName(), new ContextBase())
+                    .toRegex()
+                    .replace("\\d{1,2}", "\\d+"));
+            File[] archives = rolloverPattern.getParentFile().listFiles((dir, fileName) -> name.matcher(fileName)
+                    .matches());
+            if (archives != null) {
+                Arrays.stream(archives)
+                        .filter(archive -> archive.lastModified() >= notBefore)
+                        .sorted(Comparator.comparingLong(File::lastModified)
+                                .thenComparingInt(archive -> archive.getName().length())
+                                .thenComparing(File::getName))
+                        .forEach(files::add);
+            }
+        }
+        if (StringUtils.isNotEmpty(logFile)) {
+            File active = new File(logFile).getAbsoluteFile();
+            if (active.isFile() && !files.contains(active)) {
+                files.add(active);
+            }
+        }
+        return files;
+    }
+
+    private Encoder<ILoggingEvent> binaryEncoder() {
+        if (this.binaryEncoder == null) {
+            ReusableBufferPatternEncoder encoder = new ReusableBufferPatternEncoder();
+            encoder.setContext(new LoggerContext());
+            encoder.setCharset(StandardCharsets.UTF_8);
+            encoder.setPattern(this.pattern);
+            encoder.start();
+            this.binaryEncoder = encoder;
+        }
+        return this.binaryEncoder;
+    }
+
+    /**
+     * A parser for the dates leading the lines of the pattern, or null if it does not lead with one.
+     */
+    private static DateParser dateParser(String pattern) {
+        Matcher matcher = LEADING_DATE.matcher(pattern);
+        if (!matcher.find()) {
+            return null;
+        }
+        String format = ISO8601_FORMAT;
+        TimeZone timeZone = TimeZone.getDefault();
+        String options = matcher.group(2);
+        if (StringUtils.isNotBlank(options)) {
+            // Like Logback, a comma separates the time zone unless the format is quoted.
+            String zone = null;
+            options = options.trim();
+            if (options.startsWith("\"") && options.indexOf('"', 1) > 0) {
+                int quote = options.indexOf('"', 1);
+                format = options.substring(1, quote);
+                zone = StringUtils.substringAfter(options.substring(quote + 1), ",");
+            } else {
+                format = StringUtils.substringBefore(options, ",").trim();
+                zone = StringUtils.substringAfter(options, ",");
+            }
+            if (ISO8601.equalsIgnoreCase(format)) {
+                format = ISO8601_FORMAT;
+            }
+            if (StringUtils.isNotBlank(zone)) {
+                timeZone = TimeZone.getTimeZone(zone.trim());
+            }
+        }
+        SimpleDateFormat dateFormat = new SimpleDateFormat(format);
+        dateFormat.setLenient(false);
+        dateFormat.setTimeZone(timeZone);
+        return new DateParser(matcher.group(1), dateFormat);
+    }
+
+    /**
+     * Reads a stream which can't seek, a compressed one, up to the given position.
+     *
+     * @return the bytes skipped, fewer if the stream ended before.
+     */
+    private static long skip(InputStream in, long bytes) throws IOException {
+        long skipped = 0L;
+        while (skipped < bytes) {
+            long count = in.skip(bytes - skipped);
+            if (count <= 0) {
+                if (in.read() == -1) {
+                    break;
+                }
+                count = 1;
+            }
+            skipped += count;
+        }
+        return skipped;
+    }
+
+    private static long jsonTimestamp(String line) {
+        if (!line.startsWith(JSON_TIMESTAMP)) {
+            return NO_TIMESTAMP;
+        }
+        int end = line.indexOf('"', JSON_TIMESTAMP.length());
+        if (end < 0) {
+            return NO_TIMESTAMP;
+        }
+        try {
+            return Instant.parse(line.substring(JSON_TIMESTAMP.length(), end)).toEpochMilli();
+        } catch (DateTimeParseException ex) { // NOSONAR
+            return NO_TIMESTAMP;
+        }
+    }
+
+    /**
+     * An event of the merged log.
+     */
+    public static final class Entry {
+
+        private final long timestamp;
+
+        private final int shard;
+
+        private final String text;
+
+        Entry(long timestamp, int shard, String text) {
+            this.timestamp = timestamp;
+            this.shard = shard;
+            this.text = text;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * Index of the shard the event was read from.
+         */
+        public int getShard() {
+            return shard;
+        }
+
+        /**
+         * The event as written, or rendered for binary logs, including its line separator.
+         */
+        public String getText() {
+            return text;
+        }
+    }
+
+    /**
+     * Parses the date at the start of a line, the previous result is reused as long as the lines start with the
+     * same text which saves most of the parsing as logs have many events per time unit.
+     */
+    private static final class DateParser {
+
+        private final String prefix;
+
+        private final SimpleDateFormat dateFormat;
+
+        private final ParsePosition position;
+
+        private String lastText;
+
+        private long lastTimestamp;
+
+        DateParser(String prefix, SimpleDateFormat dateFormat) {
+            this.prefix = prefix;
+            this.dateFormat = dateFormat;
+            this.position = new ParsePosition(0);
+        }
+
+        long parse(String line) {
+            if (!line.startsWith(this.prefix)) {
+                return NO_TIMESTAMP;
+            }
+            int start = this.prefix.length();
+            if (this.lastText != null && line.startsWith(this.lastText, start)) {
+                return this.lastTimestamp;
+            }
+            this.position.setIndex(start);
+            this.position.setErrorIndex(-1);
+            Date date = this.dateFormat.parse(line, this.position);
+            if (date == null) {
+                return NO_TIMESTAMP;
+            }
+            this.lastText = line.substring(start, this.position.getIndex());
+            this.lastTimestamp = date.getTime();
+            return this.lastTimestamp;
+        }
+    }
+
+    /**
+     * The files of a single shard along with its next event.
+     */
+    private final class Shard {
+
+        private final int index;
+
+        private final Iterator<File> files;
+
+        private final DateParser dateParser;
+
+        private long skip;
+
+        private File file;
+
+        private BinaryLogDecoder decoder;
+
+        private long decoded;
+
+        private LineReader reader;
+
+        private boolean json;
+
+        private String pendingLine;
+
+        private long pendingTimestamp;
+
+        private long pendingPosition;
+
+        private long lastTimestamp;
+
+        private long entryPosition;
+
+        private Entry head;
+
+        private File headFile;
+
+        private long headPosition;
+
+        private File lastFile;
+
+        private long lastPosition;
+
+        /**
+         * @param skip the position to start at in the first file, see {@link MergedLogReader#cursor()}.
+         */
+        Shard(int index, Iterator<File> files, long skip) {
+            this.index = index;
+            this.files = files;
+            this.skip = skip;
+            this.dateParser = dateParser(MergedLogReader.this.pattern);
+        }
+
+        /**
+         * Moves on to the next event, opening the next file when the current one is done.
+         *
+         * @return false once the shard is exhausted, its files are closed by then.
+         */
+        boolean advance() throws IOException {
+            while (true) {
+                if (this.decoder == null && this.reader == null) {
+                    if (!this.files.hasNext()) {
+                        this.head = null;
+                        return false;
+                    }
+                    this.openFile(this.files.next(), this.skip);
+                    this.skip = 0L;
+                }
+                Entry entry;
+                try {
+                    entry = this.decoder == null ? this.readLines() : this.readEvent();
+                } catch (EOFException ex) { // NOSONAR, a rolled file still being compressed.
+                    entry = null;
+                }
+                if (entry != null) {
+                    this.head = entry;
+                    this.headFile = this.file;
+                    this.headPosition = this.entryPosition;
+                    return true;
+                }
+                this.closeFile();
+            }
+        }
+
+        /**
+         * The file and position of the next event or, once exhausted, of the end of the last file.
+         */
+        void appendPosition(StringBuilder cursor) {
+            File positionFile = this.head == null ? this.lastFile : this.headFile;
+            if (positionFile != null) {
+                cursor.append(positionFile.getName())
+                        .append(POSITION_SEPARATOR).append(LogSearch.fileKey(positionFile))
+                        .append(POSITION_SEPARATOR).append(this.head == null ? this.lastPosition : this.headPosition);
+            }
+        }
+
+        private void openFile(File file, long skip) throws IOException {
+            FileInputStream in = new FileInputStream(file);
+            try {
+                boolean compressed = file.getName().endsWith(GZ);
+                BufferedInputStream buffered = new BufferedInputStream(compressed
+                        ? new GZIPInputStream(in, BUFFER_SIZE)
+                        : in, BUFFER_SIZE);
+                byte[] start = new byte[BinaryLogFormat.MAGIC.length + 1];
+                buffered.mark(start.length);
+                int read = buffered.read(start);
+                buffered.reset();
+                this.file = file;
+                if (read == start.length && start[0] == BinaryLogFormat.SEGMENT
+                        && Arrays.equals(Arrays.copyOfRange(start, 1, start.length), BinaryLogFormat.MAGIC)) {
+                    this.decoder = new BinaryLogDecoder(buffered);
+                    this.decoded = 0L;
+                    while (this.decoded < skip && this.decoder.next() != null) {
+                        this.decoded++;
+                    }
+                } else {
+                    this.json = read > 0 && start[0] == '{';
+                    long position = 0L;
+                    if (skip > 0 && !compressed) {
+                        // Seeks instead, dropping the few bytes buffered from the start.
+                        position = Math.min(skip, in.getChannel().size());
+                        in.getChannel().position(position);
+                        buffered = new BufferedInputStream(in, BUFFER_SIZE);
+                    } else if (skip > 0) {
+                        position = skip(buffered, skip);
+                    }
+                    this.reader = new LineReader(buffered, MergedLogReader.this.charset, position);
+                }
+            } catch (IOException ex) {
+                in.close();
+                throw ex;
+            }
+        }
+
+        private Entry readEvent() throws IOException {
+            ILoggingEvent event = this.decoder.next();
+            if (event == null) {
+                return null;
+            }
+            this.entryPosition = this.decoded++;
+            return new Entry(event.getTimeStamp(), this.index,
+                    new String(MergedLogReader.this.binaryEncoder().encode(event), StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Reads a line having a timestamp along with the lines below it which don't.
+         */
+        private Entry readLines() throws IOException {
+            String line = this.pendingLine;
+            long timestamp = this.pendingTimestamp;
+            long position = this.pendingPosition;
+            this.pendingLine = null;
+            if (line == null) {
+                position = this.reader.getPosition();
+                line = this.reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+                timestamp = this.timestamp(line);
+            }
+            if (timestamp == NO_TIMESTAMP) {
+                // Lines at the start of a file, or of a pattern without a leading date, go with the latest event.
+                timestamp = this.lastTimestamp;
+            }
+            StringBuilder text = new StringBuilder(line.length() + 1).append(line).append('\n');
+            if (this.dateParser != null || this.json) {
+                long nextPosition = this.reader.getPosition();
+                String next;
+                while ((next = this.reader.readLine()) != null) {
+                    long nextTimestamp = this.timestamp(next);
+                    if (nextTimestamp != NO_TIMESTAMP) {
+                        this.pendingLine = next;
+                        this.pendingTimestamp = nextTimestamp;
+                        this.pendingPosition = nextPosition;
+                        break;
+                    }
+                    text.append(next).append('\n');
+                    nextPosition = this.reader.getPosition();
+                }
+            }
+            this.lastTimestamp = timestamp;
+            this.entryPosition = position;
+            return new Entry(timestamp, this.index, text.toString());
+        }
+
+        private long timestamp(String line) {
+            if (this.json) {
+                return jsonTimestamp(line);
+            }
+            return this.dateParser == null ? NO_TIMESTAMP : this.dateParser.parse(line);
+        }
+
+        void closeFile() throws IOException {
+            if (this.file != null) {
+                this.lastFile = this.file;
+                this.lastPosition = this.reader == null ? this.decoded : this.reader.getPosition();
+            }
+            this.pendingLine = null;
+            try {
+                if (this.decoder != null) {
+                    this.decoder.close();
+                }
+                if (this.reader != null) {
+                    this.reader.close();
+                }
+            } finally {
+                this.decoder = null;
+                this.reader = null;
+                this.file = null;
+            }
+        }
+    }
+
+    /**
+     * Reads lines off a byte stream keeping count of the bytes read, lines end at \n optionally preceded by \r.
+     */
+    private static final class LineReader implements Closeable {
+
+        private final InputStream in;
+
+        private final Charset charset;
+
+        private byte[] line;
+
+        private long position;
+
+        /**
+         * @param position the offset in the file the stream is at.
+         */
+        LineReader(InputStream in, Charset charset, long position) {
+            this.in = in;
+            this.charset = charset;
+            this.line = new byte[256];
+            this.position = position;
+        }
+
+        /**
+         * @return the line without its line separator, or null at the end of the stream.
+         */
+        String readLine() throws IOException {
+            int length = 0;
+            int b;
+            while ((b = this.in.read()) != -1) {
+                this.position++;
+                if (b == '\n') {
+                    break;
+                }
+                if (length == this.line.length) {
+                    this.line = Arrays.copyOf(this.line, length * 2);
+                }
+                this.line[length++] = (byte) b;
+            }
+            if (b == -1 && length == 0) {
+                return null;
+            }
+            if (length > 0 && this.line[length - 1] == '\r') {
+                length--;
+            }
+            return new String(this.line, 0, length, this.charset);
+        }
+
+        /**
+         * The offset of the next line in the file.
+         */
+        long getPosition() {
+            return this.position;
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.in.close();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        String pattern = null;
+        int shardCount = 0;
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (PATTERN_OPTION.equals(args[i]) && i + 1 < args.length) {
+                pattern = args[++i];
+            } else if (SHARDS_OPTION.equals(args[i]) && i + 1 < args.length) {
+                shardCount = NumberUtils.toInt(args[++i]);
+            } else {
+                files.add(args[i]);
+            }
+        }
+        if (files.isEmpty() || (shardCount > 0 && files.size() > 2)) {
+            System.err.println("Usage: MergedLogReader [" + PATTERN_OPTION + " <pattern>] <file>...\n" // NOSONAR
+                    + "       MergedLogReader [" + PATTERN_OPTION + " <pattern>] " + SHARDS_OPTION
+                    + " <count> <logFile> [<rolloverFile>]");
+            System.exit(1);
+        }
+        List<List<File>> shards = new ArrayList<>();
+        if (shardCount > 0) {
+            for (int shard = 0; shard < shardCount; shard++) {
+                shards.add(files(ShardedFileAppender.shardFile(files.get(0), shard), files.size() > 1
+                        ? ShardedFileAppender.shardFile(files.get(1), shard)
+                        : null, 0L));
+            }
+        } else {
+            files.forEach(file -> shards.add(Collections.singletonList(new File(file))));
+        }
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, Charset.defaultCharset()), BUFFER_SIZE);
+        try (MergedLogReader reader = new MergedLogReader(shards, pattern, null)) {
+            Entry entry;
+            while ((entry = reader.next()) != null) {
+                out.write(entry.getText());
+            }
+        }
+        out.flush();
+    }
+}
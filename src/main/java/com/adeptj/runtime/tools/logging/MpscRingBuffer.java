@@ -0,0 +1,137 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, pre-allocated, multi-producer single-consumer ring buffer.
+ * <p>
+ * Every slot carries a sequence number, producers claim a slot with a single CAS on the tail cursor and the consumer
+ * releases the slot back by advancing its sequence by the capacity, so neither side ever takes a lock.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+final class MpscRingBuffer<E> {
+
+    private final int capacity;
+
+    private final int mask;
+
+    private final AtomicReferenceArray<E> slots;
+
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong tail;
+
+    private final AtomicLong head;
+
+    MpscRingBuffer(int requestedCapacity) {
+        this.capacity = roundToPowerOfTwo(requestedCapacity);
+        this.mask = this.capacity - 1;
+        this.slots = new AtomicReferenceArray<>(this.capacity);
+        this.sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            this.sequences.set(i, i);
+        }
+        this.tail = new AtomicLong();
+        this.head = new AtomicLong();
+    }
+
+    /**
+     * Publishes the given element, may be called concurrently by any number of threads.
+     *
+     * @param element the element to publish
+     * @return false if the buffer is full, true otherwise.
+     */
+    boolean offer(E element) {
+        long position = this.tail.get();
+        while (true) {
+            int index = (int) (position & this.mask);
+            long difference = this.sequences.get(index) - position;
+            if (difference == 0) {
+                if (this.tail.compareAndSet(position, position + 1)) {
+                    this.slots.lazySet(index, element);
+                    this.sequences.lazySet(index, position + 1);
+                    return true;
+                }
+                position = this.tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = this.tail.get();
+            }
+        }
+    }
+
+    /**
+     * Moves up to batch.length published elements into the given array, must only be called by the consumer thread.
+     *
+     * @param batch the array to fill
+     * @return the number of elements drained.
+     */
+    int drainTo(E[] batch) {
+        long position = this.head.get();
+        int count = 0;
+        while (count < batch.length) {
+            int index = (int) (position & this.mask);
+            if (this.sequences.get(index) != position + 1) {
+                break;
+            }
+            batch[count++] = this.slots.get(index);
+            this.slots.lazySet(index, null);
+            this.sequences.lazySet(index, position + this.capacity);
+            position++;
+        }
+        if (count > 0) {
+            this.head.lazySet(position);
+        }
+        return count;
+    }
+
+    int size() {
+        // Read head first so that a concurrent drain can only make the result smaller, never negative.
+        long consumed = this.head.get();
+        return (int) Math.max(0, Math.min(this.capacity, this.tail.get() - consumed));
+    }
+
+    int remainingCapacity() {
+        return this.capacity - this.size();
+    }
+
+    int capacity() {
+        return this.capacity;
+    }
+
+    boolean isEmpty() {
+        return this.size() == 0;
+    }
+
+    private static int roundToPowerOfTwo(int value) {
+        if (value < 2) {
+            return 2;
+        }
+        int highestOneBit = Integer.highestOneBit(value);
+        return highestOneBit == value ? value : highestOneBit << 1;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging;
+
+import ch.qos.logback.classic.Level;
+import org.apache.commons.lang3.EnumUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Arrays;
+
+/**
+ * What the {@link RingBufferAsyncAppender} does with an event of a given level once its queue is overloaded.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public enum OverflowPolicy {
+
+    /**
+     * Waits for a free slot, up to the appender's maxBlockTime for levels below WARN.
+     */
+    BLOCK,
+
+    /**
+     * Drops the event, only the appender's dropped count tells.
+     */
+    DROP,
+
+    /**
+     * Drops the event and reports it in the summary event written once the burst is over.
+     */
+    DROP_AND_COUNT;
+
+    static final int LEVELS = 5;
+
+    private static final int WARN_INDEX = 3;
+
+    private static final int ERROR_INDEX = 4;
+
+    /**
+     * Index of the given level in the array returned by {@link #parse(String)}.
+     */
+    static int index(Level level) {
+        switch (level.toInt()) {
+            case Level.TRACE_INT:
+                return 0;
+            case Level.DEBUG_INT:
+                return 1;
+            case Level.INFO_INT:
+                return 2;
+            case Level.WARN_INT:
+                return WARN_INDEX;
+            default:
+                return ERROR_INDEX;
+        }
+    }
+
+    static boolean isWarnOrAbove(int index) {
+        return index >= WARN_INDEX;
+    }
+
+    static Level level(int index) {
+        return index == 0 ? Level.TRACE : index == 1 ? Level.DEBUG : index == 2 ? Level.INFO
+                : index == WARN_INDEX ? Level.WARN : Level.ERROR;
+    }
+
+    /**
+     * Parses a comma separated list of level=policy pairs, e.g. "DEBUG=DROP, INFO=DROP_AND_COUNT". Levels not listed
+     * default to {@link #DROP_AND_COUNT}, WARN and ERROR are always {@link #BLOCK} as they must never be lost.
+     *
+     * @return the policy of each level, indexed by {@link #index(Level)}.
+     */
+    static OverflowPolicy[] parse(String policies) {
+        OverflowPolicy[] parsed = new OverflowPolicy[LEVELS];
+        Arrays.fill(parsed, DROP_AND_COUNT);
+        for (String pair : StringUtils.split(StringUtils.defaultString(policies), ',')) {
+            Level level = Level.toLevel(StringUtils.trim(StringUtils.substringBefore(pair, "=")), null);
+            OverflowPolicy policy = EnumUtils.getEnum(OverflowPolicy.class,
+                    StringUtils.upperCase(StringUtils.trim(StringUtils.substringAfter(pair, "="))));
+            if (level != null && policy != null) {
+                parsed[index(level)] = policy;
+            }
+        }
+        parsed[WARN_INDEX] = BLOCK;
+        parsed[ERROR_INDEX] = BLOCK;
+        return parsed;
+    }
+}
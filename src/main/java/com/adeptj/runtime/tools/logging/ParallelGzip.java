@@ -0,0 +1,149 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip compression of rolled log files.
+ * <p>
+ * Files larger than a chunk are split into chunks which are compressed in parallel as independent gzip members and
+ * written out in order. The concatenation of gzip members is itself a valid gzip file (RFC 1952), readable by gunzip,
+ * zcat and {@link java.util.zip.GZIPInputStream}.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+final class ParallelGzip {
+
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    private ParallelGzip() {
+    }
+
+    /**
+     * Compresses the source into the target, which only appears once complete, and then deletes the source.
+     *
+     * @param source      the file to compress
+     * @param target      the gzip file to create
+     * @param chunkSize   size of the chunks compressed in parallel
+     * @param parallelism max number of chunks in flight, bounds the memory used to about 2 * parallelism * chunkSize
+     * @param workers     pool compressing the chunks, must not be the pool running this method
+     * @throws IOException if reading, compressing or writing fails, the source is then left untouched and no
+     *                     partial file remains.
+     */
+    static void compress(File source, File target, int chunkSize, int parallelism, ExecutorService workers)
+            throws IOException {
+        File tmp = new File(target.getPath() + TMP_SUFFIX);
+        try {
+            if (source.length() <= chunkSize || parallelism < 2) {
+                compressSequentially(source, tmp);
+            } else {
+                compressInChunks(source, tmp, chunkSize, parallelism, workers);
+            }
+            Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            // Only still there if compressing or the move failed.
+            Files.deleteIfExists(tmp.toPath());
+        }
+        Files.delete(source.toPath());
+    }
+
+    private static void compressSequentially(File source, File tmp) throws IOException {
+        try (InputStream in = Files.newInputStream(source.toPath());
+             OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmp.toPath()), STREAM_BUFFER_SIZE)) {
+            byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+    }
+
+    private static void compressInChunks(File source, File tmp, int chunkSize, int parallelism,
+                                         ExecutorService workers) throws IOException {
+        Deque<Future<byte[]>> inFlight = new ArrayDeque<>(parallelism);
+        try (FileChannel in = FileChannel.open(source.toPath(), StandardOpenOption.READ);
+             OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp.toPath()), STREAM_BUFFER_SIZE)) {
+            long size = in.size();
+            long position = 0;
+            while (position < size || !inFlight.isEmpty()) {
+                while (position < size && inFlight.size() < parallelism) {
+                    byte[] chunk = new byte[(int) Math.min(chunkSize, size - position)];
+                    readFully(in, ByteBuffer.wrap(chunk), position);
+                    position += chunk.length;
+                    inFlight.add(workers.submit(() -> gzip(chunk)));
+                }
+                out.write(await(inFlight.poll()));
+            }
+        } finally {
+            inFlight.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private static void readFully(FileChannel in, ByteBuffer chunk, long position) throws IOException {
+        while (chunk.hasRemaining()) {
+            if (in.read(chunk, position + chunk.position()) < 0) {
+                throw new IOException("Unexpected end of file while compressing");
+            }
+        }
+    }
+
+    private static byte[] gzip(byte[] chunk) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(32, chunk.length / 4));
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed, STREAM_BUFFER_SIZE)) {
+            out.write(chunk);
+        } catch (IOException ex) {
+            // Can't really happen with an in memory stream.
+            throw new UncheckedIOException(ex);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static byte[] await(Future<byte[]> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while compressing", ex);
+        } catch (ExecutionException ex) {
+            throw new IOException("Chunk compression failed", ex.getCause());
+        }
+    }
+}
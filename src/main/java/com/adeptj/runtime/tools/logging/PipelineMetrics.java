@@ -0,0 +1,91 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of the {@link AppenderMetrics} of the logging pipeline, one per appender name so that the numbers carry on
+ * when an appender is replaced by another one of the same name.
+ * <p>
+ * Each one is registered as an MBean under com.adeptj.runtime.tools.logging:type=AppenderMetrics.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public enum PipelineMetrics {
+
+    INSTANCE;
+
+    private static final String JMX_DOMAIN = "com.adeptj.runtime.tools.logging";
+
+    private final ConcurrentMap<String, AppenderMetrics> metrics = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the metrics of the given appender, creating and registering them on first use.
+     */
+    public AppenderMetrics forAppender(String appenderName) {
+        AppenderMetrics appenderMetrics = this.metrics.get(appenderName);
+        if (appenderMetrics != null) {
+            return appenderMetrics;
+        }
+        AppenderMetrics newMetrics = new AppenderMetrics(appenderName);
+        appenderMetrics = this.metrics.putIfAbsent(appenderName, newMetrics);
+        if (appenderMetrics != null) {
+            return appenderMetrics;
+        }
+        registerMBean(newMetrics);
+        return newMetrics;
+    }
+
+    /**
+     * The metrics of all instrumented appenders, ordered by appender name.
+     */
+    public List<AppenderMetrics> getAll() {
+        List<AppenderMetrics> all = new ArrayList<>(this.metrics.values());
+        all.sort(Comparator.comparing(AppenderMetrics::getName));
+        return all;
+    }
+
+    private static void registerMBean(AppenderMetrics appenderMetrics) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(JMX_DOMAIN + ":type=AppenderMetrics,name="
+                    + ObjectName.quote(String.valueOf(appenderMetrics.getName())));
+            if (!server.isRegistered(name)) {
+                server.registerMBean(appenderMetrics, name);
+            }
+        } catch (JMException ex) {
+            // Metrics are still available on the dashboard.
+        }
+    }
+
+    public static PipelineMetrics getInstance() {
+        return INSTANCE;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An appender {@link LogbackManager#replaceAppender(Appender)} can retire without losing events.
+ * <p>
+ * Once handed over, every event still reaching it, be it through a wrapping appender or a logger's appender list
+ * read before the swap, goes to its successor instead, and it can tell when the appends which were already in
+ * progress are done, so that it can be stopped safely.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public interface ReplaceableAppender extends Appender<ILoggingEvent> {
+
+    /**
+     * Forwards all events appended from now on to the successor, for good.
+     */
+    void handOver(Appender<ILoggingEvent> successor);
+
+    /**
+     * Waits for the appends which started before {@link #handOver(Appender)} to finish.
+     *
+     * @return false if some are still in progress after the timeout.
+     */
+    boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException;
+}
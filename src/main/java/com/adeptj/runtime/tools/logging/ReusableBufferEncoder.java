@@ -0,0 +1,83 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging;
+
+import ch.qos.logback.core.OutputStreamAppender;
+import ch.qos.logback.core.encoder.Encoder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * An {@link Encoder} which can encode an event into a reusable, thread confined buffer instead of a new byte array.
+ * <p>
+ * Appenders aware of this contract ({@link ExtConsoleAppender}, {@link ExtRollingFileAppender}) write the returned
+ * buffer straight to their output stream, any other appender keeps using {@link #encode(Object)}.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public interface ReusableBufferEncoder<E> extends Encoder<E> {
+
+    /**
+     * Encodes the event into a buffer owned by the calling thread.
+     *
+     * @param event the event to encode
+     * @return heap buffer holding the encoded bytes between position and limit, only valid until the next call
+     * from the same thread.
+     */
+    ByteBuffer encodeToBuffer(E event);
+
+    /**
+     * Whether the output of this encoder depends on what it encoded before, in which case events must be encoded
+     * and written in one go under the appender's lock.
+     */
+    default boolean requiresWriteOrder() {
+        return false;
+    }
+
+    /**
+     * Writes the encoded buffer to the appender's output stream while holding the appender's lock, the stream is
+     * looked up under the lock as a rollover may replace it.
+     *
+     * @return false if there was no stream to write to, e.g. after a rollover failed to reopen the file.
+     */
+    static boolean write(ByteBuffer buffer, Lock lock, OutputStreamAppender<?> appender) throws IOException {
+        if (!buffer.hasRemaining()) {
+            return true;
+        }
+        lock.lock();
+        try {
+            OutputStream out = appender.getOutputStream();
+            if (out == null) {
+                return false;
+            }
+            out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            if (appender.isImmediateFlush()) {
+                out.flush();
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging;
+
+import ch.qos.logback.classic.PatternLayout;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.pattern.EnsureExceptionHandling;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.pattern.CompositeConverter;
+import ch.qos.logback.core.pattern.Converter;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+
+/**
+ * A {@link PatternLayoutEncoder} which renders the pattern into reusable thread local buffers.
+ * <p>
+ * The stock encoder creates a StringBuilder, a String and a byte array for every event. This one walks the same
+ * converter chain as the {@link PatternLayout} into a thread local StringBuilder and encodes its chars straight into
+ * a thread local {@link ByteBuffer}, see {@link ReusableBufferEncoder}. The output is byte for byte the same as
+ * {@link PatternLayoutEncoder}, {@link #encode(ILoggingEvent)} still works for appenders unaware of the buffer.
+ * <p>
+ * Buffers which grow past {@link #MAX_RETAINED_CAPACITY} because of a huge event are dropped so that a single
+ * stack trace does not pin memory on every thread.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public class ReusableBufferPatternEncoder extends PatternLayoutEncoder implements ReusableBufferEncoder<ILoggingEvent> {
+
+    private static final int INITIAL_CAPACITY = 512;
+
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    private final ThreadLocal<EncodeBuffers> buffers;
+
+    private volatile Converter<ILoggingEvent> head;
+
+    private HighlightPalette highlightPalette;
+
+    public ReusableBufferPatternEncoder() {
+        this.buffers = ThreadLocal.withInitial(() -> new EncodeBuffers(this.getEffectiveCharset()));
+    }
+
+    /**
+     * Builds the {@link PatternLayout} the same way {@link PatternLayoutEncoder} does, registers the Ext converters
+     * on it and keeps hold of the compiled converter chain.
+     * <p>
+     * Note: does not call super.start() as that would build another layout, the only other thing it does is honoring
+     * the encoder level immediateFlush which is deprecated in favor of the appender's.
+     */
+    @Override
+    public void start() {
+        PatternLayout patternLayout = new PatternLayout();
+        patternLayout.setContext(this.context);
+        patternLayout.setPattern(this.getPattern());
+        patternLayout.setOutputPatternAsHeader(this.outputPatternAsHeader);
+        patternLayout.getInstanceConverterMap().put("highlight", ExtHighlightingCompositeConverter.class.getName());
+        patternLayout.getInstanceConverterMap().put("thread", ExtThreadConverter.class.getName());
+        EnsureExceptionHandling exceptionHandling = new EnsureExceptionHandling();
+        patternLayout.setPostCompileProcessor((ctx, chainHead) -> {
+            exceptionHandling.process(ctx, chainHead);
+            this.head = chainHead;
+        });
+        patternLayout.start();
+        // Converters parse their options on start, so the palette can only be applied afterwards.
+        if (this.highlightPalette != null) {
+            applyPalette(this.head, this.highlightPalette);
+        }
+        this.layout = patternLayout;
+        this.started = patternLayout.isStarted();
+    }
+
+    @Override
+    public void stop() {
+        this.head = null;
+        super.stop();
+    }
+
+    @Override
+    public ByteBuffer encodeToBuffer(ILoggingEvent event) {
+        EncodeBuffers encodeBuffers = this.buffers.get();
+        StringBuilder text = encodeBuffers.text();
+        Converter<ILoggingEvent> converter = this.head;
+        while (converter != null) {
+            if (converter instanceof ExtHighlightingCompositeConverter
+                    && ((ExtHighlightingCompositeConverter) converter).isDirectAppendable()) {
+                ((ExtHighlightingCompositeConverter) converter).appendTo(text, event);
+            } else {
+                converter.write(text, event);
+            }
+            converter = converter.getNext();
+        }
+        return encodeBuffers.encode();
+    }
+
+    @Override
+    public byte[] encode(ILoggingEvent event) {
+        if (this.head == null) {
+            return super.encode(event);
+        }
+        ByteBuffer buffer = this.encodeToBuffer(event);
+        return Arrays.copyOfRange(buffer.array(), buffer.position(), buffer.limit());
+    }
+
+    public HighlightPalette getHighlightPalette() {
+        return highlightPalette;
+    }
+
+    /**
+     * Palette for the %highlight converters of this encoder, must be set before {@link #start()}. When not set the
+     * converters keep their own (default) colours.
+     */
+    public void setHighlightPalette(HighlightPalette highlightPalette) {
+        this.highlightPalette = highlightPalette;
+    }
+
+    private static void applyPalette(Converter<ILoggingEvent> head, HighlightPalette palette) {
+        for (Converter<ILoggingEvent> converter = head; converter != null; converter = converter.getNext()) {
+            if (converter instanceof ExtHighlightingCompositeConverter) {
+                ((ExtHighlightingCompositeConverter) converter).applyPalette(palette);
+            }
+            if (converter instanceof CompositeConverter) {
+                applyPalette(((CompositeConverter<ILoggingEvent>) converter).getChildConverter(), palette);
+            }
+        }
+    }
+
+    private Charset getEffectiveCharset() {
+        return this.getCharset() == null ? Charset.defaultCharset() : this.getCharset();
+    }
+
+    /**
+     * The per thread StringBuilder, char and byte buffers along with the thread's own {@link CharsetEncoder}.
+     */
+    private static final class EncodeBuffers {
+
+        private final CharsetEncoder charsetEncoder;
+
+        private StringBuilder text;
+
+        private char[] chars;
+
+        private CharBuffer charBuffer;
+
+        private ByteBuffer byteBuffer;
+
+        EncodeBuffers(Charset charset) {
+            // String.getBytes replaces malformed and unmappable input, so does this encoder.
+            this.charsetEncoder = charset.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            this.text = new StringBuilder(INITIAL_CAPACITY);
+            this.chars = new char[INITIAL_CAPACITY];
+            this.charBuffer = CharBuffer.wrap(this.chars);
+            this.byteBuffer = ByteBuffer.allocate(INITIAL_CAPACITY * 2);
+        }
+
+        StringBuilder text() {
+            if (this.text.capacity() > MAX_RETAINED_CAPACITY) {
+                this.text = new StringBuilder(INITIAL_CAPACITY);
+                this.chars = new char[INITIAL_CAPACITY];
+                this.charBuffer = CharBuffer.wrap(this.chars);
+                this.byteBuffer = ByteBuffer.allocate(INITIAL_CAPACITY * 2);
+            }
+            this.text.setLength(0);
+            return this.text;
+        }
+
+        ByteBuffer encode() {
+            int length = this.text.length();
+            if (length > this.chars.length) {
+                this.chars = new char[Math.max(length, this.chars.length * 2)];
+                this.charBuffer = CharBuffer.wrap(this.chars);
+            }
+            this.text.getChars(0, length, this.chars, 0);
+            this.charBuffer.clear().limit(length);
+            int maxBytes = (int) Math.ceil(length * (double) this.charsetEncoder.maxBytesPerChar());
+            if (maxBytes > this.byteBuffer.capacity()) {
+                this.byteBuffer = ByteBuffer.allocate(maxBytes);
+            }
+            this.byteBuffer.clear();
+            this.charsetEncoder.reset();
+            CoderResult result = this.charsetEncoder.encode(this.charBuffer, this.byteBuffer, true);
+            if (result.isUnderflow()) {
+                this.charsetEncoder.flush(this.byteBuffer);
+            }
+            this.byteBuffer.flip();
+            return this.byteBuffer;
+        }
+    }
+}
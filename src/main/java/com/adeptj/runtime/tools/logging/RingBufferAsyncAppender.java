@@ -0,0 +1,677 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous appender backed by a pre-allocated, lock-free {@link MpscRingBuffer} instead of the
+ * {@link java.util.concurrent.ArrayBlockingQueue} used by Logback's AsyncAppender.
+ * <p>
+ * Request threads publish events with a single CAS, a dedicated worker drains them in batches to the one attached
+ * appender. Like AsyncAppender, TRACE, DEBUG and INFO events are discarded once the remaining capacity falls below
+ * the discarding threshold. The worker waits for events using the configured {@link WaitStrategy}, when the buffer is
+ * full producers either back off until a slot is free or, with neverBlock, drop the event.
+ * <p>
+ * With an overflowPolicy set the appender instead handles overload per level, see {@link OverflowPolicy}: events of
+ * levels not set to block are shed once the queue holds more than can be written within maxQueueDelay at the drain
+ * rate observed by the worker, lower levels block for at most maxBlockTime. WARN and ERROR events always wait for a
+ * free slot, the discarding threshold is the part of the queue reserved for them. Events dropped and counted are
+ * reported by a single WARN summary event once the queue has drained.
+ * <p>
+ * Queue depth and the discarded/dropped counters are published through JMX, see {@link RingBufferAsyncAppenderMBean},
+ * and with {@link AppenderMetrics} set so is the time it takes producers to hand over their events.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public class RingBufferAsyncAppender extends UnsynchronizedAppenderBase<ILoggingEvent>
+        implements AppenderAttachable<ILoggingEvent>, RingBufferAsyncAppenderMBean, ReplaceableAppender {
+
+    public static final int DEFAULT_QUEUE_SIZE = 1024;
+
+    public static final int DEFAULT_BATCH_SIZE = 128;
+
+    public static final int DEFAULT_MAX_FLUSH_TIME = 1000;
+
+    public static final long DEFAULT_MAX_QUEUE_DELAY = 500L;
+
+    public static final long DEFAULT_MAX_BLOCK_TIME = 100L;
+
+    private static final double DRAIN_RATE_WEIGHT = 0.1;
+
+    private static final int UNDEFINED = -1;
+
+    private static final String JMX_DOMAIN = "com.adeptj.runtime.tools.logging";
+
+    private static final Map<ObjectName, RingBufferAsyncAppender> MBEAN_OWNERS = new HashMap<>();
+
+    private final AppenderAttachableImpl<ILoggingEvent> aai;
+
+    private final AppenderHandover handover = new AppenderHandover(super::doAppend);
+
+    private final LongAdder discardedCount;
+
+    private final LongAdder droppedCount;
+
+    private final LongAdder[] overflowCounts;
+
+    private MpscRingBuffer<ILoggingEvent> ringBuffer;
+
+    private int queueSize;
+
+    private int batchSize;
+
+    private int discardingThreshold;
+
+    private int maxFlushTime;
+
+    private boolean neverBlock;
+
+    private boolean includeCallerData;
+
+    private WaitStrategy waitStrategy;
+
+    private int appenderCount;
+
+    private Thread worker;
+
+    private ObjectName objectName;
+
+    private AppenderMetrics metrics;
+
+    private String overflowPolicy;
+
+    private long maxQueueDelay;
+
+    private long maxBlockTime;
+
+    private OverflowPolicy[] levelPolicies;
+
+    private volatile int sheddingDepth;
+
+    private volatile boolean burstPending;
+
+    private volatile long burstStart;
+
+    private volatile Appender<ILoggingEvent> retainedAppender;
+
+    public RingBufferAsyncAppender() {
+        this.aai = new AppenderAttachableImpl<>();
+        this.discardedCount = new LongAdder();
+        this.droppedCount = new LongAdder();
+        this.overflowCounts = new LongAdder[OverflowPolicy.LEVELS];
+        for (int i = 0; i < OverflowPolicy.LEVELS; i++) {
+            this.overflowCounts[i] = new LongAdder();
+        }
+        this.queueSize = DEFAULT_QUEUE_SIZE;
+        this.batchSize = DEFAULT_BATCH_SIZE;
+        this.discardingThreshold = UNDEFINED;
+        this.maxFlushTime = DEFAULT_MAX_FLUSH_TIME;
+        this.waitStrategy = WaitStrategy.PARK;
+        this.maxQueueDelay = DEFAULT_MAX_QUEUE_DELAY;
+        this.maxBlockTime = DEFAULT_MAX_BLOCK_TIME;
+    }
+
+    /**
+     * Forwards the event to the successor once handed over, see {@link ReplaceableAppender}.
+     */
+    @Override
+    public void doAppend(ILoggingEvent event) {
+        this.handover.doAppend(event);
+    }
+
+    @Override
+    public void handOver(Appender<ILoggingEvent> successor) {
+        this.handover.handOver(successor);
+    }
+
+    @Override
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        return this.handover.awaitIdle(timeout, unit);
+    }
+
+    /**
+     * Leaves the attached appender running when this one stops, it is detached instead, for when the appender which
+     * replaces this one writes to it too.
+     */
+    void retainAppender(Appender<ILoggingEvent> appender) {
+        this.retainedAppender = appender;
+    }
+
+    @Override
+    public void start() {
+        if (this.isStarted()) {
+            return;
+        }
+        if (this.appenderCount == 0) {
+            this.addError("No attached appenders found.");
+            return;
+        }
+        if (this.queueSize < 1) {
+            this.addError("Invalid queue size [" + this.queueSize + "]");
+            return;
+        }
+        this.ringBuffer = new MpscRingBuffer<>(this.queueSize);
+        if (this.discardingThreshold == UNDEFINED) {
+            this.discardingThreshold = this.ringBuffer.capacity() / 5;
+        }
+        if (this.batchSize < 1) {
+            this.batchSize = DEFAULT_BATCH_SIZE;
+        }
+        this.addInfo("Ring buffer capacity [" + this.ringBuffer.capacity() + "], discardingThreshold ["
+                + this.discardingThreshold + "], waitStrategy [" + this.waitStrategy + "]");
+        if (StringUtils.isNotBlank(this.overflowPolicy)) {
+            this.levelPolicies = OverflowPolicy.parse(this.overflowPolicy);
+            this.sheddingDepth = this.maxSheddingDepth();
+            this.addInfo("Overflow policies (TRACE to ERROR) " + Arrays.toString(this.levelPolicies)
+                    + ", maxQueueDelay [" + this.maxQueueDelay + "] ms, maxBlockTime [" + this.maxBlockTime + "] ms");
+        }
+        this.worker = new Thread(new Worker(), "RingBufferAsyncAppender-Worker-" + this.getName());
+        this.worker.setDaemon(true);
+        // Mark this appender as started before starting the worker, it only loops while the appender is started.
+        super.start();
+        this.worker.start();
+        if (this.metrics != null) {
+            this.metrics.queue(this.ringBuffer::size, this.ringBuffer.capacity());
+        }
+        this.registerMBean();
+    }
+
+    @Override
+    public void stop() {
+        if (!this.isStarted()) {
+            return;
+        }
+        super.stop();
+        LockSupport.unpark(this.worker);
+        try {
+            this.worker.join(this.maxFlushTime);
+            if (this.worker.isAlive()) {
+                this.addWarn("Max queue flush timeout (" + this.maxFlushTime + " ms) exceeded. Approximately "
+                        + this.ringBuffer.size() + " queued events were possibly discarded.");
+            } else {
+                this.addInfo("Queue flush finished successfully within timeout.");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            this.addError("Failed to join worker thread. " + this.ringBuffer.size()
+                    + " queued events may be discarded.", ex);
+        } finally {
+            this.unregisterMBean();
+        }
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        AppenderMetrics appenderMetrics = this.metrics;
+        long start = appenderMetrics == null ? 0L : System.nanoTime();
+        if (this.levelPolicies != null) {
+            this.appendWithPolicy(event, appenderMetrics);
+        } else if (this.isDiscardable(event) && this.ringBuffer.remainingCapacity() < this.discardingThreshold) {
+            this.discardedCount.increment();
+            if (appenderMetrics != null) {
+                appenderMetrics.discarded();
+            }
+        } else {
+            this.prepare(event);
+            this.put(event, appenderMetrics);
+        }
+        if (appenderMetrics != null) {
+            appenderMetrics.enqueued(System.nanoTime() - start);
+        }
+    }
+
+    private void prepare(ILoggingEvent event) {
+        event.prepareForDeferredProcessing();
+        if (this.includeCallerData) {
+            event.getCallerData();
+        }
+    }
+
+    private void appendWithPolicy(ILoggingEvent event, AppenderMetrics appenderMetrics) {
+        int level = OverflowPolicy.index(event.getLevel());
+        OverflowPolicy policy = this.levelPolicies[level];
+        if (policy != OverflowPolicy.BLOCK && this.ringBuffer.size() >= this.sheddingDepth) {
+            this.overflow(policy, level, appenderMetrics);
+            return;
+        }
+        this.prepare(event);
+        if (this.ringBuffer.offer(event)) {
+            return;
+        }
+        if (policy != OverflowPolicy.BLOCK) {
+            this.overflow(policy, level, appenderMetrics);
+            return;
+        }
+        boolean bounded = !OverflowPolicy.isWarnOrAbove(level);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.maxBlockTime);
+        int counter = 0;
+        while (!this.ringBuffer.offer(event)) {
+            if (!this.isStarted()) {
+                this.dropped(appenderMetrics);
+                return;
+            }
+            if (bounded && System.nanoTime() - deadline >= 0L) {
+                this.overflow(OverflowPolicy.DROP_AND_COUNT, level, appenderMetrics);
+                return;
+            }
+            counter = WaitStrategy.PARK.idle(counter);
+        }
+    }
+
+    private void overflow(OverflowPolicy policy, int level, AppenderMetrics appenderMetrics) {
+        if (policy == OverflowPolicy.DROP) {
+            this.dropped(appenderMetrics);
+            return;
+        }
+        this.discardedCount.increment();
+        if (appenderMetrics != null) {
+            appenderMetrics.discarded();
+        }
+        this.overflowCounts[level].increment();
+        if (!this.burstPending) {
+            this.burstStart = System.currentTimeMillis();
+            this.burstPending = true;
+        }
+    }
+
+    private int maxSheddingDepth() {
+        return Math.max(1, this.ringBuffer.capacity() - this.discardingThreshold);
+    }
+
+    /**
+     * Writes the summary of the events dropped and counted during the burst which just ended, from the worker.
+     */
+    private void writeSummary(long total, long[] counts) {
+        StringBuilder perLevel = new StringBuilder();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0L) {
+                (perLevel.length() == 0 ? perLevel : perLevel.append(", "))
+                        .append(OverflowPolicy.level(i)).append('=').append(counts[i]);
+            }
+        }
+        Object[] args = {this.getName(), Instant.ofEpochMilli(this.burstStart), total, perLevel};
+        String message = "Async appender [{}] was overloaded since {}, discarded {} events ({})";
+        if (!(this.context instanceof LoggerContext)) {
+            this.addWarn("Discarded " + total + " events (" + perLevel + ")");
+            return;
+        }
+        Logger logger = ((LoggerContext) this.context).getLogger(RingBufferAsyncAppender.class);
+        this.aai.appendLoopOnAppenders(new LoggingEvent(RingBufferAsyncAppender.class.getName(), logger, Level.WARN,
+                message, null, args));
+    }
+
+    private boolean isDiscardable(ILoggingEvent event) {
+        return event.getLevel().toInt() <= Level.INFO_INT;
+    }
+
+    private void put(ILoggingEvent event, AppenderMetrics appenderMetrics) {
+        if (this.ringBuffer.offer(event)) {
+            return;
+        }
+        if (this.neverBlock) {
+            this.dropped(appenderMetrics);
+            return;
+        }
+        int counter = 0;
+        while (!this.ringBuffer.offer(event)) {
+            if (!this.isStarted()) {
+                this.dropped(appenderMetrics);
+                return;
+            }
+            // Producers always back off progressively, spinning request threads would starve the worker.
+            counter = WaitStrategy.PARK.idle(counter);
+        }
+    }
+
+    private void dropped(AppenderMetrics appenderMetrics) {
+        this.droppedCount.increment();
+        if (appenderMetrics != null) {
+            appenderMetrics.dropped();
+        }
+    }
+
+    @Override
+    public int getQueueCapacity() {
+        return this.ringBuffer == null ? this.queueSize : this.ringBuffer.capacity();
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return this.ringBuffer == null ? 0 : this.ringBuffer.size();
+    }
+
+    @Override
+    public long getDiscardedCount() {
+        return this.discardedCount.sum();
+    }
+
+    @Override
+    public long getDroppedCount() {
+        return this.droppedCount.sum();
+    }
+
+    @Override
+    public int getSheddingDepth() {
+        if (this.ringBuffer == null) {
+            return 0;
+        }
+        return this.levelPolicies == null ? this.ringBuffer.capacity() - this.discardingThreshold : this.sheddingDepth;
+    }
+
+    /**
+     * Takes over the name from a previous registration, the appender replacing this one under the same name is
+     * started before this one is stopped.
+     */
+    private void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(JMX_DOMAIN + ":type=RingBufferAsyncAppender,name="
+                    + ObjectName.quote(String.valueOf(this.getName())));
+            synchronized (MBEAN_OWNERS) {
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+                server.registerMBean(this, name);
+                MBEAN_OWNERS.put(name, this);
+                this.objectName = name;
+            }
+        } catch (JMException ex) {
+            this.addWarn("Could not register MBean for appender [" + this.getName() + "]", ex);
+        }
+    }
+
+    /**
+     * Leaves the name alone if an appender started since has taken it over.
+     */
+    private void unregisterMBean() {
+        if (this.objectName == null) {
+            return;
+        }
+        try {
+            synchronized (MBEAN_OWNERS) {
+                if (MBEAN_OWNERS.remove(this.objectName, this)) {
+                    ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.objectName);
+                }
+            }
+        } catch (JMException ex) {
+            this.addWarn("Could not unregister MBean [" + this.objectName + "]", ex);
+        } finally {
+            this.objectName = null;
+        }
+    }
+
+    public AppenderMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Metrics to record into, must be set before {@link #start()}.
+     */
+    public void setMetrics(AppenderMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public String getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * Comma separated level=policy pairs, e.g. "DEBUG=DROP, INFO=DROP_AND_COUNT", see {@link OverflowPolicy}. When
+     * set, neverBlock is not used.
+     */
+    public void setOverflowPolicy(String overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public long getMaxQueueDelay() {
+        return maxQueueDelay;
+    }
+
+    /**
+     * Longest time in ms an event should wait in the queue, bounds the adaptive shedding depth in overflow policy
+     * mode.
+     */
+    public void setMaxQueueDelay(long maxQueueDelay) {
+        this.maxQueueDelay = maxQueueDelay;
+    }
+
+    public long getMaxBlockTime() {
+        return maxBlockTime;
+    }
+
+    /**
+     * Longest time in ms a producer of a level below WARN set to {@link OverflowPolicy#BLOCK} waits for a free slot,
+     * the event is dropped and counted afterwards.
+     */
+    public void setMaxBlockTime(long maxBlockTime) {
+        this.maxBlockTime = maxBlockTime;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getDiscardingThreshold() {
+        return discardingThreshold;
+    }
+
+    public void setDiscardingThreshold(int discardingThreshold) {
+        this.discardingThreshold = discardingThreshold;
+    }
+
+    public int getMaxFlushTime() {
+        return maxFlushTime;
+    }
+
+    public void setMaxFlushTime(int maxFlushTime) {
+        this.maxFlushTime = maxFlushTime;
+    }
+
+    public boolean isNeverBlock() {
+        return neverBlock;
+    }
+
+    public void setNeverBlock(boolean neverBlock) {
+        this.neverBlock = neverBlock;
+    }
+
+    public boolean isIncludeCallerData() {
+        return includeCallerData;
+    }
+
+    public void setIncludeCallerData(boolean includeCallerData) {
+        this.includeCallerData = includeCallerData;
+    }
+
+    public WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    public void setWaitStrategy(WaitStrategy waitStrategy) {
+        this.waitStrategy = waitStrategy == null ? WaitStrategy.PARK : waitStrategy;
+    }
+
+    @Override
+    public void addAppender(Appender<ILoggingEvent> newAppender) {
+        if (this.appenderCount == 0) {
+            this.appenderCount++;
+            this.addInfo("Attaching appender named [" + newAppender.getName() + "] to RingBufferAsyncAppender.");
+            this.aai.addAppender(newAppender);
+        } else {
+            this.addWarn("One and only one appender may be attached to RingBufferAsyncAppender.");
+            this.addWarn("Ignoring additional appender named [" + newAppender.getName() + "]");
+        }
+    }
+
+    @Override
+    public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+        return this.aai.iteratorForAppenders();
+    }
+
+    @Override
+    public Appender<ILoggingEvent> getAppender(String name) {
+        return this.aai.getAppender(name);
+    }
+
+    @Override
+    public boolean isAttached(Appender<ILoggingEvent> appender) {
+        return this.aai.isAttached(appender);
+    }
+
+    @Override
+    public void detachAndStopAllAppenders() {
+        this.aai.detachAndStopAllAppenders();
+    }
+
+    @Override
+    public boolean detachAppender(Appender<ILoggingEvent> appender) {
+        return this.aai.detachAppender(appender);
+    }
+
+    @Override
+    public boolean detachAppender(String name) {
+        return this.aai.detachAppender(name);
+    }
+
+    /**
+     * Drains the ring buffer in batches and hands each event to the attached appender.
+     * <p>
+     * In overflow policy mode it also adapts the shedding depth to the observed drain rate and writes the overflow
+     * summary whenever it finds the buffer empty, i.e. once a burst is over.
+     */
+    private class Worker implements Runnable {
+
+        private final long[] reportedOverflows = new long[OverflowPolicy.LEVELS];
+
+        /**
+         * Events per nanosecond spent in the attached appender, exponentially weighted.
+         */
+        private double drainRate;
+
+        @Override
+        public void run() {
+            RingBufferAsyncAppender parent = RingBufferAsyncAppender.this;
+            ILoggingEvent[] batch = new ILoggingEvent[parent.batchSize];
+            int counter = 0;
+            while (parent.isStarted()) {
+                int drained = this.dispatch(batch);
+                if (drained == 0) {
+                    this.reportOverflow();
+                }
+                counter = drained > 0 ? 0 : parent.waitStrategy.idle(counter);
+            }
+            parent.addInfo("Worker thread will flush remaining events before exiting.");
+            while (this.dispatch(batch) > 0) {
+                // keep draining until the buffer is empty.
+            }
+            this.reportOverflow();
+            Appender<ILoggingEvent> retained = parent.retainedAppender;
+            if (retained != null) {
+                parent.aai.detachAppender(retained);
+            }
+            parent.aai.detachAndStopAllAppenders();
+        }
+
+        private int dispatch(ILoggingEvent[] batch) {
+            boolean adaptive = RingBufferAsyncAppender.this.levelPolicies != null;
+            long start = adaptive ? System.nanoTime() : 0L;
+            int drained = RingBufferAsyncAppender.this.ringBuffer.drainTo(batch);
+            for (int i = 0; i < drained; i++) {
+                RingBufferAsyncAppender.this.aai.appendLoopOnAppenders(batch[i]);
+                batch[i] = null;
+            }
+            if (adaptive && drained > 0) {
+                this.adapt(drained, System.nanoTime() - start);
+            }
+            return drained;
+        }
+
+        /**
+         * Sheds early enough that whatever is queued can still be written within maxQueueDelay at the current drain
+         * rate, never eating into the part of the queue reserved for WARN and ERROR.
+         */
+        private void adapt(int drained, long nanos) {
+            RingBufferAsyncAppender parent = RingBufferAsyncAppender.this;
+            double rate = (double) drained / Math.max(nanos, 1L);
+            this.drainRate = this.drainRate == 0.0
+                    ? rate
+                    : this.drainRate + (rate - this.drainRate) * DRAIN_RATE_WEIGHT;
+            int maxDepth = parent.maxSheddingDepth();
+            double depth = this.drainRate * TimeUnit.MILLISECONDS.toNanos(parent.maxQueueDelay);
+            parent.sheddingDepth = (int) Math.max(Math.min(depth, maxDepth), Math.min(parent.batchSize, maxDepth));
+        }
+
+        private void reportOverflow() {
+            RingBufferAsyncAppender parent = RingBufferAsyncAppender.this;
+            if (!parent.burstPending) {
+                return;
+            }
+            // Cleared before reading the counts, an overflow racing with this is reported with the next burst.
+            parent.burstPending = false;
+            long[] counts = new long[OverflowPolicy.LEVELS];
+            long total = 0L;
+            for (int i = 0; i < OverflowPolicy.LEVELS; i++) {
+                long count = parent.overflowCounts[i].sum();
+                counts[i] = count - this.reportedOverflows[i];
+                this.reportedOverflows[i] = count;
+                total += counts[i];
+            }
+            if (total > 0L) {
+                parent.writeSummary(total, counts);
+            }
+        }
+    }
+}
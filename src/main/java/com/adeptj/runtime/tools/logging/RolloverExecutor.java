@@ -0,0 +1,246 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging;
+
+import ch.qos.logback.core.Context;
+import ch.qos.logback.core.rolling.helper.DateTokenConverter;
+import ch.qos.logback.core.rolling.helper.FileFilterUtil;
+import ch.qos.logback.core.rolling.helper.FileNamePattern;
+import ch.qos.logback.core.rolling.helper.RollingCalendar;
+import ch.qos.logback.core.spi.ContextAwareBase;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Compresses and prunes rolled log files off the logging thread.
+ * <p>
+ * A single coordinator thread works through rollover jobs one at a time, compressing each rolled file with
+ * {@link ParallelGzip} on a bounded worker pool and then pruning. Pruning deletes at most {@link #PRUNE_BATCH} files
+ * per run and queues another run for the rest, so a large backlog of archives never holds up later compressions.
+ * Archives are removed when they are older than maxHistory periods or, oldest first, while the archives together
+ * exceed totalSizeCap.
+ * <p>
+ * Jobs are coalesced: compressing always scans for every rolled file not compressed yet and at most one compression
+ * and one prune run are queued at any time, so no job is ever turned away while the executor is running.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+final class RolloverExecutor extends ContextAwareBase {
+
+    private static final int PRUNE_BATCH = 32;
+
+    /**
+     * One pending compression plus one pending prune.
+     */
+    private static final int MAX_QUEUED_JOBS = 2;
+
+    private static final long SHUTDOWN_WAIT_SECONDS = 5L;
+
+    private static final String GZ_SUFFIX = ".gz";
+
+    private final File archiveDir;
+
+    private final Pattern rawArchiveRegex;
+
+    private final Pattern archiveRegex;
+
+    private final boolean compress;
+
+    private final RollingCalendar rollingCalendar;
+
+    private final int maxHistory;
+
+    private final long totalSizeCap;
+
+    private final int chunkSize;
+
+    private final int parallelism;
+
+    private final ThreadPoolExecutor coordinator;
+
+    private final ExecutorService workers;
+
+    private final AtomicBoolean compressPending;
+
+    private final AtomicBoolean prunePending;
+
+    RolloverExecutor(Context context, String fileNamePattern, boolean compress, int maxHistory, long totalSizeCap,
+                     int chunkSize, int parallelism) {
+        this.setContext(context);
+        this.compress = compress;
+        String rawPattern = compress
+                ? fileNamePattern.substring(0, fileNamePattern.length() - GZ_SUFFIX.length())
+                : fileNamePattern;
+        FileNamePattern rawFileNamePattern = new FileNamePattern(rawPattern, context);
+        this.archiveDir = new File(rawFileNamePattern.convertMultipleArguments(new Date(), 0)).getAbsoluteFile()
+                .getParentFile();
+        this.rawArchiveRegex = Pattern.compile(toFileNameRegex(rawFileNamePattern));
+        this.archiveRegex = Pattern.compile(toFileNameRegex(new FileNamePattern(fileNamePattern, context)));
+        DateTokenConverter<Object> dateToken = rawFileNamePattern.getPrimaryDateTokenConverter();
+        this.rollingCalendar = dateToken.getTimeZone() == null
+                ? new RollingCalendar(dateToken.getDatePattern())
+                : new RollingCalendar(dateToken.getDatePattern(), dateToken.getTimeZone(), Locale.getDefault());
+        this.maxHistory = maxHistory;
+        this.totalSizeCap = totalSizeCap;
+        this.chunkSize = chunkSize;
+        this.parallelism = Math.max(1, parallelism);
+        this.coordinator = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(MAX_QUEUED_JOBS), daemonThreads("Rollover-Coordinator"),
+                // Only reached after shutdown, what is left gets picked up by the scan on next start.
+                new ThreadPoolExecutor.DiscardPolicy());
+        this.workers = new ThreadPoolExecutor(this.parallelism, this.parallelism, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), daemonThreads("Rollover-Compressor"));
+        this.compressPending = new AtomicBoolean();
+        this.prunePending = new AtomicBoolean();
+    }
+
+    /**
+     * Called on the logging thread right after the active file was renamed to an archive, never blocks.
+     */
+    void rolled() {
+        this.scan();
+    }
+
+    /**
+     * Compresses whatever was rolled but not yet compressed, e.g. before a restart, and prunes.
+     */
+    void scan() {
+        if (this.compress && this.compressPending.compareAndSet(false, true)) {
+            this.coordinator.execute(this::compressAll);
+        }
+        this.schedulePrune();
+    }
+
+    void shutdown() {
+        this.coordinator.shutdown();
+        try {
+            if (!this.coordinator.awaitTermination(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                this.addWarn("Rollover jobs still running after " + SHUTDOWN_WAIT_SECONDS
+                        + "s, remaining files will be compressed on next start.");
+                this.coordinator.shutdownNow();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            this.coordinator.shutdownNow();
+        } finally {
+            this.workers.shutdownNow();
+        }
+    }
+
+    private void compressAll() {
+        // Cleared before listing so that a file rolled meanwhile queues another run.
+        this.compressPending.set(false);
+        for (File raw : this.listArchives(this.rawArchiveRegex)) {
+            this.compress(raw);
+        }
+    }
+
+    private void compress(File raw) {
+        if (!raw.exists()) {
+            return;
+        }
+        File target = new File(raw.getPath() + GZ_SUFFIX);
+        if (target.exists()) {
+            this.addWarn("Not compressing [" + raw + "] as [" + target + "] already exists.");
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            ParallelGzip.compress(raw, target, this.chunkSize, this.parallelism, this.workers);
+            this.addInfo("Compressed [" + raw + "] in " + (System.currentTimeMillis() - start) + " ms");
+        } catch (IOException ex) {
+            this.addError("Could not compress [" + raw + "]", ex);
+        }
+    }
+
+    private void schedulePrune() {
+        if ((this.maxHistory > 0 || this.totalSizeCap > 0) && this.prunePending.compareAndSet(false, true)) {
+            this.coordinator.execute(this::prune);
+        }
+    }
+
+    private void prune() {
+        this.prunePending.set(false);
+        List<File> archives = this.listArchives(this.archiveRegex);
+        if (this.compress) {
+            archives.addAll(this.listArchives(this.rawArchiveRegex));
+        }
+        // newest first
+        archives.sort(Comparator.comparingLong(File::lastModified).reversed());
+        List<File> expired = new ArrayList<>();
+        long cutoff = this.maxHistory > 0
+                ? this.rollingCalendar.getEndOfNextNthPeriod(new Date(), -this.maxHistory - 1).getTime()
+                : Long.MIN_VALUE;
+        long totalSize = 0;
+        for (File archive : archives) {
+            totalSize += archive.length();
+            if (archive.lastModified() < cutoff || (this.totalSizeCap > 0 && totalSize > this.totalSizeCap)) {
+                expired.add(archive);
+            }
+        }
+        int deleted = 0;
+        // oldest first, a batch at a time.
+        for (int i = expired.size() - 1; i >= 0 && deleted < PRUNE_BATCH; i--, deleted++) {
+            File archive = expired.get(i);
+            if (!archive.delete() && archive.exists()) {
+                this.addWarn("Could not delete archive [" + archive + "]");
+            }
+        }
+        if (expired.size() > deleted) {
+            this.schedulePrune();
+        }
+    }
+
+    private List<File> listArchives(Pattern regex) {
+        File[] files = this.archiveDir.listFiles((dir, name) -> regex.matcher(name).matches());
+        return files == null ? new ArrayList<>() : new ArrayList<>(Arrays.asList(files));
+    }
+
+    private static String toFileNameRegex(FileNamePattern pattern) {
+        // FileNamePattern only allows up to two digits for %i.
+        return FileFilterUtil.afterLastSlash(pattern.toRegex()).replace("\\d{1,2}", "\\d+");
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,169 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.rolling.RollingFileAppender;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spreads events over a number of independent {@link RollingFileAppender}s, the shards, each one writing its own
+ * files through its own lock, buffer and rolling policy.
+ * <p>
+ * A single file appender serializes every logging thread on its output stream lock. Here an event goes to the shard
+ * picked by the hash of the value of {@link #setShardKey(String) the shard key} in its MDC, or of its thread name
+ * when there is no such value, so threads mostly contend only with the few others sharing their shard. The events of
+ * any one thread (or key) always end up in the same shard and hence in order. The shards read as one time ordered log
+ * through {@link MergedLogReader}.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public class ShardedFileAppender extends UnsynchronizedAppenderBase<ILoggingEvent> implements ReplaceableAppender {
+
+    private final List<RollingFileAppender<ILoggingEvent>> shards;
+
+    private final AppenderHandover handover = new AppenderHandover(super::doAppend);
+
+    private volatile List<RollingFileAppender<ILoggingEvent>> startedShards;
+
+    private String shardKey;
+
+    public ShardedFileAppender() {
+        this.shards = new ArrayList<>();
+    }
+
+    /**
+     * Forwards the event to the successor once handed over, see {@link ReplaceableAppender}.
+     */
+    @Override
+    public void doAppend(ILoggingEvent event) {
+        this.handover.doAppend(event);
+    }
+
+    @Override
+    public void handOver(Appender<ILoggingEvent> successor) {
+        this.handover.handOver(successor);
+    }
+
+    @Override
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        return this.handover.awaitIdle(timeout, unit);
+    }
+
+    @Override
+    public void start() {
+        if (this.shards.isEmpty()) {
+            this.addError("No shards set for the appender named [" + this.name + "].");
+            return;
+        }
+        for (RollingFileAppender<ILoggingEvent> shard : this.shards) {
+            if (!shard.isStarted()) {
+                shard.start();
+            }
+            if (!shard.isStarted()) {
+                this.addError("Shard [" + shard.getName() + "] of the appender named [" + this.name
+                        + "] could not be started.");
+                return;
+            }
+        }
+        this.startedShards = new ArrayList<>(this.shards);
+        super.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!this.isStarted()) {
+            return;
+        }
+        super.stop();
+        this.shards.forEach(RollingFileAppender::stop);
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        List<RollingFileAppender<ILoggingEvent>> started = this.startedShards;
+        started.get(this.shardOf(event, started.size())).doAppend(event);
+    }
+
+    private int shardOf(ILoggingEvent event, int count) {
+        String key = null;
+        if (this.shardKey != null) {
+            Map<String, String> mdc = event.getMDCPropertyMap();
+            key = mdc == null ? null : mdc.get(this.shardKey);
+        }
+        if (key == null) {
+            key = event.getThreadName();
+        }
+        int hash = key == null ? 0 : key.hashCode();
+        // Spreads the high bits as thread names often differ only in a trailing number.
+        return Math.floorMod(hash ^ (hash >>> 16), count);
+    }
+
+    /**
+     * The shards in order, must be added before {@link #start()}.
+     */
+    public List<RollingFileAppender<ILoggingEvent>> getShards() {
+        return Collections.unmodifiableList(this.shards);
+    }
+
+    public void addShard(RollingFileAppender<ILoggingEvent> shard) {
+        this.shards.add(shard);
+    }
+
+    public String getShardKey() {
+        return shardKey;
+    }
+
+    /**
+     * MDC key whose value picks the shard of an event, the thread name does when not set or when the event has no
+     * value for it.
+     */
+    public void setShardKey(String shardKey) {
+        this.shardKey = StringUtils.trimToNull(shardKey);
+    }
+
+    /**
+     * Derives the file name (or rollover pattern) of a shard from the one of the whole log by inserting -shard in its
+     * base name, before the first conversion word or else the first dot, e.g. logs/error.log becomes
+     * logs/error-1.log and logs/error-%d{yyyy-MM-dd}.%i.log becomes logs/error-1-%d{yyyy-MM-dd}.%i.log
+     */
+    public static String shardFile(String file, int shard) {
+        int nameStart = Math.max(file.lastIndexOf('/'), file.lastIndexOf('\\')) + 1;
+        int insertAt = file.indexOf('%', nameStart);
+        if (insertAt < 0) {
+            insertAt = file.indexOf('.', nameStart);
+        }
+        if (insertAt < 0) {
+            insertAt = file.length();
+        } else if (insertAt > nameStart && "-_.".indexOf(file.charAt(insertAt - 1)) >= 0) {
+            insertAt--;
+        }
+        return file.substring(0, insertAt) + '-' + shard + file.substring(insertAt);
+    }
+}
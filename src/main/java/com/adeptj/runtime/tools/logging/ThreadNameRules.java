@@ -0,0 +1,205 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Ordered set of rules which shorten thread names for the log output, the first matching rule wins.
+ * <p>
+ * A rule is either a prefix, in which case any name starting with it is replaced, or a regex which must match the
+ * whole name and whose replacement may refer to groups, e.g. $1. Results are cached per distinct thread name, the
+ * cache lives and dies with this instance so installing new rules invalidates everything computed so far.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public final class ThreadNameRules {
+
+    private static final String PREFIX = "prefix:";
+
+    private static final String REGEX = "regex:";
+
+    private static final char REPLACEMENT_SEPARATOR = '=';
+
+    private static final int MAX_CACHED_NAMES = 1024;
+
+    private static final ThreadNameRules DEFAULTS = builder()
+            .prefix("CM Event Dispatcher", "CM Event Dispatcher")
+            .prefix("Background Update", "Background Update")
+            .build();
+
+    private final List<Rule> rules;
+
+    private final Map<String, String> cache;
+
+    private ThreadNameRules(List<Rule> rules) {
+        this.rules = Collections.unmodifiableList(rules);
+        this.cache = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns the shortened name as per the first matching rule, or the name itself when no rule matches.
+     */
+    public String apply(String threadName) {
+        if (threadName == null || this.rules.isEmpty()) {
+            return threadName;
+        }
+        String converted = this.cache.get(threadName);
+        if (converted == null) {
+            converted = this.match(threadName);
+            if (this.cache.size() >= MAX_CACHED_NAMES) {
+                // Thread pools with ever increasing names would otherwise grow this forever.
+                this.cache.clear();
+            }
+            this.cache.put(threadName, converted);
+        }
+        return converted;
+    }
+
+    private String match(String threadName) {
+        for (Rule rule : this.rules) {
+            String replaced = rule.apply(threadName);
+            if (replaced != null) {
+                return replaced;
+            }
+        }
+        return threadName;
+    }
+
+    public static ThreadNameRules defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Parses rules from specs like {@code prefix:CM Event Dispatcher=CM Event Dispatcher} or
+     * {@code regex:(qtp\d+)-\d+=$1}, handy for OSGi configurations. Everything after the last '=' is the replacement.
+     *
+     * @param specs the rule specs, blank ones are ignored.
+     * @return the parsed rules
+     * @throws IllegalArgumentException if a spec is malformed.
+     */
+    public static ThreadNameRules parse(String... specs) {
+        Builder builder = builder();
+        if (specs == null) {
+            return builder.build();
+        }
+        for (String spec : specs) {
+            if (StringUtils.isBlank(spec)) {
+                continue;
+            }
+            int separator = spec.lastIndexOf(REPLACEMENT_SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Missing replacement in thread name rule: " + spec);
+            }
+            String match = spec.substring(0, separator);
+            String replacement = spec.substring(separator + 1);
+            if (StringUtils.startsWith(match, PREFIX)) {
+                builder.prefix(match.substring(PREFIX.length()), replacement);
+            } else if (StringUtils.startsWith(match, REGEX)) {
+                builder.regex(match.substring(REGEX.length()), replacement);
+            } else {
+                throw new IllegalArgumentException("Thread name rule must start with prefix: or regex: " + spec);
+            }
+        }
+        return builder.build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Convenient builder to create {@link ThreadNameRules} instances.
+     */
+    public static class Builder {
+
+        private final List<Rule> rules;
+
+        private Builder() {
+            this.rules = new ArrayList<>();
+        }
+
+        public Builder prefix(String prefix, String replacement) {
+            this.rules.add(new PrefixRule(prefix, replacement));
+            return this;
+        }
+
+        public Builder regex(String regex, String replacement) {
+            this.rules.add(new RegexRule(Pattern.compile(regex), replacement));
+            return this;
+        }
+
+        public ThreadNameRules build() {
+            return new ThreadNameRules(new ArrayList<>(this.rules));
+        }
+    }
+
+    private interface Rule {
+
+        /**
+         * Returns the replacement or null if this rule does not match.
+         */
+        String apply(String threadName);
+    }
+
+    private static final class PrefixRule implements Rule {
+
+        private final String prefix;
+
+        private final String replacement;
+
+        PrefixRule(String prefix, String replacement) {
+            this.prefix = prefix;
+            this.replacement = replacement;
+        }
+
+        @Override
+        public String apply(String threadName) {
+            return threadName.startsWith(this.prefix) ? this.replacement : null;
+        }
+    }
+
+    private static final class RegexRule implements Rule {
+
+        private final Pattern pattern;
+
+        private final String replacement;
+
+        RegexRule(Pattern pattern, String replacement) {
+            this.pattern = pattern;
+            this.replacement = replacement;
+        }
+
+        @Override
+        public String apply(String threadName) {
+            Matcher matcher = this.pattern.matcher(threadName);
+            return matcher.matches() ? matcher.replaceFirst(this.replacement) : null;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging;
+
+import org.apache.commons.lang3.EnumUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * How the {@link RingBufferAsyncAppender} worker waits for events when the ring buffer is empty.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public enum WaitStrategy {
+
+    /**
+     * Never gives up the CPU, lowest latency at the cost of a fully busy core.
+     */
+    BUSY_SPIN {
+        @Override
+        int idle(int counter) {
+            return counter + 1;
+        }
+    },
+
+    /**
+     * Spins for a while and then yields to other runnable threads.
+     */
+    YIELD {
+        @Override
+        int idle(int counter) {
+            if (counter >= SPIN_TRIES) {
+                Thread.yield();
+            }
+            return counter + 1;
+        }
+    },
+
+    /**
+     * Spins, then yields and finally parks the thread for a short while, cheapest when logging is quiet.
+     */
+    PARK {
+        @Override
+        int idle(int counter) {
+            if (counter >= SPIN_TRIES + YIELD_TRIES) {
+                LockSupport.parkNanos(PARK_NANOS);
+            } else if (counter >= SPIN_TRIES) {
+                Thread.yield();
+            }
+            return counter + 1;
+        }
+    };
+
+    private static final int SPIN_TRIES = 100;
+
+    private static final int YIELD_TRIES = 100;
+
+    private static final long PARK_NANOS = 100_000L;
+
+    /**
+     * Waits once.
+     *
+     * @param counter number of times the caller already waited without making progress.
+     * @return the counter to pass on the next call.
+     */
+    abstract int idle(int counter);
+
+    /**
+     * Resolves the strategy by its (case insensitive) name, falls back to {@link #PARK} when unknown.
+     */
+    public static WaitStrategy of(String name) {
+        WaitStrategy strategy = EnumUtils.getEnum(WaitStrategy.class, StringUtils.upperCase(StringUtils.trim(name)));
+        return strategy == null ? PARK : strategy;
+    }
+}
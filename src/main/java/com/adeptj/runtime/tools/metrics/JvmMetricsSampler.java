@@ -0,0 +1,244 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.metrics;
+
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples heap, non-heap and memory pool usage, GC activity, threads, CPU and loaded classes at a fixed interval into
+ * a {@link SampleRing}, for the dashboard's live charts.
+ * <p>
+ * GC counts and times are recorded per interval rather than cumulatively, CPU loads are percentages, -1 where the
+ * JVM does not provide them. Memory values are in bytes.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public enum JvmMetricsSampler {
+
+    INSTANCE;
+
+    public static final long DEFAULT_INTERVAL_MILLIS = 1000L;
+
+    public static final int DEFAULT_CAPACITY = 600;
+
+    private static final String THREAD_NAME = "JvmMetrics-Sampler";
+
+    private ScheduledExecutorService scheduler;
+
+    private volatile SampleRing ring;
+
+    private volatile long interval;
+
+    /**
+     * Starts sampling with the default interval and capacity, unless already started.
+     */
+    public void start() {
+        this.start(DEFAULT_INTERVAL_MILLIS, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Starts sampling unless already started.
+     *
+     * @param intervalMillis time between two samples.
+     * @param capacity       number of samples retained, older ones are overwritten.
+     */
+    public synchronized void start(long intervalMillis, int capacity) {
+        if (this.scheduler != null) {
+            return;
+        }
+        Collector collector = new Collector();
+        this.ring = new SampleRing(collector.names(), Math.max(capacity, 1));
+        this.interval = Math.max(intervalMillis, 10L);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+        SampleRing target = this.ring;
+        this.scheduler.scheduleAtFixedRate(() -> {
+            try {
+                collector.collect(target);
+            } catch (RuntimeException ex) {
+                // Skip this sample, an exception escaping here would cancel all the following ones.
+            }
+        }, 0L, this.interval, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (this.scheduler != null) {
+            this.scheduler.shutdownNow();
+            this.scheduler = null;
+        }
+    }
+
+    public synchronized boolean isStarted() {
+        return this.scheduler != null;
+    }
+
+    public long getInterval() {
+        return this.interval;
+    }
+
+    public int getCapacity() {
+        SampleRing current = this.ring;
+        return current == null ? 0 : current.capacity();
+    }
+
+    /**
+     * Samples from the given sequence number on, see {@link Samples#getNext()}, oldest first, nothing if never started.
+     */
+    public Samples getSamples(long cursor) {
+        SampleRing current = this.ring;
+        return current == null ? new Samples(new String[0], new long[0], new double[0][0], 0L) : current.read(cursor);
+    }
+
+    public static JvmMetricsSampler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Reads the MXBeans into a reused sample array, only ever called from the sampler thread.
+     */
+    private static final class Collector {
+
+        private final MemoryMXBean memory;
+
+        private final List<MemoryPoolMXBean> pools;
+
+        private final List<GarbageCollectorMXBean> collectors;
+
+        private final ThreadMXBean threads;
+
+        private final ClassLoadingMXBean classLoading;
+
+        private final OperatingSystemMXBean os;
+
+        private final double[] sample;
+
+        private long lastGcCount;
+
+        private long lastGcTime;
+
+        private Collector() {
+            this.memory = ManagementFactory.getMemoryMXBean();
+            this.pools = new ArrayList<>(ManagementFactory.getMemoryPoolMXBeans());
+            this.pools.removeIf(pool -> !pool.isValid());
+            this.collectors = ManagementFactory.getGarbageCollectorMXBeans();
+            this.threads = ManagementFactory.getThreadMXBean();
+            this.classLoading = ManagementFactory.getClassLoadingMXBean();
+            this.os = ManagementFactory.getOperatingSystemMXBean();
+            this.sample = new double[this.names().length];
+            this.lastGcCount = this.gcCount();
+            this.lastGcTime = this.gcTime();
+        }
+
+        private String[] names() {
+            List<String> names = new ArrayList<>();
+            names.add("heap.used");
+            names.add("heap.committed");
+            names.add("heap.max");
+            names.add("nonheap.used");
+            names.add("nonheap.committed");
+            this.pools.forEach(pool -> names.add("pool." + pool.getName() + ".used"));
+            names.add("gc.count");
+            names.add("gc.time");
+            names.add("threads.live");
+            names.add("threads.daemon");
+            names.add("cpu.process");
+            names.add("cpu.system");
+            names.add("classes.loaded");
+            return names.toArray(new String[0]);
+        }
+
+        private void collect(SampleRing ring) {
+            int i = 0;
+            MemoryUsage heap = this.memory.getHeapMemoryUsage();
+            this.sample[i++] = heap.getUsed();
+            this.sample[i++] = heap.getCommitted();
+            this.sample[i++] = heap.getMax();
+            MemoryUsage nonHeap = this.memory.getNonHeapMemoryUsage();
+            this.sample[i++] = nonHeap.getUsed();
+            this.sample[i++] = nonHeap.getCommitted();
+            for (MemoryPoolMXBean pool : this.pools) {
+                MemoryUsage usage = pool.getUsage();
+                this.sample[i++] = usage == null ? 0 : usage.getUsed();
+            }
+            long gcCount = this.gcCount();
+            long gcTime = this.gcTime();
+            this.sample[i++] = gcCount - this.lastGcCount;
+            this.sample[i++] = gcTime - this.lastGcTime;
+            this.lastGcCount = gcCount;
+            this.lastGcTime = gcTime;
+            this.sample[i++] = this.threads.getThreadCount();
+            this.sample[i++] = this.threads.getDaemonThreadCount();
+            this.sample[i++] = this.processCpuLoad();
+            this.sample[i++] = this.systemCpuLoad();
+            this.sample[i] = this.classLoading.getLoadedClassCount();
+            ring.append(System.currentTimeMillis(), this.sample);
+        }
+
+        private long gcCount() {
+            long count = 0;
+            for (GarbageCollectorMXBean collector : this.collectors) {
+                count += Math.max(collector.getCollectionCount(), 0L);
+            }
+            return count;
+        }
+
+        private long gcTime() {
+            long time = 0;
+            for (GarbageCollectorMXBean collector : this.collectors) {
+                time += Math.max(collector.getCollectionTime(), 0L);
+            }
+            return time;
+        }
+
+        private double processCpuLoad() {
+            if (this.os instanceof com.sun.management.OperatingSystemMXBean) {
+                return toPercent(((com.sun.management.OperatingSystemMXBean) this.os).getProcessCpuLoad());
+            }
+            return -1;
+        }
+
+        private double systemCpuLoad() {
+            if (this.os instanceof com.sun.management.OperatingSystemMXBean) {
+                return toPercent(((com.sun.management.OperatingSystemMXBean) this.os).getSystemCpuLoad());
+            }
+            return -1;
+        }
+
+        private static double toPercent(double load) {
+            return load < 0 ? -1 : Math.round(load * 1000) / 10.0;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.metrics;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Fixed size time series storage, one primitive array of timestamps and one of values per series, the oldest sample
+ * is overwritten once full. Nothing is allocated per sample.
+ * <p>
+ * Every sample gets the next sequence number, which also locates it in the arrays, so readers pass the sequence they
+ * want to continue from rather than a timestamp which could go backwards with the wall clock. There is a single
+ * writer, the sampler, readers copy out whatever follows their cursor using an optimistic read and only fall back to
+ * the read lock if a sample was appended in the meantime.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+final class SampleRing {
+
+    private final StampedLock lock;
+
+    private final String[] names;
+
+    private final long[] timestamps;
+
+    private final double[][] values;
+
+    private long count;
+
+    SampleRing(String[] names, int capacity) {
+        this.lock = new StampedLock();
+        this.names = names.clone();
+        this.timestamps = new long[capacity];
+        this.values = new double[names.length][capacity];
+    }
+
+    void append(long timestamp, double[] sample) {
+        long stamp = this.lock.writeLock();
+        try {
+            int index = (int) (this.count % this.timestamps.length);
+            this.timestamps[index] = timestamp;
+            for (int i = 0; i < this.values.length; i++) {
+                this.values[i][index] = sample[i];
+            }
+            this.count++;
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Copies the samples from the given sequence number on, oldest first, the ones overwritten already are skipped. A
+     * cursor beyond the last sample, e.g. of a previous ring, starts over with the oldest one.
+     */
+    Samples read(long cursor) {
+        long stamp = this.lock.tryOptimisticRead();
+        // The count sizes the copy, so it has to be validated before the copy is even allocated.
+        long end = this.count;
+        if (this.lock.validate(stamp)) {
+            Samples samples = this.copy(cursor, end);
+            if (this.lock.validate(stamp)) {
+                return samples;
+            }
+        }
+        stamp = this.lock.readLock();
+        try {
+            return this.copy(cursor, this.count);
+        } finally {
+            this.lock.unlockRead(stamp);
+        }
+    }
+
+    private Samples copy(long cursor, long end) {
+        int capacity = this.timestamps.length;
+        long low = Math.max(Math.max(cursor > end ? 0L : cursor, end - capacity), 0L);
+        int size = (int) (end - low);
+        long[] copiedTimestamps = new long[size];
+        double[][] copiedValues = new double[this.names.length][size];
+        for (int i = 0; i < size; i++) {
+            int index = (int) ((low + i) % capacity);
+            copiedTimestamps[i] = this.timestamps[index];
+            for (int series = 0; series < this.names.length; series++) {
+                copiedValues[series][i] = this.values[series][index];
+            }
+        }
+        return new Samples(this.names, copiedTimestamps, copiedValues, end);
+    }
+
+    int capacity() {
+        return this.timestamps.length;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.metrics;
+
+/**
+ * A copy of consecutive samples, column wise: one array of timestamps and one array of values per series.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public final class Samples {
+
+    private final String[] names;
+
+    private final long[] timestamps;
+
+    private final double[][] values;
+
+    private final long next;
+
+    Samples(String[] names, long[] timestamps, double[][] values, long next) {
+        this.names = names;
+        this.timestamps = timestamps;
+        this.values = values;
+        this.next = next;
+    }
+
+    public int size() {
+        return this.timestamps.length;
+    }
+
+    public int seriesCount() {
+        return this.names.length;
+    }
+
+    public String getName(int series) {
+        return this.names[series];
+    }
+
+    public long getTimestamp(int index) {
+        return this.timestamps[index];
+    }
+
+    public double getValue(int series, int index) {
+        return this.values[series][index];
+    }
+
+    /**
+     * Sequence number of the sample following these, the cursor to read on from.
+     */
+    public long getNext() {
+        return this.next;
+    }
+}
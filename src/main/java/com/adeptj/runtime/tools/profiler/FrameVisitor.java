@@ -0,0 +1,38 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.profiler;
+
+/**
+ * Receives the frames of a profile depth first, see {@link SamplingProfiler#visit(FrameVisitor, double)}.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public interface FrameVisitor {
+
+    /**
+     * @param frame       class and method name.
+     * @param totalWeight weight of all samples passing through this frame.
+     * @param selfWeight  weight of the samples where this frame was the innermost one.
+     */
+    void enter(String frame, long totalWeight, long selfWeight);
+
+    void exit();
+}
@@ -0,0 +1,55 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.profiler;
+
+import org.apache.commons.lang3.EnumUtils;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Which threads the {@link SamplingProfiler} records on each tick.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public enum ProfilerMode {
+
+    /**
+     * Runnable threads only, i.e. where CPU time goes. Threads blocked in native I/O count as runnable too.
+     */
+    CPU,
+
+    /**
+     * All threads whatever their state, i.e. where wall clock time goes.
+     */
+    WALL,
+
+    /**
+     * Threads blocked on a monitor or waiting on a lock, the lock's class is recorded as the leaf frame.
+     */
+    CONTENTION;
+
+    /**
+     * Resolves the mode by its (case insensitive) name, falls back to {@link #CPU} when unknown.
+     */
+    public static ProfilerMode of(String name) {
+        ProfilerMode mode = EnumUtils.getEnum(ProfilerMode.class, StringUtils.upperCase(StringUtils.trim(name)));
+        return mode == null ? CPU : mode;
+    }
+}
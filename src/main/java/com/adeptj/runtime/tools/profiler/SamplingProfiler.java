@@ -0,0 +1,371 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.profiler;
+
+import java.io.IOException;
+import java.lang.management.LockInfo;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * On demand sampling profiler, periodically captures the stacks of all threads through {@link ThreadMXBean} and
+ * aggregates them in a {@link StackTrie}.
+ * <p>
+ * Meant to be safe on a loaded production node: a single session at a time, the interval and duration are clamped,
+ * the stack depth and the trie size are capped and if taking a sample gets expensive, e.g. with thousands of
+ * threads, the next one is postponed so that sampling stays within {@link #MAX_OVERHEAD_PERCENT} of one core. With
+ * thread CPU time enabled, CPU mode samples are weighted by the CPU time each thread consumed since its previous
+ * sample (in microseconds) instead of counting one per sample.
+ * <p>
+ * The last profile is kept until the next session starts.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public enum SamplingProfiler {
+
+    INSTANCE;
+
+    public static final long MIN_INTERVAL_MILLIS = 10L;
+
+    public static final long MAX_DURATION_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    public static final int MAX_DEPTH = 128;
+
+    public static final int MAX_NODES = 100_000;
+
+    private static final int MAX_OVERHEAD_PERCENT = 5;
+
+    private static final String THREAD_NAME = "SamplingProfiler";
+
+    private ScheduledExecutorService scheduler;
+
+    private volatile Session session;
+
+    /**
+     * Starts a profiling session unless one is running already.
+     *
+     * @return false if a session is running already.
+     */
+    public synchronized boolean start(ProfilerMode mode, long intervalMillis, long durationMillis,
+                                      boolean threadCpuTime) {
+        if (this.isRunning()) {
+            return false;
+        }
+        Session newSession = new Session(mode == null ? ProfilerMode.CPU : mode,
+                Math.max(intervalMillis, MIN_INTERVAL_MILLIS),
+                Math.min(Math.max(durationMillis, MIN_INTERVAL_MILLIS), MAX_DURATION_MILLIS), threadCpuTime);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.session = newSession;
+        this.scheduler.execute(() -> this.sample(newSession));
+        return true;
+    }
+
+    public synchronized void stop() {
+        if (this.scheduler != null) {
+            this.scheduler.shutdownNow();
+            this.scheduler = null;
+        }
+        Session current = this.session;
+        if (current != null && current.endTime == 0L) {
+            current.endTime = System.currentTimeMillis();
+        }
+    }
+
+    public boolean isRunning() {
+        Session current = this.session;
+        return current != null && current.endTime == 0L;
+    }
+
+    private void sample(Session current) {
+        if (current != this.session || current.endTime != 0L) {
+            return;
+        }
+        long started = System.nanoTime();
+        try {
+            current.sample();
+        } catch (RuntimeException ex) {
+            // Skip this tick, the next one may well succeed.
+        }
+        // Smoothed so that a single slow tick, e.g. the very first one while still cold, does not stall sampling.
+        long cost = System.nanoTime() - started;
+        current.averageCost = current.averageCost == 0L ? cost : (current.averageCost * 7 + cost) / 8;
+        long elapsed = System.currentTimeMillis() - current.startTime;
+        if (elapsed >= current.durationMillis) {
+            this.stop();
+            return;
+        }
+        long delay = Math.min(current.durationMillis - elapsed, Math.max(current.intervalMillis,
+                TimeUnit.NANOSECONDS.toMillis(current.averageCost * 100 / MAX_OVERHEAD_PERCENT)));
+        synchronized (this) {
+            if (this.scheduler != null && current == this.session) {
+                this.scheduler.schedule(() -> this.sample(current), delay, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Writes the profile in the collapsed stack format understood by flame graph tools, one line per distinct stack:
+     * the frames separated by semicolons, outermost first, followed by a space and the weight.
+     */
+    public void writeCollapsed(Appendable out) throws IOException {
+        Session current = this.session;
+        if (current == null) {
+            return;
+        }
+        StringBuilder stack = new StringBuilder(1024);
+        int[] lengths = new int[MAX_DEPTH + 2];
+        IOException[] failure = new IOException[1];
+        synchronized (current.trie) {
+            current.trie.visit(new FrameVisitor() {
+
+                private int depth;
+
+                @Override
+                public void enter(String frame, long totalWeight, long selfWeight) {
+                    lengths[this.depth++] = stack.length();
+                    if (stack.length() > 0) {
+                        stack.append(';');
+                    }
+                    stack.append(frame);
+                    if (selfWeight > 0 && failure[0] == null) {
+                        try {
+                            out.append(stack).append(' ').append(String.valueOf(selfWeight)).append('\n');
+                        } catch (IOException ex) {
+                            failure[0] = ex;
+                        }
+                    }
+                }
+
+                @Override
+                public void exit() {
+                    stack.setLength(lengths[--this.depth]);
+                }
+            }, 1L);
+        }
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+    }
+
+    /**
+     * Walks the profile depth first, e.g. to render a flame graph.
+     *
+     * @param minFraction subtrees weighing less than this fraction of the whole profile are skipped.
+     */
+    public void visit(FrameVisitor visitor, double minFraction) {
+        Session current = this.session;
+        if (current == null) {
+            return;
+        }
+        synchronized (current.trie) {
+            current.trie.visit(visitor, Math.max(1L, (long) (current.trie.totalWeight() * minFraction)));
+        }
+    }
+
+    public ProfilerMode getMode() {
+        Session current = this.session;
+        return current == null ? null : current.mode;
+    }
+
+    public long getSampleCount() {
+        Session current = this.session;
+        return current == null ? 0L : current.samples;
+    }
+
+    public long getTotalWeight() {
+        Session current = this.session;
+        if (current == null) {
+            return 0L;
+        }
+        synchronized (current.trie) {
+            return current.trie.totalWeight();
+        }
+    }
+
+    /**
+     * Weight of the samples which could not be recorded in full because the trie reached {@link #MAX_NODES}.
+     */
+    public long getTruncatedWeight() {
+        Session current = this.session;
+        if (current == null) {
+            return 0L;
+        }
+        synchronized (current.trie) {
+            return current.trie.truncatedWeight();
+        }
+    }
+
+    public long getStartTime() {
+        Session current = this.session;
+        return current == null ? 0L : current.startTime;
+    }
+
+    /**
+     * End of the last session, 0 while it is running.
+     */
+    public long getEndTime() {
+        Session current = this.session;
+        return current == null ? 0L : current.endTime;
+    }
+
+    public static SamplingProfiler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Settings and result of a single profiling session, sampled from the profiler thread only.
+     */
+    private static final class Session {
+
+        private final ProfilerMode mode;
+
+        private final long intervalMillis;
+
+        private final long durationMillis;
+
+        private final boolean threadCpuTime;
+
+        private final ThreadMXBean threads;
+
+        private final StackTrie trie;
+
+        private final Map<Long, Long> lastCpuTimes;
+
+        private final Map<StackTraceElement, Integer> frameIds;
+
+        private final int[] path;
+
+        private final long startTime;
+
+        private volatile long endTime;
+
+        private volatile long samples;
+
+        private long threadId;
+
+        private long averageCost;
+
+        private Session(ProfilerMode mode, long intervalMillis, long durationMillis, boolean threadCpuTime) {
+            this.mode = mode;
+            this.intervalMillis = intervalMillis;
+            this.durationMillis = durationMillis;
+            this.threads = ManagementFactory.getThreadMXBean();
+            this.threadCpuTime = threadCpuTime && mode == ProfilerMode.CPU && this.threads.isThreadCpuTimeSupported()
+                    && this.threads.isThreadCpuTimeEnabled();
+            this.trie = new StackTrie(MAX_NODES);
+            this.lastCpuTimes = new HashMap<>();
+            this.frameIds = new HashMap<>();
+            this.path = new int[MAX_DEPTH + 1];
+            this.startTime = System.currentTimeMillis();
+            this.threadId = -1L;
+        }
+
+        private void sample() {
+            if (this.threadId == -1L) {
+                this.threadId = Thread.currentThread().getId();
+            }
+            ThreadInfo[] infos = this.threads.getThreadInfo(this.threads.getAllThreadIds(), MAX_DEPTH);
+            Map<Long, Long> cpuTimes = this.threadCpuTime ? new HashMap<>() : null;
+            synchronized (this.trie) {
+                for (ThreadInfo info : infos) {
+                    if (info == null || info.getThreadId() == this.threadId) {
+                        continue;
+                    }
+                    long weight = 1L;
+                    if (cpuTimes != null) {
+                        // Every live thread gets its baseline, also when not sampled this time, so that the CPU
+                        // time it uses until it is sampled next is attributed to that sample.
+                        long cpuTime = this.threads.getThreadCpuTime(info.getThreadId());
+                        Long last = this.lastCpuTimes.get(info.getThreadId());
+                        if (cpuTime >= 0) {
+                            cpuTimes.put(info.getThreadId(), cpuTime);
+                        }
+                        weight = last == null || cpuTime < 0 ? 0L : TimeUnit.NANOSECONDS.toMicros(cpuTime - last);
+                    }
+                    if (!this.isSampled(info) || weight <= 0L) {
+                        continue;
+                    }
+                    this.trie.add(this.path, this.toPath(info), weight);
+                }
+            }
+            if (cpuTimes != null) {
+                // Threads which died since the last tick drop out of the baseline.
+                this.lastCpuTimes.clear();
+                this.lastCpuTimes.putAll(cpuTimes);
+            }
+            this.samples++;
+        }
+
+        private boolean isSampled(ThreadInfo info) {
+            switch (this.mode) {
+                case CPU:
+                    return info.getThreadState() == Thread.State.RUNNABLE;
+                case CONTENTION:
+                    return info.getThreadState() == Thread.State.BLOCKED
+                            || (info.getLockInfo() != null && info.getThreadState() != Thread.State.RUNNABLE);
+                default:
+                    return true;
+            }
+        }
+
+        /**
+         * Fills the reused path with the frame ids, outermost first, plus the lock in contention mode.
+         */
+        private int toPath(ThreadInfo info) {
+            StackTraceElement[] stack = info.getStackTrace();
+            int length = 0;
+            for (int i = stack.length - 1; i >= 0; i--) {
+                this.path[length++] = this.frameId(stack[i]);
+            }
+            LockInfo lock = info.getLockInfo();
+            if (this.mode == ProfilerMode.CONTENTION && lock != null) {
+                String state = info.getThreadState() == Thread.State.BLOCKED ? "[blocked on " : "[waiting on ";
+                this.path[length++] = this.trie.frameId(state + lock.getClassName() + ']');
+            }
+            return length;
+        }
+
+        /**
+         * Saves building the frame name on every sample, the cache is bounded just like the trie.
+         */
+        private int frameId(StackTraceElement element) {
+            Integer id = this.frameIds.get(element);
+            if (id == null) {
+                if (this.frameIds.size() >= MAX_NODES) {
+                    this.frameIds.clear();
+                }
+                id = this.trie.frameId(element.getClassName() + '.' + element.getMethodName());
+                this.frameIds.put(element, id);
+            }
+            return id;
+        }
+    }
+}
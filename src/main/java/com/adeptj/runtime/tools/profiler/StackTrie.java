@@ -0,0 +1,188 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.profiler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregates sampled stacks into a prefix tree stored in parallel primitive arrays, the frames themselves are
+ * interned once in a dictionary.
+ * <p>
+ * The number of nodes is capped, once reached, samples are attributed to the deepest frame already in the tree and
+ * counted as truncated, so memory stays bounded however long and varied the profile. Not thread safe, the
+ * {@link SamplingProfiler} guards it.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+final class StackTrie {
+
+    private static final int ROOT = 0;
+
+    private static final int NONE = -1;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final String OTHER_FRAMES = "[other frames]";
+
+    private final int maxNodes;
+
+    private final Map<String, Integer> frameIds;
+
+    private final List<String> frameNames;
+
+    private int[] frames;
+
+    private int[] firstChild;
+
+    private int[] nextSibling;
+
+    private long[] selfWeights;
+
+    private long[] totalWeights;
+
+    private int size;
+
+    private long truncated;
+
+    StackTrie(int maxNodes) {
+        this.maxNodes = Math.max(maxNodes, 1);
+        this.frameIds = new HashMap<>();
+        this.frameNames = new ArrayList<>();
+        int capacity = Math.min(INITIAL_CAPACITY, this.maxNodes);
+        this.frames = new int[capacity];
+        this.firstChild = new int[capacity];
+        this.nextSibling = new int[capacity];
+        this.selfWeights = new long[capacity];
+        this.totalWeights = new long[capacity];
+        this.frames[ROOT] = NONE;
+        this.firstChild[ROOT] = NONE;
+        this.nextSibling[ROOT] = NONE;
+        this.size = 1;
+    }
+
+    /**
+     * Interns the frame name, the id is what {@link #add(int[], int, long)} takes. The dictionary is capped like the
+     * nodes, frames beyond that all share one id.
+     */
+    int frameId(String frameName) {
+        Integer id = this.frameIds.get(frameName);
+        if (id == null) {
+            if (this.frameNames.size() >= this.maxNodes && !OTHER_FRAMES.equals(frameName)) {
+                return this.frameId(OTHER_FRAMES);
+            }
+            id = this.frameNames.size();
+            this.frameIds.put(frameName, id);
+            this.frameNames.add(frameName);
+        }
+        return id;
+    }
+
+    /**
+     * Adds one sample.
+     *
+     * @param path   frame ids, outermost first.
+     * @param length number of frame ids in path to use.
+     * @param weight sample count or time the sample stands for.
+     */
+    void add(int[] path, int length, long weight) {
+        int node = ROOT;
+        this.totalWeights[ROOT] += weight;
+        for (int i = 0; i < length; i++) {
+            int child = this.child(node, path[i]);
+            if (child == NONE) {
+                this.truncated += weight;
+                break;
+            }
+            node = child;
+            this.totalWeights[node] += weight;
+        }
+        this.selfWeights[node] += weight;
+    }
+
+    private int child(int parent, int frame) {
+        int last = NONE;
+        for (int child = this.firstChild[parent]; child != NONE; child = this.nextSibling[child]) {
+            if (this.frames[child] == frame) {
+                return child;
+            }
+            last = child;
+        }
+        if (this.size == this.maxNodes) {
+            return NONE;
+        }
+        if (this.size == this.frames.length) {
+            this.grow();
+        }
+        int child = this.size++;
+        this.frames[child] = frame;
+        this.firstChild[child] = NONE;
+        this.nextSibling[child] = NONE;
+        if (last == NONE) {
+            this.firstChild[parent] = child;
+        } else {
+            this.nextSibling[last] = child;
+        }
+        return child;
+    }
+
+    private void grow() {
+        int capacity = (int) Math.min((long) this.frames.length * 2, this.maxNodes);
+        this.frames = Arrays.copyOf(this.frames, capacity);
+        this.firstChild = Arrays.copyOf(this.firstChild, capacity);
+        this.nextSibling = Arrays.copyOf(this.nextSibling, capacity);
+        this.selfWeights = Arrays.copyOf(this.selfWeights, capacity);
+        this.totalWeights = Arrays.copyOf(this.totalWeights, capacity);
+    }
+
+    long totalWeight() {
+        return this.totalWeights[ROOT];
+    }
+
+    long truncatedWeight() {
+        return this.truncated;
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Walks the tree depth first skipping the subtrees lighter than the given weight, the root is not reported.
+     */
+    void visit(FrameVisitor visitor, long minWeight) {
+        this.visitChildren(ROOT, visitor, minWeight);
+    }
+
+    private void visitChildren(int parent, FrameVisitor visitor, long minWeight) {
+        for (int child = this.firstChild[parent]; child != NONE; child = this.nextSibling[child]) {
+            if (this.totalWeights[child] < minWeight) {
+                continue;
+            }
+            visitor.enter(this.frameNames.get(this.frames[child]), this.totalWeights[child], this.selfWeights[child]);
+            this.visitChildren(child, visitor, minWeight);
+            visitor.exit();
+        }
+    }
+}
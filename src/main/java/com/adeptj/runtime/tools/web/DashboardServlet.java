@@ -0,0 +1,135 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.web;
+
+import com.adeptj.runtime.tools.dashboard.BundleInfo;
+import com.adeptj.runtime.tools.dashboard.DashboardModel;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.osgi.framework.BundleContext;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serves the dashboard's collapsible sections from the cached {@link DashboardModel} one page at a time, so that
+ * they are only produced when expanded. /bundles lists the installed bundles, /sysprops the system properties.
+ * <p>
+ * Parameters: q (case insensitive filter on name and value), offset and size. The response is
+ * {"total":..,"matched":..,"offset":..,"items":[..]}, total being the unfiltered count.
+ * <p>
+ * Bundles are listed from the {@link BundleContext} found in the servlet context attribute named after its class,
+ * see {@link DashboardModel#bind(BundleContext)}.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public class DashboardServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 2754146328519610283L;
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+
+    private static final int MAX_PAGE_SIZE = 500;
+
+    @Override
+    public void init() {
+        this.bindBundleContext();
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        // Picks up the context published after init or replaced by a framework restart.
+        this.bindBundleContext();
+        String section = StringUtils.removeStart(req.getPathInfo(), "/");
+        String filter = StringUtils.trimToNull(req.getParameter("q"));
+        int offset = Math.max(NumberUtils.toInt(req.getParameter("offset"), 0), 0);
+        int size = Math.min(Math.max(NumberUtils.toInt(req.getParameter("size"), DEFAULT_PAGE_SIZE), 1),
+                MAX_PAGE_SIZE);
+        StringBuilder json = new StringBuilder(size * 96);
+        if ("bundles".equals(section)) {
+            List<BundleInfo> bundles = DashboardModel.getInstance().getBundles();
+            int matched = 0;
+            for (BundleInfo bundle : bundles) {
+                if (filter != null && !StringUtils.containsIgnoreCase(bundle.getSymbolicName(), filter)
+                        && !StringUtils.containsIgnoreCase(bundle.getVersion(), filter)) {
+                    continue;
+                }
+                if (matched >= offset && matched < offset + size) {
+                    Json.quote((json.length() == 0 ? json : json.append(',')).append("{\"id\":").append(bundle.getId())
+                            .append(",\"name\":"), bundle.getSymbolicName()).append(",\"version\":");
+                    Json.quote(json, bundle.getVersion()).append(",\"state\":");
+                    Json.quote(json, bundle.getState()).append('}');
+                }
+                matched++;
+            }
+            this.write(resp, bundles.size(), matched, offset, json);
+        } else if ("sysprops".equals(section)) {
+            List<Map.Entry<String, String>> properties = DashboardModel.getInstance().getSystemProperties();
+            int matched = 0;
+            for (Map.Entry<String, String> property : properties) {
+                if (filter != null && !StringUtils.containsIgnoreCase(property.getKey(), filter)
+                        && !StringUtils.containsIgnoreCase(property.getValue(), filter)) {
+                    continue;
+                }
+                if (matched >= offset && matched < offset + size) {
+                    Json.quote((json.length() == 0 ? json : json.append(',')).append("{\"key\":"), property.getKey())
+                            .append(",\"value\":");
+                    Json.quote(json, property.getValue()).append('}');
+                }
+                matched++;
+            }
+            this.write(resp, properties.size(), matched, offset, json);
+        } else {
+            resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (this.getServletContext().getAttribute(BundleContext.class.getName()) instanceof BundleContext) {
+            DashboardModel.getInstance().unbind();
+        }
+    }
+
+    private void bindBundleContext() {
+        Object bundleContext = this.getServletContext().getAttribute(BundleContext.class.getName());
+        if (bundleContext instanceof BundleContext) {
+            DashboardModel.getInstance().bind((BundleContext) bundleContext);
+        }
+    }
+
+    private void write(HttpServletResponse resp, int total, int matched, int offset, StringBuilder items)
+            throws IOException {
+        StringBuilder json = new StringBuilder(items.length() + 64)
+                .append("{\"total\":").append(total)
+                .append(",\"matched\":").append(matched)
+                .append(",\"offset\":").append(offset)
+                .append(",\"items\":[").append(items).append("]}");
+        resp.setCharacterEncoding("UTF-8");
+        resp.setContentType("application/json");
+        resp.setHeader("Cache-Control", "no-store");
+        resp.getWriter().write(json.toString());
+    }
+}
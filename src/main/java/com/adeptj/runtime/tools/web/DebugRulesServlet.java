@@ -0,0 +1,100 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.web;
+
+import ch.qos.logback.classic.Level;
+import com.adeptj.runtime.tools.logging.DynamicDebugFilter;
+import com.adeptj.runtime.tools.logging.LogbackManager;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Manages the rules of the {@link DynamicDebugFilter} from the dashboard.
+ * <p>
+ * POST with action=add (key, value, level, logger, ttl in minutes), action=remove (id) or action=clear. Both GET and
+ * POST return the active rules: {"now":..,"rules":[{"id":..,"key":..,"value":..,"level":..,"logger":..,
+ * "expiresAt":..}]}. POSTs from other sites are rejected, see {@link SameOrigin}.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public class DebugRulesServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 8120384431752093166L;
+
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        if (!SameOrigin.isSameOrigin(req)) {
+            resp.sendError(HttpServletResponse.SC_FORBIDDEN, "Cross-site request rejected!");
+            return;
+        }
+        DynamicDebugFilter filter = LogbackManager.getInstance().getDynamicDebugFilter();
+        String action = req.getParameter("action");
+        if ("add".equals(action)) {
+            try {
+                filter.addRule(req.getParameter("key"), req.getParameter("value"),
+                        Level.toLevel(req.getParameter("level"), Level.DEBUG), req.getParameter("logger"),
+                        TimeUnit.MINUTES.toMillis(NumberUtils.toLong(req.getParameter("ttl"), 0L)));
+            } catch (IllegalArgumentException | IllegalStateException ex) {
+                resp.sendError(HttpServletResponse.SC_BAD_REQUEST, ex.getMessage());
+                return;
+            }
+        } else if ("remove".equals(action)) {
+            filter.removeRule(NumberUtils.toLong(req.getParameter("id"), -1L));
+        } else if ("clear".equals(action)) {
+            filter.clearRules();
+        } else {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "Unknown action!");
+            return;
+        }
+        this.writeRules(resp, filter);
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        this.writeRules(resp, LogbackManager.getInstance().getDynamicDebugFilter());
+    }
+
+    private void writeRules(HttpServletResponse resp, DynamicDebugFilter filter) throws IOException {
+        StringBuilder json = new StringBuilder(1024).append("{\"now\":").append(System.currentTimeMillis())
+                .append(",\"rules\":[");
+        for (DynamicDebugFilter.Rule rule : filter.getRules()) {
+            if (json.charAt(json.length() - 1) != '[') {
+                json.append(',');
+            }
+            json.append("{\"id\":").append(rule.getId()).append(",\"key\":");
+            Json.quote(json, rule.getMdcKey()).append(",\"value\":");
+            Json.quote(json, rule.getMdcValue()).append(",\"level\":");
+            Json.quote(json, rule.getLevel().toString()).append(",\"logger\":");
+            Json.quote(json, rule.getLoggerPrefix()).append(",\"expiresAt\":").append(rule.getExpiresAt())
+                    .append('}');
+        }
+        json.append("]}");
+        resp.setCharacterEncoding("UTF-8");
+        resp.setContentType("application/json");
+        resp.setHeader("Cache-Control", "no-store");
+        resp.getWriter().write(json.toString());
+    }
+}
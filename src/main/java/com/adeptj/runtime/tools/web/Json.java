@@ -0,0 +1,84 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.web;
+
+/**
+ * Bare minimum JSON writing support for the dashboard endpoints, which only ever produce flat objects and arrays.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+final class Json {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private Json() {
+    }
+
+    /**
+     * Appends the value as a quoted and escaped JSON string, null is written as JSON null.
+     */
+    static StringBuilder quote(StringBuilder json, String value) {
+        if (value == null) {
+            return json.append("null");
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            switch (ch) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    // Line and paragraph separators are valid JSON but not valid JavaScript.
+                    if (ch < 0x20 || ch == 0x2028 || ch == 0x2029) {
+                        json.append("\\u").append(HEX[(ch >> 12) & 0xF]).append(HEX[(ch >> 8) & 0xF])
+                                .append(HEX[(ch >> 4) & 0xF]).append(HEX[ch & 0xF]);
+                    } else {
+                        json.append(ch);
+                    }
+            }
+        }
+        return json.append('"');
+    }
+
+    /**
+     * Appends the number, whole numbers without a fraction, NaN and infinities (not valid JSON) as null.
+     */
+    static StringBuilder number(StringBuilder json, double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return json.append("null");
+        }
+        long whole = (long) value;
+        return whole == value ? json.append(whole) : json.append(value);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.web;
+
+import com.adeptj.runtime.tools.metrics.JvmMetricsSampler;
+import com.adeptj.runtime.tools.metrics.Samples;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Serves the samples of the {@link JvmMetricsSampler} following the cursor returned to the client last time, so that
+ * the dashboard charts only ever fetch new points. The sampler is started on first use and stopped along with the
+ * servlet.
+ * <p>
+ * The response is column wise: {"interval":..,"capacity":..,"cursor":..,"series":[names],"t":[timestamps],"v":[[values
+ * of the first series],..]}.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public class JvmMetricsServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 5930257129781526319L;
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        JvmMetricsSampler sampler = JvmMetricsSampler.getInstance();
+        sampler.start();
+        Samples samples = sampler.getSamples(NumberUtils.toLong(req.getParameter("cursor"), 0L));
+        StringBuilder json = new StringBuilder(256 + samples.size() * samples.seriesCount() * 12);
+        json.append("{\"interval\":").append(sampler.getInterval())
+                .append(",\"capacity\":").append(sampler.getCapacity())
+                .append(",\"cursor\":").append(samples.getNext())
+                .append(",\"series\":[");
+        for (int series = 0; series < samples.seriesCount(); series++) {
+            Json.quote(series == 0 ? json : json.append(','), samples.getName(series));
+        }
+        json.append("],\"t\":[");
+        for (int i = 0; i < samples.size(); i++) {
+            (i == 0 ? json : json.append(',')).append(samples.getTimestamp(i));
+        }
+        json.append("],\"v\":[");
+        for (int series = 0; series < samples.seriesCount(); series++) {
+            (series == 0 ? json : json.append(',')).append('[');
+            for (int i = 0; i < samples.size(); i++) {
+                Json.number(i == 0 ? json : json.append(','), samples.getValue(series, i));
+            }
+            json.append(']');
+        }
+        json.append("]}");
+        resp.setCharacterEncoding("UTF-8");
+        resp.setContentType("application/json");
+        resp.setHeader("Cache-Control", "no-store");
+        resp.getWriter().write(json.toString());
+    }
+
+    @Override
+    public void destroy() {
+        JvmMetricsSampler.getInstance().stop();
+    }
+}
@@ -0,0 +1,110 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.web;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import ch.qos.logback.core.encoder.LayoutWrappingEncoder;
+import ch.qos.logback.core.rolling.RollingFileAppender;
+import ch.qos.logback.core.rolling.RollingPolicy;
+import ch.qos.logback.core.rolling.RollingPolicyBase;
+import com.adeptj.runtime.tools.logging.BinaryLogEncoder;
+import com.adeptj.runtime.tools.logging.LogQuery;
+import com.adeptj.runtime.tools.logging.LogSearch;
+import com.adeptj.runtime.tools.logging.LogSearchPage;
+import com.adeptj.runtime.tools.logging.LogbackManager;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+/**
+ * Searches the server log by time window, level, logger and text, see {@link LogSearch}, for the dashboard's log
+ * search view. Results are returned as JSON one page at a time along with the cursor of the next page.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public class LogSearchServlet extends HttpServlet {
+
+    private static final long serialVersionUID = -3017392851442287312L;
+
+    private static final int MAX_PAGE_SIZE = 500;
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        Appender<ILoggingEvent> appender = LogbackManager.getInstance().getAppender(LogbackManager.APPENDER_FILE);
+        if (!(appender instanceof FileAppender)
+                || ((FileAppender<ILoggingEvent>) appender).getEncoder() instanceof BinaryLogEncoder) {
+            resp.sendError(HttpServletResponse.SC_NOT_FOUND, "No log file to search!");
+            return;
+        }
+        FileAppender<ILoggingEvent> fileAppender = (FileAppender<ILoggingEvent>) appender;
+        Charset charset = fileAppender.getEncoder() instanceof LayoutWrappingEncoder
+                ? ((LayoutWrappingEncoder<ILoggingEvent>) fileAppender.getEncoder()).getCharset()
+                : null;
+        LogQuery query = LogQuery.builder()
+                .from(NumberUtils.toLong(req.getParameter("from"), 0L))
+                .to(NumberUtils.toLong(req.getParameter("to"), Long.MAX_VALUE))
+                .minLevel(Level.toLevel(req.getParameter("level"), null))
+                .logger(StringUtils.trimToNull(req.getParameter("logger")))
+                .text(StringUtils.trimToNull(req.getParameter("q")))
+                .pageSize(Math.min(NumberUtils.toInt(req.getParameter("size"), LogQuery.DEFAULT_PAGE_SIZE),
+                        MAX_PAGE_SIZE))
+                .cursor(StringUtils.trimToNull(req.getParameter("cursor")))
+                .build();
+        RollingPolicy rollingPolicy = fileAppender instanceof RollingFileAppender
+                ? ((RollingFileAppender<ILoggingEvent>) fileAppender).getRollingPolicy()
+                : null;
+        String rolloverFile = rollingPolicy instanceof RollingPolicyBase
+                ? ((RollingPolicyBase) rollingPolicy).getFileNamePattern()
+                : null;
+        LogSearchPage page;
+        try {
+            page = new LogSearch(fileAppender.getFile(), rolloverFile, charset).search(query);
+        } catch (IllegalArgumentException ex) {
+            resp.sendError(HttpServletResponse.SC_GONE, ex.getMessage());
+            return;
+        }
+        StringBuilder json = new StringBuilder(8192).append("{\"next\":");
+        Json.quote(json, page.getNextCursor()).append(",\"hits\":[");
+        for (LogSearchPage.Hit hit : page.getHits()) {
+            if (json.charAt(json.length() - 1) != '[') {
+                json.append(',');
+            }
+            Json.quote(json.append("{\"segment\":"), hit.getSegment())
+                    .append(",\"offset\":").append(hit.getOffset())
+                    .append(",\"level\":");
+            Json.quote(json, hit.getLevel()).append(",\"text\":");
+            Json.quote(json, hit.getText()).append('}');
+        }
+        json.append("]}");
+        resp.setCharacterEncoding("UTF-8");
+        resp.setContentType("application/json");
+        resp.setHeader("Cache-Control", "no-store");
+        resp.getWriter().write(json.toString());
+    }
+}
@@ -0,0 +1,416 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.web;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import com.adeptj.runtime.tools.logging.LiveTailAppender;
+import com.adeptj.runtime.tools.logging.LogbackManager;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Streams the events retained by the {@link LiveTailAppender} to the dashboard's live log panel.
+ * <p>
+ * Clients pass the cursor returned by the previous call and get the events logged since, either as server-sent events
+ * (mode=sse or an Accept header of text/event-stream) or as a single JSON document, in which case the request is held
+ * until at least one event arrives or the wait time elapses (long poll). Both support the level (minimum level) and
+ * logger (logger name prefix) filters.
+ * <p>
+ * Waiting requests are put in async mode, they hold no container thread. The appender wakes a single dispatcher thread
+ * when events arrive, which also ends the requests whose time is up, checked every {@link #DISPATCH_INTERVAL_MILLIS}.
+ * Server-sent event streams are written in non-blocking mode, a slow client only ever holds up its own stream, never
+ * logging or the other clients. They are closed after {@link #MAX_STREAM_MILLIS}, browsers reconnect on their own
+ * passing the Last-Event-ID which is used as the cursor. Requests which can't go async, because of a filter not
+ * supporting it, are answered right away with whatever there is.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public class LogTailServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 2891735217356254711L;
+
+    private static final String PARAM_CURSOR = "cursor";
+
+    private static final String PARAM_LEVEL = "level";
+
+    private static final String PARAM_LOGGER = "logger";
+
+    private static final String PARAM_MODE = "mode";
+
+    private static final String PARAM_WAIT = "wait";
+
+    private static final String MODE_SSE = "sse";
+
+    private static final String CONTENT_TYPE_SSE = "text/event-stream";
+
+    private static final String CONTENT_TYPE_JSON = "application/json";
+
+    private static final String HEADER_LAST_EVENT_ID = "Last-Event-ID";
+
+    private static final String DISPATCHER_THREAD_NAME = "LogTail-Dispatcher";
+
+    private static final int INITIAL_EVENTS = 200;
+
+    private static final int MAX_EVENTS_PER_READ = 500;
+
+    private static final long DISPATCH_INTERVAL_MILLIS = 1000L;
+
+    private static final long DEFAULT_WAIT_MILLIS = 20_000L;
+
+    private static final long MAX_WAIT_MILLIS = 30_000L;
+
+    private static final long MAX_STREAM_MILLIS = 60_000L;
+
+    private static final long KEEP_ALIVE_MILLIS = 15_000L;
+
+    /**
+     * Leeway for the container's async timeout, the dispatcher is meant to end requests before.
+     */
+    private static final long ASYNC_TIMEOUT_MARGIN_MILLIS = 5000L;
+
+    private final transient Set<TailRequest> waiting = ConcurrentHashMap.newKeySet();
+
+    private final transient AtomicBoolean dispatchPending = new AtomicBoolean();
+
+    private final transient Runnable wakeUp = this::wakeUp;
+
+    private transient volatile ScheduledExecutorService dispatcher;
+
+    @Override
+    public void init() {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, DISPATCHER_THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::dispatch, DISPATCH_INTERVAL_MILLIS, DISPATCH_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+        this.dispatcher = executor;
+    }
+
+    @Override
+    public void destroy() {
+        this.dispatcher.shutdownNow();
+        LiveTailAppender appender = this.getTailAppender();
+        if (appender != null) {
+            appender.removeListener(this.wakeUp);
+        }
+        for (TailRequest request : this.waiting) {
+            request.close();
+        }
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        LiveTailAppender appender = this.getTailAppender();
+        if (appender == null) {
+            resp.sendError(HttpServletResponse.SC_NOT_FOUND, "Live tail is not enabled!");
+            return;
+        }
+        Level minLevel = Level.toLevel(req.getParameter(PARAM_LEVEL), Level.ALL);
+        String loggerPrefix = StringUtils.trimToNull(req.getParameter(PARAM_LOGGER));
+        resp.setCharacterEncoding("UTF-8");
+        resp.setHeader("Cache-Control", "no-store");
+        appender.addListener(this.wakeUp);
+        long now = System.currentTimeMillis();
+        boolean async = req.isAsyncSupported();
+        if (MODE_SSE.equals(req.getParameter(PARAM_MODE))
+                || StringUtils.contains(req.getHeader("Accept"), CONTENT_TYPE_SSE)) {
+            long lastEventId = NumberUtils.toLong(req.getHeader(HEADER_LAST_EVENT_ID), -1L);
+            long cursor = lastEventId >= 0 ? lastEventId + 1 : this.getCursor(req, appender);
+            resp.setContentType(CONTENT_TYPE_SSE);
+            TailRequest request = new TailRequest(resp, appender, true, cursor, minLevel, loggerPrefix,
+                    async ? now + MAX_STREAM_MILLIS : now);
+            if (async) {
+                this.park(req, request);
+            } else {
+                request.serve(now);
+            }
+        } else {
+            long wait = Math.min(NumberUtils.toLong(req.getParameter(PARAM_WAIT), DEFAULT_WAIT_MILLIS),
+                    MAX_WAIT_MILLIS);
+            TailRequest request = new TailRequest(resp, appender, false, this.getCursor(req, appender), minLevel,
+                    loggerPrefix, async ? now + Math.max(wait, 0L) : now);
+            if (!request.serve(now)) {
+                this.park(req, request);
+            }
+        }
+    }
+
+    /**
+     * Puts the request in async mode and leaves it to the dispatcher.
+     */
+    private void park(HttpServletRequest req, TailRequest request) throws IOException {
+        AsyncContext context = req.startAsync();
+        context.setTimeout(request.deadline - System.currentTimeMillis() + ASYNC_TIMEOUT_MARGIN_MILLIS);
+        context.addListener(request);
+        request.context = context;
+        if (request.stream) {
+            context.getResponse().getOutputStream().setWriteListener(request);
+        }
+        this.waiting.add(request);
+        // Events logged since the request was first served would otherwise wait for the next one.
+        this.wakeUp();
+    }
+
+    /**
+     * Run by the appender for every event, so all it does is schedule a dispatch unless one is pending already.
+     */
+    private void wakeUp() {
+        if (!this.waiting.isEmpty() && this.dispatchPending.compareAndSet(false, true)) {
+            try {
+                this.dispatcher.execute(this::dispatch);
+            } catch (RejectedExecutionException ex) {
+                // Destroyed meanwhile.
+            }
+        }
+    }
+
+    /**
+     * Serves all the waiting requests, only ever called from the dispatcher thread.
+     */
+    private void dispatch() {
+        this.dispatchPending.set(false);
+        long now = System.currentTimeMillis();
+        for (TailRequest request : this.waiting) {
+            try {
+                if (request.serve(now)) {
+                    this.waiting.remove(request);
+                }
+            } catch (IOException | RuntimeException ex) {
+                // The client is gone or the container gave up on the request, an exception escaping here would
+                // also cancel the periodic dispatch.
+                request.close();
+            }
+        }
+    }
+
+    private static StringBuilder appendEvent(StringBuilder json, long sequence, long timestamp, Level level,
+                                             String loggerName, String text) {
+        json.append("{\"seq\":").append(sequence)
+                .append(",\"ts\":").append(timestamp)
+                .append(",\"level\":\"").append(level).append('"')
+                .append(",\"logger\":");
+        Json.quote(json, loggerName).append(",\"text\":");
+        return Json.quote(json, text).append('}');
+    }
+
+    /**
+     * A negative or missing cursor means the client is new, it gets the most recent events to begin with.
+     */
+    private long getCursor(HttpServletRequest req, LiveTailAppender appender) {
+        long cursor = NumberUtils.toLong(req.getParameter(PARAM_CURSOR), -1L);
+        if (cursor < 0) {
+            cursor = Math.max(appender.getOldestSequence(), appender.getNextSequence() - INITIAL_EVENTS);
+        }
+        return cursor;
+    }
+
+    private LiveTailAppender getTailAppender() {
+        Appender<ILoggingEvent> appender = LogbackManager.getInstance().getAppender(LogbackManager.APPENDER_TAIL);
+        return appender instanceof LiveTailAppender && appender.isStarted() ? (LiveTailAppender) appender : null;
+    }
+
+    /**
+     * A stream or long poll, served on the request thread first and then by the dispatcher once parked.
+     */
+    private final class TailRequest implements AsyncListener, WriteListener {
+
+        private final HttpServletResponse resp;
+
+        private final LiveTailAppender appender;
+
+        private final boolean stream;
+
+        private final Level minLevel;
+
+        private final String loggerPrefix;
+
+        private final long deadline;
+
+        private final long missed;
+
+        private final StringBuilder events;
+
+        private AsyncContext context;
+
+        private long next;
+
+        private long lastWrite;
+
+        private boolean done;
+
+        private TailRequest(HttpServletResponse resp, LiveTailAppender appender, boolean stream, long cursor,
+                            Level minLevel, String loggerPrefix, long deadline) {
+            this.resp = resp;
+            this.appender = appender;
+            this.stream = stream;
+            this.minLevel = minLevel;
+            this.loggerPrefix = loggerPrefix;
+            this.deadline = deadline;
+            this.missed = Math.max(appender.getOldestSequence() - cursor, 0L);
+            this.events = new StringBuilder(4096);
+            this.next = cursor;
+            this.lastWrite = System.currentTimeMillis();
+        }
+
+        /**
+         * Sends whatever there is to send and completes the response once its time is up.
+         *
+         * @return true if the response is complete.
+         */
+        private synchronized boolean serve(long now) throws IOException {
+            if (this.done) {
+                return true;
+            }
+            // A replaced appender hands its events over to its successor, the client has to start over.
+            this.done = (this.stream ? this.writeEvents(now) : this.writePoll(now)) || !this.appender.isStarted();
+            if (this.done && this.context != null) {
+                this.context.complete();
+            }
+            return this.done;
+        }
+
+        /**
+         * @return true if the stream is due to be closed.
+         */
+        private boolean writeEvents(long now) throws IOException {
+            ServletOutputStream out = this.resp.getOutputStream();
+            // Once parked the stream is non-blocking, nothing is read off the appender until it can be written.
+            while (this.context == null || out.isReady()) {
+                long previous = this.next;
+                this.events.setLength(0);
+                long gap = this.appender.getOldestSequence() - this.next;
+                if (gap > 0) {
+                    // Evicted before they could be sent, let the client know the stream is not contiguous.
+                    this.events.append("event: gap\ndata: {\"missed\":").append(gap).append("}\n\n");
+                }
+                this.next = this.appender.read(this.next, MAX_EVENTS_PER_READ, this.minLevel, this.loggerPrefix,
+                        (sequence, timestamp, level, loggerName, text) -> {
+                            this.events.append("id: ").append(sequence).append("\ndata: ");
+                            appendEvent(this.events, sequence, timestamp, level, loggerName, text).append("\n\n");
+                        });
+                if (this.events.length() == 0 && now - this.lastWrite >= KEEP_ALIVE_MILLIS) {
+                    this.events.append(": keep-alive\n\n");
+                }
+                if (this.events.length() > 0) {
+                    out.write(this.events.toString().getBytes(StandardCharsets.UTF_8));
+                    this.lastWrite = now;
+                }
+                // Nothing read means caught up, or the appender was stopped meanwhile.
+                if (this.next == previous || this.next >= this.appender.getNextSequence()) {
+                    break;
+                }
+            }
+            if (this.context == null || out.isReady()) {
+                out.flush();
+            }
+            return now >= this.deadline;
+        }
+
+        /**
+         * @return true if the response was written, i.e. there were events or the wait time elapsed.
+         */
+        private boolean writePoll(long now) throws IOException {
+            this.next = this.appender.read(this.next, MAX_EVENTS_PER_READ, this.minLevel, this.loggerPrefix,
+                    (sequence, timestamp, level, loggerName, text) -> {
+                        if (this.events.length() > 0) {
+                            this.events.append(',');
+                        }
+                        appendEvent(this.events, sequence, timestamp, level, loggerName, text);
+                    });
+            if (this.events.length() == 0 && now < this.deadline && this.appender.isStarted()) {
+                return false;
+            }
+            this.resp.setContentType(CONTENT_TYPE_JSON);
+            this.resp.getWriter()
+                    .append("{\"cursor\":").append(String.valueOf(this.next))
+                    .append(",\"missed\":").append(String.valueOf(this.missed))
+                    .append(",\"events\":[").append(this.events).append("]}");
+            return true;
+        }
+
+        /**
+         * Completes the response as is, e.g. when the client is gone or the servlet destroyed.
+         */
+        private synchronized void close() {
+            if (!this.done) {
+                this.done = true;
+                try {
+                    this.context.complete();
+                } catch (IllegalStateException ex) {
+                    // Completed by the container already.
+                }
+            }
+            LogTailServlet.this.waiting.remove(this);
+        }
+
+        @Override
+        public void onWritePossible() {
+            LogTailServlet.this.wakeUp();
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            this.close();
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            LogTailServlet.this.waiting.remove(this);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            this.close();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            this.close();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Not restarted.
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.web;
+
+import com.adeptj.runtime.tools.logging.AppenderMetrics;
+import com.adeptj.runtime.tools.logging.LatencyHistogram;
+import com.adeptj.runtime.tools.logging.PipelineMetrics;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Serves the current {@link PipelineMetrics} of all instrumented appenders.
+ * <p>
+ * Counters are cumulative, the dashboard derives the rates from two consecutive responses using the time field. The
+ * latencies are in nanoseconds: {"time":..,"appenders":[{"name":..,"events":..,"bytes":..,"errors":..,
+ * "discarded":..,"dropped":..,"queueDepth":..,"queueCapacity":..,"encode":{"p50":..,"p99":..,"max":..},
+ * "write":{..}}]}.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public class LoggingMetricsServlet extends HttpServlet {
+
+    private static final long serialVersionUID = -2838203614775398104L;
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        List<AppenderMetrics> all = PipelineMetrics.getInstance().getAll();
+        StringBuilder json = new StringBuilder(64 + all.size() * 320);
+        json.append("{\"time\":").append(System.currentTimeMillis()).append(",\"appenders\":[");
+        for (int i = 0; i < all.size(); i++) {
+            AppenderMetrics metrics = all.get(i);
+            Json.quote((i == 0 ? json : json.append(',')).append("{\"name\":"), metrics.getName())
+                    .append(",\"events\":").append(metrics.getEventCount())
+                    .append(",\"bytes\":").append(metrics.getByteCount())
+                    .append(",\"errors\":").append(metrics.getErrorCount())
+                    .append(",\"discarded\":").append(metrics.getDiscardedCount())
+                    .append(",\"dropped\":").append(metrics.getDroppedCount())
+                    .append(",\"queueDepth\":").append(metrics.getQueueDepth())
+                    .append(",\"queueCapacity\":").append(metrics.getQueueCapacity());
+            latency(json.append(",\"encode\":"), metrics.getEncodeLatency());
+            latency(json.append(",\"write\":"), metrics.getWriteLatency());
+            json.append('}');
+        }
+        json.append("]}");
+        resp.setCharacterEncoding("UTF-8");
+        resp.setContentType("application/json");
+        resp.setHeader("Cache-Control", "no-store");
+        resp.getWriter().write(json.toString());
+    }
+
+    private static void latency(StringBuilder json, LatencyHistogram.Snapshot snapshot) {
+        json.append("{\"p50\":").append(snapshot.getPercentile(50.0))
+                .append(",\"p99\":").append(snapshot.getPercentile(99.0))
+                .append(",\"max\":").append(snapshot.getMax())
+                .append('}');
+    }
+}
@@ -0,0 +1,95 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.web;
+
+import com.adeptj.runtime.tools.logging.LogbackManager;
+import com.adeptj.runtime.tools.logging.MergedLogReader;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Pages through the server log in time order, the shards of a sharded file appender merged into one, see
+ * {@link MergedLogReader}, for the dashboard's merged log view. Events are returned as JSON starting at the given
+ * time, optionally only the ones containing the given text, along with the cursor of the next page, see
+ * {@link MergedLogReader#cursor()}. A cursor whose files were pruned meanwhile is rejected as gone.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public class MergedLogServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 5482617023370154120L;
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
+    private static final int MAX_PAGE_SIZE = 500;
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        long from = NumberUtils.toLong(req.getParameter("from"), 0L);
+        int size = Math.max(Math.min(NumberUtils.toInt(req.getParameter("size"), DEFAULT_PAGE_SIZE), MAX_PAGE_SIZE), 1);
+        String text = StringUtils.trimToNull(req.getParameter("q"));
+        MergedLogReader reader;
+        try {
+            reader = MergedLogReader.of(LogbackManager.getInstance().getAppender(LogbackManager.APPENDER_FILE), from,
+                    StringUtils.trimToNull(req.getParameter("cursor")));
+        } catch (IllegalArgumentException ex) {
+            resp.sendError(HttpServletResponse.SC_GONE, ex.getMessage());
+            return;
+        }
+        if (reader == null) {
+            resp.sendError(HttpServletResponse.SC_NOT_FOUND, "No log file to read!");
+            return;
+        }
+        StringBuilder json = new StringBuilder(8192);
+        String next = null;
+        int hits = 0;
+        try (MergedLogReader merged = reader) {
+            MergedLogReader.Entry entry;
+            while ((entry = merged.next()) != null) {
+                if (entry.getTimestamp() < from || (text != null && !entry.getText().contains(text))) {
+                    continue;
+                }
+                if (hits++ > 0) {
+                    json.append(',');
+                }
+                json.append("{\"timestamp\":").append(entry.getTimestamp()).append(",\"shard\":")
+                        .append(entry.getShard()).append(",\"text\":");
+                Json.quote(json, StringUtils.removeEnd(entry.getText(), "\n")).append('}');
+                if (hits == size) {
+                    // Where each shard continues, the next page reads on from there rather than from the start.
+                    next = merged.cursor();
+                    break;
+                }
+            }
+        }
+        resp.setCharacterEncoding("UTF-8");
+        resp.setContentType("application/json");
+        resp.setHeader("Cache-Control", "no-store");
+        StringBuilder page = new StringBuilder(json.length() + 64).append("{\"next\":");
+        Json.quote(page, next).append(",\"entries\":[").append(json).append("]}");
+        resp.getWriter().write(page.toString());
+    }
+}
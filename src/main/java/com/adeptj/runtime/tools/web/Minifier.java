@@ -0,0 +1,254 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.web;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Conservative JavaScript and CSS minification for the {@link StaticResourceCompiler}.
+ * <p>
+ * Comments, indentation, trailing whitespace and blank lines are removed while strings and regular expression literals
+ * are copied untouched. License comments are kept, i.e. the comments leading the file and those starting with /*! or
+ * carrying an @license or @preserve tag. JavaScript keeps its line breaks so automatic semicolon
+ * insertion still sees the same code, gzip takes care of most of the remaining redundancy anyway.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+final class Minifier {
+
+    private static final String REGEX_PRECEDING_CHARS = "(,=:[!&|?{};+-*%<>~^";
+
+    private static final Set<String> REGEX_PRECEDING_KEYWORDS = new HashSet<>(Arrays.asList("return", "typeof",
+            "case", "do", "else", "in", "of", "new", "delete", "void", "throw", "instanceof", "yield"));
+
+    private static final String CSS_SEPARATORS = "{};,>";
+
+    private Minifier() {
+    }
+
+    static String minifyJs(String source) {
+        StringBuilder out = new StringBuilder(source.length());
+        // Output up to here is string or regex content, whitespace trimming must not reach into it.
+        int verbatimEnd = 0;
+        // No code yet, comments are still part of the file header.
+        boolean leading = true;
+        int length = source.length();
+        int i = 0;
+        while (i < length) {
+            char ch = source.charAt(i);
+            char next = i + 1 < length ? source.charAt(i + 1) : 0;
+            if (ch == '\'' || ch == '"' || ch == '`') {
+                int end = skipQuoted(source, i, ch);
+                out.append(source, i, end);
+                verbatimEnd = out.length();
+                leading = false;
+                i = end;
+            } else if (ch == '/' && next == '/') {
+                int end = source.indexOf('\n', i);
+                end = end < 0 ? length : end;
+                if (isPreserved(source, i, end, leading)) {
+                    out.append(source, i, end);
+                    verbatimEnd = out.length();
+                }
+                i = end;
+            } else if (ch == '/' && next == '*') {
+                int end = source.indexOf("*/", i + 2);
+                end = end < 0 ? length : end + 2;
+                if (isPreserved(source, i, end, leading)) {
+                    out.append(source, i, end);
+                    verbatimEnd = out.length();
+                } else if (source.indexOf('\n', i) >= 0 && source.indexOf('\n', i) < end) {
+                    newLine(out, verbatimEnd);
+                } else {
+                    // Keeps the tokens on either side apart.
+                    out.append(' ');
+                }
+                i = end;
+            } else if (ch == '/' && isRegexAllowed(out)) {
+                int end = skipRegex(source, i);
+                out.append(source, i, end);
+                verbatimEnd = out.length();
+                leading = false;
+                i = end;
+            } else if (ch == '\n') {
+                newLine(out, verbatimEnd);
+                i++;
+            } else if (Character.isWhitespace(ch) && isLineStart(out, verbatimEnd)) {
+                i++;
+            } else {
+                out.append(ch);
+                leading &= Character.isWhitespace(ch);
+                i++;
+            }
+        }
+        trimTrailing(out, verbatimEnd);
+        return out.toString();
+    }
+
+    static String minifyCss(String source) {
+        StringBuilder out = new StringBuilder(source.length());
+        boolean pendingSpace = false;
+        boolean leading = true;
+        int length = source.length();
+        int i = 0;
+        while (i < length) {
+            char ch = source.charAt(i);
+            if (ch == '/' && i + 1 < length && source.charAt(i + 1) == '*') {
+                int end = source.indexOf("*/", i + 2);
+                end = end < 0 ? length : end + 2;
+                if (isPreserved(source, i, end, leading)) {
+                    out.append(source, i, end);
+                } else {
+                    pendingSpace = true;
+                }
+                i = end;
+                continue;
+            }
+            if (Character.isWhitespace(ch)) {
+                pendingSpace = true;
+                i++;
+                continue;
+            }
+            char last = out.length() == 0 ? 0 : out.charAt(out.length() - 1);
+            if (pendingSpace && last != 0 && CSS_SEPARATORS.indexOf(last) < 0 && CSS_SEPARATORS.indexOf(ch) < 0) {
+                out.append(' ');
+            }
+            pendingSpace = false;
+            leading = false;
+            if (ch == '}' && last == ';') {
+                out.setLength(out.length() - 1);
+            }
+            if (ch == '\'' || ch == '"') {
+                int end = skipQuoted(source, i, ch);
+                out.append(source, i, end);
+                i = end;
+            } else {
+                out.append(ch);
+                i++;
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Whether the comment between start and end is kept as part of the license header.
+     */
+    private static boolean isPreserved(String source, int start, int end, boolean leading) {
+        if (leading || (start + 2 < end && source.charAt(start + 2) == '!')) {
+            return true;
+        }
+        String comment = source.substring(start, end);
+        return comment.contains("@license") || comment.contains("@preserve");
+    }
+
+    /**
+     * Index after the closing quote, strings other than template literals end at the line end at the latest.
+     */
+    private static int skipQuoted(String source, int start, char quote) {
+        int i = start + 1;
+        while (i < source.length()) {
+            char ch = source.charAt(i);
+            if (ch == '\\') {
+                i += 2;
+            } else if (ch == quote) {
+                return i + 1;
+            } else if (ch == '\n' && quote != '`') {
+                return i;
+            } else {
+                i++;
+            }
+        }
+        return source.length();
+    }
+
+    /**
+     * Index after the regular expression literal and its flags, or after the slash alone when it turns out not to be
+     * one, a literal never spans lines.
+     */
+    private static int skipRegex(String source, int start) {
+        boolean inClass = false;
+        int i = start + 1;
+        while (i < source.length()) {
+            char ch = source.charAt(i);
+            if (ch == '\\') {
+                i += 2;
+                continue;
+            }
+            if (ch == '\n') {
+                return start + 1;
+            }
+            if (ch == '[') {
+                inClass = true;
+            } else if (ch == ']') {
+                inClass = false;
+            } else if (ch == '/' && !inClass) {
+                return i + 1;
+            }
+            i++;
+        }
+        return start + 1;
+    }
+
+    /**
+     * A slash starts a regular expression literal, not a division, after an operator, an opening bracket or one of
+     * a few keywords.
+     */
+    private static boolean isRegexAllowed(StringBuilder out) {
+        int end = out.length() - 1;
+        while (end >= 0 && Character.isWhitespace(out.charAt(end))) {
+            end--;
+        }
+        if (end < 0) {
+            return true;
+        }
+        char last = out.charAt(end);
+        if (REGEX_PRECEDING_CHARS.indexOf(last) >= 0) {
+            return true;
+        }
+        int start = end;
+        while (start >= 0 && Character.isJavaIdentifierPart(out.charAt(start))) {
+            start--;
+        }
+        return start < end && REGEX_PRECEDING_KEYWORDS.contains(out.substring(start + 1, end + 1));
+    }
+
+    private static boolean isLineStart(StringBuilder out, int verbatimEnd) {
+        return out.length() == 0 || out.length() > verbatimEnd && out.charAt(out.length() - 1) == '\n';
+    }
+
+    private static void newLine(StringBuilder out, int verbatimEnd) {
+        trimTrailing(out, verbatimEnd);
+        if (out.length() > 0 && (out.length() == verbatimEnd || out.charAt(out.length() - 1) != '\n')) {
+            out.append('\n');
+        }
+    }
+
+    private static void trimTrailing(StringBuilder out, int verbatimEnd) {
+        int end = out.length();
+        while (end > verbatimEnd && end > 0 && out.charAt(end - 1) != '\n'
+                && Character.isWhitespace(out.charAt(end - 1))) {
+            end--;
+        }
+        out.setLength(end);
+    }
+}
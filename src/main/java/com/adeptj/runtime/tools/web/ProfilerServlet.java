@@ -0,0 +1,130 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.web;
+
+import com.adeptj.runtime.tools.profiler.FrameVisitor;
+import com.adeptj.runtime.tools.profiler.ProfilerMode;
+import com.adeptj.runtime.tools.profiler.SamplingProfiler;
+import org.apache.commons.lang3.BooleanUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Controls the {@link SamplingProfiler} from the dashboard and serves its profile.
+ * <p>
+ * POST with action=start (mode, interval in ms, duration in seconds, cpuTime) or action=stop, from the dashboard's own
+ * pages only, see {@link SameOrigin}. GET returns the status and the profile as a tree of {"n": frame, "v": total
+ * weight, "c": [children]}, frames below 0.1% of the total left out, or with format=collapsed the complete profile in
+ * the collapsed stack format for external flame graph tools.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public class ProfilerServlet extends HttpServlet {
+
+    private static final long serialVersionUID = -6413750248829371942L;
+
+    private static final double MIN_FRACTION = 0.001;
+
+    private static final long DEFAULT_INTERVAL_MILLIS = 20L;
+
+    private static final long DEFAULT_DURATION_SECONDS = 30L;
+
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        if (!SameOrigin.isSameOrigin(req)) {
+            resp.sendError(HttpServletResponse.SC_FORBIDDEN, "Cross-site request rejected!");
+            return;
+        }
+        SamplingProfiler profiler = SamplingProfiler.getInstance();
+        String action = req.getParameter("action");
+        if ("start".equals(action)) {
+            long duration = NumberUtils.toLong(req.getParameter("duration"), DEFAULT_DURATION_SECONDS);
+            boolean started = profiler.start(ProfilerMode.of(req.getParameter("mode")),
+                    NumberUtils.toLong(req.getParameter("interval"), DEFAULT_INTERVAL_MILLIS),
+                    TimeUnit.SECONDS.toMillis(duration), BooleanUtils.toBoolean(req.getParameter("cpuTime")));
+            if (!started) {
+                resp.sendError(HttpServletResponse.SC_CONFLICT, "Profiler is running already!");
+                return;
+            }
+        } else if ("stop".equals(action)) {
+            profiler.stop();
+        } else {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "Unknown action!");
+            return;
+        }
+        this.writeJson(resp, this.status(profiler).append('}'));
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        SamplingProfiler profiler = SamplingProfiler.getInstance();
+        resp.setCharacterEncoding("UTF-8");
+        resp.setHeader("Cache-Control", "no-store");
+        if ("collapsed".equals(req.getParameter("format"))) {
+            resp.setContentType("text/plain");
+            resp.setHeader("Content-Disposition", "attachment; filename=\"profile.collapsed\"");
+            profiler.writeCollapsed(resp.getWriter());
+            return;
+        }
+        StringBuilder json = this.status(profiler).append(",\"tree\":{\"n\":\"all\",\"v\":")
+                .append(profiler.getTotalWeight()).append(",\"c\":[");
+        profiler.visit(new FrameVisitor() {
+
+            @Override
+            public void enter(String frame, long totalWeight, long selfWeight) {
+                if (json.charAt(json.length() - 1) == '}') {
+                    json.append(',');
+                }
+                Json.quote(json.append("{\"n\":"), frame).append(",\"v\":").append(totalWeight).append(",\"c\":[");
+            }
+
+            @Override
+            public void exit() {
+                json.append("]}");
+            }
+        }, MIN_FRACTION);
+        this.writeJson(resp, json.append("]}}"));
+    }
+
+    private StringBuilder status(SamplingProfiler profiler) {
+        StringBuilder json = new StringBuilder(16384);
+        json.append("{\"running\":").append(profiler.isRunning())
+                .append(",\"mode\":");
+        Json.quote(json, profiler.getMode() == null ? null : profiler.getMode().name())
+                .append(",\"samples\":").append(profiler.getSampleCount())
+                .append(",\"truncated\":").append(profiler.getTruncatedWeight())
+                .append(",\"startTime\":").append(profiler.getStartTime())
+                .append(",\"endTime\":").append(profiler.getEndTime());
+        return json;
+    }
+
+    private void writeJson(HttpServletResponse resp, StringBuilder json) throws IOException {
+        resp.setCharacterEncoding("UTF-8");
+        resp.setContentType("application/json");
+        resp.setHeader("Cache-Control", "no-store");
+        resp.getWriter().write(json.toString());
+    }
+}
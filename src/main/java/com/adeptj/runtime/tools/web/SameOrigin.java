@@ -0,0 +1,67 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.web;
+
+import org.apache.commons.lang3.StringUtils;
+
+import javax.servlet.http.HttpServletRequest;
+import java.net.URI;
+import java.net.URISyntaxException;
+
+/**
+ * Guards the dashboard endpoints which change state against cross-site request forgery.
+ * <p>
+ * A request must carry the X-Requested-With header, which jQuery adds to its same origin requests and which a page of
+ * another site can neither put on a form post nor send cross origin without a preflight the tools never allow. On
+ * top of that the Origin, or the Referer if there is no Origin, must name the host the request was sent to.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+final class SameOrigin {
+
+    private static final String HEADER_REQUESTED_WITH = "X-Requested-With";
+
+    private static final String HEADER_ORIGIN = "Origin";
+
+    private static final String HEADER_REFERER = "Referer";
+
+    private static final String HEADER_HOST = "Host";
+
+    private SameOrigin() {
+    }
+
+    static boolean isSameOrigin(HttpServletRequest req) {
+        if (StringUtils.isEmpty(req.getHeader(HEADER_REQUESTED_WITH))) {
+            return false;
+        }
+        String source = StringUtils.defaultIfEmpty(req.getHeader(HEADER_ORIGIN), req.getHeader(HEADER_REFERER));
+        if (StringUtils.isEmpty(source)) {
+            // Neither is sent by some non-browser clients, which the header check above already covers.
+            return true;
+        }
+        try {
+            String authority = new URI(source).getRawAuthority();
+            return authority != null && authority.equalsIgnoreCase(req.getHeader(HEADER_HOST));
+        } catch (URISyntaxException ex) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.web;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Build step writing the hashed variants of the tools UI resources, run by the build on the compiled classes.
+ * <p>
+ * Every web resource gets a minified (JavaScript and CSS not minified already), content hashed copy next to it,
+ * e.g. scripts/jquery.0123456789.js, plus a precompressed .gz of it where that pays off. CSS url() references are
+ * pointed at the hashed images and fonts before the CSS itself is hashed, so a changed font changes the hash of the
+ * CSS too. Finally the /resources references of the templates are rewritten to the hashed names and the mapping is
+ * written to the {@link StaticResources#MANIFEST} for the {@link StaticResourceServlet}.
+ * <p>
+ * The original resources stay in place, they are still served but have to be revalidated by browsers.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public final class StaticResourceCompiler {
+
+    private static final Set<String> WEB_RESOURCES = new HashSet<>(Arrays.asList("js", "css", "svg", "png", "jpg",
+            "jpeg", "gif", "ico", "eot", "ttf", "otf", "woff", "woff2"));
+
+    private static final Pattern HASHED = Pattern.compile(".+\\.[0-9a-f]{" + StaticResources.HASH_LENGTH
+            + "}(\\.[a-z0-9]+)?(\\.gz)?");
+
+    private static final Pattern CSS_URL = Pattern.compile("url\\(\\s*(['\"]?)([^'\")]+?)\\1\\s*\\)");
+
+    private static final String PATH_CHARS = "[A-Za-z0-9_./-]+";
+
+    private static final Pattern TEMPLATE_REFERENCE = Pattern.compile("/resources/(" + PATH_CHARS + ")");
+
+    private static final double MIN_COMPRESSION_RATIO = 0.9;
+
+    private final Path resourcesDir;
+
+    private final Map<String, String> manifest;
+
+    private StaticResourceCompiler(Path resourcesDir) {
+        this.resourcesDir = resourcesDir;
+        this.manifest = new TreeMap<>();
+    }
+
+    /**
+     * @param args the directory of the compiled resources (tools/resources) and the templates directory.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: StaticResourceCompiler <resources dir> <templates dir>");
+        }
+        StaticResourceCompiler compiler = new StaticResourceCompiler(Paths.get(args[0]));
+        compiler.compile();
+        compiler.rewriteTemplates(Paths.get(args[1]));
+    }
+
+    private void compile() throws IOException {
+        List<Path> resources = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(this.resourcesDir)) {
+            for (Path file : files.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                if (HASHED.matcher(file.getFileName().toString()).matches()) {
+                    // Left over by a previous build.
+                    Files.delete(file);
+                } else if (WEB_RESOURCES.contains(StaticResources.extension(file.getFileName().toString()))) {
+                    resources.add(file);
+                }
+            }
+        }
+        // CSS last, it refers to the hashed names of everything else.
+        for (Path resource : resources) {
+            if (!"css".equals(StaticResources.extension(resource.toString()))) {
+                this.compile(resource, Files.readAllBytes(resource));
+            }
+        }
+        for (Path resource : resources) {
+            if ("css".equals(StaticResources.extension(resource.toString()))) {
+                String css = new String(Files.readAllBytes(resource), StandardCharsets.UTF_8);
+                if (!isMinified(resource)) {
+                    css = Minifier.minifyCss(css);
+                }
+                this.compile(resource, this.rewriteUrls(this.relativePath(resource), css)
+                        .getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        // Written sorted and without the timestamp Properties.store adds, so that builds stay reproducible.
+        try (Writer writer = Files.newBufferedWriter(this.resourcesDir.resolve(StaticResources.MANIFEST),
+                StandardCharsets.ISO_8859_1)) {
+            writer.write("# Hashed variants of the tools UI resources, written by StaticResourceCompiler\n");
+            for (Map.Entry<String, String> entry : this.manifest.entrySet()) {
+                writer.write(entry.getKey() + '=' + entry.getValue() + '\n');
+            }
+        }
+    }
+
+    private void compile(Path resource, byte[] content) throws IOException {
+        byte[] compiled = content;
+        if ("js".equals(StaticResources.extension(resource.toString())) && !isMinified(resource)) {
+            compiled = Minifier.minifyJs(new String(content, StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_8);
+        }
+        String path = this.relativePath(resource);
+        if (!path.matches(PATH_CHARS)) {
+            // Could not be referred to from the templates and would need escaping in the manifest.
+            return;
+        }
+        String hashedPath = StaticResources.hashedPath(path, StaticResources.hash(compiled));
+        Path hashed = this.resourcesDir.resolve(hashedPath);
+        Files.write(hashed, compiled);
+        if (StaticResources.isCompressible(path)) {
+            byte[] compressed = StaticResources.gzip(compiled);
+            if (compressed.length < compiled.length * MIN_COMPRESSION_RATIO) {
+                Files.write(hashed.resolveSibling(hashed.getFileName() + ".gz"), compressed);
+            }
+        }
+        this.manifest.put(path, hashedPath);
+    }
+
+    /**
+     * Points relative url() references of the CSS at the given path to the hashed names, query and fragment, as used
+     * by the font declarations, are kept.
+     */
+    private String rewriteUrls(String cssPath, String css) {
+        Path cssDir = Paths.get(cssPath).getParent();
+        Matcher matcher = CSS_URL.matcher(css);
+        StringBuffer rewritten = new StringBuffer(css.length());
+        while (matcher.find()) {
+            String url = matcher.group(2).trim();
+            int suffixStart = indexOfAny(url, '?', '#');
+            String target = suffixStart < 0 ? url : url.substring(0, suffixStart);
+            String suffix = suffixStart < 0 ? "" : url.substring(suffixStart);
+            String hashedTarget = target.contains(":") || target.startsWith("/") || target.isEmpty() ? null
+                    : this.manifest.get(normalize(cssDir == null ? Paths.get(target) : cssDir.resolve(target)));
+            String replacement = hashedTarget == null ? matcher.group()
+                    : "url(" + matcher.group(1) + relativize(cssDir, hashedTarget) + suffix + matcher.group(1) + ")";
+            matcher.appendReplacement(rewritten, Matcher.quoteReplacement(replacement));
+        }
+        matcher.appendTail(rewritten);
+        return rewritten.toString();
+    }
+
+    private void rewriteTemplates(Path templatesDir) throws IOException {
+        if (!Files.isDirectory(templatesDir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(templatesDir)) {
+            for (Path template : files.filter(file -> file.toString().endsWith(".html")).collect(Collectors.toList())) {
+                String html = new String(Files.readAllBytes(template), StandardCharsets.UTF_8);
+                Matcher matcher = TEMPLATE_REFERENCE.matcher(html);
+                StringBuffer rewritten = new StringBuffer(html.length());
+                while (matcher.find()) {
+                    String hashedPath = this.manifest.get(matcher.group(1));
+                    matcher.appendReplacement(rewritten, Matcher.quoteReplacement(hashedPath == null
+                            ? matcher.group() : "/resources/" + hashedPath));
+                }
+                matcher.appendTail(rewritten);
+                try (Writer writer = Files.newBufferedWriter(template, StandardCharsets.UTF_8)) {
+                    writer.write(rewritten.toString());
+                }
+            }
+        }
+    }
+
+    private String relativePath(Path resource) {
+        return normalize(this.resourcesDir.relativize(resource));
+    }
+
+    private static String normalize(Path path) {
+        return path.normalize().toString().replace('\\', '/');
+    }
+
+    private static String relativize(Path cssDir, String path) {
+        return cssDir == null ? path : normalize(cssDir.relativize(Paths.get(path)));
+    }
+
+    private static boolean isMinified(Path resource) {
+        return resource.getFileName().toString().contains(".min.");
+    }
+
+    private static int indexOfAny(String value, char first, char second) {
+        int firstIndex = value.indexOf(first);
+        int secondIndex = value.indexOf(second);
+        return firstIndex < 0 ? secondIndex : secondIndex < 0 ? firstIndex : Math.min(firstIndex, secondIndex);
+    }
+}
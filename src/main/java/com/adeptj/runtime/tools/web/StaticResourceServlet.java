@@ -0,0 +1,196 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.web;
+
+import org.apache.commons.lang3.StringUtils;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Serves the tools UI resources from an in-memory cache, each one is read from the bundle only once.
+ * <p>
+ * The content hashed variants written by the {@link StaticResourceCompiler}, which the templates refer to, never
+ * change and are therefore cacheable forever (immutable). Any other resource has to be revalidated, which the strong
+ * ETag makes cheap. Clients accepting gzip get the precompressed variant, or one compressed on first request.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public class StaticResourceServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 3407523148470613960L;
+
+    private static final String CACHE_IMMUTABLE = "public, max-age=31536000, immutable";
+
+    private static final String CACHE_REVALIDATE = "no-cache";
+
+    private static final String GZIP = "gzip";
+
+    private final transient ConcurrentMap<String, CachedResource> cache = new ConcurrentHashMap<>();
+
+    private transient Set<String> hashedPaths;
+
+    @Override
+    public void init() {
+        Properties manifest = new Properties();
+        try (InputStream in = this.open(StaticResources.MANIFEST)) {
+            if (in != null) {
+                manifest.load(in);
+            }
+        } catch (IOException ex) {
+            this.log("Could not read the static resource manifest, resources are served without hashed names.", ex);
+        }
+        this.hashedPaths = new HashSet<>(manifest.stringPropertyNames().size());
+        manifest.stringPropertyNames().forEach(path -> this.hashedPaths.add(manifest.getProperty(path)));
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        String path = StringUtils.removeStart(req.getPathInfo(), "/");
+        if (StringUtils.isEmpty(path) || path.contains("..") || path.endsWith(".gz")
+                || StaticResources.MANIFEST.equals(path)) {
+            resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        CachedResource resource = this.cache.get(path);
+        if (resource == null) {
+            resource = this.load(path);
+            if (resource == null) {
+                resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+            CachedResource existing = this.cache.putIfAbsent(path, resource);
+            resource = existing == null ? resource : existing;
+        }
+        boolean gzip = resource.gzipped != null && acceptsGzip(req.getHeader("Accept-Encoding"));
+        String etag = gzip ? resource.gzipEtag : resource.etag;
+        resp.setHeader("ETag", etag);
+        resp.setHeader("Cache-Control", resource.immutable ? CACHE_IMMUTABLE : CACHE_REVALIDATE);
+        if (resource.gzipped != null) {
+            resp.setHeader("Vary", "Accept-Encoding");
+        }
+        if (matches(req.getHeader("If-None-Match"), resource)) {
+            resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        byte[] body = gzip ? resource.gzipped : resource.content;
+        if (gzip) {
+            resp.setHeader("Content-Encoding", GZIP);
+        }
+        resp.setContentType(resource.contentType);
+        resp.setContentLength(body.length);
+        resp.getOutputStream().write(body);
+    }
+
+    private CachedResource load(String path) throws IOException {
+        byte[] content;
+        try (InputStream in = this.open(path)) {
+            if (in == null) {
+                return null;
+            }
+            content = StaticResources.read(in);
+        }
+        boolean immutable = this.hashedPaths.contains(path);
+        byte[] gzipped = null;
+        if (StaticResources.isCompressible(path)) {
+            try (InputStream in = immutable ? this.open(path + ".gz") : null) {
+                gzipped = in == null ? StaticResources.gzip(content) : StaticResources.read(in);
+            }
+            if (gzipped.length >= content.length) {
+                gzipped = null;
+            }
+        }
+        String contentType = StaticResources.contentType(path);
+        if (contentType == null) {
+            contentType = StringUtils.defaultString(this.getServletContext().getMimeType(path),
+                    "application/octet-stream");
+        }
+        return new CachedResource(content, gzipped, StaticResources.hash(content), immutable, contentType);
+    }
+
+    private InputStream open(String path) {
+        return StaticResourceServlet.class.getClassLoader().getResourceAsStream(StaticResources.ROOT + path);
+    }
+
+    /**
+     * Both representations carry the same content, a client holding either one is up to date.
+     */
+    private static boolean matches(String ifNoneMatch, CachedResource resource) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : StringUtils.split(ifNoneMatch, ',')) {
+            String etag = StringUtils.removeStart(StringUtils.trim(tag), "W/");
+            if ("*".equals(etag) || resource.etag.equals(etag) || resource.gzipEtag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : StringUtils.split(acceptEncoding, ',')) {
+            if (GZIP.equalsIgnoreCase(StringUtils.trim(StringUtils.substringBefore(coding, ";")))) {
+                String quality = StringUtils.trim(StringUtils.substringAfter(coding, "q="));
+                return quality.isEmpty() || !quality.matches("0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A resource as served, the content hash doubles as ETag.
+     */
+    private static final class CachedResource {
+
+        private final byte[] content;
+
+        private final byte[] gzipped;
+
+        private final String etag;
+
+        private final String gzipEtag;
+
+        private final boolean immutable;
+
+        private final String contentType;
+
+        CachedResource(byte[] content, byte[] gzipped, String hash, boolean immutable, String contentType) {
+            this.content = content;
+            this.gzipped = gzipped;
+            this.etag = '"' + hash + '"';
+            this.gzipEtag = "\"" + hash + "-gzip\"";
+            this.immutable = immutable;
+            this.contentType = contentType;
+        }
+    }
+}
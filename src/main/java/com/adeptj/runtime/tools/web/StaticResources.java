@@ -0,0 +1,157 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.web;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * What the {@link StaticResourceCompiler} at build time and the {@link StaticResourceServlet} at runtime have to agree
+ * on: where the resources live, how hashed names look and which resources are worth compressing.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+final class StaticResources {
+
+    /**
+     * Classpath location of the tools UI resources, served under /resources.
+     */
+    static final String ROOT = "tools/resources/";
+
+    /**
+     * Maps each resource path, relative to {@link #ROOT}, to the path of its hashed variant.
+     */
+    static final String MANIFEST = "static-resources.properties";
+
+    static final int HASH_LENGTH = 10;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final Set<String> COMPRESSIBLE = new HashSet<>(Arrays.asList("js", "css", "svg", "html", "json",
+            "txt", "xml", "map", "eot", "ttf", "otf"));
+
+    private static final Map<String, String> CONTENT_TYPES = new HashMap<>();
+
+    static {
+        CONTENT_TYPES.put("js", "application/javascript;charset=UTF-8");
+        CONTENT_TYPES.put("css", "text/css;charset=UTF-8");
+        CONTENT_TYPES.put("svg", "image/svg+xml");
+        CONTENT_TYPES.put("png", "image/png");
+        CONTENT_TYPES.put("jpg", "image/jpeg");
+        CONTENT_TYPES.put("jpeg", "image/jpeg");
+        CONTENT_TYPES.put("gif", "image/gif");
+        CONTENT_TYPES.put("ico", "image/x-icon");
+        CONTENT_TYPES.put("eot", "application/vnd.ms-fontobject");
+        CONTENT_TYPES.put("ttf", "font/ttf");
+        CONTENT_TYPES.put("otf", "font/otf");
+        CONTENT_TYPES.put("woff", "font/woff");
+        CONTENT_TYPES.put("woff2", "font/woff2");
+    }
+
+    private StaticResources() {
+    }
+
+    static String extension(String path) {
+        return StringUtils.lowerCase(StringUtils.substringAfterLast(StringUtils.substringAfterLast("/" + path, "/"),
+                "."));
+    }
+
+    static boolean isCompressible(String path) {
+        return COMPRESSIBLE.contains(extension(path));
+    }
+
+    /**
+     * The content type of the well known web resource types, null for anything else.
+     */
+    static String contentType(String path) {
+        return CONTENT_TYPES.get(extension(path));
+    }
+
+    /**
+     * Hex encoded prefix of the SHA-256 digest of the given content.
+     */
+    static String hash(byte[] content) {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException ex) {
+            // Every JRE has to support SHA-256.
+            throw new IllegalStateException(ex);
+        }
+        char[] hash = new char[HASH_LENGTH];
+        for (int i = 0; i < HASH_LENGTH; i++) {
+            int value = digest[i / 2] >> (i % 2 == 0 ? 4 : 0);
+            hash[i] = HEX[value & 0xF];
+        }
+        return new String(hash);
+    }
+
+    /**
+     * Inserts the hash before the extension, e.g. scripts/jquery.js becomes scripts/jquery.0123456789.js.
+     */
+    static String hashedPath(String path, String hash) {
+        int slash = path.lastIndexOf('/');
+        int dot = path.lastIndexOf('.');
+        return dot > slash + 1 ? path.substring(0, dot) + '.' + hash + path.substring(dot) : path + '.' + hash;
+    }
+
+    static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(content.length / 2);
+        try (OutputStream out = new BestCompressionGzipStream(compressed)) {
+            out.write(content);
+        }
+        return compressed.toByteArray();
+    }
+
+    static byte[] read(InputStream in) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream(8192);
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            content.write(buffer, 0, read);
+        }
+        return content.toByteArray();
+    }
+
+    /**
+     * Compressing takes longer but it is done only once per resource, at build time or on first request.
+     */
+    private static final class BestCompressionGzipStream extends GZIPOutputStream {
+
+        BestCompressionGzipStream(OutputStream out) throws IOException {
+            super(out);
+            this.def.setLevel(Deflater.BEST_COMPRESSION);
+        }
+    }
+}
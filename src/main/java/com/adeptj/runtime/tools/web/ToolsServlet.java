@@ -0,0 +1,129 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.web;
+
+import javax.servlet.ServletContext;
+import javax.servlet.ServletRegistration;
+import javax.servlet.http.HttpServlet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The servlets behind the tools dashboard and the paths they are mapped at.
+ * <p>
+ * The runtime registers them all with {@link #register(ServletContext)} while its servlet context is initialized,
+ * and the dashboard template refers to them through the {@link #urls()} it finds in its model, so the paths are
+ * written down here only.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public enum ToolsServlet {
+
+    DASHBOARD_SECTIONS("dashboardSections", "/tools/sections/*", DashboardServlet.class),
+
+    LOG_TAIL("logTail", "/tools/logs/tail", LogTailServlet.class),
+
+    LOG_SEARCH("logSearch", "/tools/logs/search", LogSearchServlet.class),
+
+    MERGED_LOG("mergedLog", "/tools/logs/merged", MergedLogServlet.class),
+
+    JVM_METRICS("jvmMetrics", "/tools/metrics/jvm", JvmMetricsServlet.class),
+
+    LOGGING_METRICS("loggingMetrics", "/tools/metrics/logging", LoggingMetricsServlet.class),
+
+    PROFILER("profiler", "/tools/profiler", ProfilerServlet.class),
+
+    DEBUG_RULES("debugRules", "/tools/logging/debug", DebugRulesServlet.class),
+
+    /**
+     * Takes the place of the default resource handling.
+     */
+    STATIC_RESOURCES("staticResources", "/resources/*", StaticResourceServlet.class);
+
+    private static final String WILDCARD = "/*";
+
+    private final String key;
+
+    private final String urlPattern;
+
+    private final Class<? extends HttpServlet> servletClass;
+
+    ToolsServlet(String key, String urlPattern, Class<? extends HttpServlet> servletClass) {
+        this.key = key;
+        this.urlPattern = urlPattern;
+        this.servletClass = servletClass;
+    }
+
+    /**
+     * The name of the template variable holding {@link #getUrl()}, e.g. {{logTailUrl}}.
+     */
+    public String getKey() {
+        return this.key + "Url";
+    }
+
+    public String getUrlPattern() {
+        return this.urlPattern;
+    }
+
+    /**
+     * The path clients call, the url pattern without its wildcard.
+     */
+    public String getUrl() {
+        return this.urlPattern.endsWith(WILDCARD)
+                ? this.urlPattern.substring(0, this.urlPattern.length() - WILDCARD.length())
+                : this.urlPattern;
+    }
+
+    public Class<? extends HttpServlet> getServletClass() {
+        return this.servletClass;
+    }
+
+    /**
+     * The url of every servlet by its template variable name.
+     */
+    public static Map<String, String> urls() {
+        Map<String, String> urls = new HashMap<>();
+        for (ToolsServlet servlet : values()) {
+            urls.put(servlet.getKey(), servlet.getUrl());
+        }
+        return Collections.unmodifiableMap(urls);
+    }
+
+    /**
+     * Registers all the servlets, to be called from a ServletContainerInitializer or a ServletContextListener's
+     * contextInitialized, the only places the servlet context accepts new servlets from.
+     *
+     * @throws IllegalStateException if a servlet is already registered under the same name.
+     */
+    public static void register(ServletContext context) {
+        for (ToolsServlet servlet : values()) {
+            String servletName = "AdeptJ Tools " + servlet.servletClass.getSimpleName();
+            ServletRegistration.Dynamic registration = context.addServlet(servletName, servlet.servletClass);
+            if (registration == null) {
+                throw new IllegalStateException("Servlet [" + servletName + "] is already registered!");
+            }
+            registration.addMapping(servlet.urlPattern);
+            // The live tail parks its requests, the others don't care.
+            registration.setAsyncSupported(true);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+/*
+###############################################################################
+#                                                                             #
+#    Copyright 2016, AdeptJ (http://www.adeptj.com)                           #
+#                                                                             #
+#    Licensed under the Apache License, Version 2.0 (the "License");          #
+#    you may not use this file except in compliance with the License.         #
+#    You may obtain a copy of the License at                                  #
+#                                                                             #
+#        http://www.apache.org/licenses/LICENSE-2.0                           #
+#                                                                             #
+#    Unless required by applicable law or agreed to in writing, software      #
+#    distributed under the License is distributed on an "AS IS" BASIS,        #
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. #
+#    See the License for the specific language governing permissions and      #
+#    limitations under the License.                                           #
+#                                                                             #
+###############################################################################
+*/
+
+package com.adeptj.runtime.tools.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Round trips events through {@link BinaryLogEncoder} and {@link BinaryLogDecoder}, including the records a crash or
+ * a bad disk leaves behind.
+ *
+ * @author Rakesh.Kumar, AdeptJ
+ */
+public class BinaryLogDecoderTest {
+
+    private static final long TIMESTAMP = 1_500_000_000_000L;
+
+    private LoggerContext context;
+
+    private BinaryLogEncoder encoder;
+
+    private ByteArrayOutputStream file;
+
+    @Before
+    public void setUp() {
+        this.context = new LoggerContext();
+        this.context.setName("test");
+        this.encoder = new BinaryLogEncoder();
+        this.encoder.setContext(this.context);
+        this.encoder.start();
+        this.file = new ByteArrayOutputStream();
+    }
+
+    @Test
+    public void decodesWhatWasEncodedAcrossSegments() throws IOException {
+        List<LoggingEvent> written = new ArrayList<>();
+        this.file.write(this.encoder.headerBytes());
+        written.add(this.write(this.event("com.example.Orders", Level.INFO, "Order [{}] placed", 0, "42")));
+        written.add(this.write(this.event("com.example.Orders", Level.INFO, "Order [{}] placed", 5, "43")));
+        // A new segment starts over with empty dictionaries, the same strings are defined again.
+        this.file.write(this.encoder.headerBytes());
+        LoggingEvent failed = this.event("com.example.Orders", Level.ERROR, "Order [{}] failed", 9, "44");
+        failed.setMDCPropertyMap(Collections.singletonMap("user", "jane"));
+        written.add(this.write(failed));
+        written.add(this.write(this.event("com.example.Orders", Level.WARN, "Order [{}] placed", 12, "45")));
+        List<ILoggingEvent> read = this.readAll();
+        assertEquals(written.size(), read.size());
+        for (int i = 0; i < written.size(); i++) {
+            assertSameEvent(written.get(i), read.get(i));
+        }
+        assertEquals("jane", read.get(2).getMDCPropertyMap().get("user"));
+    }
+
+    @Test
+    public void decodesThrowables() throws IOException {
+        this.file.write(this.encoder.headerBytes());
+        Logger logger = this.context.getLogger("com.example.Payments");
+        IllegalStateException cause = new IllegalStateException("Gateway down");
+        LoggingEvent event = new LoggingEvent(Logger.class.getName(), logger, Level.ERROR, "Payment failed",
+                new IOException("Charge failed", cause), null);
+        event.setTimeStamp(TIMESTAMP);
+        this.write(event);
+        ILoggingEvent read = this.readAll().get(0);
+        assertNotNull(read.getThrowableProxy());
+        assertEquals(IOException.class.getName(), read.getThrowableProxy().getClassName());
+        assertEquals("Charge failed", read.getThrowableProxy().getMessage());
+        assertEquals(IllegalStateException.class.getName(), read.getThrowableProxy().getCause().getClassName());
+        assertEquals(event.getThrowableProxy().getStackTraceElementProxyArray().length,
+                read.getThrowableProxy().getStackTraceElementProxyArray().length);
+    }
+
+    @Test
+    public void endsAtRecordCutOffAtTheEnd() throws IOException {
+        this.file.write(this.encoder.headerBytes());
+        LoggingEvent first = this.write(this.event("com.example.Orders", Level.INFO, "Order [{}] placed", 0, "42"));
+        byte[] second = this.encoder.encode(this.event("com.example.Orders", Level.INFO, "Order [{}] placed", 1, "43"));
+        this.file.write(second, 0, second.length - 3);
+        List<ILoggingEvent> read = this.readAll();
+        assertEquals(1, read.size());
+        assertSameEvent(first, read.get(0));
+    }
+
+    @Test
+    public void resumesAtSegmentAppendedAfterRecordCutOff() throws IOException {
+        this.file.write(this.encoder.headerBytes());
+        LoggingEvent first = this.write(this.event("com.example.Orders", Level.INFO, "Order [{}] placed", 0, "42"));
+        byte[] second = this.encoder.encode(this.event("com.example.Orders", Level.INFO, "Order [{}] placed", 1, "43"));
+        this.file.write(second, 0, second.length / 2);
+        // Appended to again after a restart.
+        this.file.write(this.encoder.headerBytes());
+        LoggingEvent third = this.write(this.event("com.example.Orders", Level.WARN, "Order [{}] late", 2, "44"));
+        List<ILoggingEvent> read = this.readAll();
+        assertEquals(2, read.size());
+        assertSameEvent(first, read.get(0));
+        assertSameEvent(third, read.get(1));
+    }
+
+    @Test
+    public void skipsToNextSegmentOnCheckMismatch() throws IOException {
+        this.file.write(this.encoder.headerBytes());
+        LoggingEvent first = this.write(this.event("com.example.Orders", Level.INFO, "Order [{}] placed", 0, "42"));
+        byte[] corrupt = this.encoder.encode(this.event("com.example.Orders", Level.INFO, "Order [{}] shipped", 1,
+                "43"));
+        // Flips a bit in the message text, the record still decodes but no longer matches its check bytes.
+        corrupt[corrupt.length - 8] ^= 0x01;
+        this.file.write(corrupt);
+        this.write(this.event("com.example.Orders", Level.INFO, "Order [{}] placed", 2, "44"));
+        this.file.write(this.encoder.headerBytes());
+        LoggingEvent last = this.write(this.event("com.example.Orders", Level.INFO, "Order [{}] placed", 3, "45"));
+        List<ILoggingEvent> read = this.readAll();
+        assertEquals(2, read.size());
+        assertSameEvent(first, read.get(0));
+        assertSameEvent(last, read.get(1));
+    }
+
+    @Test
+    public void resyncsRepeatedlyWithinOneStream() throws IOException {
+        List<LoggingEvent> expected = new ArrayList<>();
+        for (int segment = 0; segment < 50; segment++) {
+            this.file.write(this.encoder.headerBytes());
+            expected.add(this.write(this.event("com.example.Orders", Level.INFO, "Order [{}] placed", segment,
+                    String.valueOf(segment))));
+            byte[] corrupt = this.encoder.encode(this.event("com.example.Orders", Level.INFO, "Order [{}] lost",
+                    segment, String.valueOf(segment)));
+            corrupt[corrupt.length - 1] ^= 0x01;
+            this.file.write(corrupt);
+        }
+        List<ILoggingEvent> read = this.readAll();
+        assertEquals(expected.size(), read.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSameEvent(expected.get(i), read.get(i));
+        }
+    }
+
+    @Test
+    public void resyncsPastDataLookingLikeSegmentHeader() throws IOException {
+        this.file.write(this.encoder.headerBytes());
+        LoggingEvent first = this.write(this.event("com.example.Orders", Level.INFO, "Order [{}] placed", 0, "42"));
+        // The message holds the segment tag and magic followed by a version which does not exist.
+        byte[] corrupt = this.encoder.encode(this.event("com.example.Orders", Level.INFO, "Order [{}] \u0007AJLBc",
+                1, "43"));
+        corrupt[corrupt.length - 1] ^= 0x01;
+        this.file.write(corrupt);
+        this.write(this.event("com.example.Orders", Level.INFO, "Order [{}] placed", 2, "44"));
+        this.file.write(this.encoder.headerBytes());
+        LoggingEvent last = this.write(this.event("com.example.Orders", Level.INFO, "Order [{}] placed", 3, "45"));
+        List<ILoggingEvent> read = this.readAll();
+        assertEquals(2, read.size());
+        assertSameEvent(first, read.get(0));
+        assertSameEvent(last, read.get(1));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherFormats() throws IOException {
+        this.file.write("2017-01-01 00:00:00.000 [main] INFO  Orders - placed".getBytes(StandardCharsets.UTF_8));
+        this.readAll();
+    }
+
+    private LoggingEvent event(String loggerName, Level level, String message, long offset, String argument) {
+        Logger logger = this.context.getLogger(loggerName);
+        LoggingEvent event = new LoggingEvent(Logger.class.getName(), logger, level, message, null,
+                new Object[]{argument});
+        event.setTimeStamp(TIMESTAMP + offset);
+        event.setThreadName("worker-1");
+        event.setMDCPropertyMap(Collections.emptyMap());
+        return event;
+    }
+
+    private LoggingEvent write(LoggingEvent event) throws IOException {
+        this.file.write(this.encoder.encode(event));
+        return event;
+    }
+
+    private List<ILoggingEvent> readAll() throws IOException {
+        List<ILoggingEvent> events = new ArrayList<>();
+        try (BinaryLogDecoder decoder = new BinaryLogDecoder(new ByteArrayInputStream(this.file.toByteArray()))) {
+            ILoggingEvent event;
+            while ((event = decoder.next()) != null) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    private static void assertSameEvent(ILoggingEvent expected, ILoggingEvent actual) {
+        assertEquals(expected.getTimeStamp(), actual.getTimeStamp());
+        assertEquals(expected.getLevel(), actual.getLevel());
+        assertEquals(expected.getLoggerName(), actual.getLoggerName());
+        assertEquals(expected.getThreadName(), actual.getThreadName());
+        assertEquals(expected.getMessage(), actual.getMessage());
+        assertArrayEquals(expected.getArgumentArray(), actual.getArgumentArray());
+        assertEquals(expected.getFormattedMessage(), actual.getFormattedMessage());
+        assertNull(actual.getThrowableProxy());
+        assertEquals(expected.getMDCPropertyMap(), actual.getMDCPropertyMap());
+    }
+}